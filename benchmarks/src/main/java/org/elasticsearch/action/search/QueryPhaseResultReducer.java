@@ -0,0 +1,47 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.List;
+
+/**
+ * Gives benchmarks access to the package private result consumers of {@link SearchPhaseController}.
+ */
+public final class QueryPhaseResultReducer {
+
+    private QueryPhaseResultReducer() {
+    }
+
+    /**
+     * Consumes the given shard results the same way the query phase of a search request does, including the incremental reduction
+     * that kicks in when the request's batched reduce size is smaller than the number of shards, and returns the final reduce.
+     */
+    public static SearchPhaseController.ReducedQueryPhase reduce(SearchPhaseController controller, SearchRequest request,
+                                                                 List<QuerySearchResult> results) {
+        InitialSearchPhase.ArraySearchPhaseResults<SearchPhaseResult> consumer =
+            controller.newSearchPhaseResults(request, results.size());
+        for (QuerySearchResult result : results) {
+            consumer.consumeResult(result);
+        }
+        return consumer.reduce();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of the compressors in {@link CompressorFactory} when compressing and decompressing JSON documents,
+ * which compress well, and random bytes, which do not compress at all. Next to the number of operations per second, the
+ * {@code compress} benchmark reports the number of uncompressed and compressed bytes per second as the secondary
+ * {@code compress:uncompressedBytes} and {@code compress:compressedBytes} results: the former is the throughput in bytes
+ * per second and dividing the latter by the former gives the compression ratio.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class CompressorBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"deflate", "lz4"})
+    public String compressor = "deflate";
+
+    @Param({"json", "random"})
+    public String data = "json";
+
+    @Param({"1024", "65536", "1048576"})
+    public int size = 65536;
+
+    private Compressor comp;
+    private BytesReference uncompressed;
+    private BytesReference compressed;
+
+    @Setup
+    public void setUp() throws IOException {
+        comp = CompressorFactory.compressor(compressor);
+        Random random = new Random(0);
+        if ("json".equals(data)) {
+            uncompressed = json(random);
+        } else {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            uncompressed = new BytesArray(bytes);
+        }
+        compressed = compress();
+    }
+
+    /**
+     * Log like documents with a fixed set of keys, a few low cardinality values and some free text, the way they would be
+     * sent in a bulk request or returned in search hits.
+     */
+    private BytesReference json(Random random) throws IOException {
+        String[] levels = new String[] {"INFO", "WARN", "DEBUG", "ERROR"};
+        String[] words = new String[] {"shard", "index", "node", "started", "failed", "recovery", "primary", "replica", "cluster",
+            "allocation", "snapshot", "merge", "refresh", "flush", "translog", "segment"};
+        BytesStreamOutput bytesOut = new BytesStreamOutput(size);
+        try (XContentBuilder builder = XContentFactory.jsonBuilder(bytesOut)) {
+            builder.startArray();
+            long timestamp = 1500000000000L;
+            while (bytesOut.size() < size) {
+                builder.startObject();
+                builder.field("@timestamp", timestamp += random.nextInt(1000));
+                builder.field("level", levels[random.nextInt(levels.length)]);
+                builder.field("host", "host-" + random.nextInt(32));
+                builder.field("pid", 1000 + random.nextInt(10));
+                StringBuilder message = new StringBuilder();
+                for (int i = 0; i < 5 + random.nextInt(10); i++) {
+                    message.append(words[random.nextInt(words.length)]).append(' ');
+                }
+                builder.field("message", message.toString());
+                builder.field("duration_ms", random.nextDouble() * 100);
+                builder.endObject();
+                builder.flush();
+            }
+            builder.endArray();
+        }
+        return new BytesArray(bytesOut.bytes().toBytesRef().bytes, 0, size);
+    }
+
+    /**
+     * Counts the bytes that go in and out of the compressor. Both counters are normalized by the same measurement time, so
+     * their ratio is the compression ratio.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class CompressedBytes {
+        public long uncompressedBytes;
+        public long compressedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uncompressedBytes = 0;
+            compressedBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public BytesReference compress(CompressedBytes counters) throws IOException {
+        BytesReference bytes = compress();
+        counters.uncompressedBytes += uncompressed.length();
+        counters.compressedBytes += bytes.length();
+        return bytes;
+    }
+
+    private BytesReference compress() throws IOException {
+        BytesStreamOutput bytesOut = new BytesStreamOutput(size);
+        try (StreamOutput out = comp.streamOutput(bytesOut)) {
+            uncompressed.writeTo(out);
+        }
+        return bytesOut.bytes();
+    }
+
+    @Benchmark
+    public BytesReference decompress() throws IOException {
+        BytesStreamOutput bytesOut = new BytesStreamOutput(size);
+        try (StreamInput in = comp.streamInput(compressed.streamInput())) {
+            Streams.copy(in, bytesOut);
+        }
+        return bytesOut.bytes();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.index.translog;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of translog syncs through {@link TranslogSyncScheduler} when every benchmark thread acts as an indexing
+ * thread of its own shard: it appends an operation to the shard's file and waits for it to be synced. With one concurrent sync
+ * the syncs of a group commit round are issued one after the other. Set {@code java.io.tmpdir} to a directory on the disk to
+ * measure, the results depend on the file system and the device.
+ */
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class TranslogGroupCommitBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"1", "4", "16"})
+    public int maxConcurrentSyncs = 16;
+
+    private Path dataPath;
+    private ThreadPool threadPool;
+    private TranslogSyncScheduler scheduler;
+    private AtomicInteger shardIds;
+
+    @Setup
+    public void setUp() throws IOException {
+        dataPath = Files.createTempDirectory("translog-group-commit");
+        threadPool = new ThreadPool(Settings.builder().put("node.name", "benchmark").build());
+        scheduler = new TranslogSyncScheduler(Settings.builder()
+            .put(TranslogSyncScheduler.GROUP_COMMIT_ENABLED_SETTING.getKey(), true)
+            .put(TranslogSyncScheduler.GROUP_COMMIT_MAX_CONCURRENT_SYNCS_SETTING.getKey(), maxConcurrentSyncs)
+            .build(), threadPool);
+        shardIds = new AtomicInteger();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        IOUtils.rm(dataPath);
+    }
+
+    @State(Scope.Thread)
+    public static class Shard {
+        private FileChannel channel;
+        // the same instance for all syncs of the shard, so that the scheduler coalesces them
+        private CheckedConsumer<Translog.Location, IOException> translogSync;
+        private ByteBuffer operation;
+        private long generation;
+        private int offset;
+
+        @Setup(Level.Trial)
+        public void setUp(TranslogGroupCommitBenchmark benchmark) throws IOException {
+            generation = benchmark.shardIds.incrementAndGet();
+            channel = FileChannel.open(benchmark.dataPath.resolve("translog-" + generation + ".tlog"),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            translogSync = location -> channel.force(false);
+            operation = ByteBuffer.allocate(256);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Benchmark
+    public void indexAndSync(Shard shard) throws Exception {
+        shard.operation.clear();
+        shard.offset += shard.channel.write(shard.operation);
+        final CompletableFuture<Void> synced = new CompletableFuture<>();
+        scheduler.sync(dataPath, shard.translogSync, new Translog.Location(shard.generation, shard.offset, 256),
+            e -> {
+                if (e == null) {
+                    synced.complete(null);
+                } else {
+                    synced.completeExceptionally(e);
+                }
+            });
+        synced.get();
+    }
+}
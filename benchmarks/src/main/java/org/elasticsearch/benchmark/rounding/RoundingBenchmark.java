@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.rounding;
+
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rounding the values of a date histogram with a {@link Rounding} to rounding them with the same rounding prepared
+ * for the range of the values, for a time zone with daylight saving time and for UTC. The values cover one year, sorted like
+ * the doc values of a segment with a time based index sort would be.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class RoundingBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"Europe/Berlin", "UTC"})
+    public String timeZone = "Europe/Berlin";
+
+    @Param({"hour", "day", "month", "90m"})
+    public String interval = "hour";
+
+    @Param({"10000"})
+    public int count = 10000;
+
+    private long[] values;
+    private Rounding rounding;
+    private Rounding prepared;
+
+    @Setup
+    public void setUp() {
+        DateTimeZone tz = DateTimeZone.forID(timeZone);
+        final Rounding.Builder builder;
+        switch (interval) {
+            case "hour":
+                builder = Rounding.builder(DateTimeUnit.HOUR_OF_DAY);
+                break;
+            case "day":
+                builder = Rounding.builder(DateTimeUnit.DAY_OF_MONTH);
+                break;
+            case "month":
+                builder = Rounding.builder(DateTimeUnit.MONTH_OF_YEAR);
+                break;
+            default:
+                builder = Rounding.builder(TimeValue.parseTimeValue(interval, "interval"));
+                break;
+        }
+        rounding = builder.timeZone(tz).build();
+
+        long min = 1483228800000L; // 2017-01-01T00:00:00Z
+        long max = min + TimeUnit.DAYS.toMillis(365);
+        Random random = new Random(0);
+        values = new long[count];
+        long value = min;
+        long step = (max - min) / count;
+        for (int i = 0; i < count; i++) {
+            value += random.nextInt((int) step * 2);
+            values[i] = Math.min(value, max);
+        }
+        prepared = rounding.prepare(min, max);
+    }
+
+    @Benchmark
+    public long round() {
+        return roundAll(rounding);
+    }
+
+    @Benchmark
+    public long roundPrepared() {
+        return roundAll(prepared);
+    }
+
+    private long roundAll(Rounding rounding) {
+        long sum = 0;
+        for (long value : values) {
+            sum += rounding.round(value);
+        }
+        return sum;
+    }
+}
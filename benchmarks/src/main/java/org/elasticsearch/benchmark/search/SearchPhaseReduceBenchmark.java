@@ -0,0 +1,235 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.search.QueryPhaseResultReducer;
+import org.elasticsearch.action.search.SearchPhaseController;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.elasticsearch.search.aggregations.metrics.cardinality.InternalCardinality;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.search.suggest.SortBy;
+import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.search.suggest.SuggestBuilder;
+import org.elasticsearch.search.suggest.SuggestBuilders;
+import org.elasticsearch.search.suggest.term.TermSuggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the coordinating node side reduction of query phase results in {@link SearchPhaseController}: merging of top docs
+ * (sorted by score or by a field), reduction of terms, histogram and cardinality aggregations and merging of term suggestions.
+ * Shard results are consumed exactly like the query phase of a search request does, so the incremental reduction based on the
+ * batched reduce size is part of the measurement. Run with {@code -prof gc} to also get allocation rates.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchPhaseReduceBenchmark {
+    // Do NOT make any field final (even if it is not annotated with @Param)! See also
+    // http://hg.openjdk.java.net/code-tools/jmh/file/tip/jmh-samples/src/main/java/org/openjdk/jmh/samples/JMHSample_10_ConstantFold.java
+
+    @Param({"16", "128", "512", "1024"})
+    public int numShards = 128;
+
+    @Param({"4", "64", "512"})
+    public int batchedReduceSize = 512;
+
+    @Param({"score", "field"})
+    public String sort = "score";
+
+    public int size = 10;
+
+    public int numTerms = 1000;
+
+    public int numTermBuckets = 100;
+
+    public int numHistogramBuckets = 100;
+
+    public int numCardinalityValues = 20000;
+
+    public int numSuggestOptions = 5;
+
+    private SearchPhaseController controller;
+    private SearchRequest request;
+    private Random random;
+    private List<QuerySearchResult> results;
+
+    @Setup
+    public void setUp() throws Exception {
+        controller = new SearchPhaseController(Settings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null);
+        SearchSourceBuilder source = new SearchSourceBuilder()
+            .size(size)
+            .aggregation(AggregationBuilders.terms("terms").field("term").size(10))
+            .aggregation(AggregationBuilders.histogram("histogram").field("value").interval(1))
+            .aggregation(AggregationBuilders.cardinality("cardinality").field("user"))
+            .suggest(new SuggestBuilder().addSuggestion("suggest", SuggestBuilders.termSuggestion("term").text("foo")));
+        if (sortByField()) {
+            source.sort("timestamp", SortOrder.DESC);
+        }
+        request = new SearchRequest("index").source(source);
+        request.setBatchedReduceSize(batchedReduceSize);
+        random = new Random(0);
+    }
+
+    /**
+     * Shard results are consumed by the reduction (top docs and aggregations are nulled out and aggregation buckets are
+     * modified in place) so we need fresh ones for every invocation. Generating them is excluded from the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void setUpShardResults() {
+        results = new ArrayList<>(numShards);
+        for (int i = 0; i < numShards; i++) {
+            results.add(shardResult(i));
+        }
+    }
+
+    private boolean sortByField() {
+        return "field".equals(sort);
+    }
+
+    private QuerySearchResult shardResult(int shardIndex) {
+        QuerySearchResult result = new QuerySearchResult(shardIndex,
+            new SearchShardTarget("node", new Index("index", "_na_"), shardIndex, null));
+        result.setShardIndex(shardIndex);
+        result.from(0);
+        result.size(size);
+        if (sortByField()) {
+            result.topDocs(fieldTopDocs(), new DocValueFormat[] {DocValueFormat.RAW});
+        } else {
+            result.topDocs(scoreTopDocs(), null);
+        }
+        List<InternalAggregation> aggs = Arrays.asList(terms(), histogram(), cardinality());
+        result.aggregations(new InternalAggregations(aggs));
+        result.suggest(suggest());
+        return result;
+    }
+
+    private TopDocs scoreTopDocs() {
+        ScoreDoc[] scoreDocs = new ScoreDoc[size];
+        float score = random.nextFloat() * 10;
+        for (int i = 0; i < size; i++) {
+            scoreDocs[i] = new ScoreDoc(random.nextInt(100000), score);
+            score -= random.nextFloat();
+        }
+        return new TopDocs(1000 + random.nextInt(1000), scoreDocs, scoreDocs[0].score);
+    }
+
+    private TopDocs fieldTopDocs() {
+        FieldDoc[] fieldDocs = new FieldDoc[size];
+        long timestamp = System.currentTimeMillis() - random.nextInt(100000);
+        for (int i = 0; i < size; i++) {
+            fieldDocs[i] = new FieldDoc(random.nextInt(100000), Float.NaN, new Object[] {timestamp});
+            timestamp -= random.nextInt(1000);
+        }
+        SortField[] sortFields = new SortField[] {new SortField("timestamp", SortField.Type.LONG, true)};
+        return new TopFieldDocs(1000 + random.nextInt(1000), fieldDocs, sortFields, Float.NaN);
+    }
+
+    private StringTerms terms() {
+        List<StringTerms.Bucket> buckets = new ArrayList<>(numTermBuckets);
+        int term = random.nextInt(numTerms);
+        for (int i = 0; i < numTermBuckets; i++) {
+            // shards return unique terms
+            term = (term + 1 + random.nextInt(3)) % numTerms;
+            buckets.add(new StringTerms.Bucket(new BytesRef("term_" + term), 1 + random.nextInt(1000), InternalAggregations.EMPTY,
+                false, 0, DocValueFormat.RAW));
+        }
+        return new StringTerms("terms", BucketOrder.count(false), 10, 1, Collections.emptyList(), null, DocValueFormat.RAW,
+            numTermBuckets, false, random.nextInt(10000), buckets, 0);
+    }
+
+    private InternalHistogram histogram() {
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>(numHistogramBuckets);
+        int key = random.nextInt(10);
+        for (int i = 0; i < numHistogramBuckets; i++) {
+            // buckets have to be sorted by key
+            buckets.add(new InternalHistogram.Bucket(key, 1 + random.nextInt(1000), false, DocValueFormat.RAW,
+                InternalAggregations.EMPTY));
+            key += 1 + random.nextInt(2);
+        }
+        return new InternalHistogram("histogram", buckets, BucketOrder.key(true), 1, null, DocValueFormat.RAW, false,
+            Collections.emptyList(), null);
+    }
+
+    private InternalCardinality cardinality() {
+        HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(HyperLogLogPlusPlus.DEFAULT_PRECISION, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        for (int i = 0; i < numCardinalityValues; i++) {
+            counts.collect(0, random.nextLong());
+        }
+        return new InternalCardinality("cardinality", counts, Collections.emptyList(), null);
+    }
+
+    private Suggest suggest() {
+        TermSuggestion suggestion = new TermSuggestion("suggest", numSuggestOptions, SortBy.SCORE);
+        TermSuggestion.Entry entry = new TermSuggestion.Entry(new Text("foo"), 0, 3);
+        for (int i = 0; i < numSuggestOptions; i++) {
+            entry.addOption(new TermSuggestion.Entry.Option(new Text("foo_" + random.nextInt(numTerms)), 1 + random.nextInt(100),
+                random.nextFloat()));
+        }
+        suggestion.addTerm(entry);
+        return new Suggest(Collections.singletonList(suggestion));
+    }
+
+    @Benchmark
+    public SearchPhaseController.ReducedQueryPhase reduce() {
+        return QueryPhaseResultReducer.reduce(controller, request, results);
+    }
+}
@@ -147,7 +147,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         requests.add(request);
         addPayload(payload);
         // lack of source is validated in validate() method
-        sizeInBytes += (request.source() != null ? request.source().length() : 0) + REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -167,15 +167,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         Objects.requireNonNull(request, "'request' must not be null");
         requests.add(request);
         addPayload(payload);
-        if (request.doc() != null) {
-            sizeInBytes += request.doc().source().length();
-        }
-        if (request.upsertRequest() != null) {
-            sizeInBytes += request.upsertRequest().source().length();
-        }
-        if (request.script() != null) {
-            sizeInBytes += request.script().getIdOrCode().length() * 2;
-        }
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -191,7 +183,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         Objects.requireNonNull(request, "'request' must not be null");
         requests.add(request);
         addPayload(payload);
-        sizeInBytes += REQUEST_OVERHEAD;
+        sizeInBytes += estimatedSizeInBytes(request);
         indices.add(request.index());
         return this;
     }
@@ -242,6 +234,31 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         return sizeInBytes;
     }
 
+    /**
+     * The estimated size in bytes of a single request of a bulk request.
+     */
+    static long estimatedSizeInBytes(DocWriteRequest request) {
+        if (request instanceof IndexRequest) {
+            final IndexRequest indexRequest = (IndexRequest) request;
+            return (indexRequest.source() != null ? indexRequest.source().length() : 0) + REQUEST_OVERHEAD;
+        } else if (request instanceof UpdateRequest) {
+            final UpdateRequest updateRequest = (UpdateRequest) request;
+            long sizeInBytes = 0;
+            if (updateRequest.doc() != null) {
+                sizeInBytes += updateRequest.doc().source().length();
+            }
+            if (updateRequest.upsertRequest() != null) {
+                sizeInBytes += updateRequest.upsertRequest().source().length();
+            }
+            if (updateRequest.script() != null) {
+                sizeInBytes += updateRequest.script().getIdOrCode().length() * 2;
+            }
+            return sizeInBytes;
+        } else {
+            return REQUEST_OVERHEAD;
+        }
+    }
+
     /**
      * Adds a framed data in binary format
      */
@@ -276,12 +293,28 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
     public BulkRequest add(BytesReference data, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String
         defaultRouting, @Nullable String[] defaultFields, @Nullable FetchSourceContext defaultFetchSourceContext, @Nullable String
         defaultPipeline, @Nullable Object payload, boolean allowExplicitIndex, XContentType xContentType) throws IOException {
+        parse(data, 0, defaultIndex, defaultType, defaultRouting, defaultFields, defaultFetchSourceContext, defaultPipeline, payload,
+            allowExplicitIndex, xContentType);
+        return this;
+    }
+
+    /**
+     * Adds the requests of the complete lines of the framed data and returns the number of bytes that were consumed. An action
+     * whose source line is not complete yet is not consumed, so that it can be added together with more data later on.
+     *
+     * @param firstLine the number of lines that preceded the data, used in error messages
+     */
+    int parse(BytesReference data, int firstLine, @Nullable String defaultIndex, @Nullable String defaultType,
+              @Nullable String defaultRouting, @Nullable String[] defaultFields, @Nullable FetchSourceContext defaultFetchSourceContext,
+              @Nullable String defaultPipeline, @Nullable Object payload, boolean allowExplicitIndex,
+              XContentType xContentType) throws IOException {
         XContent xContent = xContentType.xContent();
-        int line = 0;
+        int line = firstLine;
         int from = 0;
         int length = data.length();
         byte marker = xContent.streamSeparator();
         while (true) {
+            final int actionFrom = from;
             int nextMarker = findNextMarker(marker, from, data, length);
             if (nextMarker == -1) {
                 break;
@@ -388,6 +421,8 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                 } else {
                     nextMarker = findNextMarker(marker, from, data, length);
                     if (nextMarker == -1) {
+                        // the source line is not complete, leave the action for later
+                        from = actionFrom;
                         break;
                     }
                     line++;
@@ -443,7 +478,7 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
                 }
             }
         }
-        return this;
+        return from;
     }
 
     /**
@@ -570,7 +605,9 @@ public class BulkRequest extends ActionRequest implements CompositeIndicesReques
         waitForActiveShards = ActiveShardCount.readFrom(in);
         int size = in.readVInt();
         for (int i = 0; i < size; i++) {
-            requests.add(DocWriteRequest.readDocumentRequest(in));
+            DocWriteRequest request = DocWriteRequest.readDocumentRequest(in);
+            requests.add(request);
+            sizeInBytes += estimatedSizeInBytes(request);
         }
         refreshPolicy = RefreshPolicy.readFrom(in);
         timeout = new TimeValue(in);
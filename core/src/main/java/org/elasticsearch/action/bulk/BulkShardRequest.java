@@ -21,18 +21,28 @@ package org.elasticsearch.action.bulk;
 
 import org.elasticsearch.action.support.replication.ReplicatedWriteRequest;
 import org.elasticsearch.action.support.replication.ReplicationRequest;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.FilterStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
-public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
+public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> implements Releasable {
 
     private BulkItemRequest[] items;
 
+    // the sources of the items when they were read from the network without copying them
+    private List<ReleasableBytesReference> retainedBytes = Collections.emptyList();
+
     public BulkShardRequest() {
     }
 
@@ -46,6 +56,19 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
         return items;
     }
 
+    /**
+     * The estimated size in bytes of the items of this request, computed like {@link BulkRequest#estimatedSizeInBytes()}.
+     */
+    public long estimatedSizeInBytes() {
+        long sizeInBytes = 0;
+        for (BulkItemRequest item : items) {
+            if (item != null) {
+                sizeInBytes += BulkRequest.estimatedSizeInBytes(item.request());
+            }
+        }
+        return sizeInBytes;
+    }
+
     @Override
     public String[] indices() {
         List<String> indices = new ArrayList<>();
@@ -75,11 +98,31 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         items = new BulkItemRequest[in.readVInt()];
-        for (int i = 0; i < items.length; i++) {
-            if (in.readBoolean()) {
-                items[i] = BulkItemRequest.readBulkItem(in);
+        // the items hold on to the network buffer rather than copying their sources, the buffer is released by #close once the
+        // request has been executed on the shard and replicated
+        final RetainingStreamInput retainingIn = new RetainingStreamInput(in);
+        boolean success = false;
+        try {
+            for (int i = 0; i < items.length; i++) {
+                if (retainingIn.readBoolean()) {
+                    items[i] = BulkItemRequest.readBulkItem(retainingIn);
+                }
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                Releasables.close(retainingIn.retained);
             }
         }
+        retainedBytes = retainingIn.retained;
+    }
+
+    /**
+     * Releases the network buffers that the sources of the items reference if the request was read from the network.
+     */
+    @Override
+    public void close() {
+        Releasables.close(retainedBytes);
     }
 
     @Override
@@ -121,4 +164,34 @@ public class BulkShardRequest extends ReplicatedWriteRequest<BulkShardRequest> {
             }
         }
     }
+
+    /**
+     * Reads bytes references with {@link StreamInput#readReleasableBytesReference(int)} so that they can share the buffer of the
+     * underlying stream, and keeps track of them so that they can be released together.
+     */
+    private static final class RetainingStreamInput extends FilterStreamInput {
+
+        private final List<ReleasableBytesReference> retained = new ArrayList<>();
+
+        RetainingStreamInput(StreamInput delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public BytesReference readBytesReference(int length) throws IOException {
+            final ReleasableBytesReference reference = delegate.readReleasableBytesReference(length);
+            retained.add(reference);
+            return reference;
+        }
+
+        @Override
+        public <C extends NamedWriteable> C readNamedWriteable(Class<C> categoryClass) throws IOException {
+            return delegate.readNamedWriteable(categoryClass);
+        }
+
+        @Override
+        public <C extends NamedWriteable> C readNamedWriteable(Class<C> categoryClass, String name) throws IOException {
+            return delegate.readNamedWriteable(categoryClass, name);
+        }
+    }
 }
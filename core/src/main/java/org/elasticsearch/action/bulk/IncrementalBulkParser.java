@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses newline delimited bulk data that is received in arbitrary chunks, see {@link BulkRequest#add(BytesReference, String,
+ * String, String, String[], FetchSourceContext, String, Object, boolean, XContentType)}. Every chunk adds the requests whose lines
+ * it completes to a bulk request, which allows to execute the requests of the first lines before the last ones are received.
+ * The bytes of lines that are not complete yet are kept until the chunks that complete them arrive.
+ */
+public final class IncrementalBulkParser {
+
+    private final String defaultIndex;
+    private final String defaultType;
+    private final String defaultRouting;
+    private final String[] defaultFields;
+    private final FetchSourceContext defaultFetchSourceContext;
+    private final String defaultPipeline;
+    private final boolean allowExplicitIndex;
+    private final XContentType xContentType;
+    private final byte marker;
+
+    // the chunks, or parts of chunks, that were not consumed yet, kept flat so that composite references do not nest
+    private final List<BytesReference> pending = new ArrayList<>();
+    private int pendingLength;
+    // the number of complete lines in the pending chunks
+    private int pendingLines;
+    // the number of lines that were consumed so far
+    private int lines;
+
+    public IncrementalBulkParser(@Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting,
+                                 @Nullable String[] defaultFields, @Nullable FetchSourceContext defaultFetchSourceContext,
+                                 @Nullable String defaultPipeline, boolean allowExplicitIndex, XContentType xContentType) {
+        this.defaultIndex = defaultIndex;
+        this.defaultType = defaultType;
+        this.defaultRouting = defaultRouting;
+        this.defaultFields = defaultFields;
+        this.defaultFetchSourceContext = defaultFetchSourceContext;
+        this.defaultPipeline = defaultPipeline;
+        this.allowExplicitIndex = allowExplicitIndex;
+        this.xContentType = xContentType;
+        this.marker = xContentType.xContent().streamSeparator();
+    }
+
+    /**
+     * Adds the requests whose lines are completed by the given chunk to the given bulk request.
+     *
+     * @param isLast whether this is the last chunk of the data, in which case the data must end with a complete line
+     */
+    public void parse(BytesReference chunk, boolean isLast, BulkRequest bulkRequest) throws IOException {
+        int chunkLines = 0;
+        int lastMarker = -1;
+        for (int i = 0; i < chunk.length(); i++) {
+            if (chunk.get(i) == marker) {
+                chunkLines++;
+                lastMarker = i;
+            }
+        }
+        if (chunk.length() > 0) {
+            pending.add(chunk);
+            pendingLength += chunk.length();
+        }
+        if ((chunkLines == 0 && isLast == false) || pendingLength == 0) {
+            // the chunk does not complete any line
+            return;
+        }
+        final int completeLines = pendingLines + chunkLines;
+        final int completeLength = isLast ? pendingLength : pendingLength - chunk.length() + lastMarker + 1;
+        final BytesReference data = pending.size() == 1 ? pending.get(0)
+            : new CompositeBytesReference(pending.toArray(new BytesReference[pending.size()]));
+        final int consumed = bulkRequest.parse(data.slice(0, completeLength), lines, defaultIndex, defaultType, defaultRouting,
+            defaultFields, defaultFetchSourceContext, defaultPipeline, null, allowExplicitIndex, xContentType);
+        // only an action line whose source line is not complete yet is left behind
+        pendingLines = consumed < completeLength ? 1 : 0;
+        lines += completeLines - pendingLines;
+        consume(consumed);
+    }
+
+    /**
+     * The number of lines that were added to bulk requests so far.
+     */
+    public int getLines() {
+        return lines;
+    }
+
+    private void consume(int length) {
+        int remaining = length;
+        int consumedChunks = 0;
+        while (remaining > 0) {
+            final BytesReference chunk = pending.get(consumedChunks);
+            if (chunk.length() <= remaining) {
+                consumedChunks++;
+                remaining -= chunk.length();
+            } else {
+                pending.set(consumedChunks, chunk.slice(remaining, chunk.length() - remaining));
+                remaining = 0;
+            }
+        }
+        pending.subList(0, consumedChunks).clear();
+        pendingLength -= length;
+    }
+}
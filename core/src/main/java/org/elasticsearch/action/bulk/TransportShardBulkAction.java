@@ -461,6 +461,16 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }
     }
 
+    @Override
+    protected long primaryOperationSize(BulkShardRequest request) {
+        return request.estimatedSizeInBytes();
+    }
+
+    @Override
+    protected long replicaOperationSize(BulkShardRequest request) {
+        return request.estimatedSizeInBytes();
+    }
+
     @Override
     public WriteReplicaResult<BulkShardRequest> shardOperationOnReplica(BulkShardRequest request, IndexShard replica) throws Exception {
         final Translog.Location location = performOnReplica(request, replica);
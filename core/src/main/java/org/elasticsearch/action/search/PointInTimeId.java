@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The decoded form of a point in time id: the indices the point in time was opened on and, for every shard,
+ * the node that holds its reader and the id of that reader.
+ */
+final class PointInTimeId {
+
+    private final OriginalIndices originalIndices;
+    private final List<Shard> shards;
+
+    PointInTimeId(OriginalIndices originalIndices, List<Shard> shards) {
+        this.originalIndices = originalIndices;
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    OriginalIndices getOriginalIndices() {
+        return originalIndices;
+    }
+
+    List<Shard> getShards() {
+        return shards;
+    }
+
+    String encode() {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(Version.CURRENT);
+            Version.writeVersion(Version.CURRENT, out);
+            OriginalIndices.writeOriginalIndices(originalIndices, out);
+            out.writeVInt(shards.size());
+            for (Shard shard : shards) {
+                shard.shardId.writeTo(out);
+                out.writeString(shard.nodeId);
+                out.writeLong(shard.readerId);
+            }
+            return Base64.getUrlEncoder().encodeToString(BytesReference.toBytes(out.bytes()));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot build point in time id", e);
+        }
+    }
+
+    static PointInTimeId decode(String id) {
+        try {
+            final byte[] bytes = Base64.getUrlDecoder().decode(id);
+            try (StreamInput in = StreamInput.wrap(bytes)) {
+                in.setVersion(Version.readVersion(in));
+                final OriginalIndices originalIndices = OriginalIndices.readOriginalIndices(in);
+                final int size = in.readVInt();
+                final List<Shard> shards = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    shards.add(new Shard(ShardId.readShardId(in), in.readString(), in.readLong()));
+                }
+                if (in.available() != 0) {
+                    throw new IllegalArgumentException("Not all bytes were read");
+                }
+                return new PointInTimeId(originalIndices, shards);
+            }
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse point in time id", e);
+        }
+    }
+
+    static final class Shard {
+        private final ShardId shardId;
+        private final String nodeId;
+        private final long readerId;
+
+        Shard(ShardId shardId, String nodeId, long readerId) {
+            this.shardId = shardId;
+            this.nodeId = nodeId;
+            this.readerId = readerId;
+        }
+
+        ShardId getShardId() {
+            return shardId;
+        }
+
+        String getNodeId() {
+            return nodeId;
+        }
+
+        long getReaderId() {
+            return readerId;
+        }
+    }
+}
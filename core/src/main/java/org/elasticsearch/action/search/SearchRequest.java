@@ -169,6 +169,21 @@ public final class SearchRequest extends ActionRequest implements IndicesRequest
             validationException =
                 addValidationError("using [from] is not allowed in a scroll context", validationException);
         }
+        if (source != null && source.pointInTimeBuilder() != null) {
+            if (scroll() != null) {
+                validationException = addValidationError("using [pit] is not allowed in a scroll context", validationException);
+            }
+            if (indices.length > 0) {
+                validationException = addValidationError("[indices] cannot be used with a point in time, " +
+                    "the indices are taken from the point in time", validationException);
+            }
+            if (routing() != null) {
+                validationException = addValidationError("[routing] cannot be used with a point in time", validationException);
+            }
+            if (preference() != null) {
+                validationException = addValidationError("[preference] cannot be used with a point in time", validationException);
+            }
+        }
         return validationException;
     }
 
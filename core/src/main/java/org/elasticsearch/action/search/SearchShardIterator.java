@@ -33,6 +33,7 @@ import java.util.List;
 public final class SearchShardIterator extends PlainShardIterator {
 
     private final OriginalIndices originalIndices;
+    private final long readerId;
     private String clusterAlias;
     private boolean skip = false;
 
@@ -44,9 +45,20 @@ public final class SearchShardIterator extends PlainShardIterator {
      * @param shards  shards to iterate
      */
     public SearchShardIterator(String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices) {
+        this(clusterAlias, shardId, shards, originalIndices, -1);
+    }
+
+    /**
+     * Creates a {@link PlainShardIterator} instance whose shards are searched with the reader pinned by a point in time.
+     *
+     * @param readerId the id of the point in time reader on the shards, or <code>-1</code> to use the latest searcher
+     */
+    public SearchShardIterator(String clusterAlias, ShardId shardId, List<ShardRouting> shards, OriginalIndices originalIndices,
+                               long readerId) {
         super(shardId, shards);
         this.originalIndices = originalIndices;
         this.clusterAlias = clusterAlias;
+        this.readerId = readerId;
     }
 
     /**
@@ -60,6 +72,13 @@ public final class SearchShardIterator extends PlainShardIterator {
         return clusterAlias;
     }
 
+    /**
+     * Returns the id of the point in time reader to search on the shard, or <code>-1</code> if the latest searcher should be used.
+     */
+    public long getReaderId() {
+        return readerId;
+    }
+
     /**
      * Reset the iterator and mark it as skippable
      * @see #skip()
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TransportClosePointInTimeAction extends HandledTransportAction<ClosePointInTimeRequest, ClearScrollResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportClosePointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                           ClusterService clusterService, ActionFilters actionFilters,
+                                           IndexNameExpressionResolver indexNameExpressionResolver,
+                                           SearchTransportService searchTransportService) {
+        super(settings, ClosePointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            ClosePointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(ClosePointInTimeRequest request, ActionListener<ClearScrollResponse> listener) {
+        final PointInTimeId pointInTimeId = PointInTimeId.decode(request.getId());
+        final List<PointInTimeId.Shard> shards = pointInTimeId.getShards();
+        if (shards.isEmpty()) {
+            listener.onResponse(new ClearScrollResponse(true, 0));
+            return;
+        }
+        final DiscoveryNodes nodes = clusterService.state().nodes();
+        final CountDown countDown = new CountDown(shards.size());
+        final AtomicInteger numFreed = new AtomicInteger();
+        final Runnable onShardDone = () -> {
+            if (countDown.countDown()) {
+                // readers on nodes that left the cluster are gone already, so closing always succeeds
+                listener.onResponse(new ClearScrollResponse(true, numFreed.get()));
+            }
+        };
+        for (PointInTimeId.Shard shard : shards) {
+            final DiscoveryNode node = nodes.get(shard.getNodeId());
+            if (node == null) {
+                onShardDone.run();
+                continue;
+            }
+            try {
+                searchTransportService.sendFreeReaderContext(searchTransportService.getConnection(null, node), shard.getReaderId(),
+                    pointInTimeId.getOriginalIndices(), ActionListener.wrap(response -> {
+                        if (response.isFreed()) {
+                            numFreed.incrementAndGet();
+                        }
+                        onShardDone.run();
+                    }, e -> {
+                        logger.trace("failed to free point in time reader", e);
+                        onShardDone.run();
+                    }));
+            } catch (Exception e) {
+                logger.trace("failed to free point in time reader", e);
+                onShardDone.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Opens a reader context on one copy of every shard of the requested indices and encodes the node and reader
+ * of each shard in the returned point in time id. If any shard can't be opened, the readers that were opened
+ * on the other shards are freed again and the request fails.
+ */
+public class TransportOpenPointInTimeAction extends HandledTransportAction<OpenPointInTimeRequest, OpenPointInTimeResponse> {
+
+    private final ClusterService clusterService;
+    private final SearchTransportService searchTransportService;
+
+    @Inject
+    public TransportOpenPointInTimeAction(Settings settings, TransportService transportService, ThreadPool threadPool,
+                                          ClusterService clusterService, ActionFilters actionFilters,
+                                          IndexNameExpressionResolver indexNameExpressionResolver,
+                                          SearchTransportService searchTransportService) {
+        super(settings, OpenPointInTimeAction.NAME, threadPool, transportService, actionFilters, indexNameExpressionResolver,
+            OpenPointInTimeRequest::new);
+        this.clusterService = clusterService;
+        this.searchTransportService = searchTransportService;
+    }
+
+    @Override
+    protected void doExecute(OpenPointInTimeRequest request, ActionListener<OpenPointInTimeResponse> listener) {
+        final ClusterState clusterState = clusterService.state();
+        clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
+        final Index[] indices = indexNameExpressionResolver.concreteIndices(clusterState, request.indicesOptions(), request.indices());
+        final String[] concreteIndices = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, indices[i].getName());
+            concreteIndices[i] = indices[i].getName();
+        }
+        final GroupShardsIterator<ShardIterator> shards =
+            clusterService.operationRouting().searchShards(clusterState, concreteIndices, null, null);
+        final OriginalIndices originalIndices = new OriginalIndices(request.indices(), request.indicesOptions());
+        new OpenReaderContexts(shards, clusterState.nodes(), originalIndices, request.keepAlive(), listener).run();
+    }
+
+    private final class OpenReaderContexts implements Runnable {
+        private final GroupShardsIterator<ShardIterator> shards;
+        private final DiscoveryNodes nodes;
+        private final OriginalIndices originalIndices;
+        private final TimeValue keepAlive;
+        private final ActionListener<OpenPointInTimeResponse> listener;
+        private final AtomicArray<PointInTimeId.Shard> opened;
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        private final CountDown countDown;
+
+        OpenReaderContexts(GroupShardsIterator<ShardIterator> shards, DiscoveryNodes nodes, OriginalIndices originalIndices,
+                           TimeValue keepAlive, ActionListener<OpenPointInTimeResponse> listener) {
+            this.shards = shards;
+            this.nodes = nodes;
+            this.originalIndices = originalIndices;
+            this.keepAlive = keepAlive;
+            this.listener = listener;
+            this.opened = new AtomicArray<>(shards.size());
+            this.countDown = new CountDown(shards.size());
+        }
+
+        @Override
+        public void run() {
+            if (shards.size() == 0) {
+                listener.onResponse(new OpenPointInTimeResponse(new PointInTimeId(originalIndices, new ArrayList<>()).encode()));
+                return;
+            }
+            int index = 0;
+            for (ShardIterator shardIt : shards) {
+                openOnNextCopy(index++, shardIt, null);
+            }
+        }
+
+        private void openOnNextCopy(int index, ShardIterator shardIt, Exception lastFailure) {
+            final ShardRouting shard = shardIt.nextOrNull();
+            if (shard == null) {
+                onShardDone(lastFailure == null ? new NoShardAvailableActionException(shardIt.shardId()) : lastFailure);
+                return;
+            }
+            final DiscoveryNode node = nodes.get(shard.currentNodeId());
+            if (node == null) {
+                openOnNextCopy(index, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
+                return;
+            }
+            try {
+                searchTransportService.sendOpenReaderContext(searchTransportService.getConnection(null, node), shardIt.shardId(),
+                    keepAlive, originalIndices, new ActionListener<SearchTransportService.OpenReaderContextResponse>() {
+                        @Override
+                        public void onResponse(SearchTransportService.OpenReaderContextResponse response) {
+                            opened.set(index, new PointInTimeId.Shard(shardIt.shardId(), node.getId(), response.getReaderId()));
+                            onShardDone(null);
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            logger.trace((Supplier<?>) () -> new ParameterizedMessage("{} failed to open point in time reader on [{}]",
+                                shardIt.shardId(), node), e);
+                            openOnNextCopy(index, shardIt, e);
+                        }
+                    });
+            } catch (Exception e) {
+                openOnNextCopy(index, shardIt, e);
+            }
+        }
+
+        private void onShardDone(Exception e) {
+            if (e != null) {
+                failure.compareAndSet(null, e);
+            }
+            if (countDown.countDown()) {
+                final List<PointInTimeId.Shard> shards = opened.asList();
+                if (failure.get() == null) {
+                    listener.onResponse(new OpenPointInTimeResponse(new PointInTimeId(originalIndices, shards).encode()));
+                } else {
+                    freeOpened(shards);
+                    listener.onFailure(failure.get());
+                }
+            }
+        }
+
+        private void freeOpened(List<PointInTimeId.Shard> shards) {
+            for (PointInTimeId.Shard shard : shards) {
+                final DiscoveryNode node = nodes.get(shard.getNodeId());
+                if (node == null) {
+                    continue;
+                }
+                try {
+                    searchTransportService.sendFreeReaderContext(searchTransportService.getConnection(null, node), shard.getReaderId(),
+                        originalIndices, ActionListener.wrap(r -> {}, e -> logger.trace("failed to free point in time reader", e)));
+                } catch (Exception e) {
+                    logger.trace("failed to free point in time reader", e);
+                }
+            }
+        }
+    }
+}
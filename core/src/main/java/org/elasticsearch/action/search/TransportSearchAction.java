@@ -32,16 +32,21 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.GroupShardsIterator;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.query.Rewriteable;
+import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.tasks.Task;
@@ -56,6 +61,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -91,12 +97,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.searchService = searchService;
     }
 
-    private Map<String, AliasFilter> buildPerIndexAliasFilter(SearchRequest request, ClusterState clusterState,
+    private Map<String, AliasFilter> buildPerIndexAliasFilter(String[] indexExpressions, ClusterState clusterState,
                                                               Index[] concreteIndices, Map<String, AliasFilter> remoteAliasMap) {
         final Map<String, AliasFilter> aliasFilterMap = new HashMap<>();
         for (Index index : concreteIndices) {
             clusterState.blocks().indexBlockedRaiseException(ClusterBlockLevel.READ, index.getName());
-            AliasFilter aliasFilter = searchService.buildAliasFilter(clusterState, index.getName(), request.indices());
+            AliasFilter aliasFilter = searchService.buildAliasFilter(clusterState, index.getName(), indexExpressions);
             assert aliasFilter != null;
             aliasFilterMap.put(index.getUUID(), aliasFilter);
         }
@@ -186,13 +192,22 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 searchRequest.source(source);
             }
             final ClusterState clusterState = clusterService.state();
+            final PointInTimeBuilder pointInTime = source == null ? null : source.pointInTimeBuilder();
+            if (pointInTime != null) {
+                // the point in time id records the shards and readers to search, points in time are always local to the cluster
+                final PointInTimeId pointInTimeId = PointInTimeId.decode(pointInTime.getId());
+                executeSearch((SearchTask) task, timeProvider, searchRequest, pointInTimeId.getOriginalIndices(), Collections.emptyMap(),
+                    Collections.emptyList(), (clusterName, nodeId) -> null, clusterState, Collections.emptyMap(), listener,
+                    clusterState.getNodes().getDataNodes().size(), pointInTimeId);
+                return;
+            }
             final Map<String, OriginalIndices> remoteClusterIndices = remoteClusterService.groupIndices(searchRequest.indicesOptions(),
                 searchRequest.indices(), idx -> indexNameExpressionResolver.hasIndexOrAlias(idx, clusterState));
             OriginalIndices localIndices = remoteClusterIndices.remove(RemoteClusterAware.LOCAL_CLUSTER_GROUP_KEY);
             if (remoteClusterIndices.isEmpty()) {
                 executeSearch((SearchTask)task, timeProvider, searchRequest, localIndices, remoteClusterIndices, Collections.emptyList(),
                     (clusterName, nodeId) -> null, clusterState, Collections.emptyMap(), listener, clusterState.getNodes()
-                        .getDataNodes().size());
+                        .getDataNodes().size(), null);
             } else {
                 remoteClusterService.collectSearchShards(searchRequest.indicesOptions(), searchRequest.preference(),
                     searchRequest.routing(), remoteClusterIndices, ActionListener.wrap((searchShardsResponses) -> {
@@ -203,7 +218,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         int numNodesInvovled = searchShardsResponses.values().stream().mapToInt(r -> r.getNodes().length).sum()
                             + clusterState.getNodes().getDataNodes().size();
                         executeSearch((SearchTask) task, timeProvider, searchRequest, localIndices, remoteClusterIndices,
-                            remoteShardIterators, clusterNodeLookup, clusterState, remoteAliasFilters, listener, numNodesInvovled);
+                            remoteShardIterators, clusterNodeLookup, clusterState, remoteAliasFilters, listener, numNodesInvovled, null);
                     }, listener::onFailure));
             }
         }, listener::onFailure);
@@ -264,31 +279,39 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private void executeSearch(SearchTask task, SearchTimeProvider timeProvider, SearchRequest searchRequest, OriginalIndices localIndices,
                                Map<String, OriginalIndices> remoteClusterIndices, List<SearchShardIterator> remoteShardIterators,
                                BiFunction<String, String, DiscoveryNode> remoteConnections, ClusterState clusterState,
-                               Map<String, AliasFilter> remoteAliasMap, ActionListener<SearchResponse> listener, int nodeCount) {
+                               Map<String, AliasFilter> remoteAliasMap, ActionListener<SearchResponse> listener, int nodeCount,
+                               @Nullable PointInTimeId pointInTimeId) {
 
         clusterState.blocks().globalBlockedRaiseException(ClusterBlockLevel.READ);
         // TODO: I think startTime() should become part of ActionRequest and that should be used both for index name
         // date math expressions and $now in scripts. This way all apis will deal with now in the same way instead
         // of just for the _search api
         final Index[] indices;
-        if (localIndices.indices().length == 0 && remoteClusterIndices.isEmpty() == false) {
+        if (pointInTimeId != null) {
+            indices = resolvePointInTimeIndices(clusterState, pointInTimeId);
+        } else if (localIndices.indices().length == 0 && remoteClusterIndices.isEmpty() == false) {
             indices = Index.EMPTY_ARRAY; // don't search on _all if only remote indices were specified
         } else {
             indices = indexNameExpressionResolver.concreteIndices(clusterState, searchRequest.indicesOptions(),
                 timeProvider.getAbsoluteStartMillis(), localIndices.indices());
         }
-        Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(searchRequest, clusterState, indices, remoteAliasMap);
-        Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
-            searchRequest.indices());
-        String[] concreteIndices = new String[indices.length];
-        for (int i = 0; i < indices.length; i++) {
-            concreteIndices[i] = indices[i].getName();
+        final String[] indexExpressions = pointInTimeId != null ? localIndices.indices() : searchRequest.indices();
+        Map<String, AliasFilter> aliasFilter = buildPerIndexAliasFilter(indexExpressions, clusterState, indices, remoteAliasMap);
+        final GroupShardsIterator<SearchShardIterator> shardIterators;
+        if (pointInTimeId != null) {
+            shardIterators = pointInTimeShardIterators(clusterState, pointInTimeId);
+        } else {
+            Map<String, Set<String>> routingMap = indexNameExpressionResolver.resolveSearchRouting(clusterState, searchRequest.routing(),
+                searchRequest.indices());
+            String[] concreteIndices = new String[indices.length];
+            for (int i = 0; i < indices.length; i++) {
+                concreteIndices[i] = indices[i].getName();
+            }
+            Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
+            GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
+                    concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
+            shardIterators = mergeShardsIterators(localShardsIterator, localIndices, remoteShardIterators);
         }
-        Map<String, Long> nodeSearchCounts = searchTransportService.getPendingSearchRequests();
-        GroupShardsIterator<ShardIterator> localShardsIterator = clusterService.operationRouting().searchShards(clusterState,
-                concreteIndices, routingMap, searchRequest.preference(), searchService.getResponseCollectorService(), nodeSearchCounts);
-        GroupShardsIterator<SearchShardIterator> shardIterators = mergeShardsIterators(localShardsIterator, localIndices,
-            remoteShardIterators);
 
         failIfOverShardCountLimit(clusterService, shardIterators.size());
 
@@ -339,6 +362,40 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 searchRequest.getPreFilterShardSize() < shardIterators.size();
     }
 
+    private static Index[] resolvePointInTimeIndices(ClusterState clusterState, PointInTimeId pointInTimeId) {
+        final Set<Index> indices = new LinkedHashSet<>();
+        for (PointInTimeId.Shard shard : pointInTimeId.getShards()) {
+            final Index index = shard.getShardId().getIndex();
+            if (indices.add(index) && clusterState.metaData().index(index) == null) {
+                // the index was deleted or recreated since the point in time was opened
+                throw new IndexNotFoundException(index);
+            }
+        }
+        return indices.toArray(new Index[indices.size()]);
+    }
+
+    /**
+     * Builds the shard iterators of a point in time search. Every shard is only searched on the node that holds its
+     * reader, so a shard that has been relocated or failed since the point in time was opened has no copy to search.
+     */
+    static GroupShardsIterator<SearchShardIterator> pointInTimeShardIterators(ClusterState clusterState, PointInTimeId pointInTimeId) {
+        final List<SearchShardIterator> shards = new ArrayList<>();
+        for (PointInTimeId.Shard shard : pointInTimeId.getShards()) {
+            final List<ShardRouting> targets = new ArrayList<>(1);
+            final IndexShardRoutingTable routingTable = clusterState.routingTable().shardRoutingTableOrNull(shard.getShardId());
+            if (routingTable != null) {
+                for (ShardRouting shardRouting : routingTable.activeShards()) {
+                    if (shard.getNodeId().equals(shardRouting.currentNodeId())) {
+                        targets.add(shardRouting);
+                    }
+                }
+            }
+            shards.add(new SearchShardIterator(null, shard.getShardId(), targets, pointInTimeId.getOriginalIndices(),
+                shard.getReaderId()));
+        }
+        return new GroupShardsIterator<>(shards);
+    }
+
     static GroupShardsIterator<SearchShardIterator> mergeShardsIterators(GroupShardsIterator<ShardIterator> localShardsIterator,
                                                              OriginalIndices localIndices,
                                                              List<SearchShardIterator> remoteShardIterators) {
@@ -55,6 +55,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
@@ -69,6 +70,7 @@ import org.elasticsearch.tasks.Task;
 import org.elasticsearch.tasks.TaskId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.transport.DelegatingTransportChannel;
 import org.elasticsearch.transport.TransportChannel;
 import org.elasticsearch.transport.TransportChannelResponseHandler;
 import org.elasticsearch.transport.TransportException;
@@ -78,6 +80,7 @@ import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportResponse.Empty;
 import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportResponseOptions;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
@@ -291,7 +294,17 @@ public abstract class TransportReplicationAction<
 
         @Override
         public void messageReceived(ConcreteShardRequest<Request> request, TransportChannel channel, Task task) {
-            new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm, channel, (ReplicationTask) task).run();
+            final Releasable indexingOperation = markPrimaryOperationStarted(request.request);
+            boolean success = false;
+            try {
+                new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm,
+                    new ReleasingTransportChannel(channel, indexingOperation), (ReplicationTask) task).run();
+                success = true;
+            } finally {
+                if (success == false) {
+                    indexingOperation.close();
+                }
+            }
         }
     }
 
@@ -503,13 +516,23 @@ public abstract class TransportReplicationAction<
                 final TransportChannel channel,
                 final Task task)
             throws Exception {
-            new AsyncReplicaAction(
-                    replicaRequest.getRequest(),
-                    replicaRequest.getTargetAllocationID(),
-                    replicaRequest.getPrimaryTerm(),
-                    replicaRequest.getGlobalCheckpoint(),
-                    channel,
-                    (ReplicationTask) task).run();
+            // like the thread pool, the indexing pressure never rejects operations on replicas, it only accounts for them
+            final Releasable indexingOperation = markReplicaOperationStarted(replicaRequest.getRequest());
+            boolean success = false;
+            try {
+                new AsyncReplicaAction(
+                        replicaRequest.getRequest(),
+                        replicaRequest.getTargetAllocationID(),
+                        replicaRequest.getPrimaryTerm(),
+                        replicaRequest.getGlobalCheckpoint(),
+                        new ReleasingTransportChannel(channel, indexingOperation),
+                        (ReplicationTask) task).run();
+                success = true;
+            } finally {
+                if (success == false) {
+                    indexingOperation.close();
+                }
+            }
         }
 
     }
@@ -671,6 +694,72 @@ public abstract class TransportReplicationAction<
         }
     }
 
+    /**
+     * The number of bytes that the request holds on to while it is executed on the primary and replicated, which are
+     * accounted for by the node's {@link IndexingPressure}. Defaults to {@code 0}, which means the request is not accounted for.
+     */
+    protected long primaryOperationSize(Request request) {
+        return 0;
+    }
+
+    /**
+     * The number of bytes that the request holds on to while it is executed on a replica, which are accounted for by the
+     * node's {@link IndexingPressure}. Defaults to {@code 0}, which means the request is not accounted for.
+     */
+    protected long replicaOperationSize(ReplicaRequest request) {
+        return 0;
+    }
+
+    private Releasable markPrimaryOperationStarted(Request request) {
+        final long bytes = primaryOperationSize(request);
+        return bytes > 0 ? indicesService.getIndexingPressure().markPrimaryOperationStarted(bytes) : () -> {};
+    }
+
+    private Releasable markReplicaOperationStarted(ReplicaRequest request) {
+        final long bytes = replicaOperationSize(request);
+        return bytes > 0 ? indicesService.getIndexingPressure().markReplicaOperationStarted(bytes) : () -> {};
+    }
+
+    /**
+     * Releases the bytes accounted for an operation once its response, successful or not, is sent.
+     */
+    private static final class ReleasingTransportChannel extends DelegatingTransportChannel {
+
+        private final Releasable releasable;
+
+        ReleasingTransportChannel(TransportChannel channel, Releasable releasable) {
+            super(channel);
+            this.releasable = releasable;
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) throws IOException {
+            try {
+                releasable.close();
+            } finally {
+                super.sendResponse(response);
+            }
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response, TransportResponseOptions options) throws IOException {
+            try {
+                releasable.close();
+            } finally {
+                super.sendResponse(response, options);
+            }
+        }
+
+        @Override
+        public void sendResponse(Exception exception) throws IOException {
+            try {
+                releasable.close();
+            } finally {
+                super.sendResponse(exception);
+            }
+        }
+    }
+
     protected IndexShard getIndexShard(ShardId shardId) {
         IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
         return indexService.getShard(shardId.id());
@@ -1189,7 +1278,7 @@ public abstract class TransportReplicationAction<
     }
 
     /** a wrapper class to encapsulate a request when being sent to a specific allocation id **/
-    public static class ConcreteShardRequest<R extends TransportRequest> extends TransportRequest {
+    public static class ConcreteShardRequest<R extends TransportRequest> extends TransportRequest implements Releasable {
 
         /** {@link AllocationId#getId()} of the shard this request is sent to **/
         private String targetAllocationID;
@@ -1263,6 +1352,16 @@ public abstract class TransportReplicationAction<
             return primaryTerm;
         }
 
+        /**
+         * Releases the network buffers that the wrapped request retained when it was read from the wire, if any.
+         */
+        @Override
+        public void close() {
+            if (request instanceof Releasable) {
+                ((Releasable) request).close();
+            }
+        }
+
         @Override
         public String toString() {
             return "request: " + request + ", target allocation id: " + targetAllocationID + ", primary term: " + primaryTerm;
@@ -28,11 +28,14 @@ import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.action.support.WriteResponse;
 import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.ReplicationType;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MapperParsingException;
@@ -105,6 +108,18 @@ public abstract class TransportWriteAction<
         return next;
     }
 
+    @Override
+    protected void resolveRequest(IndexMetaData indexMetaData, Request request) {
+        super.resolveRequest(indexMetaData, request);
+        if (request.getRefreshPolicy() == WriteRequest.RefreshPolicy.WAIT_UNTIL
+                && IndexSettings.INDEX_REPLICATION_TYPE_SETTING.get(indexMetaData.getSettings()) == ReplicationType.SEGMENT) {
+            // replicas of these indices only make changes visible once they copy a commit of the primary, not on their own refreshes
+            throw new IllegalArgumentException("refresh policy [" + request.getRefreshPolicy().getValue() + "] is not supported on ["
+                + indexMetaData.getIndex().getName() + "] since it uses [" + IndexSettings.INDEX_REPLICATION_TYPE_SETTING.getKey()
+                + "] [segment]");
+        }
+    }
+
     @Override
     protected ReplicationOperation.Replicas newReplicasProxy(long primaryTerm) {
         return new WriteActionReplicasProxy(primaryTerm);
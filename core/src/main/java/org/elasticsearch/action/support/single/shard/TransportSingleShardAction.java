@@ -29,15 +29,19 @@ import org.elasticsearch.action.support.TransportActions;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.Preference;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardsIterator;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.ReplicationType;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportChannel;
@@ -113,6 +117,20 @@ public abstract class TransportSingleShardAction<Request extends SingleShardRequ
 
     }
 
+    /**
+     * Returns the preference to route a read of the given index with. Replicas of indices that use
+     * {@link ReplicationType#SEGMENT} replication only see the documents of the last commit copied from the primary, so
+     * realtime reads of these indices go to the primary.
+     */
+    @Nullable
+    protected static String resolvePreference(ClusterState state, String index, boolean realtime, @Nullable String preference) {
+        final IndexMetaData indexMetaData = state.metaData().index(index);
+        if (realtime && IndexSettings.INDEX_REPLICATION_TYPE_SETTING.get(indexMetaData.getSettings()) == ReplicationType.SEGMENT) {
+            return Preference.PRIMARY.type();
+        }
+        return preference;
+    }
+
     /**
      * Returns the candidate shards to execute the operation on or <code>null</code> the execute
      * the operation locally (the node that received the request)
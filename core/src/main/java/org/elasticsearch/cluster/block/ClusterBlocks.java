@@ -39,6 +39,7 @@ import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.stream.Collectors.toSet;
 import static java.util.stream.Stream.concat;
@@ -203,6 +204,16 @@ public class ClusterBlocks extends AbstractDiffable<ClusterBlocks> {
         return new ClusterBlockException(unmodifiableSet(blocks.collect(toSet())));
     }
 
+    /**
+     * Returns a {@link ClusterBlockException} if any of the given indices has the given block, whatever levels it blocks.
+     */
+    public ClusterBlockException indicesBlockedException(ClusterBlock block, String[] indices) {
+        if (Stream.of(indices).anyMatch(index -> hasIndexBlock(index, block)) == false) {
+            return null;
+        }
+        return new ClusterBlockException(singleton(block));
+    }
+
     /**
      * Returns <code>true</code> iff non of the given have a {@link ClusterBlockLevel#METADATA_WRITE} in place where the
      * {@link ClusterBlock#isAllowReleaseResources()} returns <code>false</code>. This is used in places where resources will be released
@@ -351,6 +362,9 @@ public class ClusterBlocks extends AbstractDiffable<ClusterBlocks> {
             if (IndexMetaData.INDEX_BLOCKS_READ_ONLY_ALLOW_DELETE_SETTING.get(indexMetaData.getSettings())) {
                 addIndexBlock(indexName, IndexMetaData.INDEX_READ_ONLY_ALLOW_DELETE_BLOCK);
             }
+            if (IndexMetaData.INDEX_FROZEN_SETTING.get(indexMetaData.getSettings())) {
+                addIndexBlock(indexName, IndexMetaData.INDEX_FROZEN_BLOCK);
+            }
             return this;
         }
 
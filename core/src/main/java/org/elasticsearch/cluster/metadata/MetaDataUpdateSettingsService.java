@@ -234,6 +234,8 @@ public class MetaDataUpdateSettingsService extends AbstractComponent implements
                 maybeUpdateClusterBlock(actualIndices, blocks, IndexMetaData.INDEX_METADATA_BLOCK, IndexMetaData.INDEX_BLOCKS_METADATA_SETTING, openSettings);
                 maybeUpdateClusterBlock(actualIndices, blocks, IndexMetaData.INDEX_WRITE_BLOCK, IndexMetaData.INDEX_BLOCKS_WRITE_SETTING, openSettings);
                 maybeUpdateClusterBlock(actualIndices, blocks, IndexMetaData.INDEX_READ_BLOCK, IndexMetaData.INDEX_BLOCKS_READ_SETTING, openSettings);
+                // frozen is not dynamic so it can only have been set on closed indices
+                maybeUpdateClusterBlock(actualIndices, blocks, IndexMetaData.INDEX_FROZEN_BLOCK, IndexMetaData.INDEX_FROZEN_SETTING, closedSettings);
 
                 if (!openIndices.isEmpty()) {
                     for (Index index : openIndices) {
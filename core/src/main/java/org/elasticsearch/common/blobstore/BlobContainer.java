@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.blobstore;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
@@ -57,6 +58,47 @@ public interface BlobContainer {
      */
     InputStream readBlob(String blobName) throws IOException;
 
+    /**
+     * Creates a new {@link InputStream} that starts reading the given blob at the given position. The stream is not
+     * guaranteed to end after {@code length} bytes, it only tells the implementation how much of the blob the caller is
+     * going to read so that it can fetch just that range. The default implementation reads the blob from its start and
+     * skips the bytes before {@code position}, implementations that can seek should override it.
+     *
+     * @param   blobName
+     *          The name of the blob to get an {@link InputStream} for.
+     * @param   position
+     *          The position in the blob to start reading at.
+     * @param   length
+     *          The number of bytes the caller is going to read.
+     * @return  The {@code InputStream} to read the blob from the given position.
+     * @throws  NoSuchFileException if the blob does not exist
+     * @throws  IOException if the blob can not be read.
+     */
+    default InputStream readBlob(String blobName, long position, long length) throws IOException {
+        final InputStream stream = readBlob(blobName);
+        boolean success = false;
+        try {
+            long remaining = position;
+            while (remaining > 0) {
+                final long skipped = stream.skip(remaining);
+                if (skipped <= 0) {
+                    if (stream.read() == -1) {
+                        throw new EOFException("position [" + position + "] is past the end of blob [" + blobName + "]");
+                    }
+                    remaining--;
+                } else {
+                    remaining -= skipped;
+                }
+            }
+            success = true;
+            return stream;
+        } finally {
+            if (success == false) {
+                stream.close();
+            }
+        }
+    }
+
     /**
      * Reads blob content from the input stream and writes it to the container in a new blob with the given name.
      * This method assumes the container does not already contain a blob of the same blobName.  If a blob by the
@@ -31,6 +31,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
@@ -121,6 +123,23 @@ public class FsBlobContainer extends AbstractBlobContainer {
         }
     }
 
+    @Override
+    public InputStream readBlob(String name, long position, long length) throws IOException {
+        final SeekableByteChannel channel = Files.newByteChannel(path.resolve(name), StandardOpenOption.READ);
+        boolean success = false;
+        try {
+            channel.position(position);
+            final InputStream stream = new BufferedInputStream(Channels.newInputStream(channel),
+                (int) Math.max(1, Math.min(length, blobStore.bufferSizeInBytes())));
+            success = true;
+            return stream;
+        } finally {
+            if (success == false) {
+                channel.close();
+            }
+        }
+    }
+
     @Override
     public void writeBlob(String blobName, InputStream inputStream, long blobSize) throws IOException {
         if (blobExists(blobName)) {
@@ -0,0 +1,105 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.bytes;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A {@link BytesReference} that holds on to a resource, typically a network buffer, until it is closed. The bytes must not
+ * be accessed once the reference is closed. Closing is idempotent.
+ */
+public final class ReleasableBytesReference extends BytesReference implements Releasable {
+
+    private final BytesReference delegate;
+    private final Releasable releasable;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    public ReleasableBytesReference(BytesReference delegate, Releasable releasable) {
+        this.delegate = delegate;
+        this.releasable = releasable;
+    }
+
+    /**
+     * Wraps a {@link BytesReference} that does not hold on to any resource so that releasing it is a no-op.
+     */
+    public static ReleasableBytesReference wrap(BytesReference reference) {
+        return new ReleasableBytesReference(reference, () -> {});
+    }
+
+    @Override
+    public byte get(int index) {
+        return delegate.get(index);
+    }
+
+    @Override
+    public int length() {
+        return delegate.length();
+    }
+
+    @Override
+    public BytesReference slice(int from, int length) {
+        return delegate.slice(from, length);
+    }
+
+    @Override
+    public StreamInput streamInput() throws IOException {
+        return delegate.streamInput();
+    }
+
+    @Override
+    public void writeTo(OutputStream os) throws IOException {
+        delegate.writeTo(os);
+    }
+
+    @Override
+    public String utf8ToString() {
+        return delegate.utf8ToString();
+    }
+
+    @Override
+    public BytesRef toBytesRef() {
+        return delegate.toBytesRef();
+    }
+
+    @Override
+    public BytesRefIterator iterator() {
+        return delegate.iterator();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return delegate.ramBytesUsed();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            Releasables.close(releasable);
+        }
+    }
+}
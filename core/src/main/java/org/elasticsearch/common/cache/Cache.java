@@ -19,20 +19,22 @@
 
 package org.elasticsearch.common.cache;
 
+import com.carrotsearch.hppc.BitMixer;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.util.concurrent.ReleasableLock;
 
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
-import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -46,23 +48,21 @@ import java.util.function.ToLongBiFunction;
  * accept reduced write performance in exchange for easy-to-understand code. Cache statistics for hits, misses and
  * evictions are exposed.
  * <p>
- * The design of the cache is relatively simple. The cache is segmented into 256 segments which are backed by HashMaps.
- * Each segment is protected by a re-entrant read/write lock. The read/write locks permit multiple concurrent readers
- * without contention, and the segments gives us write throughput without impacting readers (so readers are blocked only
- * if they are reading a segment that a writer is writing to).
+ * The design of the cache is relatively simple. The cache is segmented into 256 segments which are backed by
+ * ConcurrentHashMaps. Each segment is protected by a re-entrant lock that serializes writers to the segment, which
+ * gives us write throughput through the number of segments. Readers never acquire the segment lock so they are never
+ * blocked by writers.
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. In order to keep cache hits from contending on
+ * this lock, promotions of existing entries are not applied to the LRU list right away. Instead they are recorded in
+ * one of several striped read buffers, with threads picking a buffer based on their id. A read buffer is drained into
+ * the LRU list by whoever next holds the LRU lock, or by the reading thread that filled it up if the LRU lock is
+ * available. Promotions that are offered to a read buffer that is full are dropped, which means that recency is
+ * tracked on a sampled basis for very hot entries. The order in which a single thread promotes entries is retained.
  * <p>
- * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
- * invalidation) or an explicit call to {@link #refresh()}.
+ * Evictions only occur after a mutation to the cache (meaning a drain of the read buffers, a cache insertion, or a
+ * manual invalidation) or an explicit call to {@link #refresh()}.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -166,7 +166,7 @@ public class Cache<K, V> {
         volatile long accessTime;
         Entry<K, V> before;
         Entry<K, V> after;
-        State state = State.NEW;
+        volatile State state = State.NEW;
 
         Entry(K key, V value, long writeTime) {
             this.key = key;
@@ -178,19 +178,18 @@ public class Cache<K, V> {
     /**
      * A cache segment.
      * <p>
-     * A CacheSegment is backed by a HashMap and is protected by a read/write lock.
+     * A CacheSegment is backed by a ConcurrentHashMap. Reads are lock-free while mutations are protected by a lock.
      *
      * @param <K> the type of the keys
      * @param <V> the type of the values
      */
     private static class CacheSegment<K, V> {
-        // read/write lock protecting mutations to the segment
-        ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+        // lock protecting mutations to the segment
+        Lock segmentLock = new ReentrantLock();
 
-        ReleasableLock readLock = new ReleasableLock(segmentLock.readLock());
-        ReleasableLock writeLock = new ReleasableLock(segmentLock.writeLock());
+        ReleasableLock writeLock = new ReleasableLock(segmentLock);
 
-        Map<K, CompletableFuture<Entry<K, V>>> map = new HashMap<>();
+        final Map<K, CompletableFuture<Entry<K, V>>> map = new ConcurrentHashMap<>();
 
         SegmentStats segmentStats = new SegmentStats();
 
@@ -205,11 +204,8 @@ public class Cache<K, V> {
          * @return the entry if there was one, otherwise null
          */
         Entry<K, V> get(K key, long now, Predicate<Entry<K, V>> isExpired, Consumer<Entry<K, V>> onExpiration) {
-            CompletableFuture<Entry<K, V>> future;
+            CompletableFuture<Entry<K, V>> future = map.get(key);
             Entry<K, V> entry = null;
-            try (ReleasableLock ignored = readLock.acquire()) {
-                future = map.get(key);
-            }
             if (future != null) {
                 try {
                     entry = future.handle((ok, ex) -> {
@@ -329,6 +325,68 @@ public class Cache<K, V> {
     // lock protecting mutations to the LRU list
     private ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    // the number of promotions a read buffer can hold before it needs to be drained
+    static final int READ_BUFFER_SIZE = 16;
+
+    static final int NUMBER_OF_READ_BUFFERS = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * A lossy buffer of entries that were hit by reads and need to be promoted to the head of the LRU list.
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static class ReadBuffer<K, V> {
+        final AtomicReferenceArray<Entry<K, V>> entries = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        final AtomicInteger writeIndex = new AtomicInteger();
+
+        /**
+         * add an entry to the buffer; the entry is dropped if the buffer is full
+         *
+         * @param entry the entry to promote
+         * @return true if the buffer is full and should be drained
+         */
+        boolean offer(Entry<K, V> entry) {
+            if (writeIndex.get() >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            final int index = writeIndex.getAndIncrement();
+            if (index < READ_BUFFER_SIZE) {
+                entries.lazySet(index, entry);
+            }
+            return index >= READ_BUFFER_SIZE - 1;
+        }
+
+        /**
+         * remove all entries from the buffer in the order they were added
+         *
+         * @param consumer the consumer of the removed entries
+         */
+        void drain(Consumer<Entry<K, V>> consumer) {
+            if (writeIndex.get() == 0) {
+                return;
+            }
+            // we scan all slots since a reader might have published its entry after the last drain reset the write index
+            for (int i = 0; i < READ_BUFFER_SIZE; i++) {
+                if (entries.get(i) != null) {
+                    final Entry<K, V> entry = entries.getAndSet(i, null);
+                    if (entry != null) {
+                        consumer.accept(entry);
+                    }
+                }
+            }
+            writeIndex.set(0);
+        }
+    }
+
+    @SuppressWarnings("unchecked") private final ReadBuffer<K, V>[] readBuffers = new ReadBuffer[NUMBER_OF_READ_BUFFERS];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -345,7 +403,14 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            if (entry.state == State.EXISTING) {
+                // the entry is already linked in the LRU list so we can defer its promotion to the next drain of the read buffers
+                if (getReadBuffer().offer(entry)) {
+                    tryDrainReadBuffers(now);
+                }
+            } else {
+                promote(entry, now);
+            }
             return entry.value;
         }
     }
@@ -494,12 +559,12 @@ public class Cache<K, V> {
         boolean[] haveSegmentLock = new boolean[NUMBER_OF_SEGMENTS];
         try {
             for (int i = 0; i < NUMBER_OF_SEGMENTS; i++) {
-                segments[i].segmentLock.writeLock().lock();
+                segments[i].segmentLock.lock();
                 haveSegmentLock[i] = true;
             }
             try (ReleasableLock ignored = lruLock.acquire()) {
                 h = head;
-                Arrays.stream(segments).forEach(segment -> segment.map = new HashMap<>());
+                Arrays.stream(segments).forEach(segment -> segment.map.clear());
                 Entry<K, V> current = head;
                 while (current != null) {
                     current.state = State.DELETED;
@@ -512,7 +577,7 @@ public class Cache<K, V> {
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
                 if (haveSegmentLock[i]) {
-                    segments[i].segmentLock.writeLock().unlock();
+                    segments[i].segmentLock.unlock();
                 }
             }
         }
@@ -528,6 +593,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             evict(now);
         }
     }
@@ -559,7 +625,7 @@ public class Cache<K, V> {
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator(lruHead());
 
             @Override
             public boolean hasNext() {
@@ -586,7 +652,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private CacheIterator iterator = new CacheIterator(head);
+            private CacheIterator iterator = new CacheIterator(lruHead());
 
             @Override
             public boolean hasNext() {
@@ -680,6 +746,8 @@ public class Cache<K, V> {
     private boolean promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            // apply the pending promotions first to retain the order in which entries were accessed by a thread
+            drainReadBuffers();
             switch (entry.state) {
                 case DELETED:
                     promoted = false;
@@ -698,6 +766,44 @@ public class Cache<K, V> {
         return promoted;
     }
 
+    private ReadBuffer<K, V> getReadBuffer() {
+        // don't trust Thread.hashCode to have equiprobable low bits
+        final int hash = (int) BitMixer.mix64(Thread.currentThread().getId());
+        return readBuffers[(hash & 0x7FFFFFFF) % readBuffers.length];
+    }
+
+    private void tryDrainReadBuffers(long now) {
+        // if some other thread is holding the LRU lock we don't wait for it, the read buffers will be drained on the next
+        // mutation of the cache
+        try (ReleasableLock locked = lruLock.tryAcquire()) {
+            if (locked != null) {
+                drainReadBuffers();
+                evict(now);
+            }
+        }
+    }
+
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+
+        for (ReadBuffer<K, V> readBuffer : readBuffers) {
+            readBuffer.drain(entry -> {
+                // entries that have been removed from the cache since they were read are not promoted
+                if (entry.state == State.EXISTING) {
+                    relinkAtHead(entry);
+                }
+            });
+        }
+    }
+
+    // the head of the LRU list, after the pending promotions have been applied to it
+    private Entry<K, V> lruHead() {
+        try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
+            return head;
+        }
+    }
+
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
@@ -28,25 +28,57 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 public class CompressorFactory {
 
+    /**
+     * The default compressor, which all versions of elasticsearch can decompress.
+     */
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    /**
+     * A faster compressor with a lower compression ratio. Bytes compressed with it can only be decompressed by nodes that
+     * are on or after {@link org.elasticsearch.Version#V_7_0_0_alpha1}.
+     */
+    public static final Compressor LZ4 = new LZ4Compressor();
+
+    private static final List<Compressor> COMPRESSORS = Arrays.asList(COMPRESSOR, LZ4);
+
+    /**
+     * Returns the compressor with the given name, either {@code deflate} or {@code lz4}.
+     *
+     * @throws IllegalArgumentException if there is no compressor with the given name
+     */
+    public static Compressor compressor(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "deflate":
+                return COMPRESSOR;
+            case "lz4":
+                return LZ4;
+            default:
+                throw new IllegalArgumentException("unknown compressor [" + name + "], must be one of [deflate, lz4]");
+        }
+    }
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
 
     @Nullable
     public static Compressor compressor(BytesReference bytes) {
-            if (COMPRESSOR.isCompressed(bytes)) {
+        for (Compressor compressor : COMPRESSORS) {
+            if (compressor.isCompressed(bytes)) {
                 // bytes should be either detected as compressed or as xcontent,
                 // if we have bytes that can be either detected as compressed or
                 // as a xcontent, we have a problem
                 assert XContentFactory.xContentType(bytes) == null;
-                return COMPRESSOR;
+                return compressor;
             }
+        }
 
         XContentType contentType = XContentFactory.xContentType(bytes);
         if (contentType == null) {
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A pure Java implementation of the <a href="https://github.com/lz4/lz4/blob/master/doc/lz4_Block_format.md">LZ4 block format</a>.
+ * Compression uses a single hash table lookup per position, which trades compression ratio for speed, and blocks are encoded
+ * independently of each other. The decompressor validates that the block references only bytes that were already decompressed.
+ */
+final class LZ4 {
+
+    private LZ4() {
+    }
+
+    static final int MIN_MATCH = 4;
+    // match offsets are stored on 2 bytes
+    static final int MAX_DISTANCE = 1 << 16;
+    // the last 5 bytes of a block are always literals and the last match must start 12 bytes before the end of the block
+    static final int LAST_LITERALS = 5;
+    static final int MF_LIMIT = 12;
+    static final int MAX_HASH_LOG = 14;
+    private static final int MIN_HASH_LOG = 8;
+    // the number of probes after which we start skipping bytes when searching incompressible data
+    private static final int SKIP_TRIGGER = 6;
+
+    /**
+     * The maximum size of the compressed representation of {@code length} bytes.
+     */
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * The number of bits of the hash table that is used to compress {@code length} bytes. Small inputs use small tables so that
+     * clearing the table does not dominate the cost of compressing them.
+     */
+    static int hashLog(int length) {
+        final int bits = 32 - Integer.numberOfLeadingZeros(Math.max(length - 1, 1));
+        return Math.max(MIN_HASH_LOG, Math.min(MAX_HASH_LOG, bits - 2));
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8)
+            | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static int hash(int value, int hashLog) {
+        return (value * -1640531535) >>> (32 - hashLog);
+    }
+
+    private static int commonBytes(byte[] bytes, int ref, int offset, int limit) {
+        int count = 0;
+        while (offset + count < limit && bytes[ref + count] == bytes[offset + count]) {
+            ++count;
+        }
+        return count;
+    }
+
+    private static int writeLength(int length, byte[] dest, int destOffset) {
+        while (length >= 0xFF) {
+            dest[destOffset++] = (byte) 0xFF;
+            length -= 0xFF;
+        }
+        dest[destOffset++] = (byte) length;
+        return destOffset;
+    }
+
+    private static int writeLiterals(int token, byte[] src, int literalStart, int literalLength, byte[] dest, int destOffset) {
+        dest[destOffset++] = (byte) (token | (Math.min(literalLength, 0x0F) << 4));
+        if (literalLength >= 0x0F) {
+            destOffset = writeLength(literalLength - 0x0F, dest, destOffset);
+        }
+        System.arraycopy(src, literalStart, dest, destOffset, literalLength);
+        return destOffset + literalLength;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literalLength, int matchDistance, int matchLength,
+                                     byte[] dest, int destOffset) {
+        final int matchToken = Math.min(matchLength - MIN_MATCH, 0x0F);
+        destOffset = writeLiterals(matchToken, src, literalStart, literalLength, dest, destOffset);
+        dest[destOffset++] = (byte) matchDistance;
+        dest[destOffset++] = (byte) (matchDistance >>> 8);
+        if (matchLength - MIN_MATCH >= 0x0F) {
+            destOffset = writeLength(matchLength - MIN_MATCH - 0x0F, dest, destOffset);
+        }
+        return destOffset;
+    }
+
+    /**
+     * Compress the first {@code length} bytes of {@code src} into {@code dest}, which must have room for at least
+     * {@link #maxCompressedLength(int)} bytes, and return the number of bytes written. {@code hashTable} must have at
+     * least {@code 1 << hashLog(length)} slots, its content is overwritten.
+     */
+    static int compress(byte[] src, int length, byte[] dest, int[] hashTable) {
+        int anchor = 0;
+        int destOffset = 0;
+        if (length > MF_LIMIT) {
+            final int hashLog = hashLog(length);
+            Arrays.fill(hashTable, 0, 1 << hashLog, -1);
+            final int limit = length - MF_LIMIT;
+            final int matchLimit = length - LAST_LITERALS;
+            int offset = 0;
+            main:
+            while (true) {
+                int ref;
+                int probes = 0;
+                while (true) {
+                    if (offset >= limit) {
+                        break main;
+                    }
+                    final int value = readInt(src, offset);
+                    final int h = hash(value, hashLog);
+                    ref = hashTable[h];
+                    hashTable[h] = offset;
+                    if (ref >= 0 && offset - ref < MAX_DISTANCE && readInt(src, ref) == value) {
+                        break;
+                    }
+                    offset += 1 + (probes++ >>> SKIP_TRIGGER);
+                }
+                // extend the match backwards, over the literals that have not been encoded yet
+                while (offset > anchor && ref > 0 && src[offset - 1] == src[ref - 1]) {
+                    --offset;
+                    --ref;
+                }
+                final int matchLength = MIN_MATCH + commonBytes(src, ref + MIN_MATCH, offset + MIN_MATCH, matchLimit);
+                destOffset = writeSequence(src, anchor, offset - anchor, offset - ref, matchLength, dest, destOffset);
+                offset += matchLength;
+                anchor = offset;
+            }
+        }
+        return writeLiterals(0, src, anchor, length - anchor, dest, destOffset);
+    }
+
+    private static void copy(byte[] src, int srcOffset, byte[] dest, int destOffset, int length) {
+        // literals and matches are usually short, copying them byte by byte is cheaper than calling System#arraycopy
+        if (length <= 16) {
+            for (int i = 0; i < length; ++i) {
+                dest[destOffset + i] = src[srcOffset + i];
+            }
+        } else {
+            System.arraycopy(src, srcOffset, dest, destOffset, length);
+        }
+    }
+
+    /**
+     * Decompress a block of {@code compressedLength} bytes from {@code src} that was compressed from exactly
+     * {@code length} bytes into {@code dest}.
+     *
+     * @throws IOException if the block is corrupted
+     */
+    static void decompress(byte[] src, int compressedLength, byte[] dest, int length) throws IOException {
+        int srcOffset = 0;
+        int destOffset = 0;
+        try {
+            while (true) {
+                final int token = src[srcOffset++] & 0xFF;
+                int literalLength = token >>> 4;
+                if (literalLength == 0x0F) {
+                    int b;
+                    do {
+                        b = src[srcOffset++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 0xFF);
+                }
+                if (literalLength > compressedLength - srcOffset || literalLength > length - destOffset) {
+                    throw new IOException("Corrupted LZ4 block: literals exceed the block");
+                }
+                copy(src, srcOffset, dest, destOffset, literalLength);
+                srcOffset += literalLength;
+                destOffset += literalLength;
+                if (destOffset == length) {
+                    // the last sequence has no match
+                    break;
+                }
+                final int matchDistance = (src[srcOffset++] & 0xFF) | ((src[srcOffset++] & 0xFF) << 8);
+                int matchLength = token & 0x0F;
+                if (matchLength == 0x0F) {
+                    int b;
+                    do {
+                        b = src[srcOffset++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 0xFF);
+                }
+                matchLength += MIN_MATCH;
+                final int ref = destOffset - matchDistance;
+                if (matchDistance == 0 || ref < 0 || matchLength > length - destOffset) {
+                    throw new IOException("Corrupted LZ4 block: invalid match");
+                }
+                if (matchDistance >= matchLength) {
+                    copy(dest, ref, dest, destOffset, matchLength);
+                } else {
+                    // overlapping copy, the match repeats the bytes that it is producing
+                    for (int i = 0; i < matchLength; ++i) {
+                        dest[destOffset + i] = dest[ref + i];
+                    }
+                }
+                destOffset += matchLength;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Corrupted LZ4 block: truncated block", e);
+        }
+        if (srcOffset != compressedLength) {
+            throw new IOException("Corrupted LZ4 block: trailing bytes");
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.InputStreamStreamInput;
+import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * {@link Compressor} implementation based on the LZ4 compression algorithm. LZ4 compresses less than DEFLATE but is
+ * several times faster to compress and to decompress, which makes it a better fit when CPU is scarcer than bandwidth.
+ * <p>
+ * The stream is a sequence of independently compressed blocks of at most 64KB, each prefixed with its uncompressed and
+ * compressed lengths as vInts, followed by an uncompressed length of {@code 0} that marks the end of the stream.
+ */
+public class LZ4Compressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams
+    // It needs to be different from other compressors and to not be specific
+    // enough so that no stream starting with these bytes could be detected as
+    // a XContent
+    private static final byte[] HEADER = new byte[]{'L', 'Z', '4', '\0'};
+    // matches can reference up to 64KB backwards so larger blocks would barely improve the compression ratio
+    static final int BLOCK_SIZE = 1 << 16;
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public StreamInput streamInput(StreamInput in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        int len = 0;
+        while (len < headerBytes.length) {
+            final int read = in.read(headerBytes, len, headerBytes.length - len);
+            if (read == -1) {
+                break;
+            }
+            len += read;
+        }
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with LZ4!");
+        }
+        return new InputStreamStreamInput(new BlockInputStream(in));
+    }
+
+    @Override
+    public StreamOutput streamOutput(StreamOutput out) throws IOException {
+        out.writeBytes(HEADER);
+        return new OutputStreamStreamOutput(new BlockOutputStream(out));
+    }
+
+    /**
+     * Buffers up to {@link #BLOCK_SIZE} bytes and compresses them as a block when the buffer is full or flushed. Buffers grow
+     * on demand so that compressing small messages does not allocate for a full block.
+     */
+    private static final class BlockOutputStream extends OutputStream {
+        private final StreamOutput out;
+        private byte[] buffer = new byte[0];
+        private byte[] compressed = new byte[0];
+        private int[] hashTable = new int[0];
+        private int count;
+        private boolean closed;
+
+        BlockOutputStream(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureCapacity(1);
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                ensureCapacity(len);
+                final int toCopy = Math.min(len, buffer.length - count);
+                System.arraycopy(b, off, buffer, count, toCopy);
+                count += toCopy;
+                off += toCopy;
+                len -= toCopy;
+            }
+        }
+
+        private void ensureCapacity(int len) throws IOException {
+            if (count == BLOCK_SIZE) {
+                writeBlock();
+            }
+            if (buffer.length - count < len && buffer.length < BLOCK_SIZE) {
+                buffer = Arrays.copyOf(buffer, Math.min(BLOCK_SIZE, ArrayUtil.oversize(count + len, Byte.BYTES)));
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (count == 0) {
+                return;
+            }
+            final int maxCompressedLength = LZ4.maxCompressedLength(count);
+            if (compressed.length < maxCompressedLength) {
+                compressed = new byte[maxCompressedLength];
+            }
+            final int hashTableSize = 1 << LZ4.hashLog(count);
+            if (hashTable.length < hashTableSize) {
+                hashTable = new int[hashTableSize];
+            }
+            final int compressedLength = LZ4.compress(buffer, count, compressed, hashTable);
+            out.writeVInt(count);
+            out.writeVInt(compressedLength);
+            out.writeBytes(compressed, 0, compressedLength);
+            count = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                try {
+                    writeBlock();
+                    out.writeVInt(0);
+                } finally {
+                    out.close();
+                }
+            }
+        }
+    }
+
+    private static final class BlockInputStream extends InputStream {
+        private final StreamInput in;
+        private byte[] buffer = new byte[0];
+        private byte[] compressed = new byte[0];
+        private int position;
+        private int limit;
+        private boolean eof;
+
+        BlockInputStream(StreamInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position == limit && readBlock() == false) {
+                return -1;
+            }
+            final int toCopy = Math.min(len, limit - position);
+            System.arraycopy(buffer, position, b, off, toCopy);
+            position += toCopy;
+            return toCopy;
+        }
+
+        private boolean readBlock() throws IOException {
+            if (eof) {
+                return false;
+            }
+            final int length = in.readVInt();
+            if (length == 0) {
+                eof = true;
+                return false;
+            }
+            final int compressedLength = in.readVInt();
+            if (length < 0 || length > BLOCK_SIZE || compressedLength < 0 || compressedLength > LZ4.maxCompressedLength(length)) {
+                throw new IOException("Corrupted LZ4 stream: invalid block of [" + compressedLength + "] compressed bytes and ["
+                    + length + "] bytes");
+            }
+            if (compressed.length < compressedLength) {
+                compressed = new byte[ArrayUtil.oversize(compressedLength, Byte.BYTES)];
+            }
+            if (buffer.length < length) {
+                buffer = new byte[ArrayUtil.oversize(length, Byte.BYTES)];
+            }
+            in.readBytes(compressed, 0, compressedLength);
+            LZ4.decompress(compressed, compressedLength, buffer, length);
+            position = 0;
+            limit = length;
+            return true;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
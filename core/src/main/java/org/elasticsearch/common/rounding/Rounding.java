@@ -23,12 +23,15 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.TimeValue;
+import org.joda.time.DateTimeConstants;
 import org.joda.time.DateTimeField;
 import org.joda.time.DateTimeZone;
 import org.joda.time.IllegalInstantException;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
+import java.util.function.LongUnaryOperator;
 
 /**
  * A strategy for rounding long values.
@@ -51,6 +54,15 @@ public abstract class Rounding implements Streamable {
      */
     public abstract long nextRoundingValue(long value);
 
+    /**
+     * Returns a rounding that returns the same values as this rounding, but that is optimized for rounding values between
+     * {@code minUtcMillis} and {@code maxUtcMillis}, for instance the range of values that a field has in a shard. Values
+     * outside of this range are still rounded correctly, just not faster than with this rounding.
+     */
+    public Rounding prepare(long minUtcMillis, long maxUtcMillis) {
+        return this;
+    }
+
     @Override
     public abstract boolean equals(Object obj);
 
@@ -165,6 +177,42 @@ public abstract class Rounding implements Streamable {
             return rounded;
         }
 
+        @Override
+        public Rounding prepare(long minUtcMillis, long maxUtcMillis) {
+            final LongUnaryOperator localRounding;
+            switch (unit) {
+                case SECOND_OF_MINUTE:
+                    localRounding = localMillis -> roundFloor(localMillis, DateTimeConstants.MILLIS_PER_SECOND);
+                    break;
+                case MINUTES_OF_HOUR:
+                    localRounding = localMillis -> roundFloor(localMillis, DateTimeConstants.MILLIS_PER_MINUTE);
+                    break;
+                case HOUR_OF_DAY:
+                    localRounding = localMillis -> roundFloor(localMillis, DateTimeConstants.MILLIS_PER_HOUR);
+                    break;
+                case DAY_OF_MONTH:
+                    localRounding = localMillis -> roundFloor(localMillis, DateTimeConstants.MILLIS_PER_DAY);
+                    break;
+                case WEEK_OF_WEEKYEAR:
+                    // the epoch is a thursday, weeks start on monday
+                    localRounding = localMillis -> roundFloor(localMillis - FIRST_MONDAY_MILLIS, DateTimeConstants.MILLIS_PER_WEEK)
+                            + FIRST_MONDAY_MILLIS;
+                    break;
+                default:
+                    // months, quarters and years have no fixed length, but rounding them in UTC is still cheap
+                    final DateTimeField localField = unit.field(DateTimeZone.UTC);
+                    localRounding = localField::roundFloor;
+                    break;
+            }
+            return TransitionTableRounding.build(this, timeZone, localRounding, minUtcMillis, maxUtcMillis);
+        }
+
+        private static final long FIRST_MONDAY_MILLIS = 4L * DateTimeConstants.MILLIS_PER_DAY;
+
+        private static long roundFloor(long localMillis, long unitMillis) {
+            return Math.floorDiv(localMillis, unitMillis) * unitMillis;
+        }
+
         @Override
         public long nextRoundingValue(long utcMillis) {
             long floor = round(utcMillis);
@@ -262,6 +310,13 @@ public abstract class Rounding implements Streamable {
             return roundedUTC;
         }
 
+        @Override
+        public Rounding prepare(long minUtcMillis, long maxUtcMillis) {
+            final long interval = this.interval;
+            return TransitionTableRounding.build(this, timeZone, localMillis -> roundKey(localMillis, interval) * interval,
+                    minUtcMillis, maxUtcMillis);
+        }
+
         private static long roundKey(long value, long interval) {
             if (value < 0) {
                 return (value - interval + 1) / interval;
@@ -343,6 +398,143 @@ public abstract class Rounding implements Streamable {
         }
     }
 
+    /**
+     * A {@link Rounding} that precomputes the time zone offset transitions between a minimum and a maximum value so that
+     * rounding a value in this range only requires a binary search over the transitions and rounding the local time with
+     * simple arithmetic, instead of the time zone lookups that the delegate rounding performs for every value. Values
+     * outside of the range, and values whose rounded local time does not fall in the same offset period as the value
+     * itself (typically rounded values right at a transition) are rounded by the delegate. This rounding is serialized
+     * as its delegate.
+     */
+    static final class TransitionTableRounding extends Rounding {
+
+        /**
+         * The maximum number of offset periods to precompute, daylight saving time usually adds two transitions per year.
+         */
+        static final int MAX_TRANSITIONS = 4096;
+
+        private final Rounding delegate;
+        private final LongUnaryOperator localRounding;
+        private final long minUtcMillis;
+        private final long maxUtcMillis;
+        /** The start of each offset period, the first period might start before {@link #minUtcMillis}. */
+        private final long[] transitions;
+        /** The offset of each period, in milliseconds. */
+        private final long[] offsets;
+
+        private TransitionTableRounding(Rounding delegate, LongUnaryOperator localRounding, long minUtcMillis, long maxUtcMillis,
+                                        long[] transitions, long[] offsets) {
+            this.delegate = delegate;
+            this.localRounding = localRounding;
+            this.minUtcMillis = minUtcMillis;
+            this.maxUtcMillis = maxUtcMillis;
+            this.transitions = transitions;
+            this.offsets = offsets;
+        }
+
+        static Rounding build(Rounding delegate, DateTimeZone timeZone, LongUnaryOperator localRounding,
+                              long minUtcMillis, long maxUtcMillis) {
+            if (timeZone.isFixed() || minUtcMillis > maxUtcMillis) {
+                // rounding in a fixed time zone needs no transition lookups in the first place
+                return delegate;
+            }
+            long[] transitions = new long[8];
+            long[] offsets = new long[8];
+            // previousTransition returns the last millisecond before the transition, or its argument if there is none
+            long previous = timeZone.previousTransition(minUtcMillis);
+            long start = previous == minUtcMillis ? Long.MIN_VALUE : previous + 1;
+            transitions[0] = start;
+            offsets[0] = timeZone.getOffset(minUtcMillis);
+            int count = 1;
+            long current = minUtcMillis;
+            while (true) {
+                long next = timeZone.nextTransition(current);
+                if (next == current || next > maxUtcMillis) {
+                    break;
+                }
+                if (count == MAX_TRANSITIONS) {
+                    return delegate;
+                }
+                if (count == transitions.length) {
+                    transitions = Arrays.copyOf(transitions, count * 2);
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                transitions[count] = next;
+                offsets[count] = timeZone.getOffset(next);
+                count++;
+                current = next;
+            }
+            return new TransitionTableRounding(delegate, localRounding, minUtcMillis, maxUtcMillis,
+                    Arrays.copyOf(transitions, count), Arrays.copyOf(offsets, count));
+        }
+
+        @Override
+        public byte id() {
+            return delegate.id();
+        }
+
+        @Override
+        public long round(long utcMillis) {
+            if (utcMillis < minUtcMillis || utcMillis > maxUtcMillis) {
+                return delegate.round(utcMillis);
+            }
+            int period = Arrays.binarySearch(transitions, utcMillis);
+            if (period < 0) {
+                period = -2 - period;
+            }
+            long offset = offsets[period];
+            long rounded = localRounding.applyAsLong(utcMillis + offset) - offset;
+            if (rounded <= transitions[period]) {
+                // the rounded value lies in an earlier offset period or right at the transition, which needs the dst handling
+                return delegate.round(utcMillis);
+            }
+            assert rounded == delegate.round(utcMillis) : "rounding [" + utcMillis + "] with [" + delegate + "]";
+            return rounded;
+        }
+
+        @Override
+        public long nextRoundingValue(long value) {
+            return delegate.nextRoundingValue(value);
+        }
+
+        @Override
+        public Rounding prepare(long minUtcMillis, long maxUtcMillis) {
+            return delegate.prepare(minUtcMillis, maxUtcMillis);
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            throw new UnsupportedOperationException("[" + getClass().getSimpleName() + "] is serialized as its delegate");
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            delegate.writeTo(out);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(delegate, minUtcMillis, maxUtcMillis);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            TransitionTableRounding other = (TransitionTableRounding) obj;
+            return Objects.equals(delegate, other.delegate) && minUtcMillis == other.minUtcMillis && maxUtcMillis == other.maxUtcMillis;
+        }
+
+        @Override
+        public String toString() {
+            return delegate + "[" + minUtcMillis + "-" + maxUtcMillis + "]";
+        }
+    }
+
     public static class Streams {
 
         public static void write(Rounding rounding, StreamOutput out) throws IOException {
@@ -434,6 +434,14 @@ public class BigArrays implements Releasable {
         return this.circuitBreakingInstance;
     }
 
+    /**
+     * Return an instance of this BigArrays class that only accounts for its
+     * memory in the circuit breaker, without tripping it
+     */
+    public BigArrays withoutCircuitBreaking() {
+        return checkBreaker ? new BigArrays(recycler, breakerService, false) : this;
+    }
+
     public CircuitBreakerService breakerService() {
         return this.circuitBreakingInstance.breakerService;
     }
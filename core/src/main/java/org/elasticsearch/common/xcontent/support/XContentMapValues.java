@@ -25,11 +25,15 @@ import org.apache.lucene.util.automaton.CharacterRunAutomaton;
 import org.apache.lucene.util.automaton.Operations;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -164,16 +168,57 @@ public class XContentMapValues {
      */
     public static Function<Map<String, ?>, Map<String, Object>> filter(String[] includes, String[] excludes) {
         CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
 
-        CharacterRunAutomaton include;
+        // NOTE: We cannot use Operations.minus because of the special case that
+        // we want all sub properties to match as soon as an object matches
+
+        return (map) -> filter(map,
+            include, 0,
+            exclude, 0,
+            matchAllAutomaton);
+    }
+
+    /**
+     * Returns a function that copies the object the parser is positioned on into the builder, keeping only the
+     * properties that match the given include and exclude rules. The rules are the same as the ones of
+     * {@link #filter(String[], String[])}, but the document is never materialized as a map: properties that match
+     * entirely are copied straight from the parser and the others are skipped without being parsed into objects.
+     * Unlike the map based filter, the order of the properties of the original document is preserved.
+     */
+    public static CheckedBiConsumer<XContentParser, XContentBuilder, IOException> streamingFilter(String[] includes,
+                                                                                                   String[] excludes) {
+        CharacterRunAutomaton matchAllAutomaton = new CharacterRunAutomaton(Automata.makeAnyString());
+        CharacterRunAutomaton include = includeAutomaton(includes, matchAllAutomaton);
+        CharacterRunAutomaton exclude = excludeAutomaton(excludes);
+
+        return (parser, builder) -> {
+            XContentParser.Token token = parser.currentToken();
+            if (token == null) {
+                token = parser.nextToken();
+            }
+            if (token != XContentParser.Token.START_OBJECT) {
+                throw new ElasticsearchParseException("expected an object to filter but got [{}]", token);
+            }
+            FilteredWriter writer = new FilteredWriter(builder);
+            // the root object is always written, even if nothing matches
+            writer.startObject(null, true);
+            filter(parser, writer, include, 0, exclude, 0, matchAllAutomaton);
+            writer.end();
+        };
+    }
+
+    private static CharacterRunAutomaton includeAutomaton(String[] includes, CharacterRunAutomaton matchAllAutomaton) {
         if (includes == null || includes.length == 0) {
-            include = matchAllAutomaton;
-        } else {
-            Automaton includeA = Regex.simpleMatchToAutomaton(includes);
-            includeA = makeMatchDotsInFieldNames(includeA);
-            include = new CharacterRunAutomaton(includeA);
+            return matchAllAutomaton;
         }
+        Automaton includeA = Regex.simpleMatchToAutomaton(includes);
+        includeA = makeMatchDotsInFieldNames(includeA);
+        return new CharacterRunAutomaton(includeA);
+    }
 
+    private static CharacterRunAutomaton excludeAutomaton(String[] excludes) {
         Automaton excludeA;
         if (excludes == null || excludes.length == 0) {
             excludeA = Automata.makeEmpty();
@@ -181,15 +226,7 @@ public class XContentMapValues {
             excludeA = Regex.simpleMatchToAutomaton(excludes);
             excludeA = makeMatchDotsInFieldNames(excludeA);
         }
-        CharacterRunAutomaton exclude = new CharacterRunAutomaton(excludeA);
-
-        // NOTE: We cannot use Operations.minus because of the special case that
-        // we want all sub properties to match as soon as an object matches
-
-        return (map) -> filter(map,
-            include, 0,
-            exclude, 0,
-            matchAllAutomaton);
+        return new CharacterRunAutomaton(excludeA);
     }
 
     /** Make matches on objects also match dots in field names.
@@ -314,6 +351,185 @@ public class XContentMapValues {
         return filtered;
     }
 
+    /**
+     * Streaming counterpart of {@link #filter(Map, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)},
+     * the parser must be positioned on the start of the object to filter and is left on its end.
+     */
+    private static void filter(XContentParser parser, FilteredWriter writer,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            assert token == XContentParser.Token.FIELD_NAME : "expected a field name but got " + token;
+            String key = parser.currentName();
+            token = parser.nextToken();
+
+            int includeState = step(includeAutomaton, key, initialIncludeState);
+            if (includeState == -1) {
+                parser.skipChildren();
+                continue;
+            }
+
+            int excludeState = step(excludeAutomaton, key, initialExcludeState);
+            if (excludeState != -1 && excludeAutomaton.isAccept(excludeState)) {
+                parser.skipChildren();
+                continue;
+            }
+
+            CharacterRunAutomaton subIncludeAutomaton = includeAutomaton;
+            int subIncludeState = includeState;
+            if (includeAutomaton.isAccept(includeState)) {
+                if (excludeState == -1 || excludeAutomaton.step(excludeState, '.') == -1) {
+                    // the exclude has no chances to match inner properties
+                    writer.copyCurrentStructure(key, parser);
+                    continue;
+                } else {
+                    // the object matched, so consider that the include matches every inner property
+                    // we only care about excludes now
+                    subIncludeAutomaton = matchAllAutomaton;
+                    subIncludeState = 0;
+                }
+            }
+
+            if (token == XContentParser.Token.START_OBJECT) {
+
+                subIncludeState = subIncludeAutomaton.step(subIncludeState, '.');
+                if (subIncludeState == -1) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+
+                writer.startObject(key, includeAutomaton.isAccept(includeState));
+                filter(parser, writer, subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                writer.end();
+
+            } else if (token == XContentParser.Token.START_ARRAY) {
+
+                writer.startArray(key);
+                filterArray(parser, writer, subIncludeAutomaton, subIncludeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                writer.end();
+
+            } else {
+
+                // leaf property
+                if (includeAutomaton.isAccept(includeState)
+                        && (excludeState == -1 || excludeAutomaton.isAccept(excludeState) == false)) {
+                    writer.copyCurrentStructure(key, parser);
+                }
+
+            }
+        }
+    }
+
+    /**
+     * Streaming counterpart of {@link #filter(Iterable, CharacterRunAutomaton, int, CharacterRunAutomaton, int, CharacterRunAutomaton)},
+     * the parser must be positioned on the start of the array to filter and is left on its end.
+     */
+    private static void filterArray(XContentParser parser, FilteredWriter writer,
+            CharacterRunAutomaton includeAutomaton, int initialIncludeState,
+            CharacterRunAutomaton excludeAutomaton, int initialExcludeState,
+            CharacterRunAutomaton matchAllAutomaton) throws IOException {
+        boolean isInclude = includeAutomaton.isAccept(initialIncludeState);
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                int includeState = includeAutomaton.step(initialIncludeState, '.');
+                int excludeState = initialExcludeState;
+                if (excludeState != -1) {
+                    excludeState = excludeAutomaton.step(excludeState, '.');
+                }
+                writer.startObject(null, false);
+                filter(parser, writer, includeAutomaton, includeState, excludeAutomaton, excludeState, matchAllAutomaton);
+                writer.end();
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                writer.startArray(null);
+                filterArray(parser, writer, includeAutomaton, initialIncludeState, excludeAutomaton, initialExcludeState,
+                        matchAllAutomaton);
+                writer.end();
+            } else if (isInclude) {
+                // #22557: only accept this array value if the key we are on is accepted:
+                writer.copyCurrentStructure(null, parser);
+            }
+        }
+    }
+
+    /**
+     * Writes filtered objects and arrays lazily: their start is only written once something needs to be written
+     * inside them, so that objects and arrays that end up empty are dropped like the map based filter does.
+     */
+    private static final class FilteredWriter {
+
+        private final XContentBuilder builder;
+        private final List<String> names = new ArrayList<>();
+        private final List<Boolean> objects = new ArrayList<>();
+        /** the number of open objects and arrays whose start has already been written */
+        private int written = 0;
+
+        FilteredWriter(XContentBuilder builder) {
+            this.builder = builder;
+        }
+
+        /**
+         * Opens an object under the given field name, or as an array element if the name is {@code null}. If
+         * {@code force} is true then the object is written even if it ends up empty.
+         */
+        void startObject(String name, boolean force) throws IOException {
+            names.add(name);
+            objects.add(true);
+            if (force) {
+                flush();
+            }
+        }
+
+        /** Opens an array under the given field name, or as an array element if the name is {@code null}. */
+        void startArray(String name) {
+            names.add(name);
+            objects.add(false);
+        }
+
+        /** Closes the last opened object or array, if its start has been written. */
+        void end() throws IOException {
+            int last = names.size() - 1;
+            names.remove(last);
+            boolean object = objects.remove(last);
+            if (written > last) {
+                written = last;
+                if (object) {
+                    builder.endObject();
+                } else {
+                    builder.endArray();
+                }
+            }
+        }
+
+        /** Copies the value the parser is positioned on, along with all its children. */
+        void copyCurrentStructure(String name, XContentParser parser) throws IOException {
+            flush();
+            if (name != null) {
+                builder.field(name);
+            }
+            builder.copyCurrentStructure(parser);
+        }
+
+        private void flush() throws IOException {
+            for (; written < names.size(); ++written) {
+                String name = names.get(written);
+                if (name != null) {
+                    builder.field(name);
+                }
+                if (objects.get(written)) {
+                    builder.startObject();
+                } else {
+                    builder.startArray();
+                }
+            }
+        }
+    }
+
     public static boolean isObject(Object node) {
         return node instanceof Map;
     }
@@ -61,6 +61,17 @@ public interface HttpServerTransport extends LifecycleComponent {
          */
         void dispatchBadRequest(RestRequest request, RestChannel channel, ThreadContext threadContext, Throwable cause);
 
+        /**
+         * Whether the handler of the given request consumes its content while it is being received, in which case the request
+         * is dispatched as soon as its headers are received and its content is passed to the handler through
+         * {@link RestRequest#incrementalContent()}.
+         *
+         * @param request the request, without its content
+         */
+        default boolean supportsIncrementalContent(RestRequest request) {
+            return false;
+        }
+
     }
 
 }
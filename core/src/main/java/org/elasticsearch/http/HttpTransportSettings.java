@@ -82,6 +82,9 @@ public final class HttpTransportSettings {
         }, Property.NodeScope, Property.Deprecated);
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_CONTENT_LENGTH =
         Setting.byteSizeSetting("http.max_content_length", new ByteSizeValue(100, ByteSizeUnit.MB), Property.NodeScope);
+    // requests whose handler consumes their content incrementally are not subject to http.max_content_length
+    public static final Setting<Boolean> SETTING_HTTP_INCREMENTAL_CONTENT =
+        Setting.boolSetting("http.incremental_content.enabled", false, Property.NodeScope);
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_CHUNK_SIZE =
         Setting.byteSizeSetting("http.max_chunk_size", new ByteSizeValue(8, ByteSizeUnit.KB), Property.NodeScope);
     public static final Setting<ByteSizeValue> SETTING_HTTP_MAX_HEADER_SIZE =
@@ -90,6 +90,19 @@ final class CompositeIndexEventListener implements IndexEventListener {
         }
     }
 
+    @Override
+    public void afterIndexShardFlushed(IndexShard indexShard) {
+        for (IndexEventListener listener : listeners) {
+            try {
+                listener.afterIndexShardFlushed(indexShard);
+            } catch (Exception e) {
+                logger.warn((Supplier<?>) () -> new ParameterizedMessage("[{}] failed to invoke after shard flushed callback",
+                    indexShard.shardId().getId()), e);
+                throw e;
+            }
+        }
+    }
+
     @Override
     public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard,
                                        Settings indexSettings) {
@@ -44,6 +44,7 @@ import org.elasticsearch.index.similarity.BM25SimilarityProvider;
 import org.elasticsearch.index.similarity.SimilarityProvider;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.IndexStore;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -53,6 +54,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -91,6 +93,13 @@ public final class IndexModule {
             Setting.listSetting("index.store.preload", Collections.emptyList(), Function.identity(),
                     Property.IndexScope, Property.NodeScope);
 
+    /** Which extensions of files to memory-map with the {@link Type#HYBRIDFS} store type, all other files
+     *  are read through NIO. Defaults to the norms, doc values, terms index and dictionary, points and
+     *  compound files, which are accessed randomly at search time. */
+    public static final Setting<List<String>> INDEX_STORE_HYBRID_MMAP_EXTENSIONS_SETTING =
+            Setting.listSetting("index.store.hybrid.mmap.extensions", Arrays.asList("nvd", "dvd", "tim", "tip", "dim", "dii", "cfs"),
+                    Function.identity(), Property.IndexScope, Property.NodeScope);
+
     public static final String SIMILARITY_SETTINGS_PREFIX = "index.similarity";
 
     // whether to use the query cache
@@ -294,6 +303,7 @@ public final class IndexModule {
     public enum Type {
         NIOFS,
         MMAPFS,
+        HYBRIDFS,
         SIMPLEFS,
         FS;
 
@@ -330,7 +340,8 @@ public final class IndexModule {
             IndicesQueryCache indicesQueryCache,
             MapperRegistry mapperRegistry,
             IndicesFieldDataCache indicesFieldDataCache,
-            NamedWriteableRegistry namedWriteableRegistry)
+            NamedWriteableRegistry namedWriteableRegistry,
+            TranslogSyncScheduler translogSyncScheduler)
         throws IOException {
         final IndexEventListener eventListener = freeze();
         IndexSearcherWrapperFactory searcherWrapperFactory = indexSearcherWrapper.get() == null
@@ -365,7 +376,7 @@ public final class IndexModule {
                 new SimilarityService(indexSettings, scriptService, similarities),
                 shardStoreDeleter, analysisRegistry, engineFactory.get(), circuitBreakerService, bigArrays, threadPool, scriptService,
                 client, queryCache, store, eventListener, searcherWrapperFactory, mapperRegistry,
-                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, namedWriteableRegistry);
+                indicesFieldDataCache, searchOperationListeners, indexOperationListeners, namedWriteableRegistry, translogSyncScheduler);
     }
 
     /**
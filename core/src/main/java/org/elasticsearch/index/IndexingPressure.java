@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of bytes of indexing requests that are in flight on a node, separately for the coordinating, primary
+ * and replica stages of a write, and rejects new coordinating and primary operations once the bytes in flight for that
+ * stage would go over its limit. Unlike the queue size of the write thread pools, this accounts for the actual size of the
+ * requests so that a few large bulk requests can't exhaust the heap while many small ones get rejected.
+ * <p>
+ * Replica operations are never rejected, like they are never rejected by the write thread pools: the operation has
+ * already been applied on the primary and failing it would fail the replica. They are accounted for instead, and while
+ * the bytes of the replica operations in flight are over the replica limit the node rejects all new coordinating and
+ * primary operations.
+ */
+public class IndexingPressure {
+
+    public static final Setting<ByteSizeValue> COORDINATING_MEMORY_LIMIT_SETTING =
+        Setting.memorySizeSetting("indexing_pressure.memory.coordinating.limit", "10%", Property.NodeScope);
+
+    public static final Setting<ByteSizeValue> PRIMARY_MEMORY_LIMIT_SETTING =
+        Setting.memorySizeSetting("indexing_pressure.memory.primary.limit", "10%", Property.NodeScope);
+
+    /**
+     * The replica stage gets a higher limit than the other stages by default since going over it rejects the coordinating
+     * and primary operations of the node rather than the replica operations themselves.
+     */
+    public static final Setting<ByteSizeValue> REPLICA_MEMORY_LIMIT_SETTING =
+        Setting.memorySizeSetting("indexing_pressure.memory.replica.limit", "15%", Property.NodeScope);
+
+    private final Stage coordinating;
+    private final Stage primary;
+    private final Stage replica;
+
+    public IndexingPressure(Settings settings) {
+        this.coordinating = new Stage("coordinating", COORDINATING_MEMORY_LIMIT_SETTING.get(settings).getBytes());
+        this.primary = new Stage("primary", PRIMARY_MEMORY_LIMIT_SETTING.get(settings).getBytes());
+        this.replica = new Stage("replica", REPLICA_MEMORY_LIMIT_SETTING.get(settings).getBytes());
+    }
+
+    /**
+     * Accounts for a request that is being coordinated by this node, the returned {@link Releasable} must be closed once
+     * the request completes.
+     *
+     * @throws EsRejectedExecutionException if the bytes of the coordinating operations in flight would go over the limit,
+     *                                      or the bytes of the replica operations in flight are over the replica limit
+     */
+    public Releasable markCoordinatingOperationStarted(long bytes) {
+        ensureReplicaLimitNotExceeded(coordinating, bytes);
+        return coordinating.markOperationStarted(bytes, false);
+    }
+
+    /**
+     * Accounts for an operation that is being executed on a primary shard of this node, the returned {@link Releasable}
+     * must be closed once the operation has been replicated.
+     *
+     * @throws EsRejectedExecutionException if the bytes of the primary operations in flight would go over the limit,
+     *                                      or the bytes of the replica operations in flight are over the replica limit
+     */
+    public Releasable markPrimaryOperationStarted(long bytes) {
+        ensureReplicaLimitNotExceeded(primary, bytes);
+        return primary.markOperationStarted(bytes, false);
+    }
+
+    /**
+     * Accounts for an operation that is being executed on a replica shard of this node, the returned {@link Releasable}
+     * must be closed once the operation completes. Replica operations are always accepted, even if the bytes in flight go
+     * over the replica limit.
+     */
+    public Releasable markReplicaOperationStarted(long bytes) {
+        return replica.markOperationStarted(bytes, true);
+    }
+
+    private void ensureReplicaLimitNotExceeded(Stage stage, long bytes) {
+        final long replicaBytes = replica.currentBytes.get();
+        if (replicaBytes > replica.limit) {
+            stage.rejections.incrementAndGet();
+            throw new EsRejectedExecutionException("rejected execution of " + stage.name + " operation [current_replica_bytes="
+                + replicaBytes + ", operation_bytes=" + bytes + ", max_replica_bytes=" + replica.limit + "]");
+        }
+    }
+
+    public IndexingPressureStats stats() {
+        return new IndexingPressureStats(coordinating.stats(), primary.stats(), replica.stats());
+    }
+
+    private static final class Stage {
+
+        private final String name;
+        private final long limit;
+        private final AtomicLong currentBytes = new AtomicLong();
+        private final AtomicLong totalBytes = new AtomicLong();
+        private final AtomicLong rejections = new AtomicLong();
+
+        Stage(String name, long limit) {
+            this.name = name;
+            this.limit = limit;
+        }
+
+        Releasable markOperationStarted(long bytes, boolean forceExecution) {
+            final long current = currentBytes.addAndGet(bytes);
+            // an operation is always let through if nothing else is in flight, otherwise requests that are larger than
+            // the limit could never be executed
+            if (forceExecution == false && current > limit && current != bytes) {
+                currentBytes.addAndGet(-bytes);
+                rejections.incrementAndGet();
+                throw new EsRejectedExecutionException("rejected execution of " + name + " operation [current_" + name + "_bytes="
+                    + (current - bytes) + ", operation_bytes=" + bytes + ", max_" + name + "_bytes=" + limit + "]");
+            }
+            totalBytes.addAndGet(bytes);
+            final AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true)) {
+                    currentBytes.addAndGet(-bytes);
+                }
+            };
+        }
+
+        IndexingPressureStats.Stage stats() {
+            return new IndexingPressureStats.Stage(currentBytes.get(), totalBytes.get(), rejections.get(), limit);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Stats about the bytes of indexing operations in flight on a node, see {@link IndexingPressure}.
+ */
+public class IndexingPressureStats implements Writeable, ToXContentFragment {
+
+    private final Stage coordinating;
+    private final Stage primary;
+    private final Stage replica;
+
+    public IndexingPressureStats(Stage coordinating, Stage primary, Stage replica) {
+        this.coordinating = coordinating;
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    public IndexingPressureStats(StreamInput in) throws IOException {
+        coordinating = new Stage(in);
+        primary = new Stage(in);
+        replica = new Stage(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        coordinating.writeTo(out);
+        primary.writeTo(out);
+        replica.writeTo(out);
+    }
+
+    public Stage getCoordinating() {
+        return coordinating;
+    }
+
+    public Stage getPrimary() {
+        return primary;
+    }
+
+    public Stage getReplica() {
+        return replica;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("indexing_pressure");
+        builder.field("coordinating", coordinating, params);
+        builder.field("primary", primary, params);
+        builder.field("replica", replica, params);
+        return builder.endObject();
+    }
+
+    /**
+     * Stats of one of the stages of a write.
+     */
+    public static class Stage implements Writeable, ToXContentObject {
+
+        private final long currentBytes;
+        private final long totalBytes;
+        private final long rejections;
+        private final long limitBytes;
+
+        public Stage(long currentBytes, long totalBytes, long rejections, long limitBytes) {
+            this.currentBytes = currentBytes;
+            this.totalBytes = totalBytes;
+            this.rejections = rejections;
+            this.limitBytes = limitBytes;
+        }
+
+        public Stage(StreamInput in) throws IOException {
+            currentBytes = in.readVLong();
+            totalBytes = in.readVLong();
+            rejections = in.readVLong();
+            limitBytes = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(currentBytes);
+            out.writeVLong(totalBytes);
+            out.writeVLong(rejections);
+            out.writeVLong(limitBytes);
+        }
+
+        /**
+         * The bytes of the operations of this stage that are currently in flight.
+         */
+        public long getCurrentBytes() {
+            return currentBytes;
+        }
+
+        /**
+         * The bytes of all the operations of this stage that were accepted since the node started.
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * The number of operations of this stage that were rejected since the node started.
+         */
+        public long getRejections() {
+            return rejections;
+        }
+
+        public long getLimitBytes() {
+            return limitBytes;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.byteSizeField("current_in_bytes", "current", currentBytes);
+            builder.byteSizeField("total_in_bytes", "total", totalBytes);
+            builder.byteSizeField("limit_in_bytes", "limit", limitBytes);
+            builder.field("rejections", rejections);
+            return builder.endObject();
+        }
+    }
+}
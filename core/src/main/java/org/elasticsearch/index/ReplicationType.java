@@ -0,0 +1,46 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index;
+
+import java.util.Locale;
+
+/**
+ * How the writes to an index are applied to its replica shards.
+ */
+public enum ReplicationType {
+
+    /**
+     * Every shard copy parses and indexes each document on its own.
+     */
+    DOCUMENT,
+
+    /**
+     * Only the primary indexes documents. Replicas add the operations to their translog for durability and receive the
+     * segment files the primary commits.
+     */
+    SEGMENT;
+
+    public static ReplicationType parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("unknown replication type [" + value + "], must be one of [document, segment]");
+        }
+    }
+}
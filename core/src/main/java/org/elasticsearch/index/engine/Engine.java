@@ -503,7 +503,7 @@ public abstract class Engine implements Closeable {
      *
      * @see Searcher#close()
      */
-    public final Searcher acquireSearcher(String source) throws EngineException {
+    public Searcher acquireSearcher(String source) throws EngineException {
         boolean success = false;
          /* Acquire order here is store -> manager since we need
           * to make sure that the store is not closed before
@@ -577,7 +577,7 @@ public abstract class Engine implements Closeable {
     /**
      * Global stats on segments.
      */
-    public final SegmentsStats segmentsStats(boolean includeSegmentFileSizes) {
+    public SegmentsStats segmentsStats(boolean includeSegmentFileSizes) {
         ensureOpen();
         try (Searcher searcher = acquireSearcher("segments_stats")) {
             SegmentsStats stats = new SegmentsStats();
@@ -759,7 +759,7 @@ public abstract class Engine implements Closeable {
      */
     public abstract List<Segment> segments(boolean verbose);
 
-    public final boolean refreshNeeded() {
+    public boolean refreshNeeded() {
         if (store.tryIncRef()) {
             /*
               we need to inc the store here since searcherManager.isSearcherCurrent()
@@ -813,6 +813,13 @@ public abstract class Engine implements Closeable {
      */
     public abstract CommitId flush() throws EngineException;
 
+    /**
+     * Checks if this engine should be flushed periodically, based on the size of the operations it has accumulated since the
+     * last commit.
+     */
+    public boolean shouldPeriodicallyFlush() {
+        return getTranslog().shouldFlush();
+    }
 
     /**
      * checks and removes translog files that no longer need to be retained. See
@@ -1424,6 +1431,11 @@ public abstract class Engine implements Closeable {
             onClose = () -> deletionPolicy.release(indexCommit);
         }
 
+        IndexCommitRef(IndexCommit indexCommit, CheckedRunnable<IOException> onClose) {
+            this.indexCommit = indexCommit;
+            this.onClose = onClose;
+        }
+
         @Override
         public void close() throws IOException {
             if (closed.compareAndSet(false, true)) {
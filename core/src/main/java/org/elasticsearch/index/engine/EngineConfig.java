@@ -105,6 +105,15 @@ public final class EngineConfig {
     public static final Setting<Boolean> INDEX_OPTIMIZE_AUTO_GENERATED_IDS = Setting.boolSetting("index.optimize_auto_generated_id", true,
         Property.IndexScope, Property.Dynamic);
 
+    /**
+     * Configures an index to keep the version information of documents that have not been refreshed yet in pages that are
+     * allocated through {@link org.elasticsearch.common.util.BigArrays} and accounted for in the request circuit breaker,
+     * instead of in a concurrent map of objects. This considerably reduces the heap overhead and the number of objects of the
+     * version map for update heavy workloads. The default is <code>false</code>
+     */
+    public static final Setting<Boolean> INDEX_PAGED_VERSION_MAP_SETTING = Setting.boolSetting("index.version_map.paged", false,
+        Property.IndexScope);
+
     private final TranslogConfig translogConfig;
     private final OpenMode openMode;
 
@@ -352,6 +361,14 @@ public final class EngineConfig {
         return indexSettings.getValue(INDEX_OPTIMIZE_AUTO_GENERATED_IDS);
     }
 
+    /**
+     * Returns <code>true</code> iff the version map should be stored in pages allocated through big arrays.
+     * @see #INDEX_PAGED_VERSION_MAP_SETTING
+     */
+    public boolean isPagedVersionMapEnabled() {
+        return indexSettings.getValue(INDEX_PAGED_VERSION_MAP_SETTING);
+    }
+
     /**
      * Return the sort order of this index, or null if the index has no sort.
      */
@@ -0,0 +1,418 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexCommit;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.index.seqno.SeqNoStats;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.seqno.SequenceNumbersService;
+import org.elasticsearch.index.shard.DocsStats;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogCorruptedException;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A read-only engine for shards of {@link org.elasticsearch.cluster.metadata.IndexMetaData#INDEX_FROZEN_SETTING frozen} indices. It
+ * doesn't keep a lucene reader open: every searcher opens the last commit, or shares the reader of searchers that are still in flight,
+ * and the reader is closed as soon as the last of them is released. The shard must have been flushed before this engine is opened so
+ * that the translog holds no operations above the local checkpoint of the commit.
+ */
+public class FrozenEngine extends Engine {
+
+    private final Translog translog;
+    private final SequenceNumbersService seqNoService;
+    private final SegmentInfos lastCommittedSegmentInfos;
+    private final String historyUUID;
+    private final SearcherFactory searcherFactory;
+    // guarded by this
+    private DirectoryReader lastOpenedReader;
+
+    public FrozenEngine(EngineConfig engineConfig) throws EngineException {
+        super(engineConfig);
+        if (engineConfig.getOpenMode() != EngineConfig.OpenMode.OPEN_INDEX_AND_TRANSLOG) {
+            throw new IllegalArgumentException("frozen shards can only be opened from an existing index and translog but got " +
+                engineConfig.getOpenMode());
+        }
+        final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy(
+            engineConfig.getIndexSettings().getTranslogRetentionSize().getBytes(),
+            engineConfig.getIndexSettings().getTranslogRetentionAge().getMillis()
+        );
+        store.incRef();
+        Translog translog = null;
+        boolean success = false;
+        try {
+            final SeqNoStats seqNoStats = store.loadSeqNoStats(SequenceNumbers.UNASSIGNED_SEQ_NO);
+            logger.trace("recovered [{}]", seqNoStats);
+            seqNoService = new SequenceNumbersService(shardId, allocationId, engineConfig.getIndexSettings(),
+                seqNoStats.getMaxSeqNo(), seqNoStats.getLocalCheckpoint(), seqNoStats.getGlobalCheckpoint());
+            lastCommittedSegmentInfos = store.readLastCommittedSegmentsInfo();
+            historyUUID = lastCommittedSegmentInfos.getUserData().get(HISTORY_UUID_KEY);
+            final String translogUUID = lastCommittedSegmentInfos.getUserData().get(Translog.TRANSLOG_UUID_KEY);
+            final String translogGeneration = lastCommittedSegmentInfos.getUserData().get(Translog.TRANSLOG_GENERATION_KEY);
+            if (translogUUID == null || translogGeneration == null) {
+                throw new IllegalStateException("commit doesn't contain translog generation or uuid");
+            }
+            translogDeletionPolicy.setMinTranslogGenerationForRecovery(Long.parseLong(translogGeneration));
+            translog = new Translog(engineConfig.getTranslogConfig(), translogUUID, translogDeletionPolicy,
+                () -> seqNoService().getGlobalCheckpoint());
+            this.translog = translog;
+            this.searcherFactory = new EngineSearcherFactory(engineConfig);
+            success = true;
+        } catch (IOException | TranslogCorruptedException e) {
+            throw new EngineCreationFailureException(shardId, "failed to create engine", e);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(translog);
+                if (isClosed.get() == false) {
+                    // failure we need to dec the store reference
+                    store.decRef();
+                }
+            }
+        }
+        logger.trace("created new FrozenEngine");
+    }
+
+    @Override
+    public Searcher acquireSearcher(String source) throws EngineException {
+        boolean success = false;
+        store.incRef();
+        try {
+            ensureOpen();
+            final DirectoryReader reader = acquireReader();
+            try {
+                final Searcher searcher = new FrozenSearcher(source, searcherFactory.newSearcher(reader, null), reader);
+                success = true;
+                return searcher;
+            } finally {
+                if (success == false) {
+                    reader.decRef();
+                }
+            }
+        } catch (AlreadyClosedException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            ensureOpen(); // throw EngineCloseException here if we are already closed
+            throw new EngineException(shardId, "failed to acquire searcher, source " + source, ex);
+        } finally {
+            if (success == false) {
+                store.decRef();
+            }
+        }
+    }
+
+    /**
+     * Returns the reader of the searchers that are still in flight, if any, or opens the last commit. The returned reader is
+     * incRef'd on behalf of the caller.
+     */
+    private synchronized DirectoryReader acquireReader() throws IOException {
+        if (lastOpenedReader == null || lastOpenedReader.tryIncRef() == false) {
+            lastOpenedReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(store.directory()), shardId);
+        }
+        return lastOpenedReader;
+    }
+
+    /**
+     * Returns <code>true</code> if a reader is currently open because searchers are in flight.
+     */
+    synchronized boolean isReaderOpen() {
+        return lastOpenedReader != null && lastOpenedReader.getRefCount() > 0;
+    }
+
+    private final class FrozenSearcher extends Searcher {
+        private final DirectoryReader reader;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        FrozenSearcher(String source, IndexSearcher searcher, DirectoryReader reader) {
+            super(source, searcher);
+            this.reader = reader;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true) == false) {
+                logger.warn("Searcher was released twice", new IllegalStateException("Double release"));
+                return;
+            }
+            try {
+                // closes the reader once no other searcher holds it
+                reader.decRef();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot close", e);
+            } finally {
+                store.decRef();
+            }
+        }
+    }
+
+    @Override
+    public boolean refreshNeeded() {
+        // every searcher sees the last commit
+        return false;
+    }
+
+    @Override
+    public IndexResult index(Index index) {
+        final IndexResult result = new IndexResult(new IllegalStateException(shardId + " is frozen"), index.version(), index.seqNo());
+        result.setTook(System.nanoTime() - index.startTime());
+        result.freeze();
+        return result;
+    }
+
+    @Override
+    public DeleteResult delete(Delete delete) {
+        final DeleteResult result = new DeleteResult(new IllegalStateException(shardId + " is frozen"), delete.version(), delete.seqNo(),
+            false);
+        result.setTook(System.nanoTime() - delete.startTime());
+        result.freeze();
+        return result;
+    }
+
+    @Override
+    public NoOpResult noOp(NoOp noOp) {
+        return new NoOpResult(noOp.seqNo(), new IllegalStateException(shardId + " is frozen"));
+    }
+
+    @Override
+    public void refresh(String source) throws EngineException {
+        // the commit never changes
+    }
+
+    @Override
+    public void writeIndexingBuffer() throws EngineException {
+        // nothing is buffered in memory
+    }
+
+    @Override
+    public SyncedFlushResult syncFlush(String syncId, CommitId expectedCommitId) throws EngineException {
+        // the commit can't be stamped without opening a writer
+        return SyncedFlushResult.COMMIT_MISMATCH;
+    }
+
+    @Override
+    public CommitId flush() throws EngineException {
+        return flush(false, false);
+    }
+
+    @Override
+    public CommitId flush(boolean force, boolean waitIfOngoing) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.sync();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FlushFailedEngineException(shardId, e);
+        }
+        return new CommitId(lastCommittedSegmentInfos.getId());
+    }
+
+    @Override
+    public boolean shouldPeriodicallyFlush() {
+        return false;
+    }
+
+    @Override
+    public void trimTranslog() throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.trimUnreferencedReaders();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EngineException(shardId, "failed to trim translog", e);
+        }
+    }
+
+    @Override
+    public void rollTranslogGeneration() throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.rollGeneration();
+            translog.trimUnreferencedReaders();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EngineException(shardId, "failed to roll translog", e);
+        }
+    }
+
+    @Override
+    public void forceMerge(boolean flush, int maxNumSegments, boolean onlyExpungeDeletes, boolean upgrade,
+                           boolean upgradeOnlyAncientSegments) {
+        // force merges of frozen indices are rejected by the index frozen block, see TransportForceMergeAction
+        throw new IllegalStateException(shardId + " is frozen and can't be merged");
+    }
+
+    @Override
+    public IndexCommitRef acquireIndexCommit(boolean flushFirst) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            // nothing deletes commits while the shard is frozen
+            final List<IndexCommit> commits = DirectoryReader.listCommits(store.directory());
+            return new IndexCommitRef(commits.get(commits.size() - 1), () -> {});
+        } catch (IOException e) {
+            throw new SnapshotFailedEngineException(shardId, e);
+        }
+    }
+
+    @Override
+    public GetResult get(Get get, Function<String, Searcher> searcherFactory) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            return getFromSearcher(get, searcherFactory);
+        }
+    }
+
+    @Override
+    public List<Segment> segments(boolean verbose) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return Arrays.asList(getSegmentInfo(lastCommittedSegmentInfos, verbose));
+        }
+    }
+
+    /**
+     * Counts the segments of the last commit without opening it. Nothing is held in memory while no searcher is in flight.
+     */
+    @Override
+    public SegmentsStats segmentsStats(boolean includeSegmentFileSizes) {
+        ensureOpen();
+        final SegmentsStats stats = new SegmentsStats();
+        stats.add(lastCommittedSegmentInfos.size(), 0);
+        return stats;
+    }
+
+    /**
+     * Returns the document counts of the last commit without opening it.
+     */
+    public DocsStats docStats() {
+        long numDocs = 0;
+        long numDeletedDocs = 0;
+        for (SegmentCommitInfo info : lastCommittedSegmentInfos) {
+            numDocs += info.info.maxDoc() - info.getDelCount();
+            numDeletedDocs += info.getDelCount();
+        }
+        return new DocsStats(numDocs, numDeletedDocs);
+    }
+
+    @Override
+    protected SegmentInfos getLastCommittedSegmentInfos() {
+        return lastCommittedSegmentInfos;
+    }
+
+    @Override
+    public String getHistoryUUID() {
+        return historyUUID;
+    }
+
+    @Override
+    public Translog getTranslog() {
+        ensureOpen();
+        return translog;
+    }
+
+    @Override
+    public SequenceNumbersService seqNoService() {
+        return seqNoService;
+    }
+
+    @Override
+    public long getIndexBufferRAMBytesUsed() {
+        return 0;
+    }
+
+    @Override
+    public long getIndexThrottleTimeInMillis() {
+        return 0;
+    }
+
+    @Override
+    public boolean isThrottled() {
+        return false;
+    }
+
+    @Override
+    public void activateThrottling() {
+    }
+
+    @Override
+    public void deactivateThrottling() {
+    }
+
+    @Override
+    public void restoreLocalCheckpointFromTranslog() {
+        // the shard was flushed before it was frozen so the commit contains every operation of the translog
+    }
+
+    @Override
+    public int fillSeqNoGaps(long primaryTerm) {
+        if (seqNoService().getLocalCheckpoint() < seqNoService().getMaxSeqNo()) {
+            throw new UnsupportedOperationException(shardId + " is frozen and can't fill gaps in its history");
+        }
+        return 0;
+    }
+
+    @Override
+    public Engine recoverFromTranslog() {
+        throw new UnsupportedOperationException("frozen shards can't recover from their translog");
+    }
+
+    @Override
+    protected SearcherManager getSearcherManager() {
+        throw new UnsupportedOperationException("frozen shards don't keep a searcher manager");
+    }
+
+    @Override
+    protected void closeNoLock(String reason, CountDownLatch closedLatch) {
+        if (isClosed.compareAndSet(false, true)) {
+            assert rwl.isWriteLockedByCurrentThread() || failEngineLock.isHeldByCurrentThread() :
+                "Either the write lock must be held or the engine must be currently be failing itself";
+            try {
+                // readers of searchers in flight are closed when they are released
+                IOUtils.close(translog);
+            } catch (Exception e) {
+                logger.warn("failed to close engine", e);
+            } finally {
+                try {
+                    store.decRef();
+                    logger.debug("engine closed [{}]", reason);
+                } finally {
+                    closedLatch.countDown();
+                }
+            }
+        }
+    }
+}
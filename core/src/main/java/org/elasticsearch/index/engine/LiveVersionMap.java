@@ -24,9 +24,13 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -35,29 +39,63 @@ import java.util.concurrent.atomic.AtomicLong;
 /** Maps _uid value to its version information. */
 class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
+    /** Holds the version values of the adds and deletes of a refresh cycle. */
+    interface VersionLookup extends Accountable, Releasable {
+
+        /** Returns the version value of the given uid, or null if this lookup holds no value for it. */
+        VersionValue get(BytesRef uid);
+
+        /** Associates the given uid with the given version value and returns the previous value of the uid if there was one. */
+        VersionValue put(BytesRef uid, VersionValue version);
+    }
+
+    /** A {@link VersionLookup} backed by a concurrent map. Its RAM is accounted for by {@link #ramBytesUsedCurrent}. */
+    private static final class MapVersionLookup implements VersionLookup {
+
+        private final Map<BytesRef,VersionValue> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+
+        @Override
+        public VersionValue get(BytesRef uid) {
+            return map.get(uid);
+        }
+
+        @Override
+        public VersionValue put(BytesRef uid, VersionValue version) {
+            return map.put(uid, version);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
     private static class Maps {
 
         // All writes (adds and deletes) go into here:
-        final Map<BytesRef,VersionValue> current;
+        final VersionLookup current;
 
         // Used while refresh is running, and to hold adds/deletes until refresh finishes.  We read from both current and old on lookup:
-        final Map<BytesRef,VersionValue> old;
+        final VersionLookup old;
 
-        Maps(Map<BytesRef,VersionValue> current, Map<BytesRef,VersionValue> old) {
+        Maps(VersionLookup current, VersionLookup old) {
            this.current = current;
            this.old = old;
         }
-
-        Maps() {
-            this(ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency(),
-                 ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency());
-        }
     }
 
+    // if set, version values are stored in pages allocated from these big arrays rather than in concurrent maps:
+    @Nullable
+    private final BigArrays bigArrays;
+
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef,DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
 
     private ReferenceManager<?> mgr;
 
@@ -98,6 +136,25 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
     /** Tracks bytes used by tombstones (deletes) */
     final AtomicLong ramBytesUsedTombstones = new AtomicLong();
 
+    LiveVersionMap() {
+        this(null);
+    }
+
+    /**
+     * @param bigArrays if not null the version values of adds and deletes that have not been refreshed yet are stored in a
+     *                  {@link PagedVersionMap} which allocates its memory from the given big arrays. The memory is accounted
+     *                  for in the circuit breaker but never trips it: entries are added after the operation was written to
+     *                  lucene, where failing would leave the document in the index but out of the translog.
+     */
+    LiveVersionMap(@Nullable BigArrays bigArrays) {
+        this.bigArrays = bigArrays == null ? null : bigArrays.withoutCircuitBreaking();
+        this.maps = new Maps(newVersionLookup(), newVersionLookup());
+    }
+
+    private VersionLookup newVersionLookup() {
+        return bigArrays == null ? new MapVersionLookup() : new PagedVersionMap(bigArrays);
+    }
+
     /** Sync'd because we replace old mgr. */
     synchronized void setManager(ReferenceManager<?> newMgr) {
         if (mgr != null) {
@@ -107,7 +164,7 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
         // In case InternalEngine closes & opens a new IndexWriter/SearcherManager, all deletes are made visible, so we clear old and
         // current here.  This is safe because caller holds writeLock here (so no concurrent adds/deletes can be happeninge):
-        maps = new Maps();
+        replaceMaps(new Maps(newVersionLookup(), newVersionLookup()));
 
         // So we are notified when reopen starts and finishes
         mgr.addListener(this);
@@ -119,7 +176,7 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         // map.  While reopen is running, any lookup will first
         // try this new map, then fallback to old, then to the
         // current searcher:
-        maps = new Maps(ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency(), maps.current);
+        replaceMaps(new Maps(newVersionLookup(), maps.current));
 
         // This is not 100% correct, since concurrent indexing ops can change these counters in between our execution of the previous
         // line and this one, but that should be minor, and the error won't accumulate over time:
@@ -134,7 +191,18 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         // case.  This is because we assign new maps (in beforeRefresh) slightly before Lucene actually flushes any segments for the
         // reopen, and so any concurrent indexing requests can still sneak in a few additions to that current map that are in fact reflected
         // in the previous reader.   We don't touch tombstones here: they expire on their own index.gc_deletes timeframe:
-        maps = new Maps(maps.current, ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency());
+        replaceMaps(new Maps(maps.current, newVersionLookup()));
+    }
+
+    /** Replaces the current maps with the given ones and releases the lookups that are no longer used. */
+    private void replaceMaps(Maps newMaps) {
+        final Maps oldMaps = maps;
+        maps = newMaps;
+        for (VersionLookup lookup : Arrays.asList(oldMaps.current, oldMaps.old)) {
+            if (lookup != newMaps.current && lookup != newMaps.old) {
+                lookup.close();
+            }
+        }
     }
 
     /** Returns the live version (add or delete) for this uid. */
@@ -161,21 +229,25 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
 
         final VersionValue prev = maps.current.put(uid, version);
-        if (prev != null) {
-            // Deduct RAM for the version we just replaced:
-            long prevBytes = BASE_BYTES_PER_CHM_ENTRY;
-            if (prev.isDelete() == false) {
-                prevBytes += prev.ramBytesUsed() + uidRAMBytesUsed;
+        // paged version maps account for their RAM themselves:
+        final boolean accountCurrent = bigArrays == null;
+        if (accountCurrent) {
+            if (prev != null) {
+                // Deduct RAM for the version we just replaced:
+                long prevBytes = BASE_BYTES_PER_CHM_ENTRY;
+                if (prev.isDelete() == false) {
+                    prevBytes += prev.ramBytesUsed() + uidRAMBytesUsed;
+                }
+                ramBytesUsedCurrent.addAndGet(-prevBytes);
             }
-            ramBytesUsedCurrent.addAndGet(-prevBytes);
-        }
 
-        // Add RAM for the new version:
-        long newBytes = BASE_BYTES_PER_CHM_ENTRY;
-        if (version.isDelete() == false) {
-            newBytes += version.ramBytesUsed() + uidRAMBytesUsed;
+            // Add RAM for the new version:
+            long newBytes = BASE_BYTES_PER_CHM_ENTRY;
+            if (version.isDelete() == false) {
+                newBytes += version.ramBytesUsed() + uidRAMBytesUsed;
+            }
+            ramBytesUsedCurrent.addAndGet(newBytes);
         }
-        ramBytesUsedCurrent.addAndGet(newBytes);
 
         final VersionValue prevTombstone;
         if (version.isDelete()) {
@@ -187,7 +259,7 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
             // the accounting to current:
             ramBytesUsedTombstones.addAndGet(BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed);
 
-            if (prevTombstone == null && prev != null && prev.isDelete()) {
+            if (accountCurrent && prevTombstone == null && prev != null && prev.isDelete()) {
                 // If prev was a delete that had already been removed from tombstones, then current was already accounting for the
                 // BytesRef/VersionValue RAM, so we now deduct that as well:
                 ramBytesUsedCurrent.addAndGet(-(prev.ramBytesUsed() + uidRAMBytesUsed));
@@ -215,7 +287,7 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
             long v = ramBytesUsedTombstones.addAndGet(-(BASE_BYTES_PER_CHM_ENTRY + prev.ramBytesUsed() + uidRAMBytesUsed));
             assert v >= 0: "bytes=" + v;
         }
-        final VersionValue curVersion = maps.current.get(uid);
+        final VersionValue curVersion = bigArrays == null ? maps.current.get(uid) : null;
         if (curVersion != null && curVersion.isDelete()) {
             // We now shift accounting of the BytesRef from tombstones to current, because a refresh would clear this RAM.  This should be
             // uncommon, because with the default refresh=1s and gc_deletes=60s, deletes should be cleared from current long before we drop
@@ -241,7 +313,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
     /** Called when this index is closed. */
     synchronized void clear() {
-        maps = new Maps();
+        // we don't allocate from big arrays anymore so that everything is released once the index is closed:
+        replaceMaps(new Maps(new MapVersionLookup(), new MapVersionLookup()));
         tombstones.clear();
         ramBytesUsedCurrent.set(0);
 
@@ -258,13 +331,13 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
 
     @Override
     public long ramBytesUsed() {
-        return ramBytesUsedCurrent.get() + ramBytesUsedTombstones.get();
+        return ramBytesUsedForRefresh() + ramBytesUsedTombstones.get();
     }
 
     /** Returns how much RAM would be freed up by refreshing. This is {@link #ramBytesUsed} except does not include tombstones because they
      *  don't clear on refresh. */
     long ramBytesUsedForRefresh() {
-        return ramBytesUsedCurrent.get();
+        return ramBytesUsedCurrent.get() + maps.current.ramBytesUsed();
     }
 
     @Override
@@ -0,0 +1,202 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link LiveVersionMap.VersionLookup} that stores uids and their version values in arrays that are allocated through
+ * {@link BigArrays} instead of in a map of objects. This reduces the per entry overhead to the bytes of the uid and a couple
+ * of longs, keeps the number of objects that the garbage collector needs to visit independent of the number of entries, and
+ * accounts for the memory in the request circuit breaker. The map is split into stripes that are locked independently so
+ * that indexing threads working on different uids rarely contend.
+ * <p>
+ * The map is reference counted: lookups and puts that happen after the map has been released, which can happen when an
+ * indexing thread races with a refresh that drops the map, behave as if the map was empty.
+ */
+final class PagedVersionMap extends AbstractRefCounted implements LiveVersionMap.VersionLookup {
+
+    private static final int STRIPE_BITS = 4;
+
+    // the time of index operations, which have no time, deletes always have a non-negative time
+    private static final long NO_DELETE_TIME = -1;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PagedVersionMap.class);
+
+    private final Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    private final AtomicLong stripesRamBytesUsed = new AtomicLong();
+
+    PagedVersionMap(BigArrays bigArrays) {
+        super("paged_version_map");
+        boolean success = false;
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe(bigArrays);
+                stripesRamBytesUsed.addAndGet(stripes[i].ramBytesUsed());
+            }
+            success = true;
+        } finally {
+            if (success == false) {
+                Releasables.close(stripes);
+            }
+        }
+    }
+
+    @Override
+    public VersionValue get(BytesRef uid) {
+        if (tryIncRef() == false) {
+            return null;
+        }
+        try {
+            final int code = uid.hashCode();
+            return stripe(code).get(uid, code);
+        } finally {
+            decRef();
+        }
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue version) {
+        if (tryIncRef() == false) {
+            return null;
+        }
+        try {
+            final int code = uid.hashCode();
+            return stripe(code).put(uid, code, version);
+        } finally {
+            decRef();
+        }
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return BASE_RAM_BYTES_USED + stripesRamBytesUsed.get();
+    }
+
+    @Override
+    public void close() {
+        decRef();
+    }
+
+    @Override
+    protected void closeInternal() {
+        Releasables.close(stripes);
+    }
+
+    private Stripe stripe(int code) {
+        // use the high bits since the hash table of each stripe uses the low bits of the same hash to pick a slot
+        return stripes[BitMixer.mix32(code) >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    private final class Stripe implements Releasable {
+        private final BigArrays bigArrays;
+        private final BytesRefHash uids;
+        private LongArray versions;
+        private LongArray seqNos;
+        private LongArray terms;
+        private LongArray deleteTimes;
+        private long uidBytes;
+
+        Stripe(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            boolean success = false;
+            try {
+                uids = new BytesRefHash(1, bigArrays);
+                versions = bigArrays.newLongArray(1, false);
+                seqNos = bigArrays.newLongArray(1, false);
+                terms = bigArrays.newLongArray(1, false);
+                deleteTimes = bigArrays.newLongArray(1, false);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        synchronized VersionValue get(BytesRef uid, int code) {
+            final long id = uids.find(uid, code);
+            return id < 0 ? null : valueOf(id);
+        }
+
+        synchronized VersionValue put(BytesRef uid, int code, VersionValue version) {
+            final long bytesBefore = ramBytesUsed();
+            long id = uids.add(uid, code);
+            final VersionValue prev;
+            if (id < 0) {
+                id = -1 - id;
+                prev = valueOf(id);
+            } else {
+                prev = null;
+                uidBytes += uid.length;
+                versions = bigArrays.grow(versions, id + 1);
+                seqNos = bigArrays.grow(seqNos, id + 1);
+                terms = bigArrays.grow(terms, id + 1);
+                deleteTimes = bigArrays.grow(deleteTimes, id + 1);
+            }
+            versions.set(id, version.version);
+            seqNos.set(id, version.seqNo);
+            terms.set(id, version.term);
+            if (version.isDelete()) {
+                final long time = ((DeleteVersionValue) version).time;
+                assert time != NO_DELETE_TIME : "delete without time";
+                deleteTimes.set(id, time);
+            } else {
+                deleteTimes.set(id, NO_DELETE_TIME);
+            }
+            stripesRamBytesUsed.addAndGet(ramBytesUsed() - bytesBefore);
+            return prev;
+        }
+
+        private VersionValue valueOf(long id) {
+            final long deleteTime = deleteTimes.get(id);
+            if (deleteTime == NO_DELETE_TIME) {
+                return new VersionValue(versions.get(id), seqNos.get(id), terms.get(id));
+            } else {
+                return new DeleteVersionValue(versions.get(id), seqNos.get(id), terms.get(id), deleteTime);
+            }
+        }
+
+        /**
+         * An estimate of the bytes used by this stripe: the hash table stores a long id per slot and a long offset and an int hash
+         * per uid, next to the bytes of the uids themselves.
+         */
+        long ramBytesUsed() {
+            return uids.capacity() * Long.BYTES + uids.size() * (Long.BYTES + Integer.BYTES) + uidBytes
+                + versions.ramBytesUsed() + seqNos.ramBytesUsed() + terms.ramBytesUsed() + deleteTimes.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(uids, versions, seqNos, terms, deleteTimes);
+        }
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.index.seqno.SeqNoStats;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.seqno.SequenceNumbersService;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogCorruptedException;
+import org.elasticsearch.index.translog.TranslogDeletionPolicy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+/**
+ * An engine for replicas of indices that use {@link org.elasticsearch.index.ReplicationType#SEGMENT} replication. It never writes to
+ * lucene: index, delete and no-op operations are only added to the translog, and the segment files written by the primary are copied
+ * into the store and opened read-only on the next refresh. The translog is trimmed up to the local checkpoint of the last copied commit.
+ */
+public class SegmentReplicaEngine extends Engine {
+
+    private final Translog translog;
+    private final SearcherManager searcherManager;
+    private final SequenceNumbersService seqNoService;
+    private final String historyUUID;
+    private volatile SegmentInfos lastCommittedSegmentInfos;
+
+    public SegmentReplicaEngine(EngineConfig engineConfig) throws EngineException {
+        super(engineConfig);
+        if (engineConfig.getOpenMode() != EngineConfig.OpenMode.OPEN_INDEX_CREATE_TRANSLOG) {
+            throw new IllegalArgumentException("segment replicas can only be opened with a new translog but got " +
+                engineConfig.getOpenMode());
+        }
+        final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy(
+            engineConfig.getIndexSettings().getTranslogRetentionSize().getBytes(),
+            engineConfig.getIndexSettings().getTranslogRetentionAge().getMillis()
+        );
+        store.incRef();
+        Translog translog = null;
+        SearcherManager manager = null;
+        boolean success = false;
+        try {
+            final SeqNoStats seqNoStats = store.loadSeqNoStats(SequenceNumbers.UNASSIGNED_SEQ_NO);
+            logger.trace("recovered [{}]", seqNoStats);
+            seqNoService = new SequenceNumbersService(shardId, allocationId, engineConfig.getIndexSettings(),
+                seqNoStats.getMaxSeqNo(), seqNoStats.getLocalCheckpoint(), seqNoStats.getGlobalCheckpoint());
+            lastCommittedSegmentInfos = store.readLastCommittedSegmentsInfo();
+            historyUUID = lastCommittedSegmentInfos.getUserData().get(HISTORY_UUID_KEY);
+            translog = new Translog(engineConfig.getTranslogConfig(), null, translogDeletionPolicy,
+                () -> seqNoService().getGlobalCheckpoint());
+            this.translog = translog;
+            final DirectoryReader directoryReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(store.directory()), shardId);
+            manager = new SearcherManager(directoryReader, new InternalEngine.SearchFactory(logger, isClosed, engineConfig));
+            this.searcherManager = manager;
+            for (ReferenceManager.RefreshListener listener : engineConfig.getRefreshListeners()) {
+                searcherManager.addListener(listener);
+            }
+            success = true;
+        } catch (IOException | TranslogCorruptedException e) {
+            throw new EngineCreationFailureException(shardId, "failed to create engine", e);
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(translog, manager);
+                if (isClosed.get() == false) {
+                    // failure we need to dec the store reference
+                    store.decRef();
+                }
+            }
+        }
+        logger.trace("created new SegmentReplicaEngine");
+    }
+
+    @Override
+    public IndexResult index(Index index) throws IOException {
+        assert index.origin() != Operation.Origin.PRIMARY : "segment replicas never index on primary [" + index.origin() + "]";
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            final IndexResult indexResult = new IndexResult(index.version(), index.seqNo(), true);
+            try {
+                indexResult.setTranslogLocation(translog.add(new Translog.Index(index, indexResult)));
+                indexResult.setTook(System.nanoTime() - index.startTime());
+                indexResult.freeze();
+                lastWriteNanos = index.startTime();
+                return indexResult;
+            } finally {
+                seqNoService().markSeqNoAsCompleted(index.seqNo());
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("index", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public DeleteResult delete(Delete delete) throws IOException {
+        assert delete.origin() != Operation.Origin.PRIMARY : "segment replicas never delete on primary [" + delete.origin() + "]";
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            final DeleteResult deleteResult = new DeleteResult(delete.version(), delete.seqNo(), true);
+            try {
+                deleteResult.setTranslogLocation(translog.add(new Translog.Delete(delete, deleteResult)));
+                deleteResult.setTook(System.nanoTime() - delete.startTime());
+                deleteResult.freeze();
+                lastWriteNanos = delete.startTime();
+                return deleteResult;
+            } finally {
+                seqNoService().markSeqNoAsCompleted(delete.seqNo());
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("delete", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public NoOpResult noOp(NoOp noOp) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            try {
+                final NoOpResult noOpResult = new NoOpResult(noOp.seqNo());
+                noOpResult.setTranslogLocation(translog.add(new Translog.NoOp(noOp.seqNo(), noOp.primaryTerm(), noOp.reason())));
+                noOpResult.setTook(System.nanoTime() - noOp.startTime());
+                noOpResult.freeze();
+                return noOpResult;
+            } finally {
+                seqNoService().markSeqNoAsCompleted(noOp.seqNo());
+            }
+        } catch (final Exception e) {
+            return new NoOpResult(noOp.seqNo(), e);
+        }
+    }
+
+    /**
+     * Runs the given action, which replaces files in the store, while no other operation holds this engine and refreshes to open
+     * the new commit.
+     */
+    public void installFiles(CheckedRunnable<IOException> action) throws IOException {
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            ensureOpen();
+            action.run();
+            refresh("segment_replication");
+        }
+    }
+
+    /**
+     * Prepares the store to be opened by a read-write engine after this shard has been promoted to primary and closes this engine.
+     * The last copied commit is associated with the local translog so that the operations above its local checkpoint can be
+     * replayed.
+     */
+    public void closeForPromotion() throws IOException {
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            ensureOpen();
+            translog.sync();
+            final SegmentInfos lastCommit = store.readLastCommittedSegmentsInfo();
+            final long localCheckpoint = Long.parseLong(lastCommit.getUserData().get(SequenceNumbers.LOCAL_CHECKPOINT_KEY));
+            final Translog.TranslogGeneration translogGeneration = translog.getMinGenerationForSeqNo(localCheckpoint + 1);
+            final IndexWriterConfig iwc = new IndexWriterConfig(null)
+                .setCommitOnClose(false)
+                .setMergePolicy(NoMergePolicy.INSTANCE)
+                .setOpenMode(IndexWriterConfig.OpenMode.APPEND);
+            try (IndexWriter writer = new IndexWriter(store.directory(), iwc)) {
+                final Map<String, String> commitData = new HashMap<>(lastCommit.getUserData());
+                commitData.put(Translog.TRANSLOG_UUID_KEY, translogGeneration.translogUUID);
+                commitData.put(Translog.TRANSLOG_GENERATION_KEY, Long.toString(translogGeneration.translogFileGeneration));
+                commitData.remove(SYNC_COMMIT_ID);
+                writer.setLiveCommitData(commitData.entrySet());
+                writer.commit();
+            }
+            close();
+        }
+    }
+
+    @Override
+    public void refresh(String source) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            // reopening fails if a commit from a newly promoted primary reuses the name of a segment this replica has, in which case
+            // the engine is failed and the replica recovers from the new primary
+            searcherManager.maybeRefreshBlocking();
+            final SegmentInfos segmentInfos = readLastCommittedSegmentInfos(searcherManager, store);
+            if (segmentInfos.getGeneration() != lastCommittedSegmentInfos.getGeneration()) {
+                lastCommittedSegmentInfos = segmentInfos;
+                trimTranslogToCommit(segmentInfos);
+            }
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            try {
+                failEngine("refresh failed", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw new RefreshFailedEngineException(shardId, e);
+        }
+    }
+
+    /**
+     * Operations up to the local checkpoint of the copied commit are contained in its segments, so the translog only needs to retain
+     * the generations that may hold later operations.
+     */
+    private void trimTranslogToCommit(SegmentInfos segmentInfos) throws IOException {
+        final String localCheckpoint = segmentInfos.getUserData().get(SequenceNumbers.LOCAL_CHECKPOINT_KEY);
+        if (localCheckpoint == null) {
+            return;
+        }
+        translog.rollGeneration();
+        final TranslogDeletionPolicy deletionPolicy = translog.getDeletionPolicy();
+        final long minGeneration = translog.getMinGenerationForSeqNo(Long.parseLong(localCheckpoint) + 1).translogFileGeneration;
+        deletionPolicy.setMinTranslogGenerationForRecovery(Math.max(minGeneration, deletionPolicy.getMinTranslogGenerationForRecovery()));
+        translog.trimUnreferencedReaders();
+    }
+
+    @Override
+    public void writeIndexingBuffer() throws EngineException {
+        // nothing is buffered in memory
+    }
+
+    @Override
+    public SyncedFlushResult syncFlush(String syncId, CommitId expectedCommitId) throws EngineException {
+        // the commit is owned by the primary and can't be stamped here
+        return SyncedFlushResult.COMMIT_MISMATCH;
+    }
+
+    @Override
+    public CommitId flush() throws EngineException {
+        return flush(false, false);
+    }
+
+    @Override
+    public CommitId flush(boolean force, boolean waitIfOngoing) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.sync();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new FlushFailedEngineException(shardId, e);
+        }
+        return new CommitId(lastCommittedSegmentInfos.getId());
+    }
+
+    @Override
+    public boolean shouldPeriodicallyFlush() {
+        // the translog is trimmed whenever a new commit is copied from the primary
+        return false;
+    }
+
+    @Override
+    public void trimTranslog() throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.trimUnreferencedReaders();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EngineException(shardId, "failed to trim translog", e);
+        }
+    }
+
+    @Override
+    public void rollTranslogGeneration() throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            translog.rollGeneration();
+            translog.trimUnreferencedReaders();
+        } catch (AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new EngineException(shardId, "failed to roll translog", e);
+        }
+    }
+
+    @Override
+    public void forceMerge(boolean flush, int maxNumSegments, boolean onlyExpungeDeletes, boolean upgrade,
+                           boolean upgradeOnlyAncientSegments) {
+        // merges are performed by the primary and copied with its next commit
+    }
+
+    @Override
+    public IndexCommitRef acquireIndexCommit(boolean flushFirst) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            final IndexSearcher searcher = searcherManager.acquire();
+            try {
+                return new IndexCommitRef(((DirectoryReader) searcher.getIndexReader()).getIndexCommit(), () -> {});
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new SnapshotFailedEngineException(shardId, e);
+        }
+    }
+
+    @Override
+    public GetResult get(Get get, Function<String, Searcher> searcherFactory) throws EngineException {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            ensureOpen();
+            return getFromSearcher(get, searcherFactory);
+        }
+    }
+
+    @Override
+    public List<Segment> segments(boolean verbose) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return Arrays.asList(getSegmentInfo(lastCommittedSegmentInfos, verbose));
+        }
+    }
+
+    @Override
+    protected SegmentInfos getLastCommittedSegmentInfos() {
+        return lastCommittedSegmentInfos;
+    }
+
+    @Override
+    public String getHistoryUUID() {
+        return historyUUID;
+    }
+
+    @Override
+    public Translog getTranslog() {
+        ensureOpen();
+        return translog;
+    }
+
+    @Override
+    public SequenceNumbersService seqNoService() {
+        return seqNoService;
+    }
+
+    @Override
+    public long getIndexBufferRAMBytesUsed() {
+        return 0;
+    }
+
+    @Override
+    public long getIndexThrottleTimeInMillis() {
+        return 0;
+    }
+
+    @Override
+    public boolean isThrottled() {
+        return false;
+    }
+
+    @Override
+    public void activateThrottling() {
+    }
+
+    @Override
+    public void deactivateThrottling() {
+    }
+
+    @Override
+    public void restoreLocalCheckpointFromTranslog() throws IOException {
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            ensureOpen();
+            final long localCheckpoint = seqNoService().getLocalCheckpoint();
+            try (Translog.Snapshot snapshot = getTranslog().newSnapshotFromMinSeqNo(localCheckpoint + 1)) {
+                Translog.Operation operation;
+                while ((operation = snapshot.next()) != null) {
+                    if (operation.seqNo() > localCheckpoint) {
+                        seqNoService().markSeqNoAsCompleted(operation.seqNo());
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int fillSeqNoGaps(long primaryTerm) {
+        throw new UnsupportedOperationException("segment replicas must be reopened as a primary engine before filling gaps");
+    }
+
+    @Override
+    public Engine recoverFromTranslog() {
+        throw new UnsupportedOperationException("segment replicas can't recover from their translog");
+    }
+
+    @Override
+    protected SearcherManager getSearcherManager() {
+        return searcherManager;
+    }
+
+    @Override
+    protected void closeNoLock(String reason, CountDownLatch closedLatch) {
+        if (isClosed.compareAndSet(false, true)) {
+            assert rwl.isWriteLockedByCurrentThread() || failEngineLock.isHeldByCurrentThread() :
+                "Either the write lock must be held or the engine must be currently be failing itself";
+            try {
+                IOUtils.close(searcherManager, translog);
+            } catch (Exception e) {
+                logger.warn("failed to close engine", e);
+            } finally {
+                try {
+                    store.decRef();
+                    logger.debug("engine closed [{}]", reason);
+                } finally {
+                    closedLatch.countDown();
+                }
+            }
+        }
+    }
+}
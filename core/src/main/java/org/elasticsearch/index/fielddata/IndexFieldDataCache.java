@@ -22,6 +22,8 @@ package org.elasticsearch.index.fielddata;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
 import org.elasticsearch.index.shard.ShardId;
 
 /**
@@ -33,6 +35,15 @@ public interface IndexFieldDataCache {
 
     <FD extends AtomicFieldData, IFD extends IndexFieldData.Global<FD>> IFD load(DirectoryReader indexReader, IFD indexFieldData) throws Exception;
 
+    /**
+     * Returns the global ordinal map that was last built through this cache for the shard of the given reader, or {@code null}
+     * if there is none. The map can be used to build the global ordinals of a newer reader of the shard incrementally.
+     */
+    @Nullable
+    default GlobalOrdinalMap getLastGlobalOrdinalMap(DirectoryReader indexReader) {
+        return null;
+    }
+
     /**
      * Clears all the field data stored cached in on this index.
      */
@@ -43,6 +54,12 @@ public interface IndexFieldDataCache {
      */
     void clear(String fieldName);
 
+    /**
+     * Releases what is kept in this cache for the given shard beyond the lifetime of its readers, called once the shard is closed.
+     */
+    default void clear(ShardId shardId) {
+    }
+
     interface Listener {
 
         /**
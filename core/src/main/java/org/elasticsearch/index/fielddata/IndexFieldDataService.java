@@ -51,6 +51,12 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
                 throw new IllegalArgumentException("failed to parse [" + s + "] must be one of [node,node]");
         }
     }, Property.IndexScope);
+    /**
+     * Whether global ordinals that are built after a refresh reuse the mapping of the segments that did not change since the
+     * global ordinals were last built for the shard, instead of merging the terms of all segments again.
+     */
+    public static final Setting<Boolean> INDEX_FIELDDATA_GLOBAL_ORDINALS_INCREMENTAL_SETTING =
+        Setting.boolSetting("index.fielddata.global_ordinals.incremental", false, Property.IndexScope, Property.Dynamic);
 
     private final CircuitBreakerService circuitBreakerService;
 
@@ -105,6 +111,21 @@ public class IndexFieldDataService extends AbstractIndexComponent implements Clo
         ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
     }
 
+    /**
+     * Releases what the field data caches keep for the given shard beyond the lifetime of its readers.
+     */
+    public synchronized void clearShard(final ShardId shardId) {
+        List<Exception> exceptions = new ArrayList<>(0);
+        for (IndexFieldDataCache cache : fieldDataCaches.values()) {
+            try {
+                cache.clear(shardId);
+            } catch (Exception e) {
+                exceptions.add(e);
+            }
+        }
+        ExceptionsHelper.maybeThrowRuntimeAndSuppress(exceptions);
+    }
+
     public <IFD extends IndexFieldData<?>> IFD getForField(MappedFieldType fieldType) {
         return getForField(fieldType, index().getName());
     }
@@ -0,0 +1,385 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.packed.PackedInts;
+import org.apache.lucene.util.packed.PackedLongValues;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the ordinals of the segments of a reader to global ordinals. Next to the mapping, the map records the core cache key
+ * and the number of ordinals of every segment so that a map that is built for a newer reader can reuse the mapping of the
+ * segments that did not change, see {@link #buildIncrementally(GlobalOrdinalMap, IndexReader.CacheKey[], SortedSetDocValues[])}.
+ */
+public abstract class GlobalOrdinalMap implements Accountable {
+
+    private final IndexReader.CacheKey[] segmentKeys;
+    private final long[] segmentValueCounts;
+
+    private GlobalOrdinalMap(IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs) {
+        assert segmentKeys.length == subs.length;
+        this.segmentKeys = segmentKeys;
+        this.segmentValueCounts = new long[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            segmentValueCounts[i] = subs[i].getValueCount();
+        }
+    }
+
+    /**
+     * The number of global ordinals.
+     */
+    public abstract long getValueCount();
+
+    /**
+     * The global ordinals of the ordinals of the segment at {@code segmentIndex}.
+     */
+    public abstract LongValues getGlobalOrds(int segmentIndex);
+
+    /**
+     * The index of a segment that contains the term of the given global ordinal.
+     */
+    public abstract int getFirstSegmentNumber(long globalOrd);
+
+    /**
+     * The ordinal of the term of the given global ordinal in the segment that is returned by {@link #getFirstSegmentNumber(long)}.
+     */
+    public abstract long getFirstSegmentOrd(long globalOrd);
+
+    /**
+     * The Lucene {@link OrdinalMap} this map was built from, or {@code null} if this map was built incrementally.
+     */
+    @Nullable
+    public abstract OrdinalMap getLuceneOrdinalMap();
+
+    /**
+     * Whether this map reused the mapping of segments of a map that was built for a previous reader.
+     */
+    public abstract boolean isIncremental();
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Builds a global ordinal map from scratch by merging the terms of all segments.
+     */
+    public static GlobalOrdinalMap build(IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs) throws IOException {
+        return new LuceneGlobalOrdinalMap(segmentKeys, subs, OrdinalMap.build(null, subs, PackedInts.DEFAULT));
+    }
+
+    /**
+     * Builds a global ordinal map for a reader whose segments partially match the segments the {@code previous} map was built
+     * for. The terms of the segments that are new are merged with each other and then located among the global terms of the
+     * previous map with binary searches, while the mappings of the segments that did not change are translated with a linear
+     * scan of their ordinals, without looking at their terms.
+     *
+     * @return the new map or {@code null} if no segment can be reused or if there are so many new terms that building the map
+     * from scratch is expected to be cheaper
+     */
+    @Nullable
+    public static GlobalOrdinalMap buildIncrementally(GlobalOrdinalMap previous, IndexReader.CacheKey[] segmentKeys,
+                                                      SortedSetDocValues[] subs) throws IOException {
+        final long previousValueCount = previous.getValueCount();
+        if (previousValueCount == 0 || previousValueCount >= ArrayUtil.MAX_ARRAY_LENGTH) {
+            return null;
+        }
+        final Map<IndexReader.CacheKey, Integer> previousSegments = new HashMap<>();
+        for (int i = 0; i < previous.segmentKeys.length; i++) {
+            if (previous.segmentKeys[i] != null) {
+                previousSegments.put(previous.segmentKeys[i], i);
+            }
+        }
+        // the index of every segment in the previous map, or -1 if the segment is new
+        final int[] previousIndex = new int[subs.length];
+        int numNewSegments = 0;
+        long newValueCount = 0;
+        long totalValueCount = 0;
+        long maxSegmentValueCount = 0;
+        for (int i = 0; i < subs.length; i++) {
+            final long valueCount = subs[i].getValueCount();
+            totalValueCount += valueCount;
+            maxSegmentValueCount = Math.max(maxSegmentValueCount, valueCount);
+            final Integer index = segmentKeys[i] == null ? null : previousSegments.get(segmentKeys[i]);
+            if (index != null && previous.segmentValueCounts[index] == valueCount) {
+                previousIndex[i] = index;
+            } else {
+                previousIndex[i] = -1;
+                numNewSegments++;
+                newValueCount += valueCount;
+            }
+        }
+        if (numNewSegments == subs.length) {
+            return null;
+        }
+        // locating a new term costs a binary search over the previous terms while a full build reads every term of every segment
+        if (newValueCount * PackedInts.bitsRequired(previousValueCount) > totalValueCount) {
+            return null;
+        }
+
+        // find the previous global ordinals that are still used and a segment of the new reader that holds their term
+        final PackedInts.Mutable previousFirstSegments = PackedInts.getMutable((int) previousValueCount,
+            PackedInts.bitsRequired(subs.length), PackedInts.DEFAULT);
+        final PackedInts.Mutable previousFirstSegmentOrds = PackedInts.getMutable((int) previousValueCount,
+            PackedInts.bitsRequired(maxSegmentValueCount), PackedInts.DEFAULT);
+        for (int i = 0; i < subs.length; i++) {
+            if (previousIndex[i] == -1) {
+                continue;
+            }
+            final LongValues globalOrds = previous.getGlobalOrds(previousIndex[i]);
+            final long valueCount = subs[i].getValueCount();
+            for (long segmentOrd = 0; segmentOrd < valueCount; segmentOrd++) {
+                final int globalOrd = (int) globalOrds.get(segmentOrd);
+                if (previousFirstSegments.get(globalOrd) == 0) {
+                    // segments are stored plus one so that zero means the term is gone
+                    previousFirstSegments.set(globalOrd, i + 1);
+                    previousFirstSegmentOrds.set(globalOrd, segmentOrd);
+                }
+            }
+        }
+        final PackedLongValues.Builder survivorsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        for (int globalOrd = 0; globalOrd < previousValueCount; globalOrd++) {
+            if (previousFirstSegments.get(globalOrd) != 0) {
+                survivorsBuilder.add(globalOrd);
+            }
+        }
+        final PackedLongValues survivors = survivorsBuilder.build();
+        final long numSurvivors = survivors.size();
+
+        // merge the terms of the new segments with each other and find where they go among the surviving terms
+        final int[] newSegments = new int[numNewSegments];
+        final SortedSetDocValues[] newSubs = new SortedSetDocValues[numNewSegments];
+        for (int i = 0, j = 0; i < subs.length; i++) {
+            if (previousIndex[i] == -1) {
+                newSegments[j] = i;
+                newSubs[j++] = subs[i];
+            }
+        }
+        final OrdinalMap newTerms = OrdinalMap.build(null, newSubs, PackedInts.DEFAULT);
+        final long numNewTerms = newTerms.getValueCount();
+        // the index of the first surviving term that is greater than or equal to every new term
+        final PackedLongValues.Builder insertionPointsBuilder = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+        // the new terms that are equal to a surviving term
+        final FixedBitSet existingTerms = new FixedBitSet((int) numNewTerms);
+        final BytesRefBuilder newTerm = new BytesRefBuilder();
+        long low = 0;
+        for (int newOrd = 0; newOrd < numNewTerms; newOrd++) {
+            newTerm.copyBytes(newSubs[newTerms.getFirstSegmentNumber(newOrd)].lookupOrd(newTerms.getFirstSegmentOrd(newOrd)));
+            // new terms are sorted so the search can start from the insertion point of the previous new term
+            long high = numSurvivors - 1;
+            while (low <= high) {
+                final long mid = (low + high) >>> 1;
+                final int survivor = (int) survivors.get(mid);
+                final int segment = (int) previousFirstSegments.get(survivor) - 1;
+                final BytesRef term = subs[segment].lookupOrd(previousFirstSegmentOrds.get(survivor));
+                final int cmp = term.compareTo(newTerm.get());
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    existingTerms.set(newOrd);
+                    low = mid;
+                    break;
+                }
+            }
+            insertionPointsBuilder.add(low);
+        }
+        final PackedLongValues insertionPoints = insertionPointsBuilder.build();
+
+        // interleave surviving and new terms to assign the new global ordinals
+        final int bitsPerGlobalOrd = PackedInts.bitsRequired(numSurvivors + numNewTerms);
+        final PackedInts.Mutable previousToGlobal = PackedInts.getMutable((int) previousValueCount, bitsPerGlobalOrd,
+            PackedInts.DEFAULT);
+        final PackedInts.Mutable newToGlobal = PackedInts.getMutable((int) numNewTerms, bitsPerGlobalOrd, PackedInts.DEFAULT);
+        final PackedLongValues.Builder firstSegments = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        final PackedLongValues.Builder firstSegmentOrds = PackedLongValues.packedBuilder(PackedInts.COMPACT);
+        long globalOrd = 0;
+        int newOrd = 0;
+        for (long survivor = 0; survivor <= numSurvivors; survivor++) {
+            while (newOrd < numNewTerms && insertionPoints.get(newOrd) == survivor && existingTerms.get(newOrd) == false) {
+                newToGlobal.set(newOrd, globalOrd++);
+                firstSegments.add(newSegments[newTerms.getFirstSegmentNumber(newOrd)]);
+                firstSegmentOrds.add(newTerms.getFirstSegmentOrd(newOrd));
+                newOrd++;
+            }
+            if (survivor == numSurvivors) {
+                break;
+            }
+            final int previousOrd = (int) survivors.get(survivor);
+            previousToGlobal.set(previousOrd, globalOrd);
+            firstSegments.add(previousFirstSegments.get(previousOrd) - 1);
+            firstSegmentOrds.add(previousFirstSegmentOrds.get(previousOrd));
+            if (newOrd < numNewTerms && insertionPoints.get(newOrd) == survivor && existingTerms.get(newOrd)) {
+                newToGlobal.set(newOrd++, globalOrd);
+            }
+            globalOrd++;
+        }
+        assert newOrd == numNewTerms;
+
+        // global ordinals grow with segment ordinals, which makes monotonic encoding compact
+        final PackedLongValues[] segmentToGlobalOrds = new PackedLongValues[subs.length];
+        for (int i = 0, j = 0; i < subs.length; i++) {
+            final PackedLongValues.Builder globalOrds = PackedLongValues.monotonicBuilder(PackedInts.COMPACT);
+            final long valueCount = subs[i].getValueCount();
+            if (previousIndex[i] == -1) {
+                final LongValues newOrds = newTerms.getGlobalOrds(j++);
+                for (long segmentOrd = 0; segmentOrd < valueCount; segmentOrd++) {
+                    globalOrds.add(newToGlobal.get((int) newOrds.get(segmentOrd)));
+                }
+            } else {
+                final LongValues previousOrds = previous.getGlobalOrds(previousIndex[i]);
+                for (long segmentOrd = 0; segmentOrd < valueCount; segmentOrd++) {
+                    globalOrds.add(previousToGlobal.get((int) previousOrds.get(segmentOrd)));
+                }
+            }
+            segmentToGlobalOrds[i] = globalOrds.build();
+        }
+        return new PackedGlobalOrdinalMap(segmentKeys, subs, globalOrd, firstSegments.build(), firstSegmentOrds.build(),
+            segmentToGlobalOrds);
+    }
+
+    /**
+     * A {@link GlobalOrdinalMap} that delegates to a Lucene {@link OrdinalMap}.
+     */
+    private static final class LuceneGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private final OrdinalMap ordinalMap;
+
+        private LuceneGlobalOrdinalMap(IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs, OrdinalMap ordinalMap) {
+            super(segmentKeys, subs);
+            this.ordinalMap = ordinalMap;
+        }
+
+        @Override
+        public long getValueCount() {
+            return ordinalMap.getValueCount();
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return ordinalMap.getGlobalOrds(segmentIndex);
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return ordinalMap.getFirstSegmentNumber(globalOrd);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return ordinalMap.getFirstSegmentOrd(globalOrd);
+        }
+
+        @Override
+        public OrdinalMap getLuceneOrdinalMap() {
+            return ordinalMap;
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return false;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return ordinalMap.ramBytesUsed();
+        }
+    }
+
+    /**
+     * A {@link GlobalOrdinalMap} that stores the mappings that were computed by an incremental build in packed arrays.
+     */
+    private static final class PackedGlobalOrdinalMap extends GlobalOrdinalMap {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PackedGlobalOrdinalMap.class);
+
+        private final long valueCount;
+        private final PackedLongValues firstSegments;
+        private final PackedLongValues firstSegmentOrds;
+        private final PackedLongValues[] segmentToGlobalOrds;
+
+        private PackedGlobalOrdinalMap(IndexReader.CacheKey[] segmentKeys, SortedSetDocValues[] subs, long valueCount,
+                                       PackedLongValues firstSegments, PackedLongValues firstSegmentOrds,
+                                       PackedLongValues[] segmentToGlobalOrds) {
+            super(segmentKeys, subs);
+            this.valueCount = valueCount;
+            this.firstSegments = firstSegments;
+            this.firstSegmentOrds = firstSegmentOrds;
+            this.segmentToGlobalOrds = segmentToGlobalOrds;
+        }
+
+        @Override
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        @Override
+        public LongValues getGlobalOrds(int segmentIndex) {
+            return segmentToGlobalOrds[segmentIndex];
+        }
+
+        @Override
+        public int getFirstSegmentNumber(long globalOrd) {
+            return (int) firstSegments.get(globalOrd);
+        }
+
+        @Override
+        public long getFirstSegmentOrd(long globalOrd) {
+            return firstSegmentOrds.get(globalOrd);
+        }
+
+        @Override
+        public OrdinalMap getLuceneOrdinalMap() {
+            return null;
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return true;
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long size = BASE_RAM_BYTES_USED + firstSegments.ramBytesUsed() + firstSegmentOrds.ramBytesUsed()
+                + RamUsageEstimator.shallowSizeOf(segmentToGlobalOrds);
+            for (PackedLongValues globalOrds : segmentToGlobalOrds) {
+                size += globalOrds.ramBytesUsed();
+            }
+            return size;
+        }
+    }
+}
@@ -24,7 +24,10 @@ import org.apache.lucene.index.MultiDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.index.AbstractIndexComponent;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.AtomicOrdinalsFieldData;
@@ -35,6 +38,8 @@ import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.search.MultiValueMode;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.function.Function;
@@ -42,23 +47,32 @@ import java.util.function.Function;
 /**
  * {@link IndexFieldData} base class for concrete global ordinals implementations.
  */
-public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent implements IndexOrdinalsFieldData, Accountable {
+public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent implements IndexOrdinalsFieldData, Accountable, Releasable {
 
     private final String fieldName;
     private final long memorySizeInBytes;
+    private final long buildTimeInNanos;
 
-    private final MultiDocValues.OrdinalMap ordinalMap;
+    private final GlobalOrdinalMap ordinalMap;
     private final Atomic[] atomicReaders;
     private final Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction;
-
+    private final CircuitBreaker breaker;
+    // only built if a consumer needs a Lucene ordinal map while ours was built incrementally
+    private volatile MultiDocValues.OrdinalMap luceneOrdinalMap;
+    // the memory of the lazily built Lucene ordinal map that is accounted for in the breaker, guarded by this
+    private long luceneOrdinalMapSizeInBytes;
+    private boolean closed;
 
     protected GlobalOrdinalsIndexFieldData(IndexSettings indexSettings, String fieldName, AtomicOrdinalsFieldData[] segmentAfd,
-                                           MultiDocValues.OrdinalMap ordinalMap, long memorySizeInBytes, Function<SortedSetDocValues,
-                                           ScriptDocValues<?>> scriptFunction) {
+                                           GlobalOrdinalMap ordinalMap, long memorySizeInBytes, long buildTimeInNanos,
+                                           Function<SortedSetDocValues, ScriptDocValues<?>> scriptFunction, CircuitBreaker breaker) {
         super(indexSettings);
         this.fieldName = fieldName;
         this.memorySizeInBytes = memorySizeInBytes;
+        this.buildTimeInNanos = buildTimeInNanos;
+        this.breaker = breaker;
         this.ordinalMap = ordinalMap;
+        this.luceneOrdinalMap = ordinalMap.getLuceneOrdinalMap();
         this.atomicReaders = new Atomic[segmentAfd.length];
         for (int i = 0; i < segmentAfd.length; i++) {
             atomicReaders[i] = new Atomic(segmentAfd[i], ordinalMap, i);
@@ -112,18 +126,73 @@ public class GlobalOrdinalsIndexFieldData extends AbstractIndexComponent impleme
         return atomicReaders[context.ord];
     }
 
+    /**
+     * Returns the Lucene ordinal map of these global ordinals. If the global ordinals were built incrementally, a Lucene ordinal
+     * map is built from scratch on the first call. Its memory is accounted for in the field data circuit breaker until these
+     * global ordinals are {@link #close() closed}.
+     */
     @Override
     public MultiDocValues.OrdinalMap getOrdinalMap() {
+        MultiDocValues.OrdinalMap map = luceneOrdinalMap;
+        if (map == null) {
+            synchronized (this) {
+                map = luceneOrdinalMap;
+                if (map == null) {
+                    final SortedSetDocValues[] subs = new SortedSetDocValues[atomicReaders.length];
+                    for (int i = 0; i < subs.length; i++) {
+                        subs[i] = atomicReaders[i].afd.getOrdinalsValues();
+                    }
+                    try {
+                        map = MultiDocValues.OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (closed == false) {
+                        // evicted global ordinals may still be used by a search but nothing would release the memory anymore
+                        luceneOrdinalMapSizeInBytes = map.ramBytesUsed();
+                        breaker.addWithoutBreaking(luceneOrdinalMapSizeInBytes);
+                    }
+                    luceneOrdinalMap = map;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Releases the memory of the lazily built Lucene ordinal map from the field data circuit breaker. Called once these global
+     * ordinals are removed from the field data cache, the memory of the global ordinal map itself is released by the cache.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed == false) {
+            closed = true;
+            breaker.addWithoutBreaking(-luceneOrdinalMapSizeInBytes);
+            luceneOrdinalMapSizeInBytes = 0;
+        }
+    }
+
+    /**
+     * The map from segment ordinals to global ordinals.
+     */
+    public GlobalOrdinalMap getGlobalOrdinalMap() {
         return ordinalMap;
     }
 
+    /**
+     * The time it took to build these global ordinals.
+     */
+    public long getBuildTimeInNanos() {
+        return buildTimeInNanos;
+    }
+
     private final class Atomic extends AbstractAtomicOrdinalsFieldData {
 
         private final AtomicOrdinalsFieldData afd;
-        private final MultiDocValues.OrdinalMap ordinalMap;
+        private final GlobalOrdinalMap ordinalMap;
         private final int segmentIndex;
 
-        private Atomic(AtomicOrdinalsFieldData afd, MultiDocValues.OrdinalMap ordinalMap, int segmentIndex) {
+        private Atomic(AtomicOrdinalsFieldData afd, GlobalOrdinalMap ordinalMap, int segmentIndex) {
             super(scriptFunction);
             this.afd = afd;
             this.ordinalMap = ordinalMap;
@@ -0,0 +1,141 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapper for the _doc_count field. Pre-aggregated documents, for instance the summaries of a rollup index, set it in their
+ * source to the number of documents they stand for, and bucket aggregations count each document that many times.
+ */
+public class DocCountFieldMapper extends MetadataFieldMapper {
+
+    public static final String NAME = "_doc_count";
+    public static final String CONTENT_TYPE = "_doc_count";
+
+    public static class Defaults {
+
+        public static final String NAME = DocCountFieldMapper.NAME;
+        public static final MappedFieldType FIELD_TYPE = new DocCountFieldType();
+
+        static {
+            FIELD_TYPE.setName(NAME);
+            FIELD_TYPE.setDocValuesType(DocValuesType.NUMERIC);
+            FIELD_TYPE.setIndexOptions(IndexOptions.NONE);
+            FIELD_TYPE.setHasDocValues(true);
+            FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class TypeParser implements MetadataFieldMapper.TypeParser {
+        @Override
+        public MetadataFieldMapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext) throws MapperParsingException {
+            throw new MapperParsingException(NAME + " is not configurable");
+        }
+
+        @Override
+        public MetadataFieldMapper getDefault(MappedFieldType fieldType, ParserContext context) {
+            final Settings indexSettings = context.mapperService().getIndexSettings().getSettings();
+            return new DocCountFieldMapper(indexSettings);
+        }
+    }
+
+    static final class DocCountFieldType extends MappedFieldType {
+
+        DocCountFieldType() {
+        }
+
+        protected DocCountFieldType(DocCountFieldType ref) {
+            super(ref);
+        }
+
+        @Override
+        public MappedFieldType clone() {
+            return new DocCountFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "The _doc_count field is not searchable");
+        }
+    }
+
+    private DocCountFieldMapper(Settings indexSettings) {
+        super(NAME, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE, indexSettings);
+    }
+
+    @Override
+    public void preParse(ParseContext context) throws IOException {
+        // _doc_count is parsed from the source by the document parser
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        XContentParser parser = context.parser();
+        if (parser.currentToken() != XContentParser.Token.VALUE_NUMBER) {
+            throw new MapperParsingException("[" + NAME + "] must be a number, got [" + parser.currentToken() + "]");
+        }
+        long docCount = parser.longValue(false);
+        if (docCount <= 0 || docCount > Integer.MAX_VALUE) {
+            throw new MapperParsingException("[" + NAME + "] must be a positive integer, got [" + docCount + "]");
+        }
+        if (context.doc().getField(NAME) != null) {
+            throw new MapperParsingException("[" + NAME + "] may only be set once per document");
+        }
+        fields.add(new NumericDocValuesField(NAME, docCount));
+    }
+
+    @Override
+    public void postParse(ParseContext context) throws IOException {
+        // documents without a _doc_count count once, there is no need to fill in a default
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        return builder;
+    }
+
+    @Override
+    protected void doMerge(Mapper mergeWith, boolean updateAllTypes) {
+        // nothing to do
+    }
+}
@@ -384,7 +384,12 @@ final class DocumentParser {
                 parseArray(context, mapper, currentFieldName);
             } else if (token == XContentParser.Token.FIELD_NAME) {
                 currentFieldName = parser.currentName();
-                if (MapperService.isMetadataField(context.path().pathAsText(currentFieldName))) {
+                String path = context.path().pathAsText(currentFieldName);
+                if (DocCountFieldMapper.NAME.equals(path)) {
+                    // the doc count of pre-aggregated documents is the only metadata field that is read from the source
+                    parser.nextToken();
+                    context.docMapper().metadataMapper(DocCountFieldMapper.class).parse(context);
+                } else if (MapperService.isMetadataField(path)) {
                     throw new MapperParsingException("Field [" + currentFieldName + "] is a metadata field and cannot be added inside a document. Use the index API request parameters.");
                 }
             } else if (token == XContentParser.Token.VALUE_NULL) {
@@ -189,6 +189,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parsed;
             }
 
+            @Override
+            public Float parsePoint(byte[] value) {
+                return HalfFloatPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 float v = parse(value, false);
@@ -281,6 +286,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parsed;
             }
 
+            @Override
+            public Float parsePoint(byte[] value) {
+                return FloatPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 float v = parse(value, false);
@@ -362,6 +372,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parsed;
             }
 
+            @Override
+            public Double parsePoint(byte[] value) {
+                return DoublePoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 double v = parse(value, false);
@@ -456,6 +471,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return (short) value;
             }
 
+            @Override
+            public Integer parsePoint(byte[] value) {
+                return IntPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 return INTEGER.termQuery(field, value);
@@ -508,6 +528,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parser.shortValue(coerce);
             }
 
+            @Override
+            public Integer parsePoint(byte[] value) {
+                return IntPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 return INTEGER.termQuery(field, value);
@@ -560,6 +585,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parser.intValue(coerce);
             }
 
+            @Override
+            public Integer parsePoint(byte[] value) {
+                return IntPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 if (hasDecimalPart(value)) {
@@ -674,6 +704,11 @@ public class NumberFieldMapper extends FieldMapper {
                 return parser.longValue(coerce);
             }
 
+            @Override
+            public Long parsePoint(byte[] value) {
+                return LongPoint.decodeDimension(value, 0);
+            }
+
             @Override
             public Query termQuery(String field, Object value) {
                 if (hasDecimalPart(value)) {
@@ -785,6 +820,7 @@ public class NumberFieldMapper extends FieldMapper {
                                   boolean hasDocValues);
         public abstract Number parse(XContentParser parser, boolean coerce) throws IOException;
         public abstract Number parse(Object value, boolean coerce);
+        public abstract Number parsePoint(byte[] value);
         public abstract List<Field> createFields(String name, Number value, boolean indexed,
                                                  boolean docValued, boolean stored);
         Number valueForSearch(Number value) {
@@ -867,6 +903,13 @@ public class NumberFieldMapper extends FieldMapper {
             return type.name;
         }
 
+        /**
+         * Decodes the value of a point of this field, as returned by {@link org.apache.lucene.index.PointValues}.
+         */
+        public Number parsePoint(byte[] value) {
+            return type.parsePoint(value);
+        }
+
         @Override
         public Query termQuery(Object value, QueryShardContext context) {
             failIfNotIndexed();
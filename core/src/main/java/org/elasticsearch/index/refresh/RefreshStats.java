@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.refresh;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -41,14 +42,26 @@ public class RefreshStats implements Streamable, ToXContentFragment {
      */
     private int listeners;
 
+    /**
+     * Number of scheduled refreshes that were skipped because the shard was search idle.
+     */
+    private long skipped;
+
+    /**
+     * Number of shards that are search idle.
+     */
+    private int searchIdleShards;
+
     public RefreshStats() {
 
     }
 
-    public RefreshStats(long total, long totalTimeInMillis, int listeners) {
+    public RefreshStats(long total, long totalTimeInMillis, int listeners, long skipped, int searchIdleShards) {
         this.total = total;
         this.totalTimeInMillis = totalTimeInMillis;
         this.listeners = listeners;
+        this.skipped = skipped;
+        this.searchIdleShards = searchIdleShards;
     }
 
     public void add(RefreshStats refreshStats) {
@@ -62,6 +75,8 @@ public class RefreshStats implements Streamable, ToXContentFragment {
         this.total += refreshStats.total;
         this.totalTimeInMillis += refreshStats.totalTimeInMillis;
         this.listeners += refreshStats.listeners;
+        this.skipped += refreshStats.skipped;
+        this.searchIdleShards += refreshStats.searchIdleShards;
     }
 
     /**
@@ -92,12 +107,28 @@ public class RefreshStats implements Streamable, ToXContentFragment {
         return listeners;
     }
 
+    /**
+     * The number of scheduled refreshes that were skipped because the shard was search idle.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * The number of shards that are search idle, either <code>0</code> or <code>1</code> for the stats of a single shard.
+     */
+    public int getSearchIdleShards() {
+        return searchIdleShards;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("refresh");
         builder.field("total", total);
         builder.timeValueField("total_time_in_millis", "total_time", totalTimeInMillis);
         builder.field("listeners", listeners);
+        builder.field("skipped", skipped);
+        builder.field("search_idle_shards", searchIdleShards);
         builder.endObject();
         return builder;
     }
@@ -107,6 +138,10 @@ public class RefreshStats implements Streamable, ToXContentFragment {
         total = in.readVLong();
         totalTimeInMillis = in.readVLong();
         listeners = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            skipped = in.readVLong();
+            searchIdleShards = in.readVInt();
+        }
     }
 
     @Override
@@ -114,6 +149,10 @@ public class RefreshStats implements Streamable, ToXContentFragment {
         out.writeVLong(total);
         out.writeVLong(totalTimeInMillis);
         out.writeVInt(listeners);
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeVLong(skipped);
+            out.writeVInt(searchIdleShards);
+        }
     }
 
     @Override
@@ -124,11 +163,13 @@ public class RefreshStats implements Streamable, ToXContentFragment {
         RefreshStats rhs = (RefreshStats) obj;
         return total == rhs.total
                 && totalTimeInMillis == rhs.totalTimeInMillis
-                && listeners == rhs.listeners;
+                && listeners == rhs.listeners
+                && skipped == rhs.skipped
+                && searchIdleShards == rhs.searchIdleShards;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, totalTimeInMillis, listeners);
+        return Objects.hash(total, totalTimeInMillis, listeners, skipped, searchIdleShards);
     }
 }
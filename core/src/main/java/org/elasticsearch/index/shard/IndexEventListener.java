@@ -58,6 +58,11 @@ public interface IndexEventListener {
      */
     default void afterIndexShardStarted(IndexShard indexShard) {}
 
+    /**
+     * Called after the index shard has been flushed, force merged or upgraded, which may have written a new commit.
+     */
+    default void afterIndexShardFlushed(IndexShard indexShard) {}
+
     /**
      * Called before the index shard gets closed.
      *
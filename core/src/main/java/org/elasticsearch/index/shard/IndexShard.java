@@ -50,12 +50,15 @@ import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.CheckedRunnable;
+import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -69,6 +72,7 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.ReplicationType;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
@@ -79,10 +83,12 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.engine.EngineFactory;
+import org.elasticsearch.index.engine.FrozenEngine;
 import org.elasticsearch.index.engine.InternalEngine;
 import org.elasticsearch.index.engine.InternalEngineFactory;
 import org.elasticsearch.index.engine.RefreshFailedEngineException;
 import org.elasticsearch.index.engine.Segment;
+import org.elasticsearch.index.engine.SegmentReplicaEngine;
 import org.elasticsearch.index.engine.SegmentsStats;
 import org.elasticsearch.index.fielddata.FieldDataStats;
 import org.elasticsearch.index.fielddata.ShardFieldData;
@@ -95,6 +101,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.UidFieldMapper;
@@ -116,6 +123,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -139,6 +147,7 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Locale;
@@ -154,8 +163,10 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.index.mapper.SourceToParse.source;
@@ -209,6 +220,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     private final RecoveryStats recoveryStats = new RecoveryStats();
     private final MeanMetric refreshMetric = new MeanMetric();
+    private final CounterMetric skippedRefreshMetric = new CounterMetric();
     private final MeanMetric flushMetric = new MeanMetric();
 
     private final ShardEventListener shardEventListener = new ShardEventListener();
@@ -238,6 +250,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * Allows for the registration of listeners that are called when a change becomes visible for search.
      */
     private final RefreshListeners refreshListeners;
+    /**
+     * The last time this shard was accessed by a search request, see {@link #isSearchIdle()}.
+     */
+    private volatile long lastSearcherAccess;
+    /**
+     * The translog location that a search request needs to wait for if scheduled refreshes were skipped while the shard was
+     * search idle, or <code>null</code> if no refresh is pending.
+     */
+    private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
+
+    private final TranslogSyncScheduler translogSyncScheduler;
 
     public IndexShard(
             ShardRouting shardRouting,
@@ -256,7 +279,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             Engine.Warmer warmer,
             List<SearchOperationListener> searchOperationListener,
             List<IndexingOperationListener> listeners,
-            Runnable globalCheckpointSyncer) throws IOException {
+            Runnable globalCheckpointSyncer,
+            TranslogSyncScheduler translogSyncScheduler) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
         this.shardRouting = shardRouting;
@@ -270,6 +294,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
+        this.translogSyncScheduler = translogSyncScheduler;
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -307,6 +332,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         searcherWrapper = indexSearcherWrapper;
         primaryTerm = indexSettings.getIndexMetaData().primaryTerm(shardId.id());
         refreshListeners = buildRefreshListeners();
+        lastSearcherAccess = threadPool.relativeTimeInMillis();
         persistMetadata(path, indexSettings, shardRouting, null, logger);
     }
 
@@ -403,6 +429,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             }
 
             if (newRouting.primary()) {
+                lastAllocationIdsFromMaster = seqNoService ->
+                    seqNoService.updateAllocationIdsFromMaster(applyingClusterStateVersion, inSyncAllocationIds, routingTable,
+                        pre60AllocationIds);
                 final Engine engine = getEngineOrNull();
                 if (engine != null) {
                     engine.seqNoService().updateAllocationIdsFromMaster(applyingClusterStateVersion, inSyncAllocationIds, routingTable, pre60AllocationIds);
@@ -479,6 +508,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                         () -> {
                             shardStateUpdated.await();
                             try {
+                                final Engine engine = getEngine();
+                                if (engine instanceof SegmentReplicaEngine) {
+                                    promoteSegmentReplicaEngine((SegmentReplicaEngine) engine);
+                                }
                                 /*
                                  * If this shard was serving as a replica shard when another shard was promoted to primary then the state of
                                  * its local checkpoint tracker was reset during the primary term transition. In particular, the local
@@ -562,6 +595,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     private final AtomicBoolean primaryReplicaResyncInProgress = new AtomicBoolean();
 
+    // the allocation ids of the last cluster state applied to this primary, for the engine that a promoted segment replica opens
+    private Consumer<SequenceNumbersService> lastAllocationIdsFromMaster; // guarded by mutex
+
     /**
      * Completes the relocation. Operations are blocked and current operations are drained before changing state to relocated. The provided
      * {@link Runnable} is executed after all operations are successfully blocked.
@@ -672,6 +708,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         assert opPrimaryTerm <= this.primaryTerm : "op term [ " + opPrimaryTerm + " ] > shard term [" + this.primaryTerm + "]";
         assert versionType.validateVersionForWrites(version);
         ensureWriteAllowed(origin);
+        final Engine engine = getEngine();
+        if (origin != Engine.Operation.Origin.PRIMARY && engine instanceof SegmentReplicaEngine) {
+            // segment replicas only record the operation in their translog, the indexed document is copied from the primary
+            return index(engine, prepareIndexForTranslog(sourceToParse, seqNo, opPrimaryTerm, version, versionType, origin,
+                autoGeneratedTimeStamp, isRetry));
+        }
         Engine.Index operation;
         try {
             operation = prepareIndex(docMapper(sourceToParse.type()), indexSettings.getIndexVersionCreated(), sourceToParse, seqNo,
@@ -689,7 +731,18 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             throw e;
         }
 
-        return index(getEngine(), operation);
+        return index(engine, operation);
+    }
+
+    private static Engine.Index prepareIndexForTranslog(SourceToParse source, long seqNo, long primaryTerm, long version,
+                                                        VersionType versionType, Engine.Operation.Origin origin,
+                                                        long autoGeneratedIdTimestamp, boolean isRetry) {
+        long startTime = System.nanoTime();
+        ParsedDocument doc = new ParsedDocument(null, SeqNoFieldMapper.SequenceIDFields.emptySeqID(), source.id(), source.type(),
+            source.routing(), Collections.emptyList(), source.source(), source.getXContentType(), null);
+        doc.parent(source.parent());
+        Term uid = new Term(IdFieldMapper.NAME, Uid.encodeId(source.id()));
+        return new Engine.Index(uid, doc, seqNo, primaryTerm, version, versionType, origin, startTime, autoGeneratedIdTimestamp, isRetry);
     }
 
     public static Engine.Index prepareIndex(DocumentMapperForType docMapper, Version indexCreatedVersion, SourceToParse source, long seqNo,
@@ -872,7 +925,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     public RefreshStats refreshStats() {
         int listeners = refreshListeners.pendingCount();
-        return new RefreshStats(refreshMetric.count(), TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()), listeners);
+        return new RefreshStats(refreshMetric.count(), TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()), listeners,
+            skippedRefreshMetric.count(), isSearchIdle() ? 1 : 0);
     }
 
     public FlushStats flushStats() {
@@ -880,6 +934,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     public DocsStats docStats() {
+        final Engine engine = getEngine();
+        if (engine instanceof FrozenEngine) {
+            return ((FrozenEngine) engine).docStats();
+        }
         try (Engine.Searcher searcher = acquireSearcher("doc_stats")) {
             return new DocsStats(searcher.reader().numDocs(), searcher.reader().numDeletedDocs());
         }
@@ -963,6 +1021,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
     public CompletionStats completionStats(String... fields) {
         CompletionStats completionStats = new CompletionStats();
+        if (getEngine() instanceof FrozenEngine) {
+            // suggesters aren't loaded while no search is in flight
+            return completionStats;
+        }
         try (Engine.Searcher currentSearcher = acquireSearcher("completion_stats")) {
             completionStats.add(CompletionFieldStats.completionStats(currentSearcher.reader(), fields));
         }
@@ -1006,9 +1068,23 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final long time = System.nanoTime();
         final Engine.CommitId commitId = engine.flush(force, waitIfOngoing);
         flushMetric.inc(System.nanoTime() - time);
+        indexEventListener.afterIndexShardFlushed(this);
         return commitId;
     }
 
+    /**
+     * Installs files copied from the primary on a replica of an index that uses segment replication and refreshes the shard so that
+     * they become searchable. Fails if the shard is not a segment replica (anymore), e.g. because it was promoted in the meantime.
+     */
+    public void installSegmentReplicationFiles(CheckedRunnable<IOException> installer) throws IOException {
+        verifyNotClosed();
+        final Engine engine = getEngine();
+        if (engine instanceof SegmentReplicaEngine == false) {
+            throw new IllegalIndexShardStateException(shardId, state, "files can only be installed on segment replicas");
+        }
+        ((SegmentReplicaEngine) engine).installFiles(installer);
+    }
+
     /**
      * checks and removes translog files that no longer need to be retained. See
      * {@link org.elasticsearch.index.translog.TranslogDeletionPolicy} for details
@@ -1034,6 +1110,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
         getEngine().forceMerge(forceMerge.flush(), forceMerge.maxNumSegments(),
             forceMerge.onlyExpungeDeletes(), false, false);
+        if (forceMerge.flush()) {
+            indexEventListener.afterIndexShardFlushed(this);
+        }
     }
 
     /**
@@ -1049,6 +1128,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         getEngine().forceMerge(true,  // we need to flush at the end to make sure the upgrade is durable
             Integer.MAX_VALUE, // we just want to upgrade the segments, not actually optimize to a single segment
             false, true, upgrade.upgradeOnlyAncientSegments());
+        indexEventListener.afterIndexShardFlushed(this);
         org.apache.lucene.util.Version version = minimumCompatibleVersion();
         if (logger.isTraceEnabled()) {
             logger.trace("upgraded segments for {} from version {} to version {}", shardId, previousVersion, version);
@@ -1383,6 +1463,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         Engine engine = getEngine();
         engine.refresh("recovery_finalization");
         engine.config().setEnableGcDeletes(true);
+        // segment replicas open the primary's commits with their own translog and keep their engine
+        if (indexSettings.isFrozen() && engine instanceof FrozenEngine == false && engine instanceof SegmentReplicaEngine == false) {
+            freezeEngine(engine);
+        }
     }
 
     /**
@@ -1415,7 +1499,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 throw new IllegalIndexShardStateException(shardId, state, "operation only allowed when shard state is one of " + writeAllowedStatesForPrimary + ", origin [" + origin + "]");
             }
         } else if (origin.isRecovery()) {
-            if (state != IndexShardState.RECOVERING) {
+            // a promoted segment replica replays its translog into a new engine after it has started
+            final Engine engine = getEngineOrNull();
+            if (state != IndexShardState.RECOVERING && (engine == null || engine.isRecovering() == false)) {
                 throw new IllegalIndexShardStateException(shardId, state, "operation only allowed when recovering, origin [" + origin + "]");
             }
         } else {
@@ -1555,8 +1641,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final Engine engine = getEngineOrNull();
         if (engine != null) {
             try {
-                final Translog translog = engine.getTranslog();
-                return translog.shouldFlush();
+                return engine.shouldPeriodicallyFlush();
             } catch (final AlreadyClosedException e) {
                 // we are already closed, no need to flush or roll
             }
@@ -2088,12 +2173,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private Engine createNewEngine(EngineConfig config) {
+        return createNewEngine(config, useSegmentReplicaEngine(config) ? SegmentReplicaEngine::new : this::newEngine);
+    }
+
+    private Engine createNewEngine(EngineConfig config, Function<EngineConfig, Engine> engineSupplier) {
         synchronized (mutex) {
             if (state == IndexShardState.CLOSED) {
                 throw new AlreadyClosedException(shardId + " can't create engine - shard is closed");
             }
             assert this.currentEngineReference.get() == null;
-            Engine engine = newEngine(config);
+            Engine engine = engineSupplier.apply(config);
             onNewEngine(engine); // call this before we pass the memory barrier otherwise actions that happen
             // inside the callback are not visible. This one enforces happens-before
             this.currentEngineReference.set(engine);
@@ -2114,6 +2203,78 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return engineFactory.newReadWriteEngine(config);
     }
 
+    /**
+     * Replicas of indices that use segment replication are recovered from the primary's files and never write to lucene themselves.
+     */
+    private boolean useSegmentReplicaEngine(EngineConfig config) {
+        return indexSettings.getReplicationType() == ReplicationType.SEGMENT && shardRouting.primary() == false
+            && config.getOpenMode() == EngineConfig.OpenMode.OPEN_INDEX_CREATE_TRANSLOG;
+    }
+
+    /**
+     * Replaces the engine of a segment replica that is promoted to primary with a read-write engine over the last copied commit and
+     * replays the operations that the replica only added to its translog. This runs on the generic thread pool while operations are
+     * blocked for the primary term transition, so the cluster state applier doesn't wait for the replay.
+     */
+    private void promoteSegmentReplicaEngine(SegmentReplicaEngine replicaEngine) throws IOException {
+        assert Thread.holdsLock(mutex) == false : "the translog of a promoted segment replica must not be replayed under the mutex";
+        final Engine engine;
+        synchronized (mutex) {
+            replicaEngine.closeForPromotion();
+            final boolean removed = currentEngineReference.compareAndSet(replicaEngine, null);
+            assert removed : "engine was replaced during promotion";
+            final EngineConfig config = newEngineConfig(EngineConfig.OpenMode.OPEN_INDEX_AND_TRANSLOG, this::runPromotionTranslogRecovery);
+            try {
+                engine = createNewEngine(config);
+            } catch (Exception e) {
+                // there is no engine left to fail, notify the listeners directly
+                shardEventListener.onFailedEngine("failed to open engine on promotion", e);
+                throw new AlreadyClosedException(shardId + " failed to open engine on promotion", e);
+            }
+        }
+        engine.recoverFromTranslog();
+        synchronized (mutex) {
+            // the primary mode and the allocation ids were applied to the tracker of the replica engine, hand them over
+            final SequenceNumbersService seqNoService = engine.seqNoService();
+            lastAllocationIdsFromMaster.accept(seqNoService);
+            seqNoService.activatePrimaryMode(seqNoService.getLocalCheckpoint());
+        }
+    }
+
+    /**
+     * Replaces the engine of a shard of a frozen index with one that doesn't keep a reader open once the shard has recovered. The
+     * shard recovers with a read-write engine so that the operations of the translog or of the recovery source can be applied, which
+     * are then flushed so that the frozen engine can open the last commit.
+     */
+    private void freezeEngine(Engine engine) {
+        synchronized (mutex) {
+            verifyNotClosed();
+            engine.flush(true, true);
+            try {
+                IOUtils.close(engine);
+            } catch (IOException e) {
+                throw new EngineException(shardId, "failed to close engine before freezing", e);
+            }
+            final boolean removed = currentEngineReference.compareAndSet(engine, null);
+            assert removed : "engine was replaced while freezing";
+            createNewEngine(newEngineConfig(EngineConfig.OpenMode.OPEN_INDEX_AND_TRANSLOG), FrozenEngine::new);
+        }
+    }
+
+    private int runPromotionTranslogRecovery(Engine engine, Translog.Snapshot snapshot) throws IOException {
+        int opsRecovered = 0;
+        Translog.Operation operation;
+        while ((operation = snapshot.next()) != null) {
+            logger.trace("[translog] replay op on promotion {}", operation);
+            Engine.Result result = applyTranslogOperation(operation, Engine.Operation.Origin.LOCAL_TRANSLOG_RECOVERY, update -> {
+                throw new IllegalArgumentException("unexpected mapping update: " + update);
+            });
+            ExceptionsHelper.reThrowIfNotNull(result.getFailure());
+            opsRecovered++;
+        }
+        return opsRecovered;
+    }
+
     private static void persistMetadata(
             final ShardPath shardPath,
             final IndexSettings indexSettings,
@@ -2148,9 +2309,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private EngineConfig newEngineConfig(EngineConfig.OpenMode openMode) {
+        return newEngineConfig(openMode, this::runTranslogRecovery);
+    }
+
+    private EngineConfig newEngineConfig(EngineConfig.OpenMode openMode, EngineConfig.TranslogRecoveryRunner translogRecoveryRunner) {
         Sort indexSort = indexSortSupplier.get();
         final boolean forceNewHistoryUUID;
-        switch (shardRouting.recoverySource().getType()) {
+        // an active shard only reopens its engine when a segment replica is promoted, which keeps the history of the shard
+        switch (shardRouting.active() ? RecoverySource.Type.EXISTING_STORE : shardRouting.recoverySource().getType()) {
             case EXISTING_STORE:
             case PEER:
                 forceNewHistoryUUID = false;
@@ -2169,7 +2335,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             indexCache.query(), cachingPolicy, forceNewHistoryUUID, translogConfig,
             IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING.get(indexSettings.getSettings()),
             Arrays.asList(refreshListeners, new RefreshMetricUpdater(refreshMetric)), indexSort,
-            this::runTranslogRecovery);
+            translogRecoveryRunner);
     }
 
     /**
@@ -2295,19 +2461,26 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor = new AsyncIOProcessor<Translog.Location>(logger, 1024) {
         @Override
         protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
-            try {
-                final Engine engine = getEngine();
-                engine.getTranslog().ensureSynced(candidates.stream().map(Tuple::v1));
-            } catch (AlreadyClosedException ex) {
-                // that's fine since we already synced everything on engine close - this also is conform with the methods
-                // documentation
-            } catch (IOException ex) { // if this fails we are in deep shit - fail the request
-                logger.debug("failed to sync translog", ex);
-                throw ex;
-            }
+            ensureTranslogSynced(candidates.stream().map(Tuple::v1));
         }
     };
 
+    // a single instance so that the translog sync scheduler coalesces the requests of this shard
+    private final CheckedConsumer<Translog.Location, IOException> translogSync = location -> ensureTranslogSynced(Stream.of(location));
+
+    private void ensureTranslogSynced(Stream<Translog.Location> locations) throws IOException {
+        try {
+            final Engine engine = getEngine();
+            engine.getTranslog().ensureSynced(locations);
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        } catch (IOException ex) { // if this fails we are in deep shit - fail the request
+            logger.debug("failed to sync translog", ex);
+            throw ex;
+        }
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
@@ -2316,10 +2489,16 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * one thread blocking on the sync an all others can continue indexing.
      * NOTE: if the syncListener throws an exception when it's processed the exception will only be logged. Users should make sure that the
      * listener handles all exception cases internally.
+     * If translog group commit is enabled on the node, the sync is coalesced with the syncs of the other shards on the same data
+     * path, see {@link TranslogSyncScheduler}.
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogSyncScheduler.isEnabled()) {
+            translogSyncScheduler.sync(path.getRootDataPath(), translogSync, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public final void sync() throws IOException {
@@ -2447,6 +2626,87 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return getEngine().refreshNeeded() || (refreshListeners != null && refreshListeners.refreshNeeded());
     }
 
+    /**
+     * Executes a scheduled refresh if one is needed. The refresh is skipped if the shard is search idle and no refresh listener is
+     * waiting for it, in which case the next search request waits for the refresh instead, see
+     * {@link #awaitShardSearchActive(Consumer)}.
+     *
+     * @return <code>true</code> iff the shard was refreshed
+     */
+    public boolean scheduledRefresh() {
+        if (isReadAllowed() == false) {
+            return false;
+        }
+        final boolean listenerNeedsRefresh = refreshListeners.refreshNeeded();
+        if (listenerNeedsRefresh || getEngine().refreshNeeded()) {
+            if (listenerNeedsRefresh == false && isSearchIdle() && indexSettings.isExplicitRefresh() == false) {
+                // nobody is searching this shard, the next search request registers a refresh listener for the pending location
+                // which causes the next scheduled refresh to run
+                setRefreshPending();
+                skippedRefreshMetric.inc();
+                return false;
+            }
+            refresh("schedule");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> iff this shard did not receive a search request for at least
+     * {@link IndexSettings#getSearchIdleAfter()}.
+     */
+    public boolean isSearchIdle() {
+        return (threadPool.relativeTimeInMillis() - lastSearcherAccess) >= indexSettings.getSearchIdleAfter().getMillis();
+    }
+
+    /**
+     * Returns the last time this shard was accessed by a search request, in the relative time of the thread pool.
+     */
+    public long getLastSearcherAccess() {
+        return lastSearcherAccess;
+    }
+
+    /**
+     * Returns <code>true</code> iff scheduled refreshes were skipped while the shard was search idle and no refresh caught up since.
+     */
+    public boolean hasRefreshPending() {
+        final Translog.Location location = pendingRefreshLocation.get();
+        if (location == null) {
+            return false;
+        }
+        return refreshListeners.refreshNeeded() || getEngine().refreshNeeded();
+    }
+
+    /**
+     * Marks this shard as accessed by a search request and calls the listener once the changes that were made while scheduled
+     * refreshes were skipped are visible to search. The listener is called immediately if no refresh is pending, with
+     * <code>true</code> if it had to wait for a refresh.
+     */
+    public void awaitShardSearchActive(Consumer<Boolean> listener) {
+        lastSearcherAccess = threadPool.relativeTimeInMillis();
+        final Translog.Location location = pendingRefreshLocation.get();
+        if (location != null) {
+            addRefreshListener(location, forcedRefresh -> {
+                pendingRefreshLocation.compareAndSet(location, null);
+                listener.accept(true);
+            });
+        } else {
+            listener.accept(false);
+        }
+    }
+
+    private void setRefreshPending() {
+        final Translog.Location lastWriteLocation = getEngine().getTranslog().getLastWriteLocation();
+        Translog.Location location;
+        do {
+            location = pendingRefreshLocation.get();
+            if (location != null && lastWriteLocation.compareTo(location) <= 0) {
+                break;
+            }
+        } while (pendingRefreshLocation.compareAndSet(location, lastWriteLocation) == false);
+    }
+
     /**
      * Add a listener for refreshes.
      *
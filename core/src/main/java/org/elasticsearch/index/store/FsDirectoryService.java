@@ -87,12 +87,25 @@ public class FsDirectoryService extends DirectoryService {
             return new NIOFSDirectory(location, lockFactory);
         } else if (IndexModule.Type.MMAPFS.match(storeType)) {
             return new MMapDirectory(location, lockFactory);
+        } else if (IndexModule.Type.HYBRIDFS.match(storeType)) {
+            final Set<String> mmapExtensions = new HashSet<>(indexSettings.getValue(IndexModule.INDEX_STORE_HYBRID_MMAP_EXTENSIONS_SETTING));
+            return new HybridDirectory(mmapExtensions, new MMapDirectory(location, lockFactory),
+                new NIOFSDirectory(location, lockFactory));
         }
         throw new IllegalArgumentException("No directory found for type [" + storeType + "]");
     }
 
     private static Directory setPreload(Directory directory, Path location, LockFactory lockFactory,
             Set<String> preLoadExtensions) throws IOException {
+        if (directory instanceof HybridDirectory) {
+            // only the memory-mapped files of a hybrid directory can be pre-loaded
+            HybridDirectory hybrid = (HybridDirectory) directory;
+            Directory primary = setPreload(hybrid.getPrimaryDir(), location, lockFactory, preLoadExtensions);
+            if (primary != hybrid.getPrimaryDir()) {
+                return new HybridDirectory(hybrid.mmapExtensions, primary, hybrid.getSecondaryDir());
+            }
+            return directory;
+        }
         if (preLoadExtensions.isEmpty() == false
                 && directory instanceof MMapDirectory
                 && ((MMapDirectory) directory).getPreload() == false) {
@@ -112,4 +125,25 @@ public class FsDirectoryService extends DirectoryService {
         }
         return directory;
     }
+
+    /**
+     * Memory-maps the files whose extension is one of the configured extensions and reads all other files
+     * through NIO. This keeps the randomly accessed files fast without mapping the large and mostly
+     * sequentially read files, like stored fields and term vectors, into the virtual address space.
+     */
+    static final class HybridDirectory extends FileSwitchDirectory {
+
+        private final Set<String> mmapExtensions;
+
+        HybridDirectory(Set<String> mmapExtensions, Directory mmapDirectory, Directory nioDirectory) {
+            super(mmapExtensions, mmapDirectory, nioDirectory, true);
+            this.mmapExtensions = mmapExtensions;
+        }
+
+        @Override
+        public String[] listAll() throws IOException {
+            // both directories point to the same location, avoid listing twice
+            return getPrimaryDir().listAll();
+        }
+    }
 }
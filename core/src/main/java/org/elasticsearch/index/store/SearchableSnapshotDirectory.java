@@ -0,0 +1,231 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * A directory over the files of a shard in a snapshot. The files are read lazily from the repository, block by block, through
+ * a {@link SnapshotBlockCache}. Snapshot files can't be modified, new files like the commit that is written when the shard is
+ * opened go to the wrapped local directory.
+ */
+final class SearchableSnapshotDirectory extends FilterDirectory {
+
+    // the snapshot files by their name in the directory, a file is removed once it is deleted or replaced by a local file
+    private final Map<String, FileInfo> snapshotFiles = ConcurrentCollections.newConcurrentMap();
+    private final SnapshotBlockCache cache;
+    private volatile boolean closed;
+
+    SearchableSnapshotDirectory(Directory localDirectory, List<FileInfo> snapshotFiles, SnapshotBlockCache cache) throws IOException {
+        super(localDirectory);
+        final Set<String> localFiles = new HashSet<>(Arrays.asList(localDirectory.listAll()));
+        for (FileInfo file : snapshotFiles) {
+            if (localFiles.contains(file.physicalName()) == false) {
+                this.snapshotFiles.put(file.physicalName(), file);
+            }
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * Copies the segment infos of the snapshot to the local directory. They are tiny and, together with the commit that is
+     * written locally when the shard is opened, they let the last commit of the shard be read without the repository. This
+     * is what the allocation of the shards of a closed index does, see {@link Store#tryOpenIndex}.
+     */
+    void copySegmentInfosToLocalDirectory() throws IOException {
+        for (FileInfo file : snapshotFiles.values()) {
+            final String name = file.physicalName();
+            if ("si".equals(IndexFileNames.getExtension(name))) {
+                final String tempName = name + ".tmp";
+                in.copyFrom(this, name, tempName, IOContext.READONCE);
+                in.sync(Collections.singleton(tempName));
+                in.rename(tempName, name);
+                snapshotFiles.remove(name);
+            }
+        }
+        in.syncMetaData();
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        final Set<String> names = new TreeSet<>(Arrays.asList(in.listAll()));
+        names.addAll(snapshotFiles.keySet());
+        return names.toArray(new String[names.size()]);
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+        if (snapshotFiles.remove(name) == null) {
+            in.deleteFile(name);
+        }
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        final FileInfo file = snapshotFiles.get(name);
+        return file == null ? in.fileLength(name) : file.length();
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        snapshotFiles.remove(name);
+        return in.createOutput(name, context);
+    }
+
+    @Override
+    public void sync(Collection<String> names) throws IOException {
+        // snapshot files are durable in the repository already
+        in.sync(names.stream().filter(name -> snapshotFiles.containsKey(name) == false).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void rename(String source, String dest) throws IOException {
+        if (snapshotFiles.containsKey(source)) {
+            throw new IOException("snapshot file [" + source + "] can't be renamed");
+        }
+        snapshotFiles.remove(dest);
+        in.rename(source, dest);
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        final FileInfo file = snapshotFiles.get(name);
+        if (file == null) {
+            return in.openInput(name, context);
+        }
+        return new SnapshotIndexInput("SnapshotIndexInput(" + name + ")", file, cache, 0, file.length());
+    }
+
+    /**
+     * Reads all blocks of the snapshot files that have one of the given extensions into the cache so that the first
+     * searches don't have to wait for them to be fetched from the repository.
+     */
+    void prefetch(Set<String> extensions) throws IOException {
+        for (FileInfo file : snapshotFiles.values()) {
+            if (extensions.contains(IndexFileNames.getExtension(file.physicalName())) == false) {
+                continue;
+            }
+            for (long position = 0; position < file.length(); position += cache.blockSize()) {
+                if (closed) {
+                    return;
+                }
+                cache.prefetch(file, (int) (position / cache.blockSize()));
+            }
+        }
+    }
+
+    SnapshotBlockCache cache() {
+        return cache;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        IOUtils.close(in, cache);
+    }
+
+    @Override
+    public String toString() {
+        return "snapshot(" + in + ")";
+    }
+
+    /**
+     * Reads a snapshot file, or a slice of it, through positional reads of the cached blocks. Bytes are buffered like any
+     * {@link BufferedIndexInput} so that a block switch does not copy the whole block.
+     */
+    static final class SnapshotIndexInput extends BufferedIndexInput {
+
+        private final FileInfo file;
+        private final SnapshotBlockCache cache;
+        private final long offset;
+        private final long length;
+
+        SnapshotIndexInput(String resourceDescription, FileInfo file, SnapshotBlockCache cache, long offset, long length) {
+            super(resourceDescription);
+            this.file = file;
+            this.cache = cache;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void readInternal(byte[] b, int off, int len) throws IOException {
+            final long position = getFilePointer();
+            if (position + len > length) {
+                throw new EOFException("read past EOF: pos=" + position + " len=" + len + " vs length=" + length + ": " + this);
+            }
+            long filePosition = offset + position;
+            while (len > 0) {
+                // a read may span several blocks, each cached read stops at the end of its block
+                final int read = cache.read(file, filePosition, b, off, len);
+                filePosition += read;
+                off += read;
+                len -= read;
+            }
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            if (pos > length) {
+                throw new EOFException("seek past EOF: pos=" + pos + " vs length=" + length + ": " + this);
+            }
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long offset, long length) throws IOException {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IllegalArgumentException("slice() " + sliceDescription + " out of bounds: offset=" + offset
+                    + ",length=" + length + ",fileLength=" + this.length + ": " + this);
+            }
+            return new SnapshotIndexInput(getFullSliceDescription(sliceDescription), file, cache, this.offset + offset, length);
+        }
+
+        @Override
+        public void close() {
+            // blocks are held by the cache, clones and slices have nothing to release
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.repositories.RepositoriesService;
+import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * The store of an index that is mounted from a snapshot. Its shards search the files of the snapshot in place instead of
+ * copying them to local disk first, see {@link SearchableSnapshotDirectory}. An index gets this store when a snapshot is
+ * restored with {@code index.store.type} set to {@value #TYPE}, the restore fills in the settings that identify the snapshot.
+ */
+public class SearchableSnapshotIndexStore extends IndexStore {
+
+    public static final String TYPE = "snapshot";
+
+    public static final Setting<String> INDEX_STORE_SNAPSHOT_REPOSITORY_SETTING =
+        Setting.simpleString("index.store.snapshot.repository", Property.IndexScope, Property.Final);
+    public static final Setting<String> INDEX_STORE_SNAPSHOT_SNAPSHOT_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_name", Property.IndexScope, Property.Final);
+    public static final Setting<String> INDEX_STORE_SNAPSHOT_SNAPSHOT_UUID_SETTING =
+        Setting.simpleString("index.store.snapshot.snapshot_uuid", Property.IndexScope, Property.Final);
+    public static final Setting<String> INDEX_STORE_SNAPSHOT_INDEX_NAME_SETTING =
+        Setting.simpleString("index.store.snapshot.index_name", Property.IndexScope, Property.Final);
+    public static final Setting<String> INDEX_STORE_SNAPSHOT_INDEX_UUID_SETTING =
+        Setting.simpleString("index.store.snapshot.index_uuid", Property.IndexScope, Property.Final);
+
+    /** How much local disk each shard may use to cache the blocks it read from the repository. */
+    public static final Setting<ByteSizeValue> INDEX_STORE_SNAPSHOT_CACHE_SIZE_SETTING =
+        Setting.byteSizeSetting("index.store.snapshot.cache.size", new ByteSizeValue(1, ByteSizeUnit.GB), Property.IndexScope);
+    /** The unit in which files are read from the repository and cached. */
+    public static final Setting<ByteSizeValue> INDEX_STORE_SNAPSHOT_CACHE_BLOCK_SIZE_SETTING =
+        Setting.byteSizeSetting("index.store.snapshot.cache.block_size", new ByteSizeValue(128, ByteSizeUnit.KB),
+            new ByteSizeValue(4, ByteSizeUnit.KB), new ByteSizeValue(16, ByteSizeUnit.MB), Property.IndexScope);
+    /** The extensions of the files to read into the cache as soon as a shard is opened, the terms and points indices by default. */
+    public static final Setting<List<String>> INDEX_STORE_SNAPSHOT_CACHE_PREFETCH_SETTING =
+        Setting.listSetting("index.store.snapshot.cache.prefetch", Arrays.asList("tip", "dii"), Function.identity(),
+            Property.IndexScope);
+
+    private final java.util.function.Supplier<RepositoriesService> repositoriesService;
+    private final ThreadPool threadPool;
+
+    public SearchableSnapshotIndexStore(IndexSettings indexSettings, java.util.function.Supplier<RepositoriesService> repositoriesService,
+                                        ThreadPool threadPool) {
+        super(indexSettings);
+        this.repositoriesService = repositoriesService;
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Returns whether an index with the given settings is mounted from a snapshot.
+     */
+    public static boolean isSearchableSnapshotStore(Settings indexSettings) {
+        return TYPE.equals(IndexModule.INDEX_STORE_TYPE_SETTING.get(indexSettings));
+    }
+
+    @Override
+    public DirectoryService newDirectoryService(ShardPath path) {
+        return new DirectoryService(path.getShardId(), indexSettings) {
+            @Override
+            public Directory newDirectory() throws IOException {
+                return SearchableSnapshotIndexStore.this.newDirectory(path);
+            }
+        };
+    }
+
+    private Directory newDirectory(ShardPath path) throws IOException {
+        final String repositoryName = indexSettings.getValue(INDEX_STORE_SNAPSHOT_REPOSITORY_SETTING);
+        final Repository repository = repositoriesService.get().repository(repositoryName);
+        if (repository instanceof BlobStoreRepository == false) {
+            throw new IllegalArgumentException("repository [" + repositoryName + "] is not a blob store repository, "
+                + "its snapshots can't be searched");
+        }
+        final BlobStoreRepository blobStoreRepository = (BlobStoreRepository) repository;
+        final IndexId indexId = new IndexId(indexSettings.getValue(INDEX_STORE_SNAPSHOT_INDEX_NAME_SETTING),
+            indexSettings.getValue(INDEX_STORE_SNAPSHOT_INDEX_UUID_SETTING));
+        final SnapshotId snapshotId = new SnapshotId(indexSettings.getValue(INDEX_STORE_SNAPSHOT_SNAPSHOT_NAME_SETTING),
+            indexSettings.getValue(INDEX_STORE_SNAPSHOT_SNAPSHOT_UUID_SETTING));
+        final BlobContainer shardContainer = blobStoreRepository.shardContainer(indexId, path.getShardId().id());
+        final BlobStoreIndexShardSnapshot snapshot = blobStoreRepository.loadShardSnapshot(shardContainer, snapshotId);
+
+        final Path location = path.resolveIndex();
+        Files.createDirectories(location);
+        final Directory localDirectory = FSDirectory.open(location, indexSettings.getValue(FsDirectoryService.INDEX_LOCK_FACTOR_SETTING));
+        SnapshotBlockCache cache = null;
+        SearchableSnapshotDirectory directory = null;
+        boolean success = false;
+        try {
+            cache = new SnapshotBlockCache(shardContainer, path.getDataPath().resolve("snapshot_cache"),
+                Math.toIntExact(indexSettings.getValue(INDEX_STORE_SNAPSHOT_CACHE_BLOCK_SIZE_SETTING).getBytes()),
+                indexSettings.getValue(INDEX_STORE_SNAPSHOT_CACHE_SIZE_SETTING).getBytes());
+            directory = new SearchableSnapshotDirectory(localDirectory, snapshot.indexFiles(), cache);
+            directory.copySegmentInfosToLocalDirectory();
+            success = true;
+        } finally {
+            if (success == false) {
+                IOUtils.closeWhileHandlingException(localDirectory, cache);
+            }
+        }
+        final SearchableSnapshotDirectory snapshotDirectory = directory;
+
+        final Set<String> prefetchExtensions = new HashSet<>(indexSettings.getValue(INDEX_STORE_SNAPSHOT_CACHE_PREFETCH_SETTING));
+        if (prefetchExtensions.isEmpty() == false) {
+            threadPool.generic().execute(new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    logger.debug((Supplier<?>) () -> new ParameterizedMessage("{} failed to prefetch snapshot files",
+                        path.getShardId()), e);
+                }
+
+                @Override
+                protected void doRun() throws Exception {
+                    snapshotDirectory.prefetch(prefetchExtensions);
+                }
+            });
+        }
+        return snapshotDirectory;
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A shard level cache of the blocks of snapshot files that a {@link SearchableSnapshotDirectory} read from the repository.
+ * Files are split into blocks of a fixed size, every block that is read is fetched from the repository once and kept in a
+ * slot of a single cache file on local disk that stays open for positional reads. The least recently used blocks are evicted
+ * once the cache holds more than its maximum size, their slot is reused once no read uses it anymore.
+ */
+final class SnapshotBlockCache implements Closeable {
+
+    static final String CACHE_FILE_NAME = "blocks.cache";
+
+    private final BlobContainer blobContainer;
+    private final Path location;
+    private final int blockSize;
+    private final long maxSizeInBytes;
+    private final FileChannel channel;
+
+    // only one thread fetches a given block, the others wait for it to be cached
+    private final KeyedLock<String> blockLocks = new KeyedLock<>();
+    // every cached block, from the least to the most recently used one
+    private final LinkedHashMap<String, CachedBlock> blocks = new LinkedHashMap<>(16, 0.75f, true);
+    // the slots of evicted blocks that no read uses anymore, and the number of slots of the cache file
+    private final ArrayDeque<Long> freeSlots = new ArrayDeque<>();
+    private long numSlots;
+    private long sizeInBytes;
+
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+    private final CounterMetric evictionCount = new CounterMetric();
+
+    SnapshotBlockCache(BlobContainer blobContainer, Path location, int blockSize, long maxSizeInBytes) throws IOException {
+        this.blobContainer = blobContainer;
+        this.location = location;
+        this.blockSize = blockSize;
+        this.maxSizeInBytes = maxSizeInBytes;
+        // blocks left over from a previous run may belong to another snapshot, start from an empty cache
+        IOUtils.rm(location);
+        Files.createDirectories(location);
+        this.channel = FileChannel.open(location.resolve(CACHE_FILE_NAME),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Reads bytes of the given file, starting at the given position, into the given array and returns how many bytes were read.
+     * Fetches the block that contains the position from the repository if it isn't cached. Reads up to {@code length} bytes but
+     * never past the end of that block.
+     */
+    int read(FileInfo file, long position, byte[] bytes, int offset, int length) throws IOException {
+        final int blockIndex = (int) (position / blockSize);
+        final CachedBlock block = acquireBlock(file, blockIndex);
+        try {
+            final int positionInBlock = (int) (position - (long) blockIndex * blockSize);
+            final int toRead = Math.min(length, block.length - positionInBlock);
+            final ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, toRead);
+            final long slotStart = block.slot * blockSize;
+            // positional reads don't move the position of the channel, concurrent reads of the cache file don't interfere
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, slotStart + positionInBlock + buffer.position() - offset) < 0) {
+                    throw new EOFException("unexpected end of cached block [" + block.slot + "] of [" + file.physicalName() + "]");
+                }
+            }
+            return toRead;
+        } finally {
+            block.decRef();
+        }
+    }
+
+    /**
+     * Fetches the given block of the given file from the repository if it isn't cached yet.
+     */
+    void prefetch(FileInfo file, int block) throws IOException {
+        acquireBlock(file, block).decRef();
+    }
+
+    /**
+     * Returns the given block of the given file with a reference that must be released once it has been read.
+     */
+    private CachedBlock acquireBlock(FileInfo file, int block) throws IOException {
+        // blob names are unique within the container of a shard
+        final String blockName = file.name() + "." + block;
+        CachedBlock cached = tryAcquire(blockName);
+        if (cached == null) {
+            try (Releasable ignored = blockLocks.acquire(blockName)) {
+                cached = tryAcquire(blockName);
+                if (cached == null) {
+                    missCount.inc();
+                    final byte[] bytes = fetchBlock(file, block);
+                    final long slot = reserveSlot(bytes.length);
+                    boolean success = false;
+                    try {
+                        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer, slot * blockSize + buffer.position());
+                        }
+                        cached = new CachedBlock(slot, bytes.length);
+                        // one reference for the cache and one for the caller
+                        cached.incRef();
+                        add(blockName, cached);
+                        success = true;
+                    } finally {
+                        if (success == false) {
+                            releaseSlot(slot, bytes.length);
+                        }
+                    }
+                    return cached;
+                }
+            }
+        }
+        hitCount.inc();
+        return cached;
+    }
+
+    private byte[] fetchBlock(FileInfo file, int block) throws IOException {
+        final long start = (long) block * blockSize;
+        if (start >= file.length()) {
+            throw new EOFException("block [" + block + "] is past the end of [" + file.physicalName() + "]");
+        }
+        final byte[] bytes = new byte[(int) Math.min(blockSize, file.length() - start)];
+        final long partBytes = file.partSize() == null ? Long.MAX_VALUE : file.partSize().getBytes();
+        int read = 0;
+        // a block may span two parts of a file that was split when it was snapshotted
+        while (read < bytes.length) {
+            final long position = start + read;
+            final long part = position / partBytes;
+            final long positionInPart = position % partBytes;
+            final int length = (int) Math.min(bytes.length - read, partBytes - positionInPart);
+            final String partName = file.partName(part);
+            try (InputStream stream = blobContainer.readBlob(partName, positionInPart, length)) {
+                if (Streams.readFully(stream, bytes, read, length) != length) {
+                    throw new EOFException("unexpected end of blob [" + partName + "] while reading [" + file.physicalName() + "]");
+                }
+            }
+            read += length;
+        }
+        return bytes;
+    }
+
+    private synchronized CachedBlock tryAcquire(String blockName) {
+        final CachedBlock block = blocks.get(blockName);
+        return block != null && block.tryIncRef() ? block : null;
+    }
+
+    /**
+     * Evicts the least recently used blocks to make room for a block of the given length and returns the slot to write it to.
+     */
+    private synchronized long reserveSlot(int length) {
+        sizeInBytes += length;
+        final Iterator<CachedBlock> iterator = blocks.values().iterator();
+        while (sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+            final CachedBlock eldest = iterator.next();
+            iterator.remove();
+            sizeInBytes -= eldest.length;
+            evictionCount.inc();
+            // the slot is only reused once the reads of the evicted block are done
+            eldest.decRef();
+        }
+        final Long slot = freeSlots.poll();
+        // the file only grows past the maximum size while evicted blocks are still being read
+        return slot == null ? numSlots++ : slot;
+    }
+
+    private synchronized void releaseSlot(long slot, int length) {
+        sizeInBytes -= length;
+        freeSlots.add(slot);
+    }
+
+    private synchronized void add(String blockName, CachedBlock block) {
+        final CachedBlock previous = blocks.put(blockName, block);
+        assert previous == null : "block [" + blockName + "] was cached twice";
+    }
+
+    synchronized long sizeInBytes() {
+        return sizeInBytes;
+    }
+
+    long hitCount() {
+        return hitCount.count();
+    }
+
+    long missCount() {
+        return missCount.count();
+    }
+
+    long evictionCount() {
+        return evictionCount.count();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (CachedBlock block : blocks.values()) {
+            block.decRef();
+        }
+        blocks.clear();
+        sizeInBytes = 0;
+        try {
+            channel.close();
+        } finally {
+            IOUtils.rm(location);
+        }
+    }
+
+    /**
+     * A block in its slot of the cache file. The slot is freed once the block is evicted and no read uses it anymore.
+     */
+    private final class CachedBlock extends AbstractRefCounted {
+
+        private final long slot;
+        private final int length;
+
+        CachedBlock(long slot, int length) {
+            super("snapshot block [" + slot + "]");
+            this.slot = slot;
+            this.length = length;
+        }
+
+        @Override
+        protected void closeInternal() {
+            synchronized (SnapshotBlockCache.this) {
+                freeSlots.add(slot);
+            }
+        }
+    }
+}
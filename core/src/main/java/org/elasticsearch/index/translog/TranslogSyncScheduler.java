@@ -0,0 +1,214 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces the translog syncs of all shards of a node that live on the same data path into group commit rounds. Every data
+ * path has a single {@link AsyncIOProcessor}: the first indexing thread that asks for a sync runs a round that syncs every
+ * shard that has pending requests exactly once, up to its highest requested location, while the requests that arrive in the
+ * meantime are queued for the next round. The fsyncs of a round are issued concurrently, by the thread that runs the round
+ * and threads of the generic thread pool, so that the file system can commit them together and the device can serve them in
+ * parallel rather than one after the other. Compared to shards syncing their translog independently, a node with many
+ * active shards issues far fewer fsyncs and far fewer indexing threads are blocked on them.
+ * <p>
+ * Group commit is disabled by default, in which case every shard keeps syncing its translog on its own.
+ */
+public class TranslogSyncScheduler extends AbstractComponent {
+
+    public static final Setting<Boolean> GROUP_COMMIT_ENABLED_SETTING =
+        Setting.boolSetting("indices.translog.group_commit.enabled", false, Property.NodeScope);
+
+    public static final Setting<Integer> GROUP_COMMIT_QUEUE_SIZE_SETTING =
+        Setting.intSetting("indices.translog.group_commit.queue_size", 1024, 1, Property.NodeScope);
+
+    public static final Setting<Integer> GROUP_COMMIT_MAX_CONCURRENT_SYNCS_SETTING =
+        Setting.intSetting("indices.translog.group_commit.max_concurrent_syncs", 8, 1, Property.NodeScope);
+
+    // latencies are recorded in microseconds, values are tracked with 3 significant digits
+    private static final int SIGNIFICANT_VALUE_DIGITS = 3;
+
+    private final boolean enabled;
+    private final int queueSize;
+    private final int maxConcurrentSyncs;
+    private final ThreadPool threadPool;
+    private final ConcurrentMap<Path, AsyncIOProcessor<SyncRequest>> processors = ConcurrentCollections.newConcurrentMap();
+    private final CounterMetric requests = new CounterMetric();
+    private final CounterMetric rounds = new CounterMetric();
+    private final CounterMetric syncs = new CounterMetric();
+    private final Histogram requestLatency = new ConcurrentHistogram(SIGNIFICANT_VALUE_DIGITS);
+    private final Histogram roundDuration = new ConcurrentHistogram(SIGNIFICANT_VALUE_DIGITS);
+
+    public TranslogSyncScheduler(Settings settings, ThreadPool threadPool) {
+        super(settings);
+        this.enabled = GROUP_COMMIT_ENABLED_SETTING.get(settings);
+        this.queueSize = GROUP_COMMIT_QUEUE_SIZE_SETTING.get(settings);
+        this.maxConcurrentSyncs = GROUP_COMMIT_MAX_CONCURRENT_SYNCS_SETTING.get(settings);
+        this.threadPool = threadPool;
+    }
+
+    /**
+     * Whether translog syncs are coalesced across shards. If not, shards should sync their translog on their own.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Schedules a sync of the translog of a shard up to the given location in the next group commit round of the data path of
+     * the shard. The calling thread may be used to run the round. The listener is called with {@code null} once the location
+     * is synced or with the exception that the sync of this shard failed with, failures of other shards of the round do not
+     * affect it.
+     *
+     * @param dataPath the root data path of the shard, shards on the same data path are synced in the same rounds
+     * @param translogSync syncs the translog of the shard up to the given location, must be the same instance for all requests
+     *                     of a shard so that its requests are coalesced
+     */
+    public void sync(Path dataPath, CheckedConsumer<Translog.Location, IOException> translogSync, Translog.Location location,
+                     Consumer<Exception> listener) {
+        if (enabled == false) {
+            throw new IllegalStateException("translog group commit is disabled");
+        }
+        requests.inc();
+        final SyncRequest request = new SyncRequest(translogSync, location, System.nanoTime());
+        processors.computeIfAbsent(dataPath, p -> new GroupCommitProcessor()).put(request, e -> {
+            requestLatency.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - request.startNanos));
+            listener.accept(e == null ? request.failure : e);
+        });
+    }
+
+    public TranslogSyncStats stats() {
+        return new TranslogSyncStats(requests.count(), rounds.count(), syncs.count(), requestLatency.copy(), roundDuration.copy());
+    }
+
+    private static final class SyncRequest {
+        private final CheckedConsumer<Translog.Location, IOException> translogSync;
+        private final Translog.Location location;
+        private final long startNanos;
+        private Exception failure;
+
+        private SyncRequest(CheckedConsumer<Translog.Location, IOException> translogSync, Translog.Location location,
+                            long startNanos) {
+            this.translogSync = translogSync;
+            this.location = location;
+            this.startNanos = startNanos;
+        }
+    }
+
+    private final class GroupCommitProcessor extends AsyncIOProcessor<SyncRequest> {
+
+        private GroupCommitProcessor() {
+            super(TranslogSyncScheduler.this.logger, queueSize);
+        }
+
+        @Override
+        protected void write(List<Tuple<SyncRequest, Consumer<Exception>>> candidates) {
+            final long startNanos = System.nanoTime();
+            // syncing the translog up to the highest location of a shard implicitly syncs all lower locations
+            final Map<CheckedConsumer<Translog.Location, IOException>, Translog.Location> maxLocations = new IdentityHashMap<>();
+            for (Tuple<SyncRequest, Consumer<Exception>> candidate : candidates) {
+                final SyncRequest request = candidate.v1();
+                maxLocations.merge(request.translogSync, request.location, (l1, l2) -> l1.compareTo(l2) >= 0 ? l1 : l2);
+            }
+            final List<Map.Entry<CheckedConsumer<Translog.Location, IOException>, Translog.Location>> shardSyncs =
+                new ArrayList<>(maxLocations.entrySet());
+            final Map<CheckedConsumer<Translog.Location, IOException>, Exception> failures =
+                Collections.synchronizedMap(new IdentityHashMap<>());
+            // every thread of the round takes the next shard to sync until all are synced, so the round completes even if
+            // some threads could not be forked
+            final AtomicInteger nextSync = new AtomicInteger();
+            final Runnable syncShards = () -> {
+                int i;
+                while ((i = nextSync.getAndIncrement()) < shardSyncs.size()) {
+                    final Map.Entry<CheckedConsumer<Translog.Location, IOException>, Translog.Location> entry = shardSyncs.get(i);
+                    try {
+                        entry.getKey().accept(entry.getValue());
+                    } catch (Exception e) {
+                        logger.debug("failed to sync translog", e);
+                        failures.put(entry.getKey(), e);
+                    }
+                }
+            };
+            final int forkedThreads = Math.min(maxConcurrentSyncs, shardSyncs.size()) - 1;
+            final CountDownLatch forkedThreadsDone = new CountDownLatch(forkedThreads);
+            for (int i = 0; i < forkedThreads; i++) {
+                try {
+                    threadPool.generic().execute(() -> {
+                        try {
+                            syncShards.run();
+                        } finally {
+                            forkedThreadsDone.countDown();
+                        }
+                    });
+                } catch (EsRejectedExecutionException e) {
+                    forkedThreadsDone.countDown();
+                }
+            }
+            syncShards.run();
+            // requests must not be completed before their shard is synced, even if this thread is interrupted
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    forkedThreadsDone.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failures.isEmpty() == false) {
+                for (Tuple<SyncRequest, Consumer<Exception>> candidate : candidates) {
+                    candidate.v1().failure = failures.get(candidate.v1().translogSync);
+                }
+            }
+            rounds.inc();
+            syncs.inc(maxLocations.size());
+            roundDuration.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.HdrHistogram.Histogram;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+
+/**
+ * Statistics about the translog group commit rounds of a node, see {@link TranslogSyncScheduler}. Latencies are kept as
+ * histograms in microseconds and rendered as percentiles.
+ */
+public class TranslogSyncStats implements Writeable, ToXContentFragment {
+
+    private static final double[] PERCENTILES = new double[] {50, 90, 99, 99.9};
+
+    private final long requests;
+    private final long rounds;
+    private final long syncs;
+    private final Histogram requestLatency;
+    private final Histogram roundDuration;
+
+    public TranslogSyncStats(long requests, long rounds, long syncs, Histogram requestLatency, Histogram roundDuration) {
+        this.requests = requests;
+        this.rounds = rounds;
+        this.syncs = syncs;
+        this.requestLatency = requestLatency;
+        this.roundDuration = roundDuration;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        requests = in.readVLong();
+        rounds = in.readVLong();
+        syncs = in.readVLong();
+        requestLatency = readHistogram(in);
+        roundDuration = readHistogram(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(requests);
+        out.writeVLong(rounds);
+        out.writeVLong(syncs);
+        writeHistogram(requestLatency, out);
+        writeHistogram(roundDuration, out);
+    }
+
+    private static Histogram readHistogram(StreamInput in) throws IOException {
+        final byte[] bytes = in.readByteArray();
+        try {
+            return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(bytes), 0);
+        } catch (DataFormatException e) {
+            throw new IOException("failed to decode histogram", e);
+        }
+    }
+
+    private static void writeHistogram(Histogram histogram, StreamOutput out) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        final int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        out.writeVInt(length);
+        out.writeBytes(buffer.array(), 0, length);
+    }
+
+    /**
+     * The number of translog sync requests that went through group commit.
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * The number of group commit rounds.
+     */
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * The number of translog syncs that group commit rounds performed, at most one per shard and round.
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * The time between a sync request and its completion, in microseconds.
+     */
+    public Histogram getRequestLatency() {
+        return requestLatency;
+    }
+
+    /**
+     * The duration of group commit rounds, in microseconds.
+     */
+    public Histogram getRoundDuration() {
+        return roundDuration;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.TRANSLOG_GROUP_COMMIT);
+        builder.field(Fields.REQUESTS, requests);
+        builder.field(Fields.ROUNDS, rounds);
+        builder.field(Fields.SYNCS, syncs);
+        percentiles(builder, Fields.REQUEST_LATENCY_IN_MICROS, requestLatency);
+        percentiles(builder, Fields.ROUND_DURATION_IN_MICROS, roundDuration);
+        builder.endObject();
+        return builder;
+    }
+
+    private static void percentiles(XContentBuilder builder, String name, Histogram histogram) throws IOException {
+        builder.startObject(name);
+        for (double percentile : PERCENTILES) {
+            builder.field(String.valueOf(percentile), histogram.getValueAtPercentile(percentile));
+        }
+        builder.field(Fields.MAX, histogram.getMaxValue());
+        builder.endObject();
+    }
+
+    static final class Fields {
+        static final String TRANSLOG_GROUP_COMMIT = "translog_group_commit";
+        static final String REQUESTS = "requests";
+        static final String ROUNDS = "rounds";
+        static final String SYNCS = "syncs";
+        static final String REQUEST_LATENCY_IN_MICROS = "request_latency_in_micros";
+        static final String ROUND_DURATION_IN_MICROS = "round_duration_in_micros";
+        static final String MAX = "max";
+    }
+}
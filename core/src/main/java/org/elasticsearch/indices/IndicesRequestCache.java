@@ -70,6 +70,13 @@ public final class IndicesRequestCache extends AbstractComponent implements Remo
      */
     public static final Setting<Boolean> INDEX_CACHE_REQUEST_ENABLED_SETTING =
         Setting.boolSetting("index.requests.cache.enable", true, Property.Dynamic, Property.IndexScope);
+    /**
+     * The maximum number of hits ({@code from + size}) a search request may ask for and still be cached when it
+     * doesn't explicitly enable or disable the request cache. The default of {@code 0} only caches requests that
+     * don't return hits.
+     */
+    public static final Setting<Integer> INDEX_CACHE_REQUEST_MAX_HITS_SETTING =
+        Setting.intSetting("index.requests.cache.max_hits", 0, 0, Property.Dynamic, Property.IndexScope);
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE =
         Setting.memorySizeSetting("indices.requests.cache.size", "1%", Property.NodeScope);
     public static final Setting<TimeValue> INDICES_CACHE_QUERY_EXPIRE =
@@ -76,6 +76,7 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexNotFoundException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
@@ -95,6 +96,9 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
+import org.elasticsearch.index.translog.TranslogSyncStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -165,10 +169,14 @@ public class IndicesService extends AbstractLifecycleComponent
     private final MapperRegistry mapperRegistry;
     private final NamedWriteableRegistry namedWriteableRegistry;
     private final IndexingMemoryController indexingMemoryController;
+    private final IndexingPressure indexingPressure;
     private final TimeValue cleanInterval;
     private final IndicesRequestCache indicesRequestCache;
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
+    private final TranslogSyncScheduler translogSyncScheduler;
+    // the repositories are created by injection after this service, see #setRepositoriesService
+    private volatile RepositoriesService repositoriesService;
 
     @Override
     protected void doStart() {
@@ -191,11 +199,13 @@ public class IndicesService extends AbstractLifecycleComponent
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.indicesRequestCache = new IndicesRequestCache(settings);
         this.indicesQueryCache = new IndicesQueryCache(settings);
+        this.translogSyncScheduler = new TranslogSyncScheduler(settings, threadPool);
         this.mapperRegistry = mapperRegistry;
         this.namedWriteableRegistry = namedWriteableRegistry;
         indexingMemoryController = new IndexingMemoryController(settings, threadPool,
                                                                 // ensure we pull an iter with new shards - flatten makes a copy
                                                                 () -> Iterables.flatten(this).iterator());
+        this.indexingPressure = new IndexingPressure(settings);
         this.indexScopeSetting = indexScopedSettings;
         this.circuitBreakerService = circuitBreakerService;
         this.bigArrays = bigArrays;
@@ -213,6 +223,13 @@ public class IndicesService extends AbstractLifecycleComponent
         this.metaStateService = metaStateService;
     }
 
+    /**
+     * Sets the repositories that the shards of indices mounted from a snapshot read their files from.
+     */
+    public void setRepositoriesService(RepositoriesService repositoriesService) {
+        this.repositoriesService = repositoriesService;
+    }
+
     @Override
     protected void doStop() {
         ExecutorService indicesStopExecutor = Executors.newFixedThreadPool(5, EsExecutors.daemonThreadFactory("indices_shutdown"));
@@ -286,7 +303,9 @@ public class IndicesService extends AbstractLifecycleComponent
             }
         }
 
-        return new NodeIndicesStats(oldStats, statsByShard(this, flags));
+        final TranslogSyncStats translogSyncStats =
+            translogSyncScheduler.isEnabled() && flags.isSet(Flag.Translog) ? translogSyncScheduler.stats() : null;
+        return new NodeIndicesStats(oldStats, statsByShard(this, flags), translogSyncStats);
     }
 
     Map<Index, List<IndexShardStats>> statsByShard(final IndicesService indicesService, final CommonStatsFlags flags) {
@@ -441,6 +460,8 @@ public class IndicesService extends AbstractLifecycleComponent
         for (IndexingOperationListener operationListener : indexingOperationListeners) {
             indexModule.addIndexOperationListener(operationListener);
         }
+        indexModule.addIndexStore(SearchableSnapshotIndexStore.TYPE,
+            indexSettings -> new SearchableSnapshotIndexStore(indexSettings, () -> repositoriesService, threadPool));
         pluginsService.onIndexModule(indexModule);
         for (IndexEventListener listener : builtInListeners) {
             indexModule.addIndexEventListener(listener);
@@ -457,7 +478,8 @@ public class IndicesService extends AbstractLifecycleComponent
                 indicesQueryCache,
                 mapperRegistry,
                 indicesFieldDataCache,
-                namedWriteableRegistry
+                namedWriteableRegistry,
+                translogSyncScheduler
         );
     }
 
@@ -1085,14 +1107,25 @@ public class IndicesService extends AbstractLifecycleComponent
         if (request.requestCache() == null) {
             if (settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING) == false) {
                 return false;
-            } else if (context.size() != 0) {
+            } else if (context.size() != 0
+                    && context.from() + context.size() > settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_MAX_HITS_SETTING)) {
                 // If no request cache query parameter and shard request cache
-                // is enabled in settings don't cache for requests with size > 0
+                // is enabled in settings only cache requests with size > 0 if
+                // they don't ask for more hits than the configured maximum
                 return false;
             }
         } else if (request.requestCache() == false) {
             return false;
         }
+        // scroll requests keep track of the last emitted doc in the scroll context while executing
+        // the query phase, which a cached result would not do
+        if (context.scrollContext() != null) {
+            return false;
+        }
+        // profiled timings are specific to one execution of the query
+        if (context.getProfilers() != null) {
+            return false;
+        }
         // if the reader is not a directory reader, we can't get the version from it
         if ((context.searcher().getIndexReader() instanceof DirectoryReader) == false) {
             return false;
@@ -1151,6 +1184,13 @@ public class IndicesService extends AbstractLifecycleComponent
         return indexingMemoryController.indexingBufferSize();
     }
 
+    /**
+     * Returns the node-wide accounting of the bytes of indexing operations in flight.
+     */
+    public IndexingPressure getIndexingPressure() {
+        return indexingPressure;
+    }
+
     /**
      * Cache something calculated at the shard level.
      * @param shard the shard this item is part of
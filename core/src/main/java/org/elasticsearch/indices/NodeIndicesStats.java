@@ -22,6 +22,7 @@ package org.elasticsearch.indices;
 import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.IndexShardStats;
 import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -43,6 +44,7 @@ import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexingStats;
 import org.elasticsearch.index.store.StoreStats;
+import org.elasticsearch.index.translog.TranslogSyncStats;
 import org.elasticsearch.search.suggest.completion.CompletionStats;
 
 import java.io.IOException;
@@ -58,13 +60,21 @@ public class NodeIndicesStats implements Streamable, ToXContentFragment {
 
     private CommonStats stats;
     private Map<Index, List<IndexShardStats>> statsByShard;
+    @Nullable
+    private TranslogSyncStats translogSync;
 
     NodeIndicesStats() {
     }
 
     public NodeIndicesStats(CommonStats oldStats, Map<Index, List<IndexShardStats>> statsByShard) {
+        this(oldStats, statsByShard, null);
+    }
+
+    public NodeIndicesStats(CommonStats oldStats, Map<Index, List<IndexShardStats>> statsByShard,
+                            @Nullable TranslogSyncStats translogSync) {
         //this.stats = stats;
         this.statsByShard = statsByShard;
+        this.translogSync = translogSync;
 
         // make a total common stats from old ones and current ones
         this.stats = oldStats;
@@ -147,6 +157,14 @@ public class NodeIndicesStats implements Streamable, ToXContentFragment {
         return stats.getRecoveryStats();
     }
 
+    /**
+     * Translog group commit stats, only available if group commit is enabled on the node.
+     */
+    @Nullable
+    public TranslogSyncStats getTranslogSync() {
+        return translogSync;
+    }
+
     public static NodeIndicesStats readIndicesStats(StreamInput in) throws IOException {
         NodeIndicesStats stats = new NodeIndicesStats();
         stats.readFrom(in);
@@ -169,6 +187,9 @@ public class NodeIndicesStats implements Streamable, ToXContentFragment {
                 statsByShard.put(index, indexShardStats);
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            translogSync = in.readOptionalWriteable(TranslogSyncStats::new);
+        }
     }
 
     @Override
@@ -185,6 +206,9 @@ public class NodeIndicesStats implements Streamable, ToXContentFragment {
                 }
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            out.writeOptionalWriteable(translogSync);
+        }
     }
 
     @Override
@@ -199,6 +223,9 @@ public class NodeIndicesStats implements Streamable, ToXContentFragment {
         // "node" level
         builder.startObject(Fields.INDICES);
         stats.toXContent(builder, params);
+        if (translogSync != null) {
+            translogSync.toXContent(builder, params);
+        }
 
         if ("indices".equals(level)) {
             Map<Index, CommonStats> indexStats = createStatsByIndex();
@@ -70,6 +70,7 @@ import org.elasticsearch.indices.recovery.PeerRecoverySourceService;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
 import org.elasticsearch.indices.recovery.RecoveryFailedException;
 import org.elasticsearch.indices.recovery.RecoveryState;
+import org.elasticsearch.indices.recovery.SegmentReplicationService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.snapshots.SnapshotShardsService;
@@ -131,14 +132,16 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                                       RepositoriesService repositoriesService,
                                       SearchService searchService,
                                       SyncedFlushService syncedFlushService,
+                                      SegmentReplicationService segmentReplicationService,
                                       PeerRecoverySourceService peerRecoverySourceService,
                                       SnapshotShardsService snapshotShardsService,
                                       PrimaryReplicaSyncer primaryReplicaSyncer,
                                       GlobalCheckpointSyncAction globalCheckpointSyncAction) {
         this(settings, (AllocatedIndices<? extends Shard, ? extends AllocatedIndex<? extends Shard>>) indicesService,
                 clusterService, threadPool, recoveryTargetService, shardStateAction,
-                nodeMappingRefreshAction, repositoriesService, searchService, syncedFlushService, peerRecoverySourceService,
-                snapshotShardsService, primaryReplicaSyncer, globalCheckpointSyncAction::updateGlobalCheckpointForShard);
+                nodeMappingRefreshAction, repositoriesService, searchService, syncedFlushService, segmentReplicationService,
+                peerRecoverySourceService, snapshotShardsService, primaryReplicaSyncer,
+                globalCheckpointSyncAction::updateGlobalCheckpointForShard);
     }
 
     // for tests
@@ -152,6 +155,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                                RepositoriesService repositoriesService,
                                SearchService searchService,
                                SyncedFlushService syncedFlushService,
+                               SegmentReplicationService segmentReplicationService,
                                PeerRecoverySourceService peerRecoverySourceService,
                                SnapshotShardsService snapshotShardsService,
                                PrimaryReplicaSyncer primaryReplicaSyncer,
@@ -163,6 +167,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                         recoveryTargetService,
                         searchService,
                         syncedFlushService,
+                        segmentReplicationService,
                         snapshotShardsService);
         this.indicesService = indicesService;
         this.clusterService = clusterService;
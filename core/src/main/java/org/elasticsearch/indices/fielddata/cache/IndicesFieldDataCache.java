@@ -42,12 +42,16 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalMap;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.ShardUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.ToLongBiFunction;
 
 public class IndicesFieldDataCache extends AbstractComponent implements RemovalListener<IndicesFieldDataCache.Key, Accountable>, Releasable{
@@ -86,11 +90,23 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
     public void onRemoval(RemovalNotification<Key, Accountable> notification) {
         Key key = notification.getKey();
         assert key != null && key.listeners != null;
-        IndexFieldCache indexCache = key.indexCache;
         final Accountable value = notification.getValue();
+        final boolean evicted = notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED;
+        if (value instanceof GlobalOrdinalsIndexFieldData) {
+            final GlobalOrdinalsIndexFieldData globalOrdinals = (GlobalOrdinalsIndexFieldData) value;
+            globalOrdinals.close();
+            if (key.indexCache.retainGlobalOrdinalMap(key, globalOrdinals, evicted)) {
+                // the listeners are notified once the retained map is released
+                return;
+            }
+        }
+        notifyRemoval(key, evicted, value.ramBytesUsed());
+    }
+
+    private void notifyRemoval(Key key, boolean evicted, long sizeInBytes) {
         for (IndexFieldDataCache.Listener listener : key.listeners) {
             try {
-                listener.onRemoval(key.shardId, indexCache.fieldName, notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED, value.ramBytesUsed());
+                listener.onRemoval(key.shardId, key.indexCache.fieldName, evicted, sizeInBytes);
             } catch (Exception e) {
                 // load anyway since listeners should not throw exceptions
                 logger.error("Failed to call listener on field data cache unloading", e);
@@ -109,12 +125,15 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
     /**
      * A specific cache instance for the relevant parameters of it (index, fieldNames, fieldType).
      */
-    static class IndexFieldCache implements IndexFieldDataCache, IndexReader.ClosedListener {
+    class IndexFieldCache implements IndexFieldDataCache, IndexReader.ClosedListener {
         private final Logger logger;
         final Index index;
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the global ordinal maps that were last built for every shard. They outlive the readers they were built for so that
+        // the global ordinals of the next reader can reuse them, until they are replaced, evicted or their shard is closed.
+        private final Map<ShardId, LastGlobalOrdinalMap> lastGlobalOrdinalMaps = new HashMap<>(); // guarded by this
 
         IndexFieldCache(Logger logger,final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.logger = logger;
@@ -163,6 +182,9 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
                 final Accountable ifd = (Accountable) indexFieldData.localGlobalDirect(indexReader);
+                if (ifd instanceof GlobalOrdinalsIndexFieldData && shardId != null) {
+                    putLastGlobalOrdinalMap(k, (GlobalOrdinalsIndexFieldData) ifd);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, ifd);
@@ -176,6 +198,53 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             return (IFD) accountable;
         }
 
+        @Override
+        public synchronized GlobalOrdinalMap getLastGlobalOrdinalMap(DirectoryReader indexReader) {
+            final ShardId shardId = ShardUtils.extractShardId(indexReader);
+            final LastGlobalOrdinalMap last = shardId == null ? null : lastGlobalOrdinalMaps.get(shardId);
+            return last == null ? null : last.map;
+        }
+
+        private synchronized void putLastGlobalOrdinalMap(Key key, GlobalOrdinalsIndexFieldData globalOrdinals) {
+            final LastGlobalOrdinalMap previous = lastGlobalOrdinalMaps.put(key.shardId, new LastGlobalOrdinalMap(key, globalOrdinals));
+            if (previous != null) {
+                previous.release();
+            }
+        }
+
+        /**
+         * Called when the given global ordinals are removed from the cache. Returns {@code true} if their map is retained for the
+         * next reader of the shard, in which case their memory stays accounted for until the map is released.
+         */
+        private synchronized boolean retainGlobalOrdinalMap(Key key, GlobalOrdinalsIndexFieldData globalOrdinals, boolean evicted) {
+            final LastGlobalOrdinalMap last = key.shardId == null ? null : lastGlobalOrdinalMaps.get(key.shardId);
+            if (last == null || last.map != globalOrdinals.getGlobalOrdinalMap()) {
+                return false;
+            }
+            if (evicted) {
+                // the cache is full, don't hold on to memory that it gave up
+                lastGlobalOrdinalMaps.remove(key.shardId);
+                return false;
+            }
+            last.retained = true;
+            return true;
+        }
+
+        @Override
+        public synchronized void clear(ShardId shardId) {
+            final LastGlobalOrdinalMap last = lastGlobalOrdinalMaps.remove(shardId);
+            if (last != null) {
+                last.release();
+            }
+        }
+
+        private synchronized void clearLastGlobalOrdinalMaps() {
+            for (LastGlobalOrdinalMap last : lastGlobalOrdinalMaps.values()) {
+                last.release();
+            }
+            lastGlobalOrdinalMaps.clear();
+        }
+
         @Override
         public void onClose(CacheKey key) throws IOException {
             cache.invalidate(new Key(this, key, null));
@@ -184,6 +253,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
         @Override
         public void clear() {
+            clearLastGlobalOrdinalMaps();
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     cache.invalidate(key);
@@ -195,6 +265,9 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
         @Override
         public void clear(String fieldName) {
+            if (this.fieldName.equals(fieldName)) {
+                clearLastGlobalOrdinalMaps();
+            }
             for (Key key : cache.keys()) {
                 if (key.indexCache.index.equals(index)) {
                     if (key.indexCache.fieldName.equals(fieldName)) {
@@ -209,6 +282,34 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         }
     }
 
+    /**
+     * The global ordinal map that was last built for a shard, along with the cache entry of the global ordinals that hold it.
+     */
+    private final class LastGlobalOrdinalMap {
+        private final Key key;
+        private final GlobalOrdinalMap map;
+        private final long sizeInBytes;
+        // whether the global ordinals were removed from the cache while the map was kept, guarded by the IndexFieldCache
+        private boolean retained;
+
+        LastGlobalOrdinalMap(Key key, GlobalOrdinalsIndexFieldData globalOrdinals) {
+            this.key = key;
+            this.map = globalOrdinals.getGlobalOrdinalMap();
+            this.sizeInBytes = globalOrdinals.ramBytesUsed();
+        }
+
+        /**
+         * Notifies the listeners of the removal of the global ordinals if it was deferred to retain their map, otherwise they are
+         * notified when the global ordinals are removed from the cache.
+         */
+        void release() {
+            if (retained) {
+                retained = false;
+                notifyRemoval(key, false, sizeInBytes);
+            }
+        }
+    }
+
     public static class Key {
         public final IndexFieldCache indexCache;
         public final IndexReader.CacheKey readerKey;
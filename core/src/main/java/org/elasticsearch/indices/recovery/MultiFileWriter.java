@@ -0,0 +1,252 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the files sent by a {@link RecoverySourceHandler} to temporary files in a store and renames them to their
+ * actual names once all of them have been received. Used by peer recoveries and by segment replication.
+ */
+final class MultiFileWriter implements Releasable {
+
+    private final Store store;
+    private final RecoveryState.Index indexState;
+    private final String tempFilePrefix;
+    private final Logger logger;
+
+    private final ConcurrentMap<String, IndexOutput> openIndexOutputs = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, FileChunkWriter> fileChunkWriters = ConcurrentCollections.newConcurrentMap();
+
+    final Map<String, String> tempFileNames = ConcurrentCollections.newConcurrentMap();
+
+    MultiFileWriter(Store store, RecoveryState.Index indexState, String tempFilePrefix, Logger logger) {
+        this.store = store;
+        this.indexState = indexState;
+        this.tempFilePrefix = tempFilePrefix;
+        this.logger = logger;
+    }
+
+    /** Get a temporary name for the provided file name. */
+    String getTempNameForFile(String origFile) {
+        return tempFilePrefix + origFile;
+    }
+
+    IndexOutput getOpenIndexOutput(String key) {
+        return openIndexOutputs.get(key);
+    }
+
+    /** remove and {@link IndexOutput} for a given file. It is the caller's responsibility to close it */
+    IndexOutput removeOpenIndexOutputs(String name) {
+        return openIndexOutputs.remove(name);
+    }
+
+    /**
+     * Creates an {@link IndexOutput} for the given file name. Note that the IndexOutput actually point at a temporary file.
+     * <p>
+     * Note: You can use {@link #getOpenIndexOutput(String)} with the same filename to retrieve the same IndexOutput
+     * at a later stage
+     */
+    IndexOutput openAndPutIndexOutput(String fileName, StoreFileMetaData metaData) throws IOException {
+        String tempFileName = getTempNameForFile(fileName);
+        if (tempFileNames.containsKey(tempFileName)) {
+            throw new IllegalStateException("output for file [" + fileName + "] has already been created");
+        }
+        // add first, before it's created
+        tempFileNames.put(tempFileName, fileName);
+        IndexOutput indexOutput = store.createVerifyingOutput(tempFileName, metaData, IOContext.DEFAULT);
+        openIndexOutputs.put(fileName, indexOutput);
+        return indexOutput;
+    }
+
+    /** renames all temporary files to their true name, potentially overriding existing files */
+    void renameAllTempFiles() throws IOException {
+        store.renameTempFilesSafe(tempFileNames);
+    }
+
+    /**
+     * Writes a chunk of a file. Chunks of the same file may arrive out of order, the listener is notified once the chunk has
+     * been written.
+     */
+    void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                        ActionListener<Void> listener) {
+        final FileChunkWriter writer = fileChunkWriters.computeIfAbsent(fileMetaData.name(), name -> new FileChunkWriter());
+        writer.write(new FileChunk(fileMetaData, position, content, lastChunk, listener));
+    }
+
+    private void innerWriteFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content,
+                                     boolean lastChunk) throws IOException {
+        final String name = fileMetaData.name();
+        IndexOutput indexOutput;
+        if (position == 0) {
+            indexOutput = openAndPutIndexOutput(name, fileMetaData);
+        } else {
+            indexOutput = getOpenIndexOutput(name);
+        }
+        BytesRefIterator iterator = content.iterator();
+        BytesRef scratch;
+        while((scratch = iterator.next()) != null) { // we iterate over all pages - this is a 0-copy for all core impls
+            indexOutput.writeBytes(scratch.bytes, scratch.offset, scratch.length);
+        }
+        indexState.addRecoveredBytesToFile(name, content.length());
+        if (indexOutput.getFilePointer() >= fileMetaData.length() || lastChunk) {
+            try {
+                Store.verify(indexOutput);
+            } finally {
+                // we are done
+                indexOutput.close();
+            }
+            final String temporaryFileName = getTempNameForFile(name);
+            assert Arrays.asList(store.directory().listAll()).contains(temporaryFileName) :
+                "expected: [" + temporaryFileName + "] in " + Arrays.toString(store.directory().listAll());
+            store.directory().sync(Collections.singleton(temporaryFileName));
+            IndexOutput remove = removeOpenIndexOutputs(name);
+            assert remove == null || remove == indexOutput; // remove maybe null if we got finished
+            fileChunkWriters.remove(name);
+        }
+    }
+
+    /**
+     * Fails the chunks that are still waiting to be written, closes the open outputs and deletes the temporary files.
+     */
+    @Override
+    public void close() {
+        // chunks that are waiting for a previous chunk of the same file will never be written
+        for (FileChunkWriter writer : fileChunkWriters.values()) {
+            writer.fail(new IllegalStateException("file writer was closed before the chunk was written"));
+        }
+        fileChunkWriters.clear();
+        // clean open index outputs
+        Iterator<Map.Entry<String, IndexOutput>> iterator = openIndexOutputs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, IndexOutput> entry = iterator.next();
+            logger.trace("closing IndexOutput file [{}]", entry.getValue());
+            try {
+                entry.getValue().close();
+            } catch (Exception e) {
+                logger.debug(
+                    (Supplier<?>) () -> new ParameterizedMessage("error while closing recovery output [{}]", entry.getValue()), e);
+            }
+            iterator.remove();
+        }
+        // trash temporary files
+        for (String file : tempFileNames.keySet()) {
+            logger.trace("cleaning temporary file [{}]", file);
+            store.deleteQuiet(file);
+        }
+    }
+
+    private static final class FileChunk {
+        final StoreFileMetaData md;
+        final long position;
+        final BytesReference content;
+        final boolean lastChunk;
+        final ActionListener<Void> listener;
+
+        FileChunk(StoreFileMetaData md, long position, BytesReference content, boolean lastChunk, ActionListener<Void> listener) {
+            this.md = md;
+            this.position = position;
+            this.content = content;
+            this.lastChunk = lastChunk;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Writes the chunks of a file in order. The source sends several chunks of a file without waiting for each of them to be
+     * acknowledged and they may be handled out of order, so chunks that arrive ahead of their position are held back until
+     * the chunks before them have been written. A chunk is only acknowledged once it has been written.
+     */
+    private final class FileChunkWriter {
+        private final PriorityQueue<FileChunk> pendingChunks = new PriorityQueue<>(Comparator.comparingLong(chunk -> chunk.position));
+        private long nextPosition = 0;
+        private Exception failure;
+
+        void write(FileChunk chunk) {
+            final List<FileChunk> written = new ArrayList<>();
+            final List<FileChunk> failed = new ArrayList<>();
+            final Exception failure;
+            synchronized (this) {
+                if (this.failure != null) {
+                    failed.add(chunk);
+                } else {
+                    pendingChunks.add(chunk);
+                    try {
+                        while (pendingChunks.isEmpty() == false && pendingChunks.peek().position == nextPosition) {
+                            final FileChunk next = pendingChunks.peek();
+                            innerWriteFileChunk(next.md, next.position, next.content, next.lastChunk);
+                            nextPosition += next.content.length();
+                            written.add(pendingChunks.poll());
+                        }
+                    } catch (Exception e) {
+                        // the file can not make progress anymore, fail the chunk that could not be written and the ones after it
+                        this.failure = e;
+                        failed.addAll(pendingChunks);
+                        pendingChunks.clear();
+                    }
+                }
+                failure = this.failure;
+            }
+            // notify outside of the lock, the listeners send the responses to the source
+            for (FileChunk writtenChunk : written) {
+                writtenChunk.listener.onResponse(null);
+            }
+            for (FileChunk failedChunk : failed) {
+                failedChunk.listener.onFailure(failure);
+            }
+        }
+
+        void fail(Exception e) {
+            final List<FileChunk> failed;
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+                failed = new ArrayList<>(pendingChunks);
+                pendingChunks.clear();
+            }
+            for (FileChunk failedChunk : failed) {
+                failedChunk.listener.onFailure(e);
+            }
+        }
+    }
+}
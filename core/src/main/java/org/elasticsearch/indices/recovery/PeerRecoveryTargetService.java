@@ -26,6 +26,7 @@ import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchTimeoutException;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateObserver;
@@ -577,11 +578,30 @@ public class PeerRecoveryTargetService extends AbstractComponent implements Inde
                     }
                 }
 
+                // the response is sent once the chunk is written, which may be after earlier chunks of the same file arrived
                 recoveryTarget.writeFileChunk(request.metadata(), request.position(), request.content(),
-                        request.lastChunk(), request.totalTranslogOps()
+                        request.lastChunk(), request.totalTranslogOps(), new ActionListener<Void>() {
+                        @Override
+                        public void onResponse(Void aVoid) {
+                            try {
+                                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+                            } catch (Exception e) {
+                                onFailure(e);
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            try {
+                                channel.sendResponse(e);
+                            } catch (Exception inner) {
+                                inner.addSuppressed(e);
+                                logger.warn("failed to send error response for file chunk request", inner);
+                            }
+                        }
+                    }
                 );
             }
-            channel.sendResponse(TransportResponse.Empty.INSTANCE);
         }
     }
 
@@ -21,8 +21,10 @@ package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.util.Version;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
@@ -30,7 +32,7 @@ import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
 
-public final class RecoveryFileChunkRequest extends TransportRequest {
+public final class RecoveryFileChunkRequest extends TransportRequest implements Releasable {
     private boolean lastChunk;
     private long recoveryId;
     private ShardId shardId;
@@ -101,13 +103,23 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         position = in.readVLong();
         long length = in.readVLong();
         String checksum = in.readString();
-        content = in.readBytesReference();
-        Version writtenBy = Lucene.parseVersionLenient(in.readString(), null);
-        assert writtenBy != null;
-        metaData = new StoreFileMetaData(name, length, checksum, writtenBy);
-        lastChunk = in.readBoolean();
-        totalTranslogOps = in.readVInt();
-        sourceThrottleTimeInNanos = in.readLong();
+        // the chunk is written to disk before the response is sent so there is no need to copy it out of the network buffer
+        final ReleasableBytesReference content = in.readReleasableBytesReference();
+        this.content = content;
+        boolean success = false;
+        try {
+            Version writtenBy = Lucene.parseVersionLenient(in.readString(), null);
+            assert writtenBy != null;
+            metaData = new StoreFileMetaData(name, length, checksum, writtenBy);
+            lastChunk = in.readBoolean();
+            totalTranslogOps = in.readVInt();
+            sourceThrottleTimeInNanos = in.readLong();
+            success = true;
+        } finally {
+            if (success == false) {
+                content.close();
+            }
+        }
     }
 
     @Override
@@ -126,6 +138,16 @@ public final class RecoveryFileChunkRequest extends TransportRequest {
         out.writeLong(sourceThrottleTimeInNanos);
     }
 
+    /**
+     * Releases the content if it was read without copying it out of the network buffer.
+     */
+    @Override
+    public void close() {
+        if (content instanceof Releasable) {
+            ((Releasable) content).close();
+        }
+    }
+
     @Override
     public String toString() {
         return shardId + ": name='" + name() + '\'' +
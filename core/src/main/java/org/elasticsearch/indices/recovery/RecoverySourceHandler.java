@@ -32,6 +32,7 @@ import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
@@ -42,6 +43,7 @@ import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.CancellableThreads;
@@ -64,9 +66,13 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.StreamSupport;
@@ -81,6 +87,11 @@ import java.util.stream.StreamSupport;
  * while the {@link RateLimiter} passed via {@link RecoverySettings} is shared across recoveries
  * originating from this nodes to throttle the number bytes send during file transfer. The transaction log
  * phase bypasses the rate limiter entirely.
+ *
+ * Files are sent as a pipeline: up to {@link RecoverySettings#INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING} chunks of
+ * a file are sent without waiting for the previous ones to be acknowledged, and the chunks of up to
+ * {@link RecoverySettings#INDICES_RECOVERY_MAX_CONCURRENT_FILES_SETTING} files are in flight at the same time, so that the
+ * file copy is bound by the bandwidth rather than by the latency between the nodes.
  */
 public class RecoverySourceHandler {
 
@@ -91,7 +102,13 @@ public class RecoverySourceHandler {
     // Request containing source and target node information
     private final StartRecoveryRequest request;
     private final int chunkSizeInBytes;
+    private final int maxConcurrentFileChunks;
+    private final int maxConcurrentFiles;
     private final RecoveryTargetHandler recoveryTarget;
+    // limits the number of files that have chunks in flight, a file holds on to its permit until all its chunks are acknowledged
+    private final Semaphore inFlightFiles;
+    // the first failure to write a chunk on the target and the file that the chunk belongs to
+    private final AtomicReference<Tuple<StoreFileMetaData, Exception>> fileChunkFailure = new AtomicReference<>();
 
     protected final RecoveryResponse response;
 
@@ -114,6 +131,8 @@ public class RecoverySourceHandler {
     public RecoverySourceHandler(final IndexShard shard, RecoveryTargetHandler recoveryTarget,
                                  final StartRecoveryRequest request,
                                  final int fileChunkSizeInBytes,
+                                 final int maxConcurrentFileChunks,
+                                 final int maxConcurrentFiles,
                                  final Settings nodeSettings) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
@@ -121,6 +140,15 @@ public class RecoverySourceHandler {
         this.shardId = this.request.shardId().id();
         this.logger = Loggers.getLogger(getClass(), nodeSettings, request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
+        if (request.targetNode().getVersion().onOrAfter(Version.V_7_0_0_alpha1)) {
+            this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+            this.maxConcurrentFiles = maxConcurrentFiles;
+        } else {
+            // older targets expect the chunks of a file in order and one file at a time
+            this.maxConcurrentFileChunks = 1;
+            this.maxConcurrentFiles = 1;
+        }
+        this.inFlightFiles = new Semaphore(this.maxConcurrentFiles);
         this.response = new RecoveryResponse();
     }
 
@@ -592,14 +620,24 @@ public class RecoverySourceHandler {
     }
 
 
+    /**
+     * Sends the bytes of a file as chunks to the target without waiting for each chunk to be acknowledged. The stream takes
+     * one of the {@link #inFlightFiles} permits when it is created and returns it once it is closed and all its chunks have
+     * been acknowledged.
+     */
     final class RecoveryOutputStream extends OutputStream {
         private final StoreFileMetaData md;
         private final Supplier<Integer> translogOps;
+        private final Semaphore inFlightChunks = new Semaphore(maxConcurrentFileChunks);
+        // one reference for the stream and one per chunk in flight
+        private final AtomicInteger refCount = new AtomicInteger(1);
         private long position = 0;
+        private boolean closed = false;
 
         RecoveryOutputStream(StoreFileMetaData md, Supplier<Integer> translogOps) {
             this.md = md;
             this.translogOps = translogOps;
+            cancellableThreads.execute(inFlightFiles::acquire);
         }
 
         @Override
@@ -615,14 +653,68 @@ public class RecoverySourceHandler {
         }
 
         private void sendNextChunk(long position, BytesArray content, boolean lastChunk) throws IOException {
-            // Actually send the file chunk to the target node, waiting for it to complete
-            cancellableThreads.executeIO(() ->
-                    recoveryTarget.writeFileChunk(md, position, content, lastChunk, translogOps.get())
-            );
+            ensureNoFileChunkFailure();
+            // wait for a chunk of this file to be acknowledged if too many are in flight
+            cancellableThreads.execute(inFlightChunks::acquire);
+            refCount.incrementAndGet();
+            boolean success = false;
+            try {
+                ensureNoFileChunkFailure();
+                // the buffer of the caller is reused for the next chunk while this one is still in flight
+                final BytesArray chunk = new BytesArray(Arrays.copyOfRange(content.array(), content.offset(),
+                    content.offset() + content.length()));
+                cancellableThreads.execute(() ->
+                    recoveryTarget.writeFileChunk(md, position, chunk, lastChunk, translogOps.get(), new ActionListener<Void>() {
+                        @Override
+                        public void onResponse(Void aVoid) {
+                            onChunkDone();
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            if (fileChunkFailure.compareAndSet(null, new Tuple<>(md, e)) == false) {
+                                fileChunkFailure.get().v2().addSuppressed(e);
+                            }
+                            onChunkDone();
+                        }
+                    })
+                );
+                success = true;
+            } finally {
+                if (success == false) {
+                    onChunkDone();
+                }
+            }
             if (shard.state() == IndexShardState.CLOSED) { // check if the shard got closed on us
                 throw new IndexShardClosedException(request.shardId());
             }
         }
+
+        private void onChunkDone() {
+            inFlightChunks.release();
+            decRef();
+        }
+
+        private void decRef() {
+            if (refCount.decrementAndGet() == 0) {
+                inFlightFiles.release();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed == false) {
+                closed = true;
+                decRef();
+            }
+        }
+    }
+
+    private void ensureNoFileChunkFailure() throws IOException {
+        final Tuple<StoreFileMetaData, Exception> failure = fileChunkFailure.get();
+        if (failure != null) {
+            throw new IOException("failed to send a chunk of file [" + failure.v1().name() + "]", failure.v2());
+        }
     }
 
     void sendFiles(Store store, StoreFileMetaData[] files, Function<StoreFileMetaData, OutputStream> outputStreamFactory) throws Exception {
@@ -636,35 +728,51 @@ public class RecoverySourceHandler {
                     // exceptions during close correctly and doesn't hide the original exception.
                     Streams.copy(new InputStreamIndexInput(indexInput, md.length()), outputStreamFactory.apply(md));
                 } catch (Exception e) {
-                    final IOException corruptIndexException;
-                    if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
-                        if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
-                            logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
-                            failEngine(corruptIndexException);
-                            throw corruptIndexException;
-                        } else { // corruption has happened on the way to replica
-                            RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
-                                    "checksums are ok", null);
-                            exception.addSuppressed(e);
-                            logger.warn(
-                                (org.apache.logging.log4j.util.Supplier<?>) () -> new ParameterizedMessage(
-                                    "{} Remote file corruption on node {}, recovering {}. local checksum OK",
-                                    shardId,
-                                    request.targetNode(),
-                                    md),
-                                corruptIndexException);
-                            throw exception;
-                        }
-                    } else {
-                        throw e;
-                    }
+                    handleErrorOnSendFiles(store, e, md);
                 }
             }
+            // wait for the chunks that are still in flight to be acknowledged
+            cancellableThreads.execute(() -> inFlightFiles.acquire(maxConcurrentFiles));
+            inFlightFiles.release(maxConcurrentFiles);
+            final Tuple<StoreFileMetaData, Exception> failure = fileChunkFailure.get();
+            if (failure != null) {
+                handleErrorOnSendFiles(store, failure.v2(), failure.v1());
+            }
         } finally {
             store.decRef();
         }
     }
 
+    private void handleErrorOnSendFiles(Store store, Exception e, StoreFileMetaData md) throws Exception {
+        final Tuple<StoreFileMetaData, Exception> failure = fileChunkFailure.get();
+        if (failure != null && failure.v2() != e) {
+            // the failure of a chunk that was in flight surfaced while sending another chunk, report it against its own file
+            handleErrorOnSendFiles(store, failure.v2(), failure.v1());
+        }
+        final IOException corruptIndexException;
+        if ((corruptIndexException = ExceptionsHelper.unwrapCorruption(e)) != null) {
+            if (store.checkIntegrityNoException(md) == false) { // we are corrupted on the primary -- fail!
+                logger.warn("{} Corrupted file detected {} checksum mismatch", shardId, md);
+                failEngine(corruptIndexException);
+                throw corruptIndexException;
+            } else { // corruption has happened on the way to replica
+                RemoteTransportException exception = new RemoteTransportException("File corruption occurred on recovery but " +
+                        "checksums are ok", null);
+                exception.addSuppressed(e);
+                logger.warn(
+                    (org.apache.logging.log4j.util.Supplier<?>) () -> new ParameterizedMessage(
+                        "{} Remote file corruption on node {}, recovering {}. local checksum OK",
+                        shardId,
+                        request.targetNode(),
+                        md),
+                    corruptIndexException);
+                throw exception;
+            }
+        } else {
+            throw e;
+        }
+    }
+
     protected void failEngine(IOException cause) {
         shard.failShard("recovery", cause);
     }
@@ -327,6 +327,8 @@ public class RecoveryState implements ToXContentFragment, Streamable {
         static final String VERIFY_INDEX = "verify_index";
         static final String RECOVERED = "recovered";
         static final String RECOVERED_IN_BYTES = "recovered_in_bytes";
+        static final String RECOVERED_PER_SEC = "recovered_per_sec";
+        static final String RECOVERED_PER_SEC_IN_BYTES = "recovered_per_sec_in_bytes";
         static final String CHECK_INDEX_TIME = "check_index_time";
         static final String CHECK_INDEX_TIME_IN_MILLIS = "check_index_time_in_millis";
         static final String LENGTH = "length";
@@ -806,6 +808,17 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             return recovered;
         }
 
+        /**
+         * the rate at which bytes have been recovered so far, in bytes per second of the index stage
+         */
+        public synchronized long recoveredBytesPerSecond() {
+            final long timeInMillis = time();
+            if (timeInMillis <= 0) {
+                return 0;
+            }
+            return recoveredBytes() * 1000 / timeInMillis;
+        }
+
         /**
          * total bytes of files to be recovered (potentially not yet done)
          */
@@ -908,6 +921,7 @@ public class RecoveryState implements ToXContentFragment, Streamable {
             builder.byteSizeField(Fields.REUSED_IN_BYTES, Fields.REUSED, reusedBytes());
             builder.byteSizeField(Fields.RECOVERED_IN_BYTES, Fields.RECOVERED, recoveredBytes());
             builder.field(Fields.PERCENT, String.format(Locale.ROOT, "%1.1f%%", recoveredBytesPercent()));
+            builder.byteSizeField(Fields.RECOVERED_PER_SEC_IN_BYTES, Fields.RECOVERED_PER_SEC, recoveredBytesPerSecond());
             builder.endObject();
 
             builder.startObject(Fields.FILES);
@@ -0,0 +1,371 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.apache.lucene.store.RateLimiter;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.ReplicationType;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.EmptyTransportResponseHandler;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies the segments of a primary to its replicas for indices that use {@link ReplicationType#SEGMENT} replication. Whenever a
+ * primary writes a new commit it notifies its started replicas, which then request the files of that commit they are missing. The
+ * files are sent with the file based phase of a peer recovery and installed on the replica once all of them have arrived. A replica
+ * runs one copy at a time; commits written while a copy is running are picked up by a single copy once it has finished.
+ */
+public class SegmentReplicationService extends AbstractComponent implements IndexEventListener {
+
+    public static class Actions {
+        public static final String NOTIFY = "internal:index/shard/segment_replication/notify";
+        public static final String START = "internal:index/shard/segment_replication/start";
+        public static final String FILES_INFO = "internal:index/shard/segment_replication/files_info";
+        public static final String FILE_CHUNK = "internal:index/shard/segment_replication/file_chunk";
+        public static final String CLEAN_FILES = "internal:index/shard/segment_replication/clean_files";
+    }
+
+    private final TransportService transportService;
+    private final IndicesService indicesService;
+    private final ClusterService clusterService;
+    private final RecoverySettings recoverySettings;
+
+    private final AtomicLong idGenerator = new AtomicLong();
+    // copies running on this node's replicas, by copy id and by shard
+    private final ConcurrentMap<Long, SegmentReplicationTarget> onGoingCopies = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<ShardId, SegmentReplicationTarget> onGoingCopiesByShard = ConcurrentCollections.newConcurrentMap();
+    // replicas that were notified of a new commit while a copy was running, with the primary that notified them
+    private final ConcurrentMap<ShardId, DiscoveryNode> pendingCopies = ConcurrentCollections.newConcurrentMap();
+    // copies that this node's primaries are sending
+    private final ConcurrentMap<ShardId, Set<RecoverySourceHandler>> onGoingSources = ConcurrentCollections.newConcurrentMap();
+
+    public SegmentReplicationService(Settings settings, TransportService transportService, IndicesService indicesService,
+                                     ClusterService clusterService, RecoverySettings recoverySettings) {
+        super(settings);
+        this.transportService = transportService;
+        this.indicesService = indicesService;
+        this.clusterService = clusterService;
+        this.recoverySettings = recoverySettings;
+        transportService.registerRequestHandler(Actions.NOTIFY, NotifyRequest::new, ThreadPool.Names.GENERIC, new NotifyRequestHandler());
+        transportService.registerRequestHandler(Actions.START, StartRecoveryRequest::new, ThreadPool.Names.GENERIC,
+            new StartRequestHandler());
+        transportService.registerRequestHandler(Actions.FILES_INFO, RecoveryFilesInfoRequest::new, ThreadPool.Names.GENERIC,
+            new FilesInfoRequestHandler());
+        transportService.registerRequestHandler(Actions.FILE_CHUNK, RecoveryFileChunkRequest::new, ThreadPool.Names.GENERIC,
+            new FileChunkRequestHandler());
+        transportService.registerRequestHandler(Actions.CLEAN_FILES, RecoveryCleanFilesRequest::new, ThreadPool.Names.GENERIC,
+            new CleanFilesRequestHandler());
+    }
+
+    @Override
+    public void afterIndexShardFlushed(IndexShard indexShard) {
+        if (indexShard.indexSettings().getReplicationType() != ReplicationType.SEGMENT || indexShard.routingEntry().primary() == false) {
+            return;
+        }
+        final ShardId shardId = indexShard.shardId();
+        final ClusterState state = clusterService.state();
+        final IndexShardRoutingTable shardRoutingTable = state.routingTable().shardRoutingTableOrNull(shardId);
+        if (shardRoutingTable == null) {
+            return;
+        }
+        for (ShardRouting replica : shardRoutingTable.replicaShards()) {
+            final DiscoveryNode node = replica.started() ? state.nodes().get(replica.currentNodeId()) : null;
+            if (node == null) {
+                continue;
+            }
+            transportService.sendRequest(node, Actions.NOTIFY, new NotifyRequest(shardId, state.nodes().getLocalNode()),
+                new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+                    @Override
+                    public void handleException(TransportException exp) {
+                        logger.debug((Supplier<?>) () -> new ParameterizedMessage("{} failed to notify [{}] of a new commit",
+                            shardId, node), exp);
+                    }
+                });
+        }
+    }
+
+    @Override
+    public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
+        pendingCopies.remove(shardId);
+        final SegmentReplicationTarget target = onGoingCopiesByShard.get(shardId);
+        if (target != null) {
+            finishCopy(target);
+        }
+        final Set<RecoverySourceHandler> sources = onGoingSources.remove(shardId);
+        if (sources != null) {
+            for (RecoverySourceHandler source : sources) {
+                source.cancel("shard closed");
+            }
+        }
+    }
+
+    /**
+     * Starts copying the last commit of the primary on the given node to the given replica, unless a copy is already running in
+     * which case another copy is started once it has finished.
+     */
+    private void startCopy(IndexShard indexShard, DiscoveryNode primaryNode) {
+        final ShardId shardId = indexShard.shardId();
+        final SegmentReplicationTarget target =
+            new SegmentReplicationTarget(idGenerator.incrementAndGet(), indexShard, primaryNode, logger);
+        if (onGoingCopiesByShard.putIfAbsent(shardId, target) != null) {
+            pendingCopies.put(shardId, primaryNode);
+            target.decRef();
+            return;
+        }
+        onGoingCopies.put(target.copyId(), target);
+        final StartRecoveryRequest request;
+        try {
+            request = new StartRecoveryRequest(shardId, indexShard.routingEntry().allocationId().getId(), primaryNode,
+                clusterService.localNode(), indexShard.snapshotStoreMetadata(), false, target.copyId(), SequenceNumbers.UNASSIGNED_SEQ_NO);
+        } catch (Exception e) {
+            logger.debug((Supplier<?>) () -> new ParameterizedMessage("{} failed to start segment replication", shardId), e);
+            finishCopy(target);
+            return;
+        }
+        logger.trace("{} starting segment replication [{}] from [{}]", shardId, target.copyId(), primaryNode);
+        transportService.sendRequest(primaryNode, Actions.START, request,
+            TransportRequestOptions.builder().withTimeout(recoverySettings.internalActionLongTimeout()).build(),
+            new EmptyTransportResponseHandler(ThreadPool.Names.GENERIC) {
+                @Override
+                public void handleResponse(TransportResponse.Empty response) {
+                    logger.trace("{} segment replication [{}] done, copied [{}] files", shardId, target.copyId(),
+                        target.indexState().recoveredFileCount());
+                    finishCopy(target);
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    logger.debug((Supplier<?>) () -> new ParameterizedMessage("{} segment replication [{}] from [{}] failed",
+                        shardId, target.copyId(), primaryNode), exp);
+                    finishCopy(target);
+                }
+            });
+    }
+
+    private void finishCopy(SegmentReplicationTarget target) {
+        if (onGoingCopies.remove(target.copyId(), target) == false) {
+            return;
+        }
+        onGoingCopiesByShard.remove(target.shardId(), target);
+        target.decRef();
+        final DiscoveryNode pendingPrimary = pendingCopies.remove(target.shardId());
+        if (pendingPrimary != null) {
+            final IndexShard indexShard = target.indexShard();
+            if (indexShard.state() == IndexShardState.STARTED) {
+                startCopy(indexShard, pendingPrimary);
+            }
+        }
+    }
+
+    private SegmentReplicationTarget getCopySafe(long copyId, ShardId shardId) {
+        final SegmentReplicationTarget target = onGoingCopies.get(copyId);
+        if (target == null || target.tryIncRef() == false) {
+            throw new IllegalStateException("segment replication [" + copyId + "] for " + shardId + " is not running");
+        }
+        if (target.shardId().equals(shardId) == false) {
+            target.decRef();
+            throw new IllegalStateException("segment replication [" + copyId + "] is for " + target.shardId() + " but got " + shardId);
+        }
+        return target;
+    }
+
+    static final class NotifyRequest extends TransportRequest {
+
+        private ShardId shardId;
+        private DiscoveryNode primaryNode;
+
+        NotifyRequest() {
+        }
+
+        NotifyRequest(ShardId shardId, DiscoveryNode primaryNode) {
+            this.shardId = shardId;
+            this.primaryNode = primaryNode;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shardId = ShardId.readShardId(in);
+            primaryNode = new DiscoveryNode(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            shardId.writeTo(out);
+            primaryNode.writeTo(out);
+        }
+    }
+
+    private final class NotifyRequestHandler implements TransportRequestHandler<NotifyRequest> {
+
+        @Override
+        public void messageReceived(NotifyRequest request, TransportChannel channel) throws Exception {
+            final IndexService indexService = indicesService.indexService(request.shardId.getIndex());
+            final IndexShard indexShard = indexService == null ? null : indexService.getShardOrNull(request.shardId.id());
+            if (indexShard != null && indexShard.state() == IndexShardState.STARTED && indexShard.routingEntry().primary() == false) {
+                startCopy(indexShard, request.primaryNode);
+            }
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+    }
+
+    private final class StartRequestHandler implements TransportRequestHandler<StartRecoveryRequest> {
+
+        @Override
+        public void messageReceived(StartRecoveryRequest request, TransportChannel channel) throws Exception {
+            final ShardId shardId = request.shardId();
+            final IndexShard indexShard = indicesService.indexServiceSafe(shardId.getIndex()).getShard(shardId.id());
+            if (indexShard.routingEntry().primary() == false) {
+                throw new IllegalStateException("segment replication must copy from the primary but " + indexShard.routingEntry()
+                    + " is a replica");
+            }
+            final RemoteRecoveryTargetHandler recoveryTarget = new RemoteRecoveryTargetHandler(request.recoveryId(), shardId,
+                transportService, request.targetNode(), recoverySettings,
+                throttleTime -> indexShard.recoveryStats().addThrottleTime(throttleTime),
+                Actions.FILES_INFO, Actions.FILE_CHUNK, Actions.CLEAN_FILES);
+            final RecoverySourceHandler handler = new RecoverySourceHandler(indexShard, recoveryTarget, request,
+                recoverySettings.getChunkSize().bytesAsInt(), recoverySettings.getMaxConcurrentFileChunks(),
+                recoverySettings.getMaxConcurrentFiles(), settings);
+            final Set<RecoverySourceHandler> sources =
+                onGoingSources.computeIfAbsent(shardId, k -> ConcurrentCollections.newConcurrentSet());
+            sources.add(handler);
+            try (Engine.IndexCommitRef commitRef = indexShard.acquireIndexCommit(false)) {
+                handler.phase1(commitRef.getIndexCommit(), () -> 0);
+            } finally {
+                sources.remove(handler);
+            }
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        }
+    }
+
+    private final class FilesInfoRequestHandler implements TransportRequestHandler<RecoveryFilesInfoRequest> {
+
+        @Override
+        public void messageReceived(RecoveryFilesInfoRequest request, TransportChannel channel) throws Exception {
+            final SegmentReplicationTarget target = getCopySafe(request.recoveryId(), request.shardId());
+            try {
+                target.receiveFileInfo(request.phase1FileNames, request.phase1FileSizes, request.phase1ExistingFileNames,
+                    request.phase1ExistingFileSizes);
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            } finally {
+                target.decRef();
+            }
+        }
+    }
+
+    private final class FileChunkRequestHandler implements TransportRequestHandler<RecoveryFileChunkRequest> {
+
+        // How many bytes we've copied since we last called RateLimiter.pause
+        final AtomicLong bytesSinceLastPause = new AtomicLong();
+
+        @Override
+        public void messageReceived(RecoveryFileChunkRequest request, TransportChannel channel) throws Exception {
+            final SegmentReplicationTarget target = getCopySafe(request.recoveryId(), request.shardId());
+            try {
+                final RecoveryState.Index indexState = target.indexState();
+                if (request.sourceThrottleTimeInNanos() != RecoveryState.Index.UNKNOWN) {
+                    indexState.addSourceThrottling(request.sourceThrottleTimeInNanos());
+                }
+                // copies share the recovery rate limit so that replicating segments cannot starve recoveries
+                RateLimiter rateLimiter = recoverySettings.rateLimiter();
+                if (rateLimiter != null) {
+                    long bytes = bytesSinceLastPause.addAndGet(request.content().length());
+                    if (bytes > rateLimiter.getMinPauseCheckBytes()) {
+                        bytesSinceLastPause.addAndGet(-bytes);
+                        long throttleTimeInNanos = rateLimiter.pause(bytes);
+                        indexState.addTargetThrottling(throttleTimeInNanos);
+                        target.indexShard().recoveryStats().addThrottleTime(throttleTimeInNanos);
+                    }
+                }
+                // the response is sent once the chunk is written, which may be after earlier chunks of the same file arrived
+                target.writeFileChunk(request.metadata(), request.position(), request.content(), request.lastChunk(),
+                    new ActionListener<Void>() {
+                        @Override
+                        public void onResponse(Void aVoid) {
+                            try {
+                                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+                            } catch (Exception e) {
+                                onFailure(e);
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            try {
+                                channel.sendResponse(e);
+                            } catch (Exception inner) {
+                                inner.addSuppressed(e);
+                                logger.warn("failed to send error response for file chunk request", inner);
+                            }
+                        }
+                    });
+            } finally {
+                target.decRef();
+            }
+        }
+    }
+
+    private final class CleanFilesRequestHandler implements TransportRequestHandler<RecoveryCleanFilesRequest> {
+
+        @Override
+        public void messageReceived(RecoveryCleanFilesRequest request, TransportChannel channel) throws Exception {
+            final SegmentReplicationTarget target = getCopySafe(request.recoveryId(), request.shardId());
+            try {
+                target.cleanFiles(request.sourceMetaSnapshot());
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            } finally {
+                target.decRef();
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.shard.IllegalIndexShardStateException;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetaData;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the files of a primary's last commit on a replica of an index that uses segment replication, and installs them in the
+ * replica's store once all of them have been copied.
+ */
+final class SegmentReplicationTarget extends AbstractRefCounted {
+
+    private static final String SEGMENT_REPLICATION_PREFIX = "segment_replication.";
+
+    private final long copyId;
+    private final IndexShard indexShard;
+    private final DiscoveryNode sourceNode;
+    private final RecoveryState.Index indexState = new RecoveryState.Index();
+    private final MultiFileWriter multiFileWriter;
+
+    SegmentReplicationTarget(long copyId, IndexShard indexShard, DiscoveryNode sourceNode, Logger logger) {
+        super("segment_replication_target");
+        this.copyId = copyId;
+        this.indexShard = indexShard;
+        this.sourceNode = sourceNode;
+        // make sure the store is not released until we are done.
+        indexShard.store().incRef();
+        this.multiFileWriter = new MultiFileWriter(indexShard.store(), indexState,
+            SEGMENT_REPLICATION_PREFIX + UUIDs.randomBase64UUID() + ".", logger);
+    }
+
+    long copyId() {
+        return copyId;
+    }
+
+    ShardId shardId() {
+        return indexShard.shardId();
+    }
+
+    IndexShard indexShard() {
+        return indexShard;
+    }
+
+    DiscoveryNode sourceNode() {
+        return sourceNode;
+    }
+
+    RecoveryState.Index indexState() {
+        return indexState;
+    }
+
+    void receiveFileInfo(List<String> fileNames, List<Long> fileSizes, List<String> existingFileNames, List<Long> existingFileSizes) {
+        for (int i = 0; i < existingFileNames.size(); i++) {
+            indexState.addFileDetail(existingFileNames.get(i), existingFileSizes.get(i), true);
+        }
+        for (int i = 0; i < fileNames.size(); i++) {
+            indexState.addFileDetail(fileNames.get(i), fileSizes.get(i), false);
+        }
+    }
+
+    void writeFileChunk(StoreFileMetaData fileMetaData, long position, BytesReference content, boolean lastChunk,
+                        ActionListener<Void> listener) {
+        multiFileWriter.writeFileChunk(fileMetaData, position, content, lastChunk, listener);
+    }
+
+    /**
+     * Renames the copied files to their actual names and removes the files that are not part of the primary's commit. The
+     * store is left in an unknown state if this fails, so the shard is failed unless it is no longer a segment replica.
+     */
+    void cleanFiles(Store.MetadataSnapshot sourceMetaData) throws IOException {
+        try {
+            indexShard.installSegmentReplicationFiles(() -> {
+                multiFileWriter.renameAllTempFiles();
+                indexShard.store().cleanupAndVerify("segment replication", sourceMetaData);
+            });
+        } catch (IllegalIndexShardStateException | AlreadyClosedException e) {
+            throw e;
+        } catch (Exception e) {
+            indexShard.failShard("failed to install files copied from the primary", e);
+            throw e;
+        }
+    }
+
+    @Override
+    protected void closeInternal() {
+        try {
+            multiFileWriter.close();
+        } finally {
+            // free store. increment happens in constructor
+            indexShard.store().decRef();
+        }
+    }
+}
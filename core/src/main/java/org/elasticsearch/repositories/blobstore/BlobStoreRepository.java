@@ -663,6 +663,23 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return snapshotsBlobContainer;
     }
 
+    /**
+     * Returns the container that holds the files of all snapshots of the given shard of the given index.
+     */
+    public BlobContainer shardContainer(IndexId indexId, int shardId) {
+        return blobStore().blobContainer(basePath().add("indices").add(indexId.getId()).add(Integer.toString(shardId)));
+    }
+
+    /**
+     * Loads the list of files that make up a shard in the given snapshot.
+     *
+     * @param shardContainer the container of the shard, see {@link #shardContainer(IndexId, int)}
+     * @param snapshotId     the snapshot to load the shard's files of
+     */
+    public BlobStoreIndexShardSnapshot loadShardSnapshot(BlobContainer shardContainer, SnapshotId snapshotId) throws IOException {
+        return indexShardSnapshotFormat.read(shardContainer, snapshotId.getUUID());
+    }
+
     protected void writeIndexGen(final RepositoryData repositoryData, final long repositoryStateId) throws IOException {
         assert isReadOnly() == false; // can not write to a read only repository
         final long currentGen = latestIndexBlobId();
@@ -918,7 +935,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
             this.snapshotId = snapshotId;
             this.version = version;
             this.shardId = shardId;
-            blobContainer = blobStore().blobContainer(basePath().add("indices").add(indexId.getId()).add(Integer.toString(snapshotShardId.getId())));
+            blobContainer = shardContainer(indexId, snapshotShardId.getId());
         }
 
         /**
@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * The content of a {@link RestRequest} that is handed to its handler chunk by chunk while it is being received, rather than
+ * being buffered in memory before the request is dispatched. Only requests of handlers that
+ * {@link RestHandler#supportsIncrementalContent() support incremental content} are received this way.
+ * <p>
+ * The handler must register its {@link Listener} while it handles the request, the content of requests whose handler did not
+ * register a listener is discarded. Once a response was sent for the request, the remaining content is discarded as well.
+ */
+public interface IncrementalContent {
+
+    /**
+     * Registers the listener that chunks of content are passed to, in the order they are received.
+     */
+    void setListener(Listener listener);
+
+    /**
+     * Stops reading content from the network until {@link #resume()} is called, so that the handler can apply backpressure.
+     * Chunks that were already read may still be passed to the listener after this method returned.
+     */
+    void pause();
+
+    /**
+     * Resumes reading content from the network after a call to {@link #pause()}.
+     */
+    void resume();
+
+    interface Listener {
+
+        /**
+         * Called with every chunk of content that is received, the last chunk may be empty.
+         *
+         * @param chunk  the received bytes, which are owned by the listener
+         * @param isLast whether this is the last chunk of the content
+         */
+        void onChunk(BytesReference chunk, boolean isLast);
+
+        /**
+         * Called if the content could not be received completely, for instance because the connection was closed.
+         */
+        void onFailure(Exception e);
+    }
+}
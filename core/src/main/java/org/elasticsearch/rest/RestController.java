@@ -205,21 +205,41 @@ public class RestController extends AbstractComponent implements HttpServerTrans
         }
     }
 
+    @Override
+    public boolean supportsIncrementalContent(final RestRequest request) {
+        // resolving the handler modifies the parameters of the request, which are resolved again once it is dispatched
+        final Map<String, String> originalParams = new HashMap<>(request.params());
+        try {
+            for (Iterator<MethodHandlers> it = getAllHandlers(request); it.hasNext(); ) {
+                final Optional<RestHandler> mHandler = Optional.ofNullable(it.next()).flatMap(mh -> mh.getHandler(request.method()));
+                if (mHandler.isPresent()) {
+                    return mHandler.get().supportsIncrementalContent();
+                }
+            }
+            return false;
+        } finally {
+            request.params().clear();
+            request.params().putAll(originalParams);
+        }
+    }
+
     /**
      * Dispatch the request, if possible, returning true if a response was sent or false otherwise.
      */
     boolean dispatchRequest(final RestRequest request, final RestChannel channel, final NodeClient client,
                             final Optional<RestHandler> mHandler) throws Exception {
         final int contentLength = request.hasContent() ? request.content().length() : 0;
+        // incremental content is still being received, its length is not known yet
+        final boolean hasContent = contentLength > 0 || request.incrementalContent() != null;
 
         RestChannel responseChannel = channel;
         // Indicator of whether a response was sent or not
         boolean requestHandled;
 
-        if (contentLength > 0 && mHandler.map(h -> hasContentType(request, h) == false).orElse(false)) {
+        if (hasContent && mHandler.map(h -> hasContentType(request, h) == false).orElse(false)) {
             sendContentTypeErrorMessage(request, channel);
             requestHandled = true;
-        } else if (contentLength > 0 && mHandler.map(h -> h.supportsContentStream()).orElse(false) &&
+        } else if (hasContent && mHandler.map(h -> h.supportsContentStream()).orElse(false) &&
             request.getXContentType() != XContentType.JSON && request.getXContentType() != XContentType.SMILE) {
             channel.sendResponse(BytesRestResponse.createSimpleErrorResponse(channel,
                 RestStatus.NOT_ACCEPTABLE, "Content-Type [" + request.getXContentType() +
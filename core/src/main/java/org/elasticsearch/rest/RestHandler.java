@@ -47,4 +47,13 @@ public interface RestHandler {
     default boolean supportsContentStream() {
         return false;
     }
+
+    /**
+     * Indicates if the RestHandler can consume the content of a request while it is being received, see
+     * {@link RestRequest#incrementalContent()}. Only takes effect if the HTTP transport supports incremental content and has it
+     * enabled.
+     */
+    default boolean supportsIncrementalContent() {
+        return false;
+    }
 }
@@ -136,6 +136,15 @@ public abstract class RestRequest implements ToXContent.Params {
 
     public abstract BytesReference content();
 
+    /**
+     * The content of this request if it is received incrementally, in which case {@link #content()} is empty. Returns
+     * {@code null} if the content was fully received before the request was dispatched.
+     */
+    @Nullable
+    public IncrementalContent incrementalContent() {
+        return null;
+    }
+
     /**
      * @return content of the request body or throw an exception if the body or content type is missing
      */
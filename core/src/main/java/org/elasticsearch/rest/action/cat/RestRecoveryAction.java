@@ -29,6 +29,7 @@ import org.elasticsearch.cluster.routing.RecoverySource.SnapshotRecoverySource;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.Table;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.rest.RestController;
@@ -106,6 +107,7 @@ public class RestRecoveryAction extends AbstractCatAction {
                 .addCell("translog_ops", "alias:to;desc:number of translog ops to recover")
                 .addCell("translog_ops_recovered", "alias:tor;desc:translog ops recovered")
                 .addCell("translog_ops_percent", "alias:top;desc:percent of translog ops recovered")
+                .addCell("bytes_per_sec", "alias:bps;desc:bytes recovered per second;default:false")
                 .endHeaders();
         return t;
     }
@@ -171,6 +173,7 @@ public class RestRecoveryAction extends AbstractCatAction {
                 t.addCell(state.getTranslog().totalOperations());
                 t.addCell(state.getTranslog().recoveredOperations());
                 t.addCell(String.format(Locale.ROOT, "%1.1f%%", state.getTranslog().recoveredPercent()));
+                t.addCell(new ByteSizeValue(state.getIndex().recoveredBytesPerSecond()));
                 t.endRow();
             }
         }
@@ -19,22 +19,36 @@
 
 package org.elasticsearch.rest.action.document;
 
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.bulk.BulkShardRequest;
+import org.elasticsearch.action.bulk.IncrementalBulkParser;
 import org.elasticsearch.action.support.ActiveShardCount;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.client.node.NodeClient;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.IncrementalContent;
+import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.elasticsearch.rest.RestRequest.Method.POST;
 import static org.elasticsearch.rest.RestRequest.Method.PUT;
@@ -52,7 +66,14 @@ public class RestBulkAction extends BaseRestHandler {
     private static final DeprecationLogger DEPRECATION_LOGGER =
         new DeprecationLogger(Loggers.getLogger(RestBulkAction.class));
 
+    /**
+     * The size of the batches that bulk requests whose content is received incrementally are executed in.
+     */
+    public static final Setting<ByteSizeValue> INCREMENTAL_BATCH_SIZE_SETTING = Setting.byteSizeSetting(
+        "rest.action.bulk.incremental.batch_size", new ByteSizeValue(5, ByteSizeUnit.MB), Property.NodeScope);
+
     private final boolean allowExplicitIndex;
+    private final long incrementalBatchSizeInBytes;
 
     public RestBulkAction(Settings settings, RestController controller) {
         super(settings);
@@ -65,6 +86,7 @@ public class RestBulkAction extends BaseRestHandler {
         controller.registerHandler(PUT, "/{index}/{type}/_bulk", this);
 
         this.allowExplicitIndex = MULTI_ALLOW_EXPLICIT_INDEX.get(settings);
+        this.incrementalBatchSizeInBytes = INCREMENTAL_BATCH_SIZE_SETTING.get(settings).getBytes();
     }
 
     @Override
@@ -91,6 +113,15 @@ public class RestBulkAction extends BaseRestHandler {
         }
         bulkRequest.timeout(request.paramAsTime("timeout", BulkShardRequest.DEFAULT_TIMEOUT));
         bulkRequest.setRefreshPolicy(request.param("refresh"));
+
+        final IncrementalContent incrementalContent = request.incrementalContent();
+        if (incrementalContent != null) {
+            final IncrementalBulkParser parser = new IncrementalBulkParser(defaultIndex, defaultType, defaultRouting, defaultFields,
+                defaultFetchSourceContext, defaultPipeline, allowExplicitIndex, request.getXContentType());
+            return channel -> incrementalContent.setListener(
+                new IncrementalBulk(bulkRequest, parser, incrementalContent, incrementalBatchSizeInBytes, client, channel));
+        }
+
         bulkRequest.add(request.requiredContent(), defaultIndex, defaultType, defaultRouting, defaultFields,
             defaultFetchSourceContext, defaultPipeline, null, allowExplicitIndex, request.getXContentType());
 
@@ -101,4 +132,168 @@ public class RestBulkAction extends BaseRestHandler {
     public boolean supportsContentStream() {
         return true;
     }
+
+    @Override
+    public boolean supportsIncrementalContent() {
+        return true;
+    }
+
+    /**
+     * Executes a bulk request whose content is received incrementally in batches of roughly the configured size, as soon as they
+     * are parsed. Batches are executed one after the other, so that operations on the same document are applied in the order of
+     * the request. At most one batch waits for the executing batch, reading the content is paused until the executing batch
+     * completes, which bounds the memory that a bulk request can use regardless of its size. The responses of all batches are
+     * merged into a single response once the last one completed.
+     */
+    static final class IncrementalBulk implements IncrementalContent.Listener {
+
+        private final BulkRequest template;
+        private final IncrementalBulkParser parser;
+        private final IncrementalContent content;
+        private final long batchSizeInBytes;
+        private final NodeClient client;
+        private final RestChannel channel;
+
+        private final ArrayDeque<BulkRequest> batches = new ArrayDeque<>();
+        private final List<BulkResponse> responses = new ArrayList<>();
+        private BulkRequest current;
+        private int numBatches;
+        private boolean executing;
+        private boolean paused;
+        private boolean complete;
+        private boolean responded;
+        private Exception failure;
+
+        IncrementalBulk(BulkRequest template, IncrementalBulkParser parser, IncrementalContent content, long batchSizeInBytes,
+                        NodeClient client, RestChannel channel) {
+            this.template = template;
+            this.parser = parser;
+            this.content = content;
+            this.batchSizeInBytes = batchSizeInBytes;
+            this.client = client;
+            this.channel = channel;
+            this.current = template;
+        }
+
+        @Override
+        public void onChunk(BytesReference chunk, boolean isLast) {
+            synchronized (this) {
+                if (responded) {
+                    return;
+                }
+                try {
+                    parser.parse(chunk, isLast, current);
+                } catch (Exception e) {
+                    failure = e;
+                }
+                if (failure == null) {
+                    complete = isLast;
+                    // an empty bulk request is still executed, so that it fails like any other empty bulk request
+                    final boolean lastBatch = isLast && (current.numberOfActions() > 0 || numBatches == 0);
+                    if (lastBatch || current.estimatedSizeInBytes() >= batchSizeInBytes) {
+                        batches.add(current);
+                        numBatches++;
+                        current = newBatch();
+                    }
+                    if (executing && batches.isEmpty() == false && paused == false && complete == false) {
+                        paused = true;
+                        content.pause();
+                    }
+                }
+            }
+            executeNextBatch();
+        }
+
+        @Override
+        public void onFailure(Exception e) {
+            synchronized (this) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            executeNextBatch();
+        }
+
+        private BulkRequest newBatch() {
+            final BulkRequest batch = Requests.bulkRequest();
+            batch.waitForActiveShards(template.waitForActiveShards());
+            batch.timeout(template.timeout());
+            batch.setRefreshPolicy(template.getRefreshPolicy());
+            return batch;
+        }
+
+        private void executeNextBatch() {
+            final BulkRequest batch;
+            final boolean resume;
+            synchronized (this) {
+                if (executing || responded) {
+                    return;
+                }
+                if (failure != null || (complete && batches.isEmpty())) {
+                    responded = true;
+                    batch = null;
+                    resume = false;
+                } else if (batches.isEmpty()) {
+                    return;
+                } else {
+                    executing = true;
+                    batch = batches.poll();
+                    resume = paused;
+                    paused = false;
+                }
+            }
+            if (batch == null) {
+                sendResponse();
+                return;
+            }
+            if (resume) {
+                content.resume();
+            }
+            client.bulk(batch, new ActionListener<BulkResponse>() {
+                @Override
+                public void onResponse(BulkResponse response) {
+                    synchronized (IncrementalBulk.this) {
+                        responses.add(response);
+                        executing = false;
+                    }
+                    executeNextBatch();
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    synchronized (IncrementalBulk.this) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                        executing = false;
+                    }
+                    executeNextBatch();
+                }
+            });
+        }
+
+        private void sendResponse() {
+            final RestStatusToXContentListener<BulkResponse> listener = new RestStatusToXContentListener<>(channel);
+            if (failure != null) {
+                listener.onFailure(failure);
+                return;
+            }
+            final List<BulkItemResponse> items = new ArrayList<>();
+            long tookInMillis = 0;
+            long ingestTookInMillis = BulkResponse.NO_INGEST_TOOK;
+            for (BulkResponse response : responses) {
+                final int offset = items.size();
+                for (BulkItemResponse item : response.getItems()) {
+                    final int id = offset + item.getItemId();
+                    items.add(item.isFailed() ? new BulkItemResponse(id, item.getOpType(), item.getFailure())
+                        : new BulkItemResponse(id, item.getOpType(), item.getResponse()));
+                }
+                tookInMillis += response.getTook().millis();
+                if (response.getIngestTookInMillis() != BulkResponse.NO_INGEST_TOOK) {
+                    ingestTookInMillis = Math.max(ingestTookInMillis, 0) + response.getIngestTookInMillis();
+                }
+            }
+            listener.onResponse(new BulkResponse(items.toArray(new BulkItemResponse[items.size()]), tookInMillis, ingestTookInMillis));
+        }
+    }
 }
@@ -31,10 +31,12 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
@@ -54,6 +56,7 @@ import org.elasticsearch.index.query.Rewriteable;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason;
 import org.elasticsearch.node.ResponseCollectorService;
@@ -62,6 +65,7 @@ import org.elasticsearch.script.SearchScript;
 import org.elasticsearch.search.aggregations.AggregationInitializationException;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.collapse.CollapseContext;
 import org.elasticsearch.search.dfs.DfsPhase;
@@ -76,6 +80,7 @@ import org.elasticsearch.search.fetch.subphase.ScriptFieldsContext.ScriptField;
 import org.elasticsearch.search.fetch.subphase.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
@@ -104,6 +109,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongSupplier;
 
@@ -128,6 +134,13 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     public static final Setting<Boolean> LOW_LEVEL_CANCELLATION_SETTING =
         Setting.boolSetting("search.low_level_cancellation", false, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The maximum amount of segment memory that open point in time readers may pin on a node. Segments held by a point in
+     * time can't be released once they are merged away, so this bounds the heap that long-lived points in time can retain.
+     */
+    public static final Setting<ByteSizeValue> MAX_POINT_IN_TIME_MEMORY_SETTING =
+        Setting.memorySizeSetting("search.max_point_in_time_memory", "10%", Property.Dynamic, Property.NodeScope);
+
     public static final TimeValue NO_TIMEOUT = timeValueMillis(-1);
     public static final Setting<TimeValue> DEFAULT_SEARCH_TIMEOUT_SETTING =
         Setting.timeSetting("search.default_search_timeout", NO_TIMEOUT, Property.Dynamic, Property.NodeScope);
@@ -159,12 +172,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean lowLevelCancellation;
 
+    private volatile long maxPointInTimeMemory;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
 
     private final ConcurrentMapLong<SearchContext> activeContexts = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
 
+    private final ConcurrentMapLong<ReaderContext> activeReaders = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
+    private final AtomicLong pointInTimeMemory = new AtomicLong();
+
     public SearchService(ClusterService clusterService, IndicesService indicesService,
                          ThreadPool threadPool, ScriptService scriptService, BigArrays bigArrays, FetchPhase fetchPhase,
                          ResponseCollectorService responseCollectorService) {
@@ -191,6 +210,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
         lowLevelCancellation = LOW_LEVEL_CANCELLATION_SETTING.get(settings);
         clusterService.getClusterSettings().addSettingsUpdateConsumer(LOW_LEVEL_CANCELLATION_SETTING, this::setLowLevelCancellation);
+
+        maxPointInTimeMemory = MAX_POINT_IN_TIME_MEMORY_SETTING.get(settings).getBytes();
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(MAX_POINT_IN_TIME_MEMORY_SETTING,
+            value -> maxPointInTimeMemory = value.getBytes());
     }
 
     private void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -224,6 +247,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         // to release memory and let references to the filesystem go etc.
         if (reason == IndexRemovalReason.DELETED || reason == IndexRemovalReason.CLOSED) {
             freeAllContextForIndex(index);
+            freeAllReaderContextsForIndex(index);
         }
 
     }
@@ -246,6 +270,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         for (final SearchContext context : activeContexts.values()) {
             freeContext(context.id());
         }
+        for (final ReaderContext reader : activeReaders.values()) {
+            freeReaderContext(reader.id());
+        }
     }
 
     @Override
@@ -591,7 +618,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         IndexShard indexShard = indexService.getShard(request.shardId().getId());
         SearchShardTarget shardTarget = new SearchShardTarget(clusterService.localNode().getId(),
                 indexShard.shardId(), request.getClusterAlias(), OriginalIndices.NONE);
-        Engine.Searcher engineSearcher = searcher == null ? indexShard.acquireSearcher("search") : searcher;
+        final Engine.Searcher engineSearcher;
+        if (searcher != null) {
+            engineSearcher = searcher;
+        } else if (request.readerId() >= 0) {
+            engineSearcher = acquireReaderSearcher(request, indexShard);
+        } else {
+            engineSearcher = indexShard.acquireSearcher("search");
+        }
 
         final DefaultSearchContext searchContext = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget,
             engineSearcher, indexService, indexShard, bigArrays, threadPool.estimatedTimeInMillisCounter(), timeout, fetchPhase,
@@ -640,6 +674,83 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return false;
     }
 
+    /**
+     * Opens a point in time reader on the given shard and returns its id. The reader pins the current searcher of the shard
+     * so that subsequent searches that reference it see the same data, until it is freed or not used for longer than the
+     * given keep alive.
+     */
+    public long openReaderContext(ShardId shardId, TimeValue keepAlive) {
+        checkPointInTimeKeepAlive(keepAlive.millis());
+        final IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        final IndexShard indexShard = indexService.getShard(shardId.id());
+        final ReaderContext reader = new ReaderContext(idGenerator.incrementAndGet(), indexShard,
+            indexShard.acquireSearcher("point_in_time"), keepAlive.millis(), threadPool::relativeTimeInMillis);
+        final long bytes = pointInTimeMemory.addAndGet(reader.ramBytesUsed());
+        if (bytes > maxPointInTimeMemory) {
+            pointInTimeMemory.addAndGet(-reader.ramBytesUsed());
+            reader.decRef();
+            throw new CircuitBreakingException("Opening a point in time on " + shardId + " would pin [" + bytes +
+                "] bytes of segment memory, which is larger than the limit of [" + maxPointInTimeMemory + "] bytes. " +
+                "This limit can be set by changing the [" + MAX_POINT_IN_TIME_MEMORY_SETTING.getKey() + "] setting.",
+                bytes, maxPointInTimeMemory);
+        }
+        final ReaderContext previous = activeReaders.put(reader.id(), reader);
+        assert previous == null;
+        return reader.id();
+    }
+
+    /**
+     * Frees the point in time reader with the given id. Searches that are still executing against it complete
+     * before the pinned searcher is released.
+     */
+    public boolean freeReaderContext(long id) {
+        final ReaderContext reader = activeReaders.remove(id);
+        if (reader != null) {
+            pointInTimeMemory.addAndGet(-reader.ramBytesUsed());
+            reader.decRef();
+            return true;
+        }
+        return false;
+    }
+
+    private void freeAllReaderContextsForIndex(Index index) {
+        for (ReaderContext reader : activeReaders.values()) {
+            if (index.equals(reader.shardId().getIndex())) {
+                freeReaderContext(reader.id());
+            }
+        }
+    }
+
+    private Engine.Searcher acquireReaderSearcher(ShardSearchRequest request, IndexShard indexShard) {
+        final ReaderContext reader = activeReaders.get(request.readerId());
+        if (reader == null || reader.indexShard() != indexShard || reader.tryIncRef() == false) {
+            throw new SearchContextMissingException(request.readerId());
+        }
+        boolean success = false;
+        try {
+            final PointInTimeBuilder pointInTime = request.source() == null ? null : request.source().pointInTimeBuilder();
+            if (pointInTime != null && pointInTime.getKeepAlive() != null) {
+                checkPointInTimeKeepAlive(pointInTime.getKeepAlive().millis());
+                reader.keepAlive(pointInTime.getKeepAlive().millis());
+            }
+            final Engine.Searcher searcher = reader.acquireSearcher("search");
+            success = true;
+            return searcher;
+        } finally {
+            if (success == false) {
+                reader.decRef();
+            }
+        }
+    }
+
+    private void checkPointInTimeKeepAlive(long keepAlive) {
+        if (keepAlive > maxKeepAlive) {
+            throw new IllegalArgumentException("Keep alive for point in time (" + TimeValue.timeValueMillis(keepAlive).format() +
+                ") is too large. It must be less than (" + TimeValue.timeValueMillis(maxKeepAlive).format() + "). " +
+                "This limit can be set by changing the [" + MAX_KEEPALIVE_SETTING.getKey() + "] cluster level setting.");
+        }
+    }
+
     public void freeAllScrollContexts() {
         for (SearchContext searchContext : activeContexts.values()) {
             if (searchContext.scrollContext() != null) {
@@ -912,6 +1023,20 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         return this.activeContexts.size();
     }
 
+    /**
+     * Returns the number of open point in time readers in this SearchService
+     */
+    public int getActiveReaderContexts() {
+        return this.activeReaders.size();
+    }
+
+    /**
+     * Returns the segment memory in bytes that is pinned by the open point in time readers in this SearchService
+     */
+    public long getPointInTimeMemoryInBytes() {
+        return this.pointInTimeMemory.get();
+    }
+
     public ResponseCollectorService getResponseCollectorService() {
         return this.responseCollectorService;
     }
@@ -933,6 +1058,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     freeContext(context.id());
                 }
             }
+            for (ReaderContext reader : activeReaders.values()) {
+                // readers that are being searched are only expired once all searches against them completed
+                if (reader.isIdle() && time - reader.lastAccessTime() > reader.keepAlive()) {
+                    logger.debug("freeing point in time reader [{}], time [{}], lastAccessTime [{}], keepAlive [{}]", reader.id(), time,
+                        reader.lastAccessTime(), reader.keepAlive());
+                    freeReaderContext(reader.id());
+                }
+            }
         }
     }
 
@@ -984,9 +1117,18 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         // we also do rewrite on the coordinating node (TransportSearchService) but we also need to do it here for BWC as well as
         // AliasFilters that might need to be rewritten. These are edge-cases but we are every efficient doing the rewrite here so it's not
         // adding a lot of overhead
+        final IndexShard shard;
+        try {
+            shard = indicesService.indexServiceSafe(request.shardId().getIndex()).getShard(request.shardId().id());
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
         Rewriteable.rewriteAndFetch(request.getRewriteable(), indicesService.getRewriteContext(request::nowInMillis),
             ActionListener.wrap(r ->
-                    threadPool.executor(Names.SEARCH).execute(new AbstractRunnable() {
+                // if scheduled refreshes were skipped while the shard was search idle we wait for the next refresh
+                shard.awaitShardSearchActive(refreshed ->
+                    getExecutor(shard).execute(new AbstractRunnable() {
                         @Override
                         public void onFailure(Exception e) {
                             listener.onFailure(e);
@@ -996,7 +1138,33 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                         protected void doRun() throws Exception {
                             listener.onResponse(request);
                         }
-                    }), listener::onFailure));
+                    })), listener::onFailure));
+    }
+
+    /**
+     * Returns the executor that runs the search phases of the given shard. Shards of frozen indices open their reader for every
+     * search so their searches are throttled through a dedicated thread pool.
+     */
+    private Executor getExecutor(IndexShard indexShard) {
+        return threadPool.executor(indexShard.indexSettings().isFrozen() ? Names.SEARCH_THROTTLED : Names.SEARCH);
+    }
+
+    /**
+     * Returns the executor for operations on the given shard that are cheap enough to run on the calling thread, like the
+     * can_match phase or opening a point in time, unless the shard is frozen where acquiring a searcher opens a reader.
+     */
+    public Executor getLightweightExecutor(ShardId shardId) {
+        final IndexShard indexShard = indicesService.indexServiceSafe(shardId.getIndex()).getShard(shardId.id());
+        return threadPool.executor(indexShard.indexSettings().isFrozen() ? Names.SEARCH_THROTTLED : Names.SAME);
+    }
+
+    /**
+     * Returns the executor that runs the next phase of the search context with the given id. Phases of unknown contexts run on the
+     * search thread pool, where they fail because the context is missing.
+     */
+    public Executor getExecutor(long contextId) {
+        final SearchContext context = activeContexts.get(contextId);
+        return context == null ? threadPool.executor(Names.SEARCH) : getExecutor(context.indexShard());
     }
 
     /**
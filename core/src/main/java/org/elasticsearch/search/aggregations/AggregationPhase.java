@@ -48,25 +48,12 @@ public class AggregationPhase implements SearchPhase {
     @Override
     public void preProcess(SearchContext context) {
         if (context.aggregations() != null) {
-            List<Aggregator> collectors = new ArrayList<>();
-            Aggregator[] aggregators;
             try {
                 AggregatorFactories factories = context.aggregations().factories();
-                aggregators = factories.createTopLevelAggregators();
-                for (int i = 0; i < aggregators.length; i++) {
-                    if (aggregators[i] instanceof GlobalAggregator == false) {
-                        collectors.add(aggregators[i]);
-                    }
-                }
+                Aggregator[] aggregators = factories.createTopLevelAggregators();
                 context.aggregations().aggregators(aggregators);
-                if (!collectors.isEmpty()) {
-                    Collector collector = BucketCollector.wrap(collectors);
-                    ((BucketCollector)collector).preCollection();
-                    if (context.getProfilers() != null) {
-                        collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
-                                // TODO: report on child aggs as well
-                                Collections.emptyList());
-                    }
+                Collector collector = createCollector(context, aggregators);
+                if (collector != null) {
                     context.queryCollectors().put(AggregationPhase.class, collector);
                 }
             } catch (IOException e) {
@@ -75,6 +62,37 @@ public class AggregationPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Creates a fresh set of top level aggregators for an additional leaf slice of a concurrent segment search and
+     * returns the collector that feeds them, or <code>null</code> if only global aggregators are defined. The results of
+     * these aggregators are merged with the ones of the main aggregators in {@link #execute(SearchContext)}.
+     */
+    public static Collector createSliceCollector(SearchContext context) throws IOException {
+        Aggregator[] aggregators = context.aggregations().factories().createTopLevelAggregators();
+        context.aggregations().addSliceAggregators(aggregators);
+        return createCollector(context, aggregators);
+    }
+
+    private static Collector createCollector(SearchContext context, Aggregator[] aggregators) throws IOException {
+        List<Aggregator> collectors = new ArrayList<>();
+        for (int i = 0; i < aggregators.length; i++) {
+            if (aggregators[i] instanceof GlobalAggregator == false) {
+                collectors.add(aggregators[i]);
+            }
+        }
+        if (collectors.isEmpty()) {
+            return null;
+        }
+        Collector collector = BucketCollector.wrap(collectors);
+        ((BucketCollector)collector).preCollection();
+        if (context.getProfilers() != null) {
+            collector = new InternalProfileCollector(collector, CollectorResult.REASON_AGGREGATION,
+                    // TODO: report on child aggs as well
+                    Collections.emptyList());
+        }
+        return collector;
+    }
+
     @Override
     public void execute(SearchContext context) {
         if (context.aggregations() == null) {
@@ -122,11 +140,27 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        // merging the results of the leaf slices of a concurrent segment search must not apply anything that is specific
+        // to the final reduce, the shard result is reduced again with the results of the other shards
+        InternalAggregation.ReduceContext sliceReduceContext = sliceAggregators.isEmpty() ? null :
+            new InternalAggregation.ReduceContext(context.bigArrays(), context.getQueryShardContext().getScriptService(), false);
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
-        for (Aggregator aggregator : context.aggregations().aggregators()) {
+        for (int i = 0; i < aggregators.length; i++) {
+            Aggregator aggregator = aggregators[i];
             try {
                 aggregator.postCollection();
-                aggregations.add(aggregator.buildAggregation(0));
+                InternalAggregation aggregation = aggregator.buildAggregation(0);
+                if (sliceReduceContext != null && aggregator instanceof GlobalAggregator == false) {
+                    List<InternalAggregation> slices = new ArrayList<>(sliceAggregators.size() + 1);
+                    slices.add(aggregation);
+                    for (Aggregator[] slice : sliceAggregators) {
+                        slice[i].postCollection();
+                        slices.add(slice[i].buildAggregation(0));
+                    }
+                    aggregation = aggregation.reduce(slices, sliceReduceContext);
+                }
+                aggregations.add(aggregation);
             } catch (IOException e) {
                 throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
             }
@@ -160,8 +160,16 @@ public abstract class AggregatorBase extends Aggregator {
      */
     protected abstract LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException;
 
+    /**
+     * Can be overridden by aggregator implementations to be called back when collection moves to a new segment, before the
+     * leaf collectors of the sub aggregators are created.
+     */
+    protected void preGetSubLeafCollectors(LeafReaderContext ctx) throws IOException {
+    }
+
     @Override
     public final LeafBucketCollector getLeafCollector(LeafReaderContext ctx) throws IOException {
+        preGetSubLeafCollectors(ctx);
         final LeafBucketCollector sub = collectableSubAggregators.getLeafCollector(ctx);
         return getLeafCollector(ctx, sub);
     }
@@ -223,6 +223,18 @@ public class AggregatorFactories {
         return aggregators;
     }
 
+    /**
+     * Returns <code>true</code> if all the aggregators, including sub-aggregators, can collect leaf slices concurrently.
+     */
+    public boolean supportsConcurrentSegmentSearch() {
+        for (AggregatorFactory<?> factory : factories) {
+            if (factory.supportsConcurrentSegmentSearch() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the number of sub-aggregator factories not including pipeline
      *         aggregator factories
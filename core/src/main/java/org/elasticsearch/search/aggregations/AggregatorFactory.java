@@ -195,6 +195,15 @@ public abstract class AggregatorFactory<AF extends AggregatorFactory<AF>> {
     public void doValidate() {
     }
 
+    /**
+     * Returns <code>true</code> if the aggregators created by this factory can collect disjoint slices of the shard's
+     * segments separately, and have their per-slice results merged with a non-final reduce. Factories whose aggregators
+     * depend on seeing every document of the shard, like samplers or shard-level statistics, must return <code>false</code>.
+     */
+    protected boolean supportsConcurrentSegmentSearch() {
+        return factories.supportsConcurrentSegmentSearch();
+    }
+
     protected abstract Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException;
 
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
+
+import java.io.IOException;
+
+/**
+ * Reads the number of documents that a document stands for from the {@code _doc_count} field of pre-aggregated documents.
+ * Documents without a {@code _doc_count} count once.
+ */
+public class DocCountProvider {
+
+    private NumericDocValues docCountValues;
+
+    /**
+     * Returns the number of documents that the given document of the current segment stands for.
+     */
+    public int getDocCount(int doc) throws IOException {
+        if (docCountValues != null && docCountValues.advanceExact(doc)) {
+            return (int) docCountValues.longValue();
+        }
+        return 1;
+    }
+
+    /**
+     * Moves to a new segment.
+     */
+    public void setLeafReaderContext(LeafReaderContext ctx) throws IOException {
+        // null if no document of the segment is pre-aggregated, which is the common case
+        docCountValues = ctx.reader().getNumericDocValues(DocCountFieldMapper.NAME);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.RoaringDocIdSet;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the composite keys of the documents into a {@link CompositeValuesCollectorQueue} that only keeps the {@code size}
+ * smallest keys that sort after the after key. Sub aggregations are only collected for the keys that are in the queue at the
+ * end of the collection: the documents that produced a competitive key are recorded per segment and replayed once the keys are
+ * final, since the slots of the keys, which are used as bucket ordinals, are reused when keys are evicted from the queue.
+ */
+final class CompositeAggregator extends BucketsAggregator {
+    private final int size;
+    private final CompositeValuesSourceConfig[] sourceConfigs;
+    private final List<String> sourceNames;
+    private final int[] reverseMuls;
+    private final List<DocValueFormat> formats;
+    private final CompositeValuesSource<?>[] sources;
+    private final CompositeValuesCollectorQueue queue;
+    private final boolean unmapped;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private LeafReaderContext currentLeaf;
+    private RoaringDocIdSet.Builder docIdSetBuilder;
+    private int lastDoc = -1;
+
+    CompositeAggregator(String name, AggregatorFactories factories, SearchContext context, Aggregator parent,
+                        List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData,
+                        int size, CompositeValuesSourceConfig[] sourceConfigs, Map<String, Object> after) throws IOException {
+        super(name, factories, context, parent, pipelineAggregators, metaData);
+        this.size = size;
+        this.sourceConfigs = sourceConfigs;
+        this.sourceNames = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::name).collect(Collectors.toList());
+        this.reverseMuls = Arrays.stream(sourceConfigs).mapToInt(CompositeValuesSourceConfig::reverseMul).toArray();
+        this.formats = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::format).collect(Collectors.toList());
+        this.unmapped = Arrays.stream(sourceConfigs).anyMatch(config -> config.valuesSource() == null);
+        this.sources = new CompositeValuesSource<?>[sourceConfigs.length];
+        if (unmapped == false) {
+            for (int i = 0; i < sourceConfigs.length; i++) {
+                sources[i] = CompositeValuesSource.create(sourceConfigs[i], size + 1);
+            }
+            if (after != null) {
+                for (int i = 0; i < sourceConfigs.length; i++) {
+                    Object value = after.get(sourceConfigs[i].name());
+                    if (value == null) {
+                        throw new IllegalArgumentException("Missing value for [after." + sourceConfigs[i].name() + "]");
+                    }
+                    sources[i].setAfter(value, context.getQueryShardContext()::nowInMillis);
+                }
+            }
+        }
+        this.queue = new CompositeValuesCollectorQueue(sources, size, after != null);
+    }
+
+    @Override
+    public boolean needsScores() {
+        for (CompositeValuesSourceConfig config : sourceConfigs) {
+            if (config.valuesSource() != null && config.valuesSource().needsScores()) {
+                return true;
+            }
+        }
+        return super.needsScores();
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
+        assert owningBucketOrdinal == 0L;
+        List<InternalComposite.InternalBucket> buckets = new ArrayList<>(queue.size());
+        for (int slot : queue.sortedSlots()) {
+            CompositeKey key = queue.toCompositeKey(slot);
+            InternalAggregations aggs = bucketAggregations(slot);
+            buckets.add(new InternalComposite.InternalBucket(sourceNames, formats, key, reverseMuls, queue.getDocCount(slot), aggs));
+        }
+        return new InternalComposite(name, size, sourceNames, formats, buckets, reverseMuls, pipelineAggregators(), metaData());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalComposite(name, size, sourceNames, formats, Collections.emptyList(), reverseMuls, pipelineAggregators(),
+            metaData());
+    }
+
+    @Override
+    protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
+        finishLeaf();
+        if (unmapped) {
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
+        final boolean recordDocs = subAggregators.length > 0;
+        if (recordDocs) {
+            currentLeaf = ctx;
+            docIdSetBuilder = new RoaringDocIdSet.Builder(ctx.reader().maxDoc());
+            lastDoc = -1;
+        }
+        // the sub aggregations are collected when the documents are replayed
+        LeafBucketCollector collector = new LeafBucketCollector() {
+            @Override
+            public void collect(int doc, long bucket) throws IOException {
+                assert bucket == 0L;
+                int slot = queue.addIfCompetitive(docCountProvider.getDocCount(doc));
+                if (slot != -1 && recordDocs && doc != lastDoc) {
+                    docIdSetBuilder.add(doc);
+                    lastDoc = doc;
+                }
+            }
+        };
+        final boolean canEarlyTerminate = canEarlyTerminate(ctx.reader().getMetaData().getSort());
+        for (int i = sources.length - 1; i >= 0; i--) {
+            collector = sources[i].getLeafCollector(ctx, collector, i == 0 && canEarlyTerminate ? queue : null);
+        }
+        return collector;
+    }
+
+    @Override
+    protected void doPostCollection() throws IOException {
+        finishLeaf();
+        if (entries.isEmpty()) {
+            return;
+        }
+        final boolean needsScores = collectableSubAggregators.needsScores();
+        Weight weight = null;
+        if (needsScores) {
+            weight = context.searcher().createNormalizedWeight(context.query(), true);
+        }
+        for (Entry entry : entries) {
+            DocIdSetIterator docIdSetIterator = entry.docIdSet.iterator();
+            if (docIdSetIterator == null) {
+                continue;
+            }
+            docCountProvider.setLeafReaderContext(entry.context);
+            final LeafBucketCollector subCollector = collectableSubAggregators.getLeafCollector(entry.context);
+            LeafBucketCollector collector = new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    int slot = queue.getCurrentSlot();
+                    if (slot != -1) {
+                        collectBucket(subCollector, doc, slot);
+                    }
+                }
+            };
+            for (int i = sources.length - 1; i >= 0; i--) {
+                collector = sources[i].getLeafCollector(entry.context, collector, null);
+            }
+            DocIdSetIterator scorerIt = null;
+            if (needsScores) {
+                Scorer scorer = weight.scorer(entry.context);
+                // the recorded documents all match the query, so there is a scorer
+                scorerIt = scorer.iterator();
+                collector.setScorer(scorer);
+            }
+            int doc;
+            while ((doc = docIdSetIterator.nextDoc()) != DocIdSetIterator.NO_MORE_DOCS) {
+                if (needsScores) {
+                    if (scorerIt.docID() < doc) {
+                        scorerIt.advance(doc);
+                    }
+                    // aggregations should only be replayed on matching documents
+                    assert scorerIt.docID() == doc;
+                }
+                collector.collect(doc, 0L);
+            }
+        }
+        entries.clear();
+    }
+
+    private void finishLeaf() {
+        if (currentLeaf != null) {
+            if (lastDoc != -1) {
+                entries.add(new Entry(currentLeaf, docIdSetBuilder.build()));
+            }
+            currentLeaf = null;
+            docIdSetBuilder = null;
+        }
+    }
+
+    /**
+     * Whether the collection of a segment can be terminated early, which is the case if the segment is sorted by the field of the
+     * first source, in the same order and by the value of the documents that sorts first in this order.
+     */
+    private boolean canEarlyTerminate(Sort indexSort) {
+        if (indexSort == null || sourceConfigs[0].fieldName() == null) {
+            return false;
+        }
+        SortField sortField = indexSort.getSort()[0];
+        if (sourceConfigs[0].fieldName().equals(sortField.getField()) == false) {
+            return false;
+        }
+        final boolean reverse = reverseMuls[0] < 0;
+        if (sortField.getReverse() != reverse) {
+            return false;
+        }
+        if (sortField instanceof SortedNumericSortField) {
+            SortedNumericSelector.Type expected = reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN;
+            return sources[0] instanceof CompositeValuesSource.BinaryValuesSource == false
+                && ((SortedNumericSortField) sortField).getSelector() == expected;
+        } else if (sortField instanceof SortedSetSortField) {
+            SortedSetSelector.Type expected = reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN;
+            return sources[0] instanceof CompositeValuesSource.BinaryValuesSource
+                && ((SortedSetSortField) sortField).getSelector() == expected;
+        }
+        return false;
+    }
+
+    private static class Entry {
+        final LeafReaderContext context;
+        final DocIdSet docIdSet;
+
+        Entry(LeafReaderContext context, DocIdSet docIdSet) {
+            this.context = context;
+            this.docIdSet = docIdSet;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A bounded queue of the smallest composite keys that were collected, with their doc counts. The keys are stored in the slots
+ * of the {@link CompositeValuesSource}s, the queue only tracks the slots in the order of their keys. One slot more than the
+ * size of the queue is used to build the next candidate key from the current values of the sources.
+ */
+final class CompositeValuesCollectorQueue {
+    private final int maxSize;
+    private final CompositeValuesSource<?>[] sources;
+    private final TreeMap<Integer, Integer> keys;
+    private final long[] docCounts;
+    private final boolean afterKeySet;
+    // the slot of the next candidate key
+    private int candidate = 0;
+
+    /**
+     * @param sources     the sources of the composite key, which need to have {@code size + 1} slots
+     * @param size        the maximum number of keys of the queue
+     * @param afterKeySet whether the sources have an after value that the keys must sort after
+     */
+    CompositeValuesCollectorQueue(CompositeValuesSource<?>[] sources, int size, boolean afterKeySet) {
+        this.maxSize = size;
+        this.sources = sources;
+        this.keys = new TreeMap<>(this::compare);
+        this.docCounts = new long[size + 1];
+        this.afterKeySet = afterKeySet;
+    }
+
+    int size() {
+        return keys.size();
+    }
+
+    boolean isFull() {
+        return keys.size() == maxSize;
+    }
+
+    /**
+     * The slot of the largest key in the queue.
+     */
+    int lastSlot() {
+        return keys.lastKey();
+    }
+
+    /**
+     * The slots of the keys in the queue, in the order of their keys.
+     */
+    Set<Integer> sortedSlots() {
+        return keys.keySet();
+    }
+
+    long getDocCount(int slot) {
+        return docCounts[slot];
+    }
+
+    CompositeKey toCompositeKey(int slot) {
+        Comparable<?>[] values = new Comparable<?>[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            values[i] = sources[i].toComparable(slot);
+        }
+        return new CompositeKey(values);
+    }
+
+    /**
+     * Returns the slot of the key made of the current values of the sources if it is in the queue, or -1 otherwise.
+     */
+    int getCurrentSlot() {
+        copyCurrent();
+        Integer slot = keys.get(candidate);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Counts a document that stands for {@code docCount} documents for the key made of the current values of the sources,
+     * adding the key to the queue if it is competitive.
+     *
+     * @return the slot of the key, or -1 if the key is not competitive
+     */
+    int addIfCompetitive(long docCount) {
+        if (afterKeySet && compareCurrentWithAfter() <= 0) {
+            return -1;
+        }
+        copyCurrent();
+        Integer existing = keys.get(candidate);
+        if (existing != null) {
+            docCounts[existing] += docCount;
+            return existing;
+        }
+        final int slot = candidate;
+        if (keys.size() >= maxSize) {
+            int last = keys.lastKey();
+            if (compare(slot, last) > 0) {
+                return -1;
+            }
+            // the slot of the evicted key is reused for the next candidate
+            keys.remove(last);
+            candidate = last;
+        } else {
+            candidate = keys.size() + 1;
+        }
+        keys.put(slot, slot);
+        docCounts[slot] = docCount;
+        return slot;
+    }
+
+    private void copyCurrent() {
+        for (CompositeValuesSource<?> source : sources) {
+            source.copyCurrent(candidate);
+        }
+    }
+
+    private int compareCurrentWithAfter() {
+        for (CompositeValuesSource<?> source : sources) {
+            int cmp = source.compareCurrentWithAfter();
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private int compare(int slot1, int slot2) {
+        for (CompositeValuesSource<?> source : sources) {
+            int cmp = source.compare(slot1, slot2);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+}
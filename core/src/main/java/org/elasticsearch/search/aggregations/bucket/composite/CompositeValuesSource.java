@@ -0,0 +1,343 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+
+import java.io.IOException;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads the values of one source of a composite aggregation and stores them in slots, the composite key of a slot is made
+ * of the values of that slot in every source. The leaf collectors of the sources are chained: each of them sets the current
+ * value of its source to every unique value of a document and calls the leaf collector of the next source, so that the last
+ * one is called with every combination of values of the document.
+ */
+abstract class CompositeValuesSource<VS extends ValuesSource> {
+    protected final VS vs;
+    protected final DocValueFormat format;
+    protected final int reverseMul;
+
+    CompositeValuesSource(VS vs, DocValueFormat format, int reverseMul) {
+        this.vs = vs;
+        this.format = format;
+        this.reverseMul = reverseMul;
+    }
+
+    /**
+     * Copies the current value to the given slot.
+     */
+    abstract void copyCurrent(int slot);
+
+    /**
+     * Compares the values of two slots, in the order of the source.
+     */
+    abstract int compare(int from, int to);
+
+    /**
+     * Compares the current value with the value of the given slot, in the order of the source.
+     */
+    abstract int compareCurrent(int slot);
+
+    /**
+     * Compares the current value with the after value, in the order of the source.
+     */
+    abstract int compareCurrentWithAfter();
+
+    /**
+     * Sets the after value from the value that the after key of the request holds for this source.
+     */
+    abstract void setAfter(Object value, LongSupplier now);
+
+    /**
+     * The value of the given slot.
+     */
+    abstract Comparable<?> toComparable(int slot);
+
+    /**
+     * Creates the leaf collector that calls the given collector with every unique value of a document as the current value.
+     *
+     * @param queue the queue that the composite keys are collected into if the collector should terminate the collection of the
+     *              segment once the documents cannot produce competitive keys anymore, {@code null} otherwise. This requires
+     *              the segment to be sorted by the values of this source, in the order of this source.
+     */
+    abstract LeafBucketCollector getLeafCollector(LeafReaderContext context, LeafBucketCollector next,
+                                                  @Nullable CompositeValuesCollectorQueue queue) throws IOException;
+
+    static CompositeValuesSource<?> create(CompositeValuesSourceConfig config, int numSlots) {
+        if (config.valuesSource() instanceof ValuesSource.Numeric) {
+            ValuesSource.Numeric vs = (ValuesSource.Numeric) config.valuesSource();
+            if (vs.isFloatingPoint()) {
+                return new DoubleValuesSource(vs, config.format(), config.reverseMul(), numSlots);
+            }
+            return new LongValuesSource(vs, config.format(), config.reverseMul(), numSlots);
+        } else if (config.valuesSource() instanceof ValuesSource.Bytes) {
+            return new BinaryValuesSource((ValuesSource.Bytes) config.valuesSource(), config.format(), config.reverseMul(), numSlots);
+        }
+        throw new IllegalArgumentException("source [" + config.name() + "] does not support values of type ["
+            + config.valuesSource().getClass().getSimpleName() + "]");
+    }
+
+    /**
+     * Throws a {@link CollectionTerminatedException} if the given queue is full and the current value, which is the leading value
+     * of a document in the sort order of the segment, sorts after the value of the last key in the queue. All the following
+     * documents of the segment only have values that sort after it, so none of them can produce a competitive key.
+     */
+    final void checkEarlyTermination(@Nullable CompositeValuesCollectorQueue queue) {
+        if (queue != null && queue.isFull() && compareCurrent(queue.lastSlot()) > 0) {
+            throw new CollectionTerminatedException();
+        }
+    }
+
+    static final class LongValuesSource extends CompositeValuesSource<ValuesSource.Numeric> {
+        private final long[] values;
+        private long currentValue;
+        private long afterValue;
+
+        LongValuesSource(ValuesSource.Numeric vs, DocValueFormat format, int reverseMul, int numSlots) {
+            super(vs, format, reverseMul);
+            this.values = new long[numSlots];
+        }
+
+        @Override
+        void copyCurrent(int slot) {
+            values[slot] = currentValue;
+        }
+
+        @Override
+        int compare(int from, int to) {
+            return Long.compare(values[from], values[to]) * reverseMul;
+        }
+
+        @Override
+        int compareCurrent(int slot) {
+            return Long.compare(currentValue, values[slot]) * reverseMul;
+        }
+
+        @Override
+        int compareCurrentWithAfter() {
+            return Long.compare(currentValue, afterValue) * reverseMul;
+        }
+
+        @Override
+        void setAfter(Object value, LongSupplier now) {
+            if (value instanceof Number) {
+                afterValue = ((Number) value).longValue();
+            } else {
+                afterValue = format.parseLong(value.toString(), false, now);
+            }
+        }
+
+        @Override
+        Comparable<?> toComparable(int slot) {
+            return values[slot];
+        }
+
+        @Override
+        LeafBucketCollector getLeafCollector(LeafReaderContext context, LeafBucketCollector next,
+                                             CompositeValuesCollectorQueue queue) throws IOException {
+            final SortedNumericDocValues dvs = vs.longValues(context);
+            return new LeafBucketCollectorBase(next, dvs) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    if (dvs.advanceExact(doc)) {
+                        final int num = dvs.docValueCount();
+                        long previous = 0;
+                        long leading = 0;
+                        for (int i = 0; i < num; i++) {
+                            long value = dvs.nextValue();
+                            if (i == 0 || reverseMul < 0) {
+                                leading = value;
+                            }
+                            if (i > 0 && value == previous) {
+                                continue;
+                            }
+                            previous = value;
+                            currentValue = value;
+                            next.collect(doc, bucket);
+                        }
+                        currentValue = leading;
+                        checkEarlyTermination(queue);
+                    }
+                }
+            };
+        }
+    }
+
+    static final class DoubleValuesSource extends CompositeValuesSource<ValuesSource.Numeric> {
+        private final double[] values;
+        private double currentValue;
+        private double afterValue;
+
+        DoubleValuesSource(ValuesSource.Numeric vs, DocValueFormat format, int reverseMul, int numSlots) {
+            super(vs, format, reverseMul);
+            this.values = new double[numSlots];
+        }
+
+        @Override
+        void copyCurrent(int slot) {
+            values[slot] = currentValue;
+        }
+
+        @Override
+        int compare(int from, int to) {
+            return Double.compare(values[from], values[to]) * reverseMul;
+        }
+
+        @Override
+        int compareCurrent(int slot) {
+            return Double.compare(currentValue, values[slot]) * reverseMul;
+        }
+
+        @Override
+        int compareCurrentWithAfter() {
+            return Double.compare(currentValue, afterValue) * reverseMul;
+        }
+
+        @Override
+        void setAfter(Object value, LongSupplier now) {
+            if (value instanceof Number) {
+                afterValue = ((Number) value).doubleValue();
+            } else {
+                afterValue = format.parseDouble(value.toString(), false, now);
+            }
+        }
+
+        @Override
+        Comparable<?> toComparable(int slot) {
+            return values[slot];
+        }
+
+        @Override
+        LeafBucketCollector getLeafCollector(LeafReaderContext context, LeafBucketCollector next,
+                                             CompositeValuesCollectorQueue queue) throws IOException {
+            final SortedNumericDoubleValues dvs = vs.doubleValues(context);
+            return new LeafBucketCollectorBase(next, dvs) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    if (dvs.advanceExact(doc)) {
+                        final int num = dvs.docValueCount();
+                        double previous = 0;
+                        double leading = 0;
+                        for (int i = 0; i < num; i++) {
+                            double value = dvs.nextValue();
+                            if (i == 0 || reverseMul < 0) {
+                                leading = value;
+                            }
+                            if (i > 0 && Double.compare(value, previous) == 0) {
+                                continue;
+                            }
+                            previous = value;
+                            currentValue = value;
+                            next.collect(doc, bucket);
+                        }
+                        currentValue = leading;
+                        checkEarlyTermination(queue);
+                    }
+                }
+            };
+        }
+    }
+
+    static final class BinaryValuesSource extends CompositeValuesSource<ValuesSource.Bytes> {
+        private final BytesRefBuilder[] values;
+        private final BytesRefBuilder previous = new BytesRefBuilder();
+        private final BytesRefBuilder leading = new BytesRefBuilder();
+        private BytesRef currentValue;
+        private BytesRef afterValue;
+
+        BinaryValuesSource(ValuesSource.Bytes vs, DocValueFormat format, int reverseMul, int numSlots) {
+            super(vs, format, reverseMul);
+            this.values = new BytesRefBuilder[numSlots];
+        }
+
+        @Override
+        void copyCurrent(int slot) {
+            if (values[slot] == null) {
+                values[slot] = new BytesRefBuilder();
+            }
+            values[slot].copyBytes(currentValue);
+        }
+
+        @Override
+        int compare(int from, int to) {
+            return values[from].get().compareTo(values[to].get()) * reverseMul;
+        }
+
+        @Override
+        int compareCurrent(int slot) {
+            return currentValue.compareTo(values[slot].get()) * reverseMul;
+        }
+
+        @Override
+        int compareCurrentWithAfter() {
+            return currentValue.compareTo(afterValue) * reverseMul;
+        }
+
+        @Override
+        void setAfter(Object value, LongSupplier now) {
+            afterValue = format.parseBytesRef(value.toString());
+        }
+
+        @Override
+        Comparable<?> toComparable(int slot) {
+            return values[slot].toBytesRef();
+        }
+
+        @Override
+        LeafBucketCollector getLeafCollector(LeafReaderContext context, LeafBucketCollector next,
+                                             CompositeValuesCollectorQueue queue) throws IOException {
+            final SortedBinaryDocValues dvs = vs.bytesValues(context);
+            return new LeafBucketCollectorBase(next, dvs) {
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    if (dvs.advanceExact(doc)) {
+                        final int num = dvs.docValueCount();
+                        for (int i = 0; i < num; i++) {
+                            BytesRef value = dvs.nextValue();
+                            if (i == 0 || reverseMul < 0) {
+                                // the values may share a buffer that is reused by the next value
+                                leading.copyBytes(value);
+                            }
+                            if (i > 0 && value.equals(previous.get())) {
+                                continue;
+                            }
+                            previous.copyBytes(value);
+                            currentValue = value;
+                            next.collect(doc, bucket);
+                        }
+                        currentValue = leading.get();
+                        checkEarlyTermination(queue);
+                    }
+                }
+            };
+        }
+    }
+}
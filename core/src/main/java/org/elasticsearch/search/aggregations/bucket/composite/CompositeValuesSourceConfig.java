@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.sort.SortOrder;
+
+/**
+ * The resolved configuration of a {@link CompositeValuesSourceBuilder} on a shard.
+ */
+public final class CompositeValuesSourceConfig {
+
+    private final String name;
+    private final ValuesSource vs;
+    private final DocValueFormat format;
+    private final int reverseMul;
+    private final String fieldName;
+
+    /**
+     * @param vs        the values source, or {@code null} if the field is unmapped
+     * @param fieldName the name of the field whose values are read, or {@code null} if the values come from a script
+     */
+    CompositeValuesSourceConfig(String name, @Nullable ValuesSource vs, DocValueFormat format, SortOrder order,
+                                @Nullable String fieldName) {
+        this.name = name;
+        this.vs = vs;
+        this.format = format;
+        this.reverseMul = order == SortOrder.ASC ? 1 : -1;
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * The name of the source.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * The values source, or {@code null} if the field is unmapped.
+     */
+    @Nullable
+    public ValuesSource valuesSource() {
+        return vs;
+    }
+
+    /**
+     * The format of the values.
+     */
+    public DocValueFormat format() {
+        return format;
+    }
+
+    /**
+     * {@code 1} if the values are sorted in ascending order, {@code -1} otherwise.
+     */
+    public int reverseMul() {
+        return reverseMul;
+    }
+
+    /**
+     * The name of the field whose values are read, or {@code null} if the values come from a script.
+     */
+    @Nullable
+    public String fieldName() {
+        return fieldName;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+public class InternalComposite
+    extends InternalMultiBucketAggregation<InternalComposite, InternalComposite.InternalBucket> implements CompositeAggregation {
+
+    static final ParseField AFTER_KEY_FIELD = new ParseField("after_key");
+
+    private final int size;
+    private final List<InternalBucket> buckets;
+    private final List<String> sourceNames;
+    private final List<DocValueFormat> formats;
+    private final int[] reverseMuls;
+
+    InternalComposite(String name, int size, List<String> sourceNames, List<DocValueFormat> formats, List<InternalBucket> buckets,
+                      int[] reverseMuls, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+        super(name, pipelineAggregators, metaData);
+        this.sourceNames = sourceNames;
+        this.formats = formats;
+        this.buckets = buckets;
+        this.size = size;
+        this.reverseMuls = reverseMuls;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public InternalComposite(StreamInput in) throws IOException {
+        super(in);
+        this.size = in.readVInt();
+        this.sourceNames = in.readList(StreamInput::readString);
+        this.formats = new ArrayList<>(sourceNames.size());
+        for (int i = 0; i < sourceNames.size(); i++) {
+            formats.add(in.readNamedWriteable(DocValueFormat.class));
+        }
+        this.reverseMuls = in.readIntArray();
+        this.buckets = in.readList((input) -> new InternalBucket(input, sourceNames, formats, reverseMuls));
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeVInt(size);
+        out.writeStringList(sourceNames);
+        for (DocValueFormat format : formats) {
+            out.writeNamedWriteable(format);
+        }
+        out.writeIntArray(reverseMuls);
+        out.writeList(buckets);
+    }
+
+    @Override
+    public String getWriteableName() {
+        return CompositeAggregationBuilder.NAME;
+    }
+
+    @Override
+    public InternalComposite create(List<InternalBucket> buckets) {
+        return new InternalComposite(name, size, sourceNames, formats, buckets, reverseMuls, pipelineAggregators(), getMetaData());
+    }
+
+    @Override
+    public InternalBucket createBucket(InternalAggregations aggregations, InternalBucket prototype) {
+        return new InternalBucket(prototype.sourceNames, prototype.formats, prototype.key, prototype.reverseMuls, prototype.docCount,
+            aggregations);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public List<InternalBucket> getBuckets() {
+        return buckets;
+    }
+
+    @Override
+    public Map<String, Object> afterKey() {
+        return buckets.size() > 0 ? buckets.get(buckets.size() - 1).getKey() : null;
+    }
+
+    // Visible for tests
+    int[] getReverseMuls() {
+        return reverseMuls;
+    }
+
+    @Override
+    public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        // every shard returns its smallest keys in order, so the smallest keys of the merged buckets are complete
+        PriorityQueue<BucketIterator> pq = new PriorityQueue<>(aggregations.size());
+        for (InternalAggregation agg : aggregations) {
+            InternalComposite sortedAgg = (InternalComposite) agg;
+            if (sortedAgg.buckets.isEmpty() == false) {
+                pq.add(new BucketIterator(sortedAgg.buckets));
+            }
+        }
+        List<InternalBucket> buckets = new ArrayList<>();
+        List<InternalBucket> sameKeyBuckets = new ArrayList<>();
+        while (pq.isEmpty() == false) {
+            BucketIterator bucketIt = pq.poll();
+            if (sameKeyBuckets.isEmpty() == false && sameKeyBuckets.get(0).compareKey(bucketIt.current) != 0) {
+                buckets.add(sameKeyBuckets.get(0).reduce(sameKeyBuckets, reduceContext));
+                sameKeyBuckets.clear();
+                if (buckets.size() >= size) {
+                    break;
+                }
+            }
+            sameKeyBuckets.add(bucketIt.current);
+            if (bucketIt.next() != null) {
+                pq.add(bucketIt);
+            }
+        }
+        if (sameKeyBuckets.isEmpty() == false && buckets.size() < size) {
+            buckets.add(sameKeyBuckets.get(0).reduce(sameKeyBuckets, reduceContext));
+        }
+        return new InternalComposite(name, size, sourceNames, formats, buckets, reverseMuls, pipelineAggregators(), getMetaData());
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        if (buckets.isEmpty() == false) {
+            InternalBucket lastBucket = buckets.get(buckets.size() - 1);
+            builder.field(AFTER_KEY_FIELD.getPreferredName());
+            lastBucket.keyToXContent(builder);
+        }
+        builder.startArray(CommonFields.BUCKETS.getPreferredName());
+        for (InternalBucket bucket : buckets) {
+            bucket.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(size, buckets, sourceNames, Arrays.hashCode(reverseMuls));
+    }
+
+    @Override
+    protected boolean doEquals(Object obj) {
+        InternalComposite that = (InternalComposite) obj;
+        return Objects.equals(size, that.size)
+            && Objects.equals(buckets, that.buckets)
+            && Objects.equals(sourceNames, that.sourceNames)
+            && Arrays.equals(reverseMuls, that.reverseMuls);
+    }
+
+    private static class BucketIterator implements Comparable<BucketIterator> {
+        final Iterator<InternalBucket> it;
+        InternalBucket current;
+
+        private BucketIterator(List<InternalBucket> buckets) {
+            this.it = buckets.iterator();
+            this.current = it.next();
+        }
+
+        @Override
+        public int compareTo(BucketIterator other) {
+            return current.compareKey(other.current);
+        }
+
+        InternalBucket next() {
+            return current = it.hasNext() ? it.next() : null;
+        }
+    }
+
+    public static class InternalBucket extends InternalMultiBucketAggregation.InternalBucket implements CompositeAggregation.Bucket {
+
+        private final CompositeKey key;
+        private final long docCount;
+        private final InternalAggregations aggregations;
+        private final int[] reverseMuls;
+        private final List<String> sourceNames;
+        private final List<DocValueFormat> formats;
+
+        InternalBucket(List<String> sourceNames, List<DocValueFormat> formats, CompositeKey key, int[] reverseMuls, long docCount,
+                       InternalAggregations aggregations) {
+            this.key = key;
+            this.docCount = docCount;
+            this.aggregations = aggregations;
+            this.reverseMuls = reverseMuls;
+            this.sourceNames = sourceNames;
+            this.formats = formats;
+        }
+
+        InternalBucket(StreamInput in, List<String> sourceNames, List<DocValueFormat> formats, int[] reverseMuls) throws IOException {
+            this.key = new CompositeKey(in);
+            this.docCount = in.readVLong();
+            this.aggregations = InternalAggregations.readAggregations(in);
+            this.reverseMuls = reverseMuls;
+            this.sourceNames = sourceNames;
+            this.formats = formats;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            key.writeTo(out);
+            out.writeVLong(docCount);
+            aggregations.writeTo(out);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(getClass(), docCount, key, aggregations);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            InternalBucket that = (InternalBucket) obj;
+            return Objects.equals(docCount, that.docCount)
+                && Objects.equals(key, that.key)
+                && Objects.equals(aggregations, that.aggregations);
+        }
+
+        @Override
+        public Map<String, Object> getKey() {
+            Map<String, Object> map = new LinkedHashMap<>(key.size());
+            for (int i = 0; i < key.size(); i++) {
+                map.put(sourceNames.get(i), formatObject(key.get(i), formats.get(i)));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        // Visible for tests
+        CompositeKey getRawKey() {
+            return key;
+        }
+
+        @Override
+        public String getKeyAsString() {
+            return getKey().toString();
+        }
+
+        @Override
+        public long getDocCount() {
+            return docCount;
+        }
+
+        @Override
+        public Aggregations getAggregations() {
+            return aggregations;
+        }
+
+        InternalBucket reduce(List<InternalBucket> buckets, ReduceContext reduceContext) {
+            List<InternalAggregations> aggregations = new ArrayList<>(buckets.size());
+            long docCount = 0;
+            for (InternalBucket bucket : buckets) {
+                docCount += bucket.docCount;
+                aggregations.add(bucket.aggregations);
+            }
+            InternalAggregations aggs = InternalAggregations.reduce(aggregations, reduceContext);
+            return new InternalBucket(sourceNames, formats, key, reverseMuls, docCount, aggs);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        int compareKey(InternalBucket other) {
+            for (int i = 0; i < key.size(); i++) {
+                assert key.get(i).getClass() == other.key.get(i).getClass();
+                int cmp = ((Comparable) key.get(i)).compareTo(other.key.get(i)) * reverseMuls[i];
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+        XContentBuilder keyToXContent(XContentBuilder builder) throws IOException {
+            builder.startObject();
+            for (int i = 0; i < key.size(); i++) {
+                builder.field(sourceNames.get(i), formatObject(key.get(i), formats.get(i)));
+            }
+            builder.endObject();
+            return builder;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(CommonFields.KEY.getPreferredName());
+            keyToXContent(builder);
+            builder.field(CommonFields.DOC_COUNT.getPreferredName(), docCount);
+            aggregations.toXContentInternal(builder, params);
+            builder.endObject();
+            return builder;
+        }
+    }
+
+    /**
+     * Formats a raw value of a composite key. Numbers are kept as they are unless they have a specific format, so that they can
+     * be passed back in the after key of the next request.
+     */
+    static Object formatObject(Object obj, DocValueFormat format) {
+        if (obj instanceof BytesRef) {
+            return format.format((BytesRef) obj);
+        } else if (obj instanceof Long) {
+            return format == DocValueFormat.RAW ? obj : format.format((Long) obj);
+        } else if (obj instanceof Double) {
+            return format == DocValueFormat.RAW ? obj : format.format((Double) obj);
+        }
+        return obj;
+    }
+}
@@ -19,7 +19,12 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
 import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
@@ -77,8 +82,31 @@ public final class DateHistogramAggregatorFactory
 
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
-        return new DateHistogramAggregator(name, factories, rounding, offset, order, keyed, minDocCount, extendedBounds, valuesSource,
-                config.format(), context, parent, pipelineAggregators, metaData);
+        return new DateHistogramAggregator(name, factories, rounding, prepareRounding(valuesSource), offset, order, keyed, minDocCount,
+                extendedBounds, valuesSource, config.format(), context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * Prepares the rounding for the range of values that the date field has in this shard, so that rounding in a time zone
+     * with offset transitions does not need to look up the time zone for every document.
+     */
+    private Rounding prepareRounding(ValuesSource.Numeric valuesSource) throws IOException {
+        if (valuesSource == null || config.fieldContext() == null || config.script() != null) {
+            return rounding;
+        }
+        MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType instanceof DateFieldMapper.DateFieldType == false) {
+            return rounding;
+        }
+        IndexReader reader = context.searcher().getIndexReader();
+        String field = fieldType.name();
+        if (PointValues.size(reader, field) == 0) {
+            return rounding;
+        }
+        long min = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, field), 0);
+        long max = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, field), 0);
+        // values are shifted by the offset before they are rounded
+        return rounding.prepare(min - offset, max - offset);
     }
 
     @Override
@@ -175,6 +175,12 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         };
     }
 
+    @Override
+    protected boolean supportsConcurrentSegmentSearch() {
+        // background and subset sizes are shard-level statistics that must not be summed across slices
+        return false;
+    }
+
     @Override
     protected Aggregator doCreateInternal(ValuesSource valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
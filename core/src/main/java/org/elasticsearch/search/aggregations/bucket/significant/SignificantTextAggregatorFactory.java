@@ -151,6 +151,12 @@ public class SignificantTextAggregatorFactory extends AggregatorFactory<Signific
         }
     }
 
+    @Override
+    protected boolean supportsConcurrentSegmentSearch() {
+        // background and subset sizes are shard-level statistics that must not be summed across slices
+        return false;
+    }
+
     @Override
     protected Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
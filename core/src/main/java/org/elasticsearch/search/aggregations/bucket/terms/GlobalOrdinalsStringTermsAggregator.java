@@ -336,7 +336,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                         assert bucket == 0;
                         if (singleValues.advanceExact(doc)) {
                             final int ord = singleValues.ordValue();
-                            segmentDocCounts.increment(ord + 1, 1);
+                            segmentDocCounts.increment(ord + 1, docCountProvider.getDocCount(doc));
                         }
                     }
                 };
@@ -347,7 +347,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                         assert bucket == 0;
                         if (segmentOrds.advanceExact(doc)) {
                             for (long segmentOrd = segmentOrds.nextOrd(); segmentOrd != NO_MORE_ORDS; segmentOrd = segmentOrds.nextOrd()) {
-                                segmentDocCounts.increment(segmentOrd + 1, 1);
+                                segmentDocCounts.increment(segmentOrd + 1, docCountProvider.getDocCount(doc));
                             }
                         }
                     }
@@ -29,6 +29,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
@@ -55,6 +56,7 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
 
     private final int precision;
     private final ValuesSource valuesSource;
+    private final boolean mergeSketches;
 
     // Expensive to initialize, so we only initialize it when we have an actual value source
     @Nullable
@@ -64,8 +66,18 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
 
     public CardinalityAggregator(String name, ValuesSource valuesSource, int precision,
             SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        this(name, valuesSource, precision, false, context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * @param mergeSketches whether the values of the values source are serialized {@link HyperLogLogPlusPlus} sketches
+     *                      of the given precision that should be merged rather than hashed
+     */
+    public CardinalityAggregator(String name, ValuesSource valuesSource, int precision, boolean mergeSketches,
+            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
+        this.mergeSketches = mergeSketches;
         this.precision = precision;
         this.counts = valuesSource == null ? null : new HyperLogLogPlusPlus(precision, context.bigArrays(), 1);
     }
@@ -80,6 +92,10 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
             return new EmptyCollector();
         }
 
+        if (mergeSketches) {
+            return new SketchCollector(counts, valuesSource.bytesValues(ctx));
+        }
+
         if (valuesSource instanceof ValuesSource.Numeric) {
             ValuesSource.Numeric source = (ValuesSource.Numeric) valuesSource;
             MurmurHash3Values hashValues = source.isFloatingPoint() ? MurmurHash3Values.hash(source.doubleValues(ctx)) : MurmurHash3Values.hash(source.longValues(ctx));
@@ -213,6 +229,43 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
 
     }
 
+    /**
+     * Merges the pre-aggregated sketches that are stored in the values of a field.
+     */
+    private static class SketchCollector extends Collector {
+
+        private final HyperLogLogPlusPlus counts;
+        private final SortedBinaryDocValues values;
+
+        SketchCollector(HyperLogLogPlusPlus counts, SortedBinaryDocValues values) {
+            this.counts = counts;
+            this.values = values;
+        }
+
+        @Override
+        public void collect(int doc, long bucketOrd) throws IOException {
+            if (values.advanceExact(doc)) {
+                final int valueCount = values.docValueCount();
+                for (int i = 0; i < valueCount; ++i) {
+                    final BytesRef sketch = values.nextValue();
+                    try (StreamInput in = StreamInput.wrap(sketch.bytes, sketch.offset, sketch.length)) {
+                        counts.merge(bucketOrd, in);
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void postCollect() {
+            // no-op
+        }
+
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+
     private static class OrdinalsCollector extends Collector {
 
         private static final long SHALLOW_FIXEDBITSET_SIZE = RamUsageEstimator.shallowSizeOfInstance(FixedBitSet.class);
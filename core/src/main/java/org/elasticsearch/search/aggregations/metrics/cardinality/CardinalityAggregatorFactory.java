@@ -52,10 +52,24 @@ public class CardinalityAggregatorFactory extends ValuesSourceAggregatorFactory<
     @Override
     protected Aggregator doCreateInternal(ValuesSource valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        HyperLogLogPlusPlusFieldType sketchFieldType = sketchFieldType();
+        if (sketchFieldType != null) {
+            // the sketches can only be merged at the precision they were built with
+            return new CardinalityAggregator(name, valuesSource, sketchFieldType.precision(), true, context, parent,
+                    pipelineAggregators, metaData);
+        }
         return new CardinalityAggregator(name, valuesSource, precision(), context, parent, pipelineAggregators,
                 metaData);
     }
 
+    private HyperLogLogPlusPlusFieldType sketchFieldType() {
+        if (config.script() == null && config.fieldContext() != null
+                && config.fieldContext().fieldType() instanceof HyperLogLogPlusPlusFieldType) {
+            return (HyperLogLogPlusPlusFieldType) config.fieldContext().fieldType();
+        }
+        return null;
+    }
+
     private int precision() {
         return precisionThreshold == null
                 ? HyperLogLogPlusPlus.DEFAULT_PRECISION
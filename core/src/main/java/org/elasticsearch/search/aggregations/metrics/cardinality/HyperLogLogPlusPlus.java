@@ -202,16 +202,21 @@ public final class HyperLogLogPlusPlus implements Releasable {
         runLens = bigArrays.grow(runLens, numBuckets << p);
     }
 
+    /**
+     * Merge the given bucket of another sketch into the given bucket of this sketch. The other sketch may have a higher
+     * precision than this one, in which case it is downsampled to the precision of this sketch while being merged.
+     */
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
-        if (p != other.p) {
-            throw new IllegalArgumentException();
+        if (other.p < p) {
+            throw new IllegalArgumentException("Cannot merge a sketch with precision [" + other.p + "] into a sketch with precision ["
+                    + p + "], sketches can only be merged into a sketch of the same or a lower precision");
         }
         ensureCapacity(thisBucket + 1);
         if (other.algorithm.get(otherBucket) == LINEAR_COUNTING) {
             final IntArray values = other.hashSet.values(otherBucket);
             try {
                 for (long i = 0; i < values.size(); ++i) {
-                    final int encoded = values.get(i);
+                    final int encoded = downsampleEncoded(values.get(i), p);
                     if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
                         collectLcEncoded(thisBucket, encoded);
                     } else {
@@ -226,9 +231,54 @@ public final class HyperLogLogPlusPlus implements Releasable {
                 upgradeToHll(thisBucket);
             }
             final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
+            final long otherStart = otherBucket << other.p;
+            if (other.p == p) {
+                for (int i = 0; i < m; ++i) {
+                    runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+                }
+            } else {
+                // the low bits of the index at the higher precision are the first bits of the run at the lower precision
+                final int shift = other.p - p;
+                for (int i = 0; i < other.m; ++i) {
+                    final int runLen = other.runLens.get(otherStart + i);
+                    if (runLen != 0) {
+                        final int suffix = i & (int) mask(shift);
+                        final int downsampled = suffix == 0 ? runLen + shift : shift - (31 - Integer.numberOfLeadingZeros(suffix));
+                        collectHll(thisBucket, i >>> shift, downsampled);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge a sketch that was serialized with {@link #writeTo(long, StreamOutput)} into the given bucket, without
+     * deserializing it into its own {@link HyperLogLogPlusPlus} first.
+     */
+    public void merge(long thisBucket, StreamInput in) throws IOException {
+        final int precision = in.readVInt();
+        if (precision != p) {
+            throw new IllegalArgumentException("Cannot merge a sketch with precision [" + precision + "] into a sketch with precision ["
+                    + p + "]");
+        }
+        ensureCapacity(thisBucket + 1);
+        if (in.readBoolean() == LINEAR_COUNTING) {
+            final long size = in.readVLong();
+            for (long i = 0; i < size; ++i) {
+                final int encoded = in.readInt();
+                if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
+                    collectLcEncoded(thisBucket, encoded);
+                } else {
+                    collectHllEncoded(thisBucket, encoded);
+                }
+            }
+        } else {
+            if (algorithm.get(thisBucket) != HYPERLOGLOG) {
+                upgradeToHll(thisBucket);
+            }
+            final long thisStart = thisBucket << p;
             for (int i = 0; i < m; ++i) {
-                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
+                runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), in.readByte()));
             }
         }
     }
@@ -350,6 +400,21 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return (int) encoded;
     }
 
+    /**
+     * Re-encode a hash that was encoded at a higher precision so that it decodes at the precision <code>p</code>. Hashes whose
+     * run length was stored because the bits after the index were all zeros must store these bits instead if some of them
+     * become part of the run at the lower precision.
+     */
+    static int downsampleEncoded(int encoded, int p) {
+        if ((encoded & 1) == 1) {
+            final long e = encoded >>> 7;
+            if ((e & mask(P2 - p)) != 0) {
+                return (int) (e << 1);
+            }
+        }
+        return encoded;
+    }
+
     static int decodeRunLen(int encoded, int p) {
         if ((encoded & 1) == 1) {
             return (((encoded >>> 1) & 0x3F) + (P2 - p));
@@ -0,0 +1,35 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.metrics.cardinality;
+
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.mapper.MappedFieldType;
+
+/**
+ * Implemented by {@link MappedFieldType}s whose values are pre-aggregated sketches serialized with
+ * {@link HyperLogLogPlusPlus#writeTo(long, StreamOutput)}. The {@code cardinality} aggregation merges these sketches
+ * rather than hashing the values of the field.
+ */
+public interface HyperLogLogPlusPlusFieldType {
+
+    /**
+     * The precision of the sketches that are stored in this field.
+     */
+    int precision();
+}
@@ -35,7 +35,7 @@ import java.util.Map;
 public final class InternalCardinality extends InternalNumericMetricsAggregation.SingleValue implements Cardinality {
     private final HyperLogLogPlusPlus counts;
 
-    InternalCardinality(String name, HyperLogLogPlusPlus counts, List<PipelineAggregator> pipelineAggregators,
+    public InternalCardinality(String name, HyperLogLogPlusPlus counts, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) {
         super(name, pipelineAggregators, metaData);
         this.counts = counts;
@@ -82,12 +82,21 @@ public final class InternalCardinality extends InternalNumericMetricsAggregation
 
     @Override
     public InternalAggregation doReduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
+        // shards may count at different precisions, for instance when sketches of a hyperloglog field are merged at the
+        // precision of the field, so the higher precisions are downsampled to the lowest one
+        int precision = Integer.MAX_VALUE;
+        for (InternalAggregation aggregation : aggregations) {
+            final InternalCardinality cardinality = (InternalCardinality) aggregation;
+            if (cardinality.counts != null) {
+                precision = Math.min(precision, cardinality.counts.precision());
+            }
+        }
         InternalCardinality reduced = null;
         for (InternalAggregation aggregation : aggregations) {
             final InternalCardinality cardinality = (InternalCardinality) aggregation;
             if (cardinality.counts != null) {
                 if (reduced == null) {
-                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(cardinality.counts.precision(),
+                    reduced = new InternalCardinality(name, new HyperLogLogPlusPlus(precision,
                             BigArrays.NON_RECYCLING_INSTANCE, 1), pipelineAggregators(), getMetaData());
                 }
                 reduced.merge(cardinality);
@@ -18,7 +18,11 @@
  */
 package org.elasticsearch.search.aggregations.metrics.max;
 
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
@@ -33,25 +37,34 @@ import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+
+import static org.elasticsearch.search.aggregations.metrics.min.MinAggregator.getPointReaderOrNull;
 
 public class MaxAggregator extends NumericMetricsAggregator.SingleValue {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat formatter;
 
+    final String pointField;
+    final Function<byte[], Number> pointConverter;
+
     DoubleArray maxes;
 
-    public MaxAggregator(String name, ValuesSource.Numeric valuesSource, DocValueFormat formatter,
-            SearchContext context,
+    public MaxAggregator(String name, ValuesSourceConfig<ValuesSource.Numeric> config, ValuesSource.Numeric valuesSource,
+            DocValueFormat formatter, SearchContext context,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
+        this.pointConverter = valuesSource == null ? null : getPointReaderOrNull(context, parent, config);
+        this.pointField = pointConverter == null ? null : config.fieldContext().field();
         this.formatter = formatter;
         if (valuesSource != null) {
             maxes = context.bigArrays().newDoubleArray(1, false);
@@ -70,6 +83,15 @@ public class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
     }
+        if (pointConverter != null) {
+            final Number segmentMax = findLeafMaxValue(ctx.reader(), pointField, pointConverter);
+            if (segmentMax != null) {
+                // there is no parent aggregator so the maximum is always collected into the first bucket
+                maxes.set(0, Math.max(maxes.get(0), segmentMax.doubleValue()));
+                // the maximum of the segment is known, there is no need to collect its documents
+                throw new CollectionTerminatedException();
+            }
+        }
         final BigArrays bigArrays = context.bigArrays();
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues, Double.NEGATIVE_INFINITY);
@@ -118,4 +140,18 @@ public class MaxAggregator extends NumericMetricsAggregator.SingleValue {
     public void doClose() {
         Releasables.close(maxes);
     }
+
+    /**
+     * Returns the maximum value of the points of the given field in the given segment, or <code>null</code> if the segment has no
+     * points for the field or has deleted documents. Unlike the minimum, finding the maximum value of a live document would
+     * require to visit all points, so segments with deletions are collected from doc values instead.
+     */
+    @Nullable
+    public static Number findLeafMaxValue(LeafReader reader, String field, Function<byte[], Number> converter) throws IOException {
+        final PointValues pointValues = reader.getPointValues(field);
+        if (pointValues == null || reader.getLiveDocs() != null) {
+            return null;
+        }
+        return converter.apply(pointValues.getMaxPackedValue());
+    }
 }
@@ -18,12 +18,23 @@
  */
 package org.elasticsearch.search.aggregations.metrics.min;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.index.fielddata.NumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -33,24 +44,31 @@ import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public class MinAggregator extends NumericMetricsAggregator.SingleValue {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat format;
 
+    final String pointField;
+    final Function<byte[], Number> pointConverter;
+
     DoubleArray mins;
 
-    public MinAggregator(String name, ValuesSource.Numeric valuesSource, DocValueFormat formatter,
-            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+    public MinAggregator(String name, ValuesSourceConfig<ValuesSource.Numeric> config, ValuesSource.Numeric valuesSource,
+            DocValueFormat formatter, SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
+        this.pointConverter = valuesSource == null ? null : getPointReaderOrNull(context, parent, config);
+        this.pointField = pointConverter == null ? null : config.fieldContext().field();
         if (valuesSource != null) {
             mins = context.bigArrays().newDoubleArray(1, false);
             mins.fill(0, mins.size(), Double.POSITIVE_INFINITY);
@@ -69,6 +87,15 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (pointConverter != null) {
+            final Number segmentMin = findLeafMinValue(ctx.reader(), pointField, pointConverter);
+            if (segmentMin != null) {
+                // there is no parent aggregator so the minimum is always collected into the first bucket
+                mins.set(0, Math.min(mins.get(0), segmentMin.doubleValue()));
+                // the minimum of the segment is known, there is no need to collect its documents
+                throw new CollectionTerminatedException();
+            }
+        }
         final BigArrays bigArrays = context.bigArrays();
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(ctx);
         final NumericDoubleValues values = MultiValueMode.MIN.select(allValues, Double.POSITIVE_INFINITY);
@@ -117,4 +144,78 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
     public void doClose() {
         Releasables.close(mins);
     }
+
+    /**
+     * Returns a converter for the points of the field of the given config if the minimum or maximum of the field can be read
+     * from the points of every segment rather than computed from the doc values of the matching documents, or <code>null</code>
+     * otherwise. This is the case for top-level aggregations on indexed numeric or date fields without a script or a missing
+     * value when the query matches all documents.
+     */
+    @Nullable
+    public static Function<byte[], Number> getPointReaderOrNull(SearchContext context, Aggregator parent,
+                                                               ValuesSourceConfig<ValuesSource.Numeric> config) {
+        if (parent != null || context.query() == null || context.query().getClass() != MatchAllDocsQuery.class) {
+            return null;
+        }
+        if (context.minimumScore() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            // not all documents that match the query are collected
+            return null;
+        }
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final MappedFieldType fieldType = config.fieldContext().fieldType();
+        if (fieldType == null || fieldType.indexOptions() == IndexOptions.NONE) {
+            return null;
+        }
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType) {
+            return ((NumberFieldMapper.NumberFieldType) fieldType)::parsePoint;
+        } else if (fieldType.getClass() == DateFieldMapper.DateFieldType.class) {
+            return value -> LongPoint.decodeDimension(value, 0);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the minimum value of the points of the given field in the given segment, taking deleted documents into account,
+     * or <code>null</code> if the segment has no points for the field or no live document with a point.
+     */
+    @Nullable
+    public static Number findLeafMinValue(LeafReader reader, String field, Function<byte[], Number> converter) throws IOException {
+        final PointValues pointValues = reader.getPointValues(field);
+        if (pointValues == null) {
+            return null;
+        }
+        final Bits liveDocs = reader.getLiveDocs();
+        if (liveDocs == null) {
+            return converter.apply(pointValues.getMinPackedValue());
+        }
+        // the leaves of a single dimension tree are visited in ascending order of values, so the first point of a live document
+        // holds the minimum
+        final Number[] result = new Number[1];
+        try {
+            pointValues.intersect(new PointValues.IntersectVisitor() {
+                @Override
+                public void visit(int docID) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void visit(int docID, byte[] packedValue) {
+                    if (liveDocs.get(docID)) {
+                        result[0] = converter.apply(packedValue);
+                        throw new CollectionTerminatedException();
+                    }
+                }
+
+                @Override
+                public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+                    return PointValues.Relation.CELL_CROSSES_QUERY;
+                }
+            });
+        } catch (CollectionTerminatedException e) {
+            // the minimum was found
+        }
+        return result[0];
+    }
 }
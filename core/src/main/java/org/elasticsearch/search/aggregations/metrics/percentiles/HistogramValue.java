@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.metrics.percentiles;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+
+/**
+ * A pre-aggregated histogram, a list of values with the number of times each value occurred, for instance the
+ * centroids of a t-digest or the buckets of an HDR histogram. Instances are cursors over an encoded histogram and can
+ * be {@link #reset(BytesRef) reset} to read the next one.
+ */
+public final class HistogramValue {
+
+    private final ByteArrayDataInput in = new ByteArrayDataInput();
+    private int remaining;
+    private double value;
+    private long count;
+
+    /**
+     * Starts reading the given encoded histogram.
+     */
+    public void reset(BytesRef bytes) {
+        in.reset(bytes.bytes, bytes.offset, bytes.length);
+        remaining = in.readVInt();
+    }
+
+    /**
+     * Moves to the next value of the histogram, returns {@code false} if there are no more values.
+     */
+    public boolean next() {
+        if (remaining == 0) {
+            return false;
+        }
+        remaining--;
+        count = in.readVLong();
+        value = Double.longBitsToDouble(in.readLong());
+        return true;
+    }
+
+    /**
+     * The current value.
+     */
+    public double value() {
+        return value;
+    }
+
+    /**
+     * The number of times the current value occurred.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Encodes a histogram, {@code counts[i]} is the number of times {@code values[i]} occurred.
+     */
+    public static byte[] encode(double[] values, long[] counts) {
+        if (values.length != counts.length) {
+            throw new IllegalArgumentException("histogram has [" + values.length + "] values but [" + counts.length + "] counts");
+        }
+        final byte[] bytes = new byte[5 + values.length * (9 + Long.BYTES)];
+        final ByteArrayDataOutput out = new ByteArrayDataOutput(bytes);
+        try {
+            out.writeVInt(values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (counts[i] < 0) {
+                    throw new IllegalArgumentException("histogram counts must not be negative, got [" + counts[i] + "]");
+                }
+                out.writeVLong(counts[i]);
+                out.writeLong(Double.doubleToLongBits(values[i]));
+            }
+        } catch (IOException e) {
+            throw new AssertionError("cannot happen when writing to a byte array", e);
+        }
+        final byte[] encoded = new byte[out.getPosition()];
+        System.arraycopy(bytes, 0, encoded, 0, encoded.length);
+        return encoded;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.metrics.percentiles;
+
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+/**
+ * A {@link ValuesSource} over a field of pre-aggregated histograms. Each binary value is a histogram that can be read
+ * with {@link HistogramValue}.
+ */
+public class HistogramValuesSource extends ValuesSource.Bytes.FieldData {
+
+    public HistogramValuesSource(IndexFieldData<?> indexFieldData) {
+        super(indexFieldData);
+    }
+
+    /**
+     * Returns a {@link HistogramValuesSource} if the config targets a field whose type implements {@link HistogramFieldType}
+     * without a script, {@code null} otherwise.
+     */
+    public static HistogramValuesSource resolve(ValuesSourceConfig<?> config) {
+        if (config.script() == null && config.fieldContext() != null
+                && config.fieldContext().fieldType() instanceof HistogramFieldType) {
+            return new HistogramValuesSource(config.fieldContext().indexFieldData());
+        }
+        return null;
+    }
+}
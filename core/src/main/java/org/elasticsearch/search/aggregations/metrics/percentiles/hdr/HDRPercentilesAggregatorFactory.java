@@ -22,6 +22,7 @@ package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.percentiles.HistogramValuesSource;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
@@ -55,6 +56,18 @@ public class HDRPercentilesAggregatorFactory extends ValuesSourceAggregatorFacto
                 config.format(), pipelineAggregators, metaData);
     }
 
+    @Override
+    public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
+        HistogramValuesSource histogramValues = HistogramValuesSource.resolve(config);
+        if (histogramValues != null) {
+            // pre-aggregated histograms are not numeric, they are added with their counts
+            return new HDRPercentilesAggregator(name, histogramValues, context, parent, percents, numberOfSignificantValueDigits, keyed,
+                    config.format(), pipelineAggregators, metaData);
+        }
+        return super.createInternal(parent, collectsFromSingleBucket, pipelineAggregators, metaData);
+    }
+
     @Override
     protected Aggregator doCreateInternal(Numeric valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
@@ -59,6 +59,12 @@ public class ScriptedMetricAggregatorFactory extends AggregatorFactory<ScriptedM
         this.params = params;
     }
 
+    @Override
+    protected boolean supportsConcurrentSegmentSearch() {
+        // the map, combine and reduce scripts expect to see a single state per shard
+        return false;
+    }
+
     @Override
     public Aggregator createInternal(Aggregator parent, boolean collectsFromSingleBucket, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
@@ -21,7 +21,10 @@ package org.elasticsearch.search.fetch.subphase;
 
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.fetch.FetchSubPhase;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.SourceLookup;
@@ -48,12 +51,22 @@ public final class FetchSourceSubPhase implements FetchSubPhase {
                     "for index [" + context.indexShard().shardId().getIndexName() + "]");
         }
 
-        final Object value = source.filter(fetchSourceContext);
         try {
             final int initialCapacity = Math.min(1024, source.internalSourceRef().length());
             BytesStreamOutput streamOutput = new BytesStreamOutput(initialCapacity);
-            XContentBuilder builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
-            builder.value(value);
+            final XContentBuilder builder;
+            if (source.source() == null && context.highlight() == null) {
+                // nothing parsed the source into a map so far and highlighting is not going to need it either,
+                // so filter straight from the source bytes instead of building a map that is thrown away
+                try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY, source.internalSourceRef())) {
+                    builder = new XContentBuilder(parser.contentType().xContent(), streamOutput);
+                    fetchSourceContext.getStreamingFilter().accept(parser, builder);
+                }
+            } else {
+                final Object value = source.filter(fetchSourceContext);
+                builder = new XContentBuilder(source.sourceContentType().xContent(), streamOutput);
+                builder.value(value);
+            }
             hitContext.hit().sourceRef(builder.bytes());
         } catch (IOException e) {
             throw new ElasticsearchException("Error filtering source", e);
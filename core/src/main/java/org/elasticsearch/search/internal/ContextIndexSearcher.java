@@ -34,7 +34,11 @@ import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.profile.Timer;
@@ -44,8 +48,14 @@ import org.elasticsearch.search.profile.query.QueryProfiler;
 import org.elasticsearch.search.profile.query.QueryTimingType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -66,14 +76,70 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     private Runnable checkCancelled;
 
+    /** The executor that leaf slices are searched on, or <code>null</code> if the leaves are always searched sequentially. */
+    @Nullable
+    private final Executor sliceExecutor;
+
+    /** The leaf slices that are searched concurrently, or <code>null</code> if the leaves are always searched sequentially. */
+    @Nullable
+    private final List<List<LeafReaderContext>> leafSlices;
+
     public ContextIndexSearcher(Engine.Searcher searcher,
             QueryCache queryCache, QueryCachingPolicy queryCachingPolicy) {
+        this(searcher, queryCache, queryCachingPolicy, null, 1);
+    }
+
+    /**
+     * Creates a searcher that can search its leaves concurrently.
+     *
+     * @param sliceExecutor the executor to search leaf slices on, or <code>null</code> to always search the leaves sequentially
+     * @param maxSlices the maximum number of leaf slices that are searched concurrently
+     */
+    public ContextIndexSearcher(Engine.Searcher searcher, QueryCache queryCache, QueryCachingPolicy queryCachingPolicy,
+                                @Nullable Executor sliceExecutor, int maxSlices) {
         super(searcher.reader());
         in = searcher.searcher();
         engineSearcher = searcher;
         setSimilarity(searcher.searcher().getSimilarity(true));
         setQueryCache(queryCache);
         setQueryCachingPolicy(queryCachingPolicy);
+        final List<List<LeafReaderContext>> slices = sliceExecutor == null ? null : slices(leafContexts, maxSlices);
+        if (slices != null && slices.size() > 1) {
+            this.sliceExecutor = sliceExecutor;
+            this.leafSlices = slices;
+        } else {
+            this.sliceExecutor = null;
+            this.leafSlices = null;
+        }
+    }
+
+    /**
+     * Groups the provided leaves into at most <code>maxSlices</code> slices of consecutive leaves holding roughly the same
+     * number of documents. Keeping the leaves of a slice consecutive means that the slices are ordered by doc id, so hits
+     * that compare equal across slices can be tie-broken by slice index just like a sequential search does by doc id.
+     */
+    static List<List<LeafReaderContext>> slices(List<LeafReaderContext> leaves, int maxSlices) {
+        long maxDoc = 0;
+        for (LeafReaderContext leaf : leaves) {
+            maxDoc += leaf.reader().maxDoc();
+        }
+        final long docsPerSlice = Math.max(1, (maxDoc + maxSlices - 1) / maxSlices);
+        final List<List<LeafReaderContext>> slices = new ArrayList<>(maxSlices);
+        List<LeafReaderContext> current = new ArrayList<>();
+        long currentDocs = 0;
+        for (LeafReaderContext leaf : leaves) {
+            current.add(leaf);
+            currentDocs += leaf.reader().maxDoc();
+            if (currentDocs >= docsPerSlice && slices.size() < maxSlices - 1) {
+                slices.add(Collections.unmodifiableList(current));
+                current = new ArrayList<>();
+                currentDocs = 0;
+            }
+        }
+        if (current.isEmpty() == false) {
+            slices.add(Collections.unmodifiableList(current));
+        }
+        return Collections.unmodifiableList(slices);
     }
 
     @Override
@@ -186,6 +252,90 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         super.search(leaves, cancellableWeight, collector);
     }
 
+    /**
+     * Returns the leaf slices that {@link #search(Query, List)} searches concurrently, or <code>null</code> if this
+     * searcher always searches its leaves sequentially.
+     */
+    @Nullable
+    public List<List<LeafReaderContext>> getLeafSlices() {
+        return leafSlices;
+    }
+
+    /**
+     * Searches each of the {@link #getLeafSlices() leaf slices} with its own collector. All slices but the first one are
+     * handed over to the slice executor while the first one, as well as any slice the executor rejects, is searched on
+     * the calling thread. This method only returns once all slices are done with their collectors, and rethrows the first
+     * failure, if any, as is. Slices that did not start yet when another slice failed are skipped.
+     *
+     * @param collectors one collector per leaf slice, in the same order as the slices
+     */
+    public void search(Query query, List<? extends Collector> collectors) throws IOException {
+        if (leafSlices == null || collectors.size() != leafSlices.size()) {
+            throw new IllegalArgumentException("expected one collector per leaf slice but got [" + collectors.size() + "]");
+        }
+        boolean needsScores = false;
+        for (Collector collector : collectors) {
+            needsScores |= collector.needsScores();
+        }
+        final Weight weight = createNormalizedWeight(query, needsScores);
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<FutureTask<Void>> forked = new ArrayList<>(leafSlices.size() - 1);
+        final List<FutureTask<Void>> local = new ArrayList<>();
+        local.add(newSliceTask(leafSlices.get(0), weight, collectors.get(0), failed));
+        for (int i = 1; i < leafSlices.size(); i++) {
+            final FutureTask<Void> task = newSliceTask(leafSlices.get(i), weight, collectors.get(i), failed);
+            try {
+                sliceExecutor.execute(task);
+                forked.add(task);
+            } catch (EsRejectedExecutionException e) {
+                // the pool is saturated, search this slice on the calling thread rather than failing the search
+                local.add(task);
+            }
+        }
+        Throwable failure = null;
+        for (FutureTask<Void> task : local) {
+            task.run();
+            failure = awaitSlice(task, failure);
+        }
+        for (FutureTask<Void> task : forked) {
+            failure = awaitSlice(task, failure);
+        }
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw ExceptionsHelper.convertToRuntime((Exception) failure);
+        }
+    }
+
+    private FutureTask<Void> newSliceTask(List<LeafReaderContext> leaves, Weight weight, Collector collector, AtomicBoolean failed) {
+        return new FutureTask<>(() -> {
+            if (failed.get() == false) {
+                try {
+                    search(leaves, weight, collector);
+                } catch (Exception | Error e) {
+                    failed.set(true);
+                    throw e;
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Throwable awaitSlice(FutureTask<Void> task, Throwable failure) {
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            return ExceptionsHelper.useOrSuppress(failure, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+        return failure;
+    }
+
     @Override
     public Explanation explain(Query query, int doc) throws IOException {
         if (aggregatedDfs != null) {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentReader;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.concurrent.AbstractRefCounted;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * A point in time reader of a shard. Unlike a {@link SearchContext} it holds no query, aggregation or fetch
+ * state and only pins the {@link Engine.Searcher} it was opened with, so that any number of independent
+ * searches can be executed against the same view of the shard until it is freed or its keep alive expires.
+ * The searcher is released once the context is freed and all searches that use it have completed.
+ */
+public final class ReaderContext extends AbstractRefCounted {
+
+    private final long id;
+    private final IndexShard indexShard;
+    private final Engine.Searcher searcher;
+    private final long ramBytesUsed;
+    private final LongSupplier relativeTimeInMillis;
+    private volatile long keepAlive;
+    private volatile long lastAccessTime;
+
+    public ReaderContext(long id, IndexShard indexShard, Engine.Searcher searcher, long keepAlive, LongSupplier relativeTimeInMillis) {
+        super("reader_context");
+        this.id = id;
+        this.indexShard = indexShard;
+        this.searcher = searcher;
+        this.keepAlive = keepAlive;
+        this.relativeTimeInMillis = relativeTimeInMillis;
+        this.lastAccessTime = relativeTimeInMillis.getAsLong();
+        this.ramBytesUsed = ramBytesUsed(searcher);
+    }
+
+    private static long ramBytesUsed(Engine.Searcher searcher) {
+        long bytes = 0;
+        for (LeafReaderContext leaf : searcher.reader().leaves()) {
+            LeafReader reader = FilterLeafReader.unwrap(leaf.reader());
+            if (reader instanceof SegmentReader) {
+                bytes += ((SegmentReader) reader).ramBytesUsed();
+            }
+        }
+        return bytes;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public IndexShard indexShard() {
+        return indexShard;
+    }
+
+    public ShardId shardId() {
+        return indexShard.shardId();
+    }
+
+    /**
+     * Returns the heap used by the segments pinned by this reader.
+     */
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    public long keepAlive() {
+        return keepAlive;
+    }
+
+    public long lastAccessTime() {
+        return lastAccessTime;
+    }
+
+    /**
+     * Sets how long this reader should be kept alive once the searches that currently use it have completed.
+     */
+    public void keepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    /**
+     * Returns <code>true</code> if no search is currently executing against this reader.
+     */
+    public boolean isIdle() {
+        return refCount() == 1;
+    }
+
+    /**
+     * Returns a searcher over the pinned reader for a single search. The caller must hold a reference on
+     * this context, which is released when the returned searcher is closed.
+     */
+    public Engine.Searcher acquireSearcher(String source) {
+        assert refCount() > 1 : "a reference must be held while searching: " + refCount();
+        final AtomicBoolean closed = new AtomicBoolean();
+        return new Engine.Searcher(source, searcher.searcher()) {
+            @Override
+            public void close() {
+                if (closed.compareAndSet(false, true)) {
+                    lastAccessTime = relativeTimeInMillis.getAsLong();
+                    decRef();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected void closeInternal() {
+        Releasables.close(searcher);
+    }
+}
@@ -71,6 +71,12 @@ public interface ShardSearchRequest {
 
     Scroll scroll();
 
+    /**
+     * Returns the id of the point in time reader this request should be executed against on the shard,
+     * or <code>-1</code> if it should acquire the latest searcher.
+     */
+    long readerId();
+
     /**
      * Sets if this shard search needs to be profiled or not
      * @param profile True if the shard should be profiled
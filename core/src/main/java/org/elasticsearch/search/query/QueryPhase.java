@@ -34,6 +34,7 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
 import org.apache.lucene.util.Counter;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.common.Nullable;
@@ -57,7 +58,11 @@ import org.elasticsearch.search.suggest.SuggestPhase;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.search.query.QueryCollectorContext.createCancellableCollectorContext;
@@ -247,9 +252,10 @@ public class QueryPhase implements SearchPhase {
                 collectors.stream().anyMatch(QueryCollectorContext::shouldCollect));
             final boolean shouldCollect = topDocsFactory.shouldCollect();
 
-            if (topDocsFactory.numHits() > 0 &&
+            final boolean earlySortTerminate = topDocsFactory.numHits() > 0 &&
                 (scrollContext == null || scrollContext.totalHits != -1) &&
-                canEarlyTerminate(indexSort, searchContext)) {
+                canEarlyTerminate(indexSort, searchContext);
+            if (earlySortTerminate) {
                 // top docs collection can be early terminated based on index sort
                 // add the collector context first so we don't early terminate aggs but only top docs
                 collectors.addFirst(createEarlySortingTerminationCollectorContext(reader, searchContext.query(), indexSort,
@@ -267,9 +273,26 @@ public class QueryPhase implements SearchPhase {
                queryCollector = QueryCollectorContext.createQueryCollector(collectors);
             }
 
+            // the main collector chain collects the first leaf slice, each additional slice gets its own chain
+            final List<List<QueryCollectorContext>> sliceContexts = new ArrayList<>();
+            final List<Collector> sliceCollectors = new ArrayList<>();
+            if (shouldCollect && earlySortTerminate == false && canSearchConcurrently(searchContext, searcher)) {
+                final int numSlices = ((ContextIndexSearcher) searcher).getLeafSlices().size();
+                sliceCollectors.add(queryCollector);
+                for (int i = 1; i < numSlices; i++) {
+                    final List<QueryCollectorContext> contexts = createSliceCollectorContexts(searchContext, searcher, reader);
+                    sliceContexts.add(contexts);
+                    sliceCollectors.add(QueryCollectorContext.createQueryCollector(contexts));
+                }
+            }
+
             try {
                 if (shouldCollect) {
-                    searcher.search(query, queryCollector);
+                    if (sliceCollectors.isEmpty()) {
+                        searcher.search(query, queryCollector);
+                    } else {
+                        ((ContextIndexSearcher) searcher).search(query, sliceCollectors);
+                    }
                 }
             } catch (TimeExceededException e) {
                 assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
@@ -282,6 +305,18 @@ public class QueryPhase implements SearchPhase {
             for (QueryCollectorContext ctx : collectors) {
                 ctx.postProcess(result, shouldCollect);
             }
+            if (sliceContexts.isEmpty() == false) {
+                final TopDocs[] sliceTopDocs = new TopDocs[sliceContexts.size() + 1];
+                sliceTopDocs[0] = result.topDocs();
+                for (int i = 0; i < sliceContexts.size(); i++) {
+                    final QuerySearchResult sliceResult = new QuerySearchResult();
+                    for (QueryCollectorContext ctx : sliceContexts.get(i)) {
+                        ctx.postProcess(sliceResult, true);
+                    }
+                    sliceTopDocs[i + 1] = sliceResult.topDocs();
+                }
+                result.topDocs(mergeSliceTopDocs(sliceTopDocs, topDocsFactory.numHits()), result.sortValueFormats());
+            }
             EsThreadPoolExecutor executor = (EsThreadPoolExecutor)
                     searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
             if (executor instanceof QueueResizingEsThreadPoolExecutor) {
@@ -299,6 +334,76 @@ public class QueryPhase implements SearchPhase {
         }
     }
 
+    /**
+     * Returns true if the leaf slices of the provided <code>searcher</code> can be searched concurrently for
+     * <code>searchContext</code>. Features that depend on seeing the hits of the shard in doc id order (scroll,
+     * terminate_after, field collapsing) or that do not support concurrent collection (profiling, plugged-in query
+     * collectors, some aggregations) keep searching the leaves sequentially.
+     */
+    static boolean canSearchConcurrently(SearchContext searchContext, IndexSearcher searcher) {
+        if (searcher instanceof ContextIndexSearcher == false || ((ContextIndexSearcher) searcher).getLeafSlices() == null) {
+            return false;
+        }
+        if (searchContext.getProfilers() != null
+                || searchContext.scrollContext() != null
+                || searchContext.collapse() != null
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        for (Class<?> queryCollector : searchContext.queryCollectors().keySet()) {
+            if (queryCollector != AggregationPhase.class) {
+                return false;
+            }
+        }
+        return searchContext.queryCollectors().isEmpty()
+            || searchContext.aggregations().factories().supportsConcurrentSegmentSearch();
+    }
+
+    /**
+     * Creates the collector contexts for an additional leaf slice of a concurrent search. This mirrors the chain built
+     * for the main collector, less the contexts that {@link #canSearchConcurrently} rules out.
+     */
+    private static List<QueryCollectorContext> createSliceCollectorContexts(SearchContext searchContext, IndexSearcher searcher,
+                                                                            IndexReader reader) throws IOException {
+        final LinkedList<QueryCollectorContext> collectors = new LinkedList<>();
+        if (searchContext.parsedPostFilter() != null) {
+            collectors.add(createFilteredCollectorContext(searcher, searchContext.parsedPostFilter().query()));
+        }
+        if (searchContext.queryCollectors().containsKey(AggregationPhase.class)) {
+            collectors.add(createMultiCollectorContext(Collections.singletonList(AggregationPhase.createSliceCollector(searchContext))));
+        }
+        if (searchContext.minimumScore() != null) {
+            collectors.add(createMinScoreCollectorContext(searchContext.minimumScore()));
+        }
+        collectors.add(createCancellableCollectorContext(searchContext.getTask()::isCancelled));
+        collectors.addFirst(createTopDocsCollectorContext(searchContext, reader, true));
+        return collectors;
+    }
+
+    /**
+     * Merges the top docs collected by each leaf slice of a concurrent search into the top docs of the shard. Slices are
+     * ordered by doc id so ties are broken the same way as a sequential search would.
+     */
+    static TopDocs mergeSliceTopDocs(TopDocs[] sliceTopDocs, int numHits) {
+        final TopDocs merged;
+        if (sliceTopDocs[0] instanceof TopFieldDocs) {
+            final TopFieldDocs[] fieldDocs = new TopFieldDocs[sliceTopDocs.length];
+            System.arraycopy(sliceTopDocs, 0, fieldDocs, 0, sliceTopDocs.length);
+            merged = TopDocs.merge(new Sort(fieldDocs[0].fields), 0, numHits, fieldDocs, true);
+        } else {
+            merged = TopDocs.merge(0, numHits, sliceTopDocs, true);
+        }
+        for (ScoreDoc scoreDoc : merged.scoreDocs) {
+            // the shard index is set by the coordinating node
+            scoreDoc.shardIndex = -1;
+        }
+        if (merged.scoreDocs.length == 0) {
+            // no slice has hits, keep the max score that a sequential search would report
+            merged.setMaxScore(sliceTopDocs[0].getMaxScore());
+        }
+        return merged;
+    }
+
     /**
      * Returns true if the provided <code>query</code> returns docs in index order (internal doc ids).
      * @param query The query to execute
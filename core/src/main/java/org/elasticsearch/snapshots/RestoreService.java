@@ -68,6 +68,8 @@ import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
+import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
 import org.elasticsearch.repositories.RepositoryData;
@@ -237,6 +239,9 @@ public class RestoreService extends AbstractComponent implements ClusterStateApp
                             String renamedIndexName = indexEntry.getKey();
                             IndexMetaData snapshotIndexMetaData = metaData.index(index);
                             snapshotIndexMetaData = updateIndexSettings(snapshotIndexMetaData, request.indexSettings, request.ignoreIndexSettings);
+                            if (SearchableSnapshotIndexStore.isSearchableSnapshotStore(snapshotIndexMetaData.getSettings())) {
+                                snapshotIndexMetaData = mountIndex(snapshotIndexMetaData, repositoryData.resolveIndexId(index));
+                            }
                             try {
                                 snapshotIndexMetaData = metaDataIndexUpgradeService.upgradeIndexMetaData(snapshotIndexMetaData,
                                     minIndexCompatibilityVersion);
@@ -428,6 +433,23 @@ public class RestoreService extends AbstractComponent implements ClusterStateApp
                     return builder.settings(settingsBuilder).build();
                 }
 
+                /**
+                 * Points the settings of an index that is mounted rather than restored at the snapshot that its shards
+                 * read their files from. Mounted indices are read-only since the files of a snapshot can't change.
+                 */
+                private IndexMetaData mountIndex(IndexMetaData indexMetaData, IndexId indexId) {
+                    return IndexMetaData.builder(indexMetaData).settings(Settings.builder()
+                        .put(indexMetaData.getSettings())
+                        .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_REPOSITORY_SETTING.getKey(), snapshot.getRepository())
+                        .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_SNAPSHOT_NAME_SETTING.getKey(),
+                            snapshot.getSnapshotId().getName())
+                        .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_SNAPSHOT_UUID_SETTING.getKey(),
+                            snapshot.getSnapshotId().getUUID())
+                        .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_INDEX_NAME_SETTING.getKey(), indexId.getName())
+                        .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_INDEX_UUID_SETTING.getKey(), indexId.getId())
+                        .put(IndexMetaData.SETTING_BLOCKS_WRITE, true)).build();
+                }
+
                 private void restoreGlobalStateIfRequested(MetaData.Builder mdBuilder) {
                     if (request.includeGlobalState()) {
                         if (metaData.persistentSettings() != null) {
@@ -60,6 +60,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
@@ -1097,6 +1098,16 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         throw new ConcurrentSnapshotExecutionException(snapshot, "cannot delete snapshot during a restore");
                     }
                 }
+                // the shards of indices that are mounted from the snapshot read its files from the repository
+                for (ObjectCursor<IndexMetaData> cursor : currentState.metaData().indices().values()) {
+                    final Settings indexSettings = cursor.value.getSettings();
+                    if (SearchableSnapshotIndexStore.isSearchableSnapshotStore(indexSettings)
+                        && snapshot.getSnapshotId().getUUID().equals(
+                            SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_SNAPSHOT_UUID_SETTING.get(indexSettings))) {
+                        throw new IllegalArgumentException("cannot delete snapshot [" + snapshot + "] since index ["
+                            + cursor.value.getIndex().getName() + "] is mounted from it");
+                    }
+                }
                 ClusterState.Builder clusterStateBuilder = ClusterState.builder(currentState);
                 SnapshotsInProgress snapshots = currentState.custom(SnapshotsInProgress.TYPE);
                 SnapshotsInProgress.Entry snapshotEntry = snapshots != null ? snapshots.snapshot(snapshot) : null;
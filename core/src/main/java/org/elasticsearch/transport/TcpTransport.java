@@ -208,6 +208,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
     // connections while no connect operations is going on... (this might help with 100% CPU when stopping the transport?)
     protected final ReadWriteLock closeLock = new ReentrantReadWriteLock();
     protected final boolean compress;
+    private final Compressor compressor;
     protected volatile BoundTransportAddress boundAddress;
     private final String transportName;
     protected final ConnectionProfile defaultConnectionProfile;
@@ -232,6 +233,7 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         this.pingSchedule = PING_SCHEDULE.get(settings);
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.compress = Transport.TRANSPORT_TCP_COMPRESS.get(settings);
+        this.compressor = Transport.TRANSPORT_TCP_COMPRESSION_SCHEME.get(settings);
         this.networkService = networkService;
         this.transportName = transportName;
         defaultConnectionProfile = buildDefaultConnectionProfile(settings);
@@ -1046,6 +1048,17 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         return compress && (!(request instanceof BytesTransportRequest));
     }
 
+    /**
+     * Returns the compressor to use for messages that are serialized with the given version: nodes before 7.0.0 can only
+     * decompress DEFLATE so they get DEFLATE no matter which compression scheme is configured.
+     */
+    Compressor compressor(Version version) {
+        if (version.before(Version.V_7_0_0_alpha1)) {
+            return CompressorFactory.COMPRESSOR;
+        }
+        return compressor;
+    }
+
     private void sendRequestToChannel(final DiscoveryNode node, final Channel targetChannel, final long requestId, final String action,
                                       final TransportRequest request, TransportRequestOptions options, Version channelVersion,
                                       byte status) throws IOException,
@@ -1058,20 +1071,21 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         // the header part is compressed, and the "body" can't be extracted as compressed
         final boolean compressMessage = options.compress() && canCompress(request);
 
+        // we pick the smallest of the 2, to support both backward and forward compatibility
+        // note, this is the only place we need to do this, since from here on, we use the serialized version
+        // as the version to use also when the node receiving this request will send the response with
+        final Version version = Version.min(getCurrentVersion(), channelVersion);
+
         status = TransportStatus.setRequest(status);
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        final CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, compressMessage);
+        final CompressibleBytesOutputStream stream =
+            new CompressibleBytesOutputStream(bStream, compressMessage, compressor(version));
         boolean addedReleaseListener = false;
         try {
             if (compressMessage) {
                 status = TransportStatus.setCompress(status);
             }
 
-            // we pick the smallest of the 2, to support both backward and forward compatibility
-            // note, this is the only place we need to do this, since from here on, we use the serialized version
-            // as the version to use also when the node receiving this request will send the response with
-            Version version = Version.min(getCurrentVersion(), channelVersion);
-
             stream.setVersion(version);
             threadPool.getThreadContext().writeTo(stream);
             stream.writeString(action);
@@ -1148,7 +1162,8 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
         }
         status = TransportStatus.setResponse(status); // TODO share some code with sendRequest
         ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
-        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, options.compress());
+        CompressibleBytesOutputStream stream =
+            new CompressibleBytesOutputStream(bStream, options.compress(), compressor(nodeVersion));
         boolean addedReleaseListener = false;
         try {
             if (options.compress()) {
@@ -1474,9 +1489,14 @@ public abstract class TcpTransport<Channel> extends AbstractLifecycleComponent i
                 } else {
                     getInFlightRequestBreaker().addWithoutBreaking(messageLengthBytes);
                 }
-                transportChannel = new TcpTransportChannel<>(this, channel, transportName, action, requestId, version, profileName,
-                    messageLengthBytes);
+                final TcpTransportChannel<Channel> tcpTransportChannel = new TcpTransportChannel<>(this, channel, transportName, action,
+                    requestId, version, profileName, messageLengthBytes);
+                transportChannel = tcpTransportChannel;
                 final TransportRequest request = reg.newRequest(stream);
+                if (request instanceof Releasable) {
+                    // the request retains parts of the message buffer instead of copying them, they are released with the response
+                    tcpTransportChannel.releaseOnResponse((Releasable) request);
+                }
                 request.remoteAddress(new TransportAddress(remoteAddress));
                 // in case we throw an exception, i.e. when the limit is hit, we don't want to verify
                 validateRequest(stream, requestId, action);
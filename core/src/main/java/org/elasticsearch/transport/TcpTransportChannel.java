@@ -19,6 +19,8 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 
 import java.io.IOException;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -33,6 +35,7 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
     private final AtomicBoolean released = new AtomicBoolean();
     private final String channelType;
     private final Channel channel;
+    private Releasable onResponse;
 
     public TcpTransportChannel(TcpTransport<Channel> transport, Channel channel, String channelType, String action,
                                long requestId, Version version, String profileName, long reservedBytes) {
@@ -46,6 +49,15 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
         this.channelType = channelType;
     }
 
+    /**
+     * Registers resources that the request holds on to, like network buffers that it reads without copying, so that they are
+     * released once the response is sent. Must be called before the request is handed over to its handler.
+     */
+    void releaseOnResponse(Releasable releasable) {
+        assert onResponse == null : "resources to release are already registered";
+        this.onResponse = releasable;
+    }
+
     @Override
     public String getProfileName() {
         return profileName;
@@ -83,7 +95,11 @@ public final class TcpTransportChannel<Channel> implements TransportChannel {
     private void release(boolean isExceptionResponse) {
         if (released.compareAndSet(false, true)) {
             assert (releaseBy = new Exception()) != null; // easier to debug if it's already closed
-            transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            try {
+                transport.getInFlightRequestBreaker().addWithoutBreaking(-reservedBytes);
+            } finally {
+                Releasables.close(onResponse);
+            }
         } else if (isExceptionResponse == false) {
             // only fail if we are not sending an error - we might send the error triggered by the previous
             // sendResponse call
@@ -25,6 +25,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.discovery.DiscoveryStats;
 import org.elasticsearch.discovery.zen.PendingClusterStateStats;
 import org.elasticsearch.http.HttpStats;
+import org.elasticsearch.index.IndexingPressureStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
 import org.elasticsearch.ingest.IngestStats;
@@ -272,6 +273,16 @@ public class NodeStatsTests extends ESTestCase {
                         assertEquals(stats.getIngestCount(), deserializedStats.getIngestCount());
                     }
                 }
+                IndexingPressureStats indexingPressureStats = nodeStats.getIndexingPressureStats();
+                IndexingPressureStats deserializedIndexingPressureStats = deserializedNodeStats.getIndexingPressureStats();
+                if (indexingPressureStats == null) {
+                    assertNull(deserializedIndexingPressureStats);
+                } else {
+                    assertIndexingPressureStage(indexingPressureStats.getCoordinating(),
+                            deserializedIndexingPressureStats.getCoordinating());
+                    assertIndexingPressureStage(indexingPressureStats.getPrimary(), deserializedIndexingPressureStats.getPrimary());
+                    assertIndexingPressureStage(indexingPressureStats.getReplica(), deserializedIndexingPressureStats.getReplica());
+                }
             }
         }
     }
@@ -398,8 +409,25 @@ public class NodeStatsTests extends ESTestCase {
             }
             ingestStats = new IngestStats(totalStats, statsPerPipeline);
         }
+        IndexingPressureStats indexingPressureStats = null;
+        if (frequently()) {
+            indexingPressureStats = new IndexingPressureStats(randomIndexingPressureStage(), randomIndexingPressureStage(),
+                    randomIndexingPressureStage());
+        }
         //TODO NodeIndicesStats are not tested here, way too complicated to create, also they need to be migrated to Writeable yet
         return new NodeStats(node, randomNonNegativeLong(), null, osStats, processStats, jvmStats, threadPoolStats, fsInfo,
-                transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats, ingestStats);
+                transportStats, httpStats, allCircuitBreakerStats, scriptStats, discoveryStats, ingestStats, indexingPressureStats);
+    }
+
+    private static IndexingPressureStats.Stage randomIndexingPressureStage() {
+        return new IndexingPressureStats.Stage(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+                randomNonNegativeLong());
+    }
+
+    private static void assertIndexingPressureStage(IndexingPressureStats.Stage stage, IndexingPressureStats.Stage deserializedStage) {
+        assertEquals(stage.getCurrentBytes(), deserializedStage.getCurrentBytes());
+        assertEquals(stage.getTotalBytes(), deserializedStage.getTotalBytes());
+        assertEquals(stage.getRejections(), deserializedStage.getRejections());
+        assertEquals(stage.getLimitBytes(), deserializedStage.getLimitBytes());
     }
 }
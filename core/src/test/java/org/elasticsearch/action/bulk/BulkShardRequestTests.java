@@ -19,10 +19,21 @@
 
 package org.elasticsearch.action.bulk;
 
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.FilterStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.apache.lucene.util.TestUtil.randomSimpleString;
 
 public class BulkShardRequestTests extends ESTestCase {
@@ -37,4 +48,46 @@ public class BulkShardRequestTests extends ESTestCase {
         r = new BulkShardRequest(shardId, RefreshPolicy.WAIT_UNTIL, new BulkItemRequest[count]);
         assertEquals("BulkShardRequest [" + shardId + "] containing [" + count + "] requests blocking until refresh", r.toString());
     }
+
+    public void testSourcesAreRetainedUntilClosed() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final BulkItemRequest[] items = new BulkItemRequest[between(1, 10)];
+        for (int i = 0; i < items.length; i++) {
+            if (randomBoolean()) {
+                items[i] = new BulkItemRequest(i,
+                    new IndexRequest("index", "type", Integer.toString(i)).source("{\"field\":" + i + "}", XContentType.JSON));
+            }
+        }
+        final BulkShardRequest request = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+        final BytesStreamOutput out = new BytesStreamOutput();
+        request.writeTo(out);
+
+        final AtomicInteger released = new AtomicInteger();
+        final List<ReleasableBytesReference> references = new ArrayList<>();
+        final StreamInput in = new FilterStreamInput(out.bytes().streamInput()) {
+            @Override
+            public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+                final ReleasableBytesReference reference = new ReleasableBytesReference(readBytesReference(length),
+                    released::incrementAndGet);
+                references.add(reference);
+                return reference;
+            }
+        };
+        final BulkShardRequest deserialized = new BulkShardRequest();
+        deserialized.readFrom(in);
+        int numSources = 0;
+        for (int i = 0; i < items.length; i++) {
+            if (items[i] == null) {
+                assertNull(deserialized.items()[i]);
+            } else {
+                final IndexRequest indexRequest = (IndexRequest) deserialized.items()[i].request();
+                assertSame(references.get(numSources++), indexRequest.source());
+                assertEquals(((IndexRequest) items[i].request()).source(), indexRequest.source());
+            }
+        }
+        assertEquals(numSources, references.size());
+        assertEquals(0, released.get());
+        deserialized.close();
+        assertEquals(numSources, released.get());
+    }
 }
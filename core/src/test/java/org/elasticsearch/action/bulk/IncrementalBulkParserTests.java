@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.bulk;
+
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.test.StreamsUtils.copyToStringFromClasspath;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class IncrementalBulkParserTests extends ESTestCase {
+
+    public void testSameRequestsAsFullParsing() throws Exception {
+        for (String file : new String[] {"simple-bulk.json", "simple-bulk2.json", "simple-bulk3.json", "simple-bulk4.json",
+            "simple-bulk10.json", "bulk-log.json"}) {
+            final String bulk = copyToStringFromClasspath("/org/elasticsearch/action/bulk/" + file);
+            final BulkRequest expected = new BulkRequest();
+            expected.add(new BytesArray(bulk), null, null, XContentType.JSON);
+
+            final List<DocWriteRequest> actual = new ArrayList<>();
+            final IncrementalBulkParser parser = new IncrementalBulkParser(null, null, null, null, null, null, true, XContentType.JSON);
+            BulkRequest batch = new BulkRequest();
+            for (BytesReference chunk : randomChunks(bulk)) {
+                parser.parse(chunk, false, batch);
+                if (randomBoolean()) {
+                    actual.addAll(batch.requests());
+                    batch = new BulkRequest();
+                }
+            }
+            parser.parse(BytesArray.EMPTY, true, batch);
+            actual.addAll(batch.requests());
+
+            assertThat(file, actual.size(), equalTo(expected.numberOfActions()));
+            for (int i = 0; i < actual.size(); i++) {
+                final DocWriteRequest expectedRequest = expected.requests().get(i);
+                final DocWriteRequest actualRequest = actual.get(i);
+                assertThat(actualRequest.opType(), equalTo(expectedRequest.opType()));
+                assertThat(actualRequest.index(), equalTo(expectedRequest.index()));
+                assertThat(actualRequest.type(), equalTo(expectedRequest.type()));
+                assertThat(actualRequest.id(), equalTo(expectedRequest.id()));
+                assertThat(actualRequest.routing(), equalTo(expectedRequest.routing()));
+                assertThat(actualRequest.version(), equalTo(expectedRequest.version()));
+                if (expectedRequest instanceof IndexRequest) {
+                    assertThat(((IndexRequest) actualRequest).source(), equalTo(((IndexRequest) expectedRequest).source()));
+                } else if (expectedRequest instanceof UpdateRequest) {
+                    assertThat(((UpdateRequest) actualRequest).script(), equalTo(((UpdateRequest) expectedRequest).script()));
+                }
+            }
+            assertThat(parser.getLines(), equalTo(bulk.split("\n").length));
+        }
+    }
+
+    public void testLineNumbersInErrors() throws Exception {
+        final String bulk = copyToStringFromClasspath("/org/elasticsearch/action/bulk/simple-bulk8.json");
+        final IncrementalBulkParser parser = new IncrementalBulkParser(null, null, null, null, null, null, true, XContentType.JSON);
+        final BulkRequest bulkRequest = new BulkRequest();
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> {
+            for (BytesReference chunk : randomChunks(bulk)) {
+                parser.parse(chunk, false, bulkRequest);
+            }
+            parser.parse(BytesArray.EMPTY, true, bulkRequest);
+        });
+        assertThat(e.getMessage(), containsString("Action/metadata line [3] contains an unknown parameter [_foo]"));
+    }
+
+    public void testIncompleteLastLine() throws Exception {
+        final String bulk = copyToStringFromClasspath("/org/elasticsearch/action/bulk/simple-bulk11.json");
+        final IncrementalBulkParser parser = new IncrementalBulkParser(null, null, null, null, null, null, true, XContentType.JSON);
+        final BulkRequest bulkRequest = new BulkRequest();
+        final List<BytesReference> chunks = randomChunks(bulk);
+        for (BytesReference chunk : chunks.subList(0, chunks.size() - 1)) {
+            parser.parse(chunk, false, bulkRequest);
+        }
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> parser.parse(chunks.get(chunks.size() - 1), true, bulkRequest));
+        assertEquals("The bulk request must be terminated by a newline [\n]", e.getMessage());
+    }
+
+    public void testActionIsAddedOnceItsSourceIsComplete() throws IOException {
+        final IncrementalBulkParser parser = new IncrementalBulkParser("index", "type", null, null, null, null, true, XContentType.JSON);
+        final BulkRequest bulkRequest = new BulkRequest();
+        parser.parse(new BytesArray("{\"index\":{\"_id\":\"1\"}}\n{\"fie"), false, bulkRequest);
+        assertThat(bulkRequest.numberOfActions(), equalTo(0));
+        assertThat(parser.getLines(), equalTo(0));
+        parser.parse(new BytesArray("ld\":\"value\"}\n{\"delete\":{\"_id\":\"2\"}}\n"), false, bulkRequest);
+        assertThat(bulkRequest.numberOfActions(), equalTo(2));
+        assertThat(((IndexRequest) bulkRequest.requests().get(0)).source().utf8ToString(), equalTo("{\"field\":\"value\"}"));
+        assertThat(parser.getLines(), equalTo(3));
+        parser.parse(BytesArray.EMPTY, true, bulkRequest);
+        assertThat(bulkRequest.numberOfActions(), equalTo(2));
+    }
+
+    private static List<BytesReference> randomChunks(String bulk) {
+        final byte[] bytes = bulk.getBytes(StandardCharsets.UTF_8);
+        final List<BytesReference> chunks = new ArrayList<>();
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int length = Math.min(bytes.length - offset, randomIntBetween(1, 64));
+            chunks.add(new BytesArray(bytes, offset, length));
+            offset += length;
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class PointInTimeIdTests extends ESTestCase {
+
+    public void testEncodeDecode() {
+        final int numShards = randomIntBetween(0, 10);
+        final List<PointInTimeId.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            shards.add(new PointInTimeId.Shard(new ShardId(randomAlphaOfLength(5), randomAlphaOfLength(10), i),
+                randomAlphaOfLength(8), randomNonNegativeLong()));
+        }
+        final OriginalIndices originalIndices = new OriginalIndices(generateRandomStringArray(5, 10, false, true),
+            IndicesOptions.fromOptions(randomBoolean(), randomBoolean(), randomBoolean(), randomBoolean()));
+
+        final PointInTimeId decoded = PointInTimeId.decode(new PointInTimeId(originalIndices, shards).encode());
+        assertArrayEquals(originalIndices.indices(), decoded.getOriginalIndices().indices());
+        assertEquals(originalIndices.indicesOptions(), decoded.getOriginalIndices().indicesOptions());
+        assertEquals(numShards, decoded.getShards().size());
+        for (int i = 0; i < numShards; i++) {
+            assertEquals(shards.get(i).getShardId(), decoded.getShards().get(i).getShardId());
+            assertEquals(shards.get(i).getNodeId(), decoded.getShards().get(i).getNodeId());
+            assertEquals(shards.get(i).getReaderId(), decoded.getShards().get(i).getReaderId());
+        }
+    }
+
+    public void testDecodeInvalidId() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> PointInTimeId.decode("not_a_valid_id"));
+        assertThat(e.getMessage(), containsString("Cannot parse point in time id"));
+    }
+}
@@ -47,6 +47,7 @@ import java.util.stream.Collectors;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CacheTests extends ESTestCase {
     private int numberOfEntries;
@@ -824,4 +825,79 @@ public class CacheTests extends ESTestCase {
         cache.refresh();
         assertEquals(500, cache.count());
     }
+
+    // promotions of cache hits are buffered, check that they are applied in the order of the reads, even if the reads
+    // overflow the read buffers
+    public void testPromotionOrderWithBufferedReads() {
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().build();
+        for (int i = 0; i < numberOfEntries; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        List<Integer> reads = new ArrayList<>();
+        int numberOfReads = randomIntBetween(1, 4 * Cache.READ_BUFFER_SIZE);
+        for (int i = 0; i < numberOfReads; i++) {
+            Integer key = randomIntBetween(0, numberOfEntries - 1);
+            assertEquals(Integer.toString(key), cache.get(key));
+            reads.remove(key);
+            reads.add(0, key);
+        }
+        List<Integer> keys = new ArrayList<>();
+        for (Integer key : cache.keys()) {
+            keys.add(key);
+        }
+        assertEquals(numberOfEntries, keys.size());
+        assertEquals(reads, keys.subList(0, reads.size()));
+    }
+
+    // test that the LRU list stays consistent with the segments when hits are promoted concurrently with evictions
+    public void testConcurrentReadsAndEvictions() throws BrokenBarrierException, InterruptedException {
+        int numberOfThreads = randomIntBetween(2, 32);
+        int maximumWeight = randomIntBetween(1, numberOfEntries);
+        AtomicLong removals = new AtomicLong();
+        final Cache<Integer, String> cache =
+                CacheBuilder.<Integer, String>builder()
+                        .setMaximumWeight(maximumWeight)
+                        .removalListener(notification -> removals.incrementAndGet())
+                        .build();
+        AtomicLong puts = new AtomicLong();
+        CyclicBarrier barrier = new CyclicBarrier(1 + numberOfThreads);
+        for (int i = 0; i < numberOfThreads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    barrier.await();
+                    Random random = new Random(random().nextLong());
+                    for (int j = 0; j < numberOfEntries; j++) {
+                        Integer key = random.nextInt(numberOfEntries);
+                        if (random.nextInt(10) == 0) {
+                            cache.put(key, Integer.toString(key));
+                            puts.incrementAndGet();
+                        } else {
+                            String value = cache.get(key);
+                            assertTrue(value == null || value.equals(Integer.toString(key)));
+                        }
+                    }
+                    barrier.await();
+                } catch (BrokenBarrierException | InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            thread.start();
+        }
+
+        // wait for all threads to be ready
+        barrier.await();
+        // wait for all threads to finish
+        barrier.await();
+
+        cache.refresh();
+        assertThat(cache.count(), lessThanOrEqualTo(maximumWeight));
+        assertEquals(cache.count(), cache.weight());
+        assertEquals(puts.get(), removals.get() + cache.count());
+        int count = 0;
+        for (Integer key : cache.keys()) {
+            assertNotNull(key);
+            count++;
+        }
+        assertEquals(cache.count(), count);
+    }
 }
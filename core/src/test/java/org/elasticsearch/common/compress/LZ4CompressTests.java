@@ -0,0 +1,98 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+public class LZ4CompressTests extends AbstractCompressorTestCase {
+
+    private final Compressor compressor = new LZ4Compressor();
+
+    @Override
+    protected Compressor compressor() {
+        return compressor;
+    }
+
+    public void testBlockRoundTrip() throws IOException {
+        for (int i = 0; i < 100; i++) {
+            final byte[] bytes = new byte[randomIntBetween(0, LZ4Compressor.BLOCK_SIZE)];
+            // a small alphabet so that there are matches of all lengths and distances
+            final int alphabet = randomIntBetween(1, 256);
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = (byte) randomInt(alphabet - 1);
+            }
+            final byte[] compressed = new byte[LZ4.maxCompressedLength(bytes.length)];
+            final int compressedLength = LZ4.compress(bytes, bytes.length, compressed, new int[1 << LZ4.MAX_HASH_LOG]);
+            final byte[] restored = new byte[bytes.length];
+            LZ4.decompress(compressed, compressedLength, restored, bytes.length);
+            assertArrayEquals(bytes, restored);
+        }
+    }
+
+    public void testCorruptedBlock() throws IOException {
+        final byte[] bytes = new byte[randomIntBetween(100, 1000)];
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = (byte) randomInt(3);
+        }
+        final byte[] compressed = new byte[LZ4.maxCompressedLength(bytes.length)];
+        final int compressedLength = LZ4.compress(bytes, bytes.length, compressed, new int[1 << LZ4.MAX_HASH_LOG]);
+        final byte[] restored = new byte[bytes.length];
+        expectThrows(IOException.class, () -> LZ4.decompress(compressed, compressedLength - 1, restored, bytes.length));
+        expectThrows(IOException.class, () -> LZ4.decompress(compressed, compressedLength, restored, bytes.length - 1));
+    }
+
+    public void testDetection() throws IOException {
+        final BytesStreamOutput bytesOut = new BytesStreamOutput();
+        final byte[] bytes = randomUnicodeOfLength(randomIntBetween(0, 1000)).getBytes(StandardCharsets.UTF_8);
+        try (StreamOutput out = compressor.streamOutput(bytesOut)) {
+            out.writeBytes(bytes);
+            // flushing in the middle of the stream writes a block
+            out.flush();
+            out.writeBytes(bytes);
+        }
+        final BytesReference compressed = bytesOut.bytes();
+        assertTrue(CompressorFactory.isCompressed(compressed));
+        assertSame(CompressorFactory.LZ4, CompressorFactory.compressor(compressed));
+        assertFalse(CompressorFactory.COMPRESSOR.isCompressed(compressed));
+        try (StreamInput in = CompressorFactory.uncompress(compressed).streamInput()) {
+            final byte[] uncompressed = new byte[bytes.length * 2];
+            in.readBytes(uncompressed, 0, uncompressed.length);
+            assertEquals(-1, in.read());
+            for (int i = 0; i < uncompressed.length; i++) {
+                assertEquals(bytes[i % bytes.length], uncompressed[i]);
+            }
+        }
+        assertFalse(compressor.isCompressed(new BytesArray("{\"foo\":\"bar\"}")));
+    }
+
+    public void testCompressorByName() {
+        assertSame(CompressorFactory.COMPRESSOR, CompressorFactory.compressor("deflate"));
+        assertSame(CompressorFactory.LZ4, CompressorFactory.compressor("LZ4"));
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> CompressorFactory.compressor("zstd"));
+        assertEquals("unknown compressor [zstd], must be one of [deflate, lz4]", e.getMessage());
+    }
+}
@@ -349,6 +349,64 @@ public class TimeZoneRoundingTests extends ESTestCase {
         }
     }
 
+    /**
+     * randomized test checking that a prepared rounding returns the same values as the rounding it was prepared from,
+     * inside and outside of the range it was prepared for
+     */
+    public void testPreparedRoundingRandom() {
+        for (int i = 0; i < 100; i++) {
+            DateTimeZone tz = randomDateTimeZone();
+            final Rounding rounding;
+            final long unitMillis;
+            if (randomBoolean()) {
+                DateTimeUnit timeUnit = randomTimeUnit();
+                rounding = new Rounding.TimeUnitRounding(timeUnit, tz);
+                unitMillis = timeUnit.field(tz).getDurationField().getUnitMillis();
+            } else {
+                TimeUnit unit = randomFrom(new TimeUnit[] {TimeUnit.MINUTES, TimeUnit.HOURS, TimeUnit.DAYS});
+                unitMillis = unit.toMillis(randomIntBetween(1, 365));
+                rounding = new Rounding.TimeIntervalRounding(unitMillis, tz);
+            }
+            long min = randomLong() % (2 * (long) 10e11); // 1906-08-16T20:26:40Z - 2033-05-18T03:33:20Z
+            long max = min + Math.abs(randomLong() % (long) 10e11);
+            Rounding prepared = rounding.prepare(min, max);
+            for (int j = 0; j < 100; j++) {
+                long date = min - unitMillis + Math.abs(randomLong() % (max - min + 2 * unitMillis + 1));
+                if (randomBoolean()) {
+                    date = nastyDate(date, tz, unitMillis);
+                }
+                assertThat("rounding " + new DateTime(date, tz) + " with " + rounding, prepared.round(date),
+                        isDate(rounding.round(date), tz));
+            }
+            assertEquals(rounding.nextRoundingValue(min), prepared.nextRoundingValue(min));
+        }
+    }
+
+    public void testPreparedRoundingDST() {
+        DateTimeZone tz = DateTimeZone.forID("Europe/Berlin");
+        Rounding rounding = Rounding.builder(DateTimeUnit.HOUR_OF_DAY).timeZone(tz).build();
+        Rounding prepared = rounding.prepare(time("2015-01-01T00:00:00Z"), time("2016-01-01T00:00:00Z"));
+        assertNotSame(rounding, prepared);
+        // the gap in spring and the overlap in autumn
+        for (long date = time("2015-03-29T00:00:00Z"); date < time("2015-03-29T03:00:00Z"); date += TimeUnit.MINUTES.toMillis(7)) {
+            assertThat(prepared.round(date), isDate(rounding.round(date), tz));
+        }
+        for (long date = time("2015-10-24T23:00:00Z"); date < time("2015-10-25T03:00:00Z"); date += TimeUnit.MINUTES.toMillis(7)) {
+            assertThat(prepared.round(date), isDate(rounding.round(date), tz));
+        }
+        assertThat(prepared.round(time("2015-10-25T01:30:00Z")), isDate(time("2015-10-25T02:00:00.000+01:00"), tz));
+
+        // days and weeks, including values outside of the prepared range
+        rounding = Rounding.builder(DateTimeUnit.DAY_OF_MONTH).timeZone(tz).build();
+        prepared = rounding.prepare(time("2015-01-01T00:00:00Z"), time("2016-01-01T00:00:00Z"));
+        assertThat(prepared.round(time("2015-03-29T12:00:00Z")), isDate(time("2015-03-29T00:00:00.000+01:00"), tz));
+        assertThat(prepared.round(time("2015-10-25T12:00:00Z")), isDate(time("2015-10-25T00:00:00.000+02:00"), tz));
+        assertThat(prepared.round(time("2014-10-26T12:00:00Z")), isDate(time("2014-10-26T00:00:00.000+02:00"), tz));
+        rounding = Rounding.builder(DateTimeUnit.WEEK_OF_WEEKYEAR).timeZone(tz).build();
+        prepared = rounding.prepare(time("2015-01-01T00:00:00Z"), time("2016-01-01T00:00:00Z"));
+        assertThat(prepared.round(time("2015-04-01T12:00:00Z")), isDate(time("2015-03-30T00:00:00.000+02:00"), tz));
+    }
+
     /**
      * Test that rounded values are always greater or equal to last rounded value if date is increasing.
      * The example covers an interval around 2011-10-30T02:10:00+01:00, time zone CET, interval: 2700000ms
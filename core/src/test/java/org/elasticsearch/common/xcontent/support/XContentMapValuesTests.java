@@ -20,6 +20,7 @@
 package org.elasticsearch.common.xcontent.support;
 
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -68,6 +69,13 @@ public class XContentMapValuesTests extends AbstractFilteringTestCase {
         assertEquals("Filtered map must be equal to the expected map",
                 toMap(expected, xContentType, humanReadable),
                 XContentMapValues.filter(toMap(actual, xContentType, humanReadable), sourceIncludes, sourceExcludes));
+
+        ToXContentObject toXContent = (builder, params) -> actual.apply(builder);
+        BytesReference filtered = streamingFilter(toXContent(toXContent, xContentType, humanReadable), xContentType,
+                sourceIncludes, sourceExcludes);
+        assertEquals("Streaming filtered map must be equal to the expected map",
+                toMap(expected, xContentType, humanReadable),
+                convertToMap(filtered, true, xContentType).v2());
     }
 
     @SuppressWarnings({"unchecked"})
@@ -488,6 +496,33 @@ public class XContentMapValuesTests extends AbstractFilteringTestCase {
         assertEquals(expected, filtered);
     }
 
+    public void testStreamingFilter() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder().startObject()
+                .field("foo.bar", 2)
+                .startObject("foo").field("baz", 3).startObject("empty").endObject().endObject()
+                .startArray("array").startObject().field("qux", 4).endObject().startObject().field("baz", 5).endObject().endArray()
+                .field("quux", 5)
+                .endObject();
+
+        assertEquals("{\"foo.bar\":2,\"foo\":{\"baz\":3,\"empty\":{}}}",
+                streamingFilter(builder.bytes(), XContentType.JSON, new String[] {"foo"}, Strings.EMPTY_ARRAY).utf8ToString());
+        assertEquals("{\"foo\":{\"baz\":3},\"array\":[{\"baz\":5}]}",
+                streamingFilter(builder.bytes(), XContentType.JSON, new String[] {"*.baz"}, Strings.EMPTY_ARRAY).utf8ToString());
+        assertEquals("{\"foo\":{\"empty\":{}},\"array\":[{\"qux\":4}],\"quux\":5}",
+                streamingFilter(builder.bytes(), XContentType.JSON, Strings.EMPTY_ARRAY, new String[] {"*.baz", "foo.bar"}).utf8ToString());
+        assertEquals("{}",
+                streamingFilter(builder.bytes(), XContentType.JSON, new String[] {"missing"}, Strings.EMPTY_ARRAY).utf8ToString());
+    }
+
+    private BytesReference streamingFilter(BytesReference source, XContentType xContentType,
+                                           String[] includes, String[] excludes) throws IOException {
+        try (XContentParser parser = createParser(xContentType.xContent(), source)) {
+            XContentBuilder builder = XContentBuilder.builder(xContentType.xContent());
+            XContentMapValues.streamingFilter(includes, excludes).accept(parser, builder);
+            return builder.bytes();
+        }
+    }
+
     private static Map<String, Object> toMap(Builder test, XContentType xContentType, boolean humanReadable) throws IOException {
         ToXContentObject toXContent = (builder, params) -> test.apply(builder);
         return convertToMap(toXContent(toXContent, xContentType, humanReadable), true, xContentType).v2();
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndexingPressureTests extends ESTestCase {
+
+    private final Settings settings = Settings.builder()
+        .put(IndexingPressure.COORDINATING_MEMORY_LIMIT_SETTING.getKey(), "10KB")
+        .put(IndexingPressure.PRIMARY_MEMORY_LIMIT_SETTING.getKey(), "20KB")
+        .put(IndexingPressure.REPLICA_MEMORY_LIMIT_SETTING.getKey(), "30KB")
+        .build();
+
+    public void testMemoryBytesMarkedAndReleased() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10);
+             Releasable coordinating2 = indexingPressure.markCoordinatingOperationStarted(50);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(15);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(25)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(60, stats.getCoordinating().getCurrentBytes());
+            assertEquals(15, stats.getPrimary().getCurrentBytes());
+            assertEquals(25, stats.getReplica().getCurrentBytes());
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(0, stats.getCoordinating().getCurrentBytes());
+        assertEquals(0, stats.getPrimary().getCurrentBytes());
+        assertEquals(0, stats.getReplica().getCurrentBytes());
+        assertEquals(60, stats.getCoordinating().getTotalBytes());
+        assertEquals(15, stats.getPrimary().getTotalBytes());
+        assertEquals(25, stats.getReplica().getTotalBytes());
+        assertEquals(10 * 1024, stats.getCoordinating().getLimitBytes());
+        assertEquals(20 * 1024, stats.getPrimary().getLimitBytes());
+        assertEquals(30 * 1024, stats.getReplica().getLimitBytes());
+    }
+
+    public void testReleaseIsIdempotent() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        Releasable primary = indexingPressure.markPrimaryOperationStarted(100);
+        Releasable primary2 = indexingPressure.markPrimaryOperationStarted(200);
+        primary.close();
+        primary.close();
+        assertEquals(200, indexingPressure.stats().getPrimary().getCurrentBytes());
+        primary2.close();
+        assertEquals(0, indexingPressure.stats().getPrimary().getCurrentBytes());
+    }
+
+    public void testRejectionsPerStage() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(8 * 1024)) {
+            EsRejectedExecutionException e = expectThrows(EsRejectedExecutionException.class,
+                () -> indexingPressure.markCoordinatingOperationStarted(4 * 1024));
+            assertEquals("rejected execution of coordinating operation [current_coordinating_bytes=8192, operation_bytes=4096, "
+                + "max_coordinating_bytes=10240]", e.getMessage());
+            assertEquals(1, indexingPressure.stats().getCoordinating().getRejections());
+            assertEquals(8 * 1024, indexingPressure.stats().getCoordinating().getCurrentBytes());
+
+            // the other stages have their own limits
+            try (Releasable primary = indexingPressure.markPrimaryOperationStarted(16 * 1024)) {
+                expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryOperationStarted(8 * 1024));
+                // operations that fit are still accepted
+                indexingPressure.markPrimaryOperationStarted(2 * 1024).close();
+            }
+            assertEquals(1, indexingPressure.stats().getPrimary().getRejections());
+        }
+        assertEquals(0, indexingPressure.stats().getCoordinating().getCurrentBytes());
+    }
+
+    public void testReplicaOperationsAreNeverRejected() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable replica = indexingPressure.markReplicaOperationStarted(24 * 1024);
+             Releasable replica2 = indexingPressure.markReplicaOperationStarted(24 * 1024)) {
+            assertEquals(48 * 1024, indexingPressure.stats().getReplica().getCurrentBytes());
+            indexingPressure.markReplicaOperationStarted(1).close();
+            // the node sheds the work that it can reject instead
+            EsRejectedExecutionException e = expectThrows(EsRejectedExecutionException.class,
+                () -> indexingPressure.markCoordinatingOperationStarted(1));
+            assertEquals("rejected execution of coordinating operation [current_replica_bytes=49152, operation_bytes=1, "
+                + "max_replica_bytes=30720]", e.getMessage());
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryOperationStarted(1));
+            assertEquals(1, indexingPressure.stats().getCoordinating().getRejections());
+            assertEquals(1, indexingPressure.stats().getPrimary().getRejections());
+            assertEquals(0, indexingPressure.stats().getReplica().getRejections());
+            assertEquals(0, indexingPressure.stats().getCoordinating().getCurrentBytes());
+        }
+        indexingPressure.markCoordinatingOperationStarted(1).close();
+        indexingPressure.markPrimaryOperationStarted(1).close();
+    }
+
+    public void testOperationLargerThanLimitAcceptedWhenIdle() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(64 * 1024)) {
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markCoordinatingOperationStarted(1));
+        }
+        indexingPressure.markCoordinatingOperationStarted(1).close();
+    }
+}
@@ -141,6 +141,11 @@ public class SearchSlowLogTests extends ESSingleNodeTestCase {
                 public String getClusterAlias() {
                     return null;
                 }
+
+                @Override
+                public long readerId() {
+                    return -1;
+                }
             };
             @Override
             public ShardSearchRequest request() {
@@ -0,0 +1,236 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardTestCase;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.threadpool.ThreadPoolStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class FrozenIndexIT extends ESIntegTestCase {
+
+    private void createIndex(int numberOfShards, int numberOfReplicas) {
+        assertAcked(prepareCreate("test").setSettings(Settings.builder()
+            .put("index.number_of_shards", numberOfShards)
+            .put("index.number_of_replicas", numberOfReplicas)));
+    }
+
+    private void indexDocs(int from, int to) {
+        for (int i = from; i < to; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i).get();
+        }
+    }
+
+    private void setFrozen(boolean frozen) {
+        assertAcked(client().admin().indices().prepareClose("test"));
+        assertAcked(client().admin().indices().prepareUpdateSettings("test")
+            .setSettings(Settings.builder().put(IndexMetaData.SETTING_FROZEN, frozen)));
+        assertAcked(client().admin().indices().prepareOpen("test"));
+    }
+
+    private List<IndexShard> shards() {
+        final List<IndexShard> shards = new ArrayList<>();
+        for (IndicesService indicesService : internalCluster().getDataNodeInstances(IndicesService.class)) {
+            final IndexService indexService = indicesService.indexService(resolveIndex("test"));
+            if (indexService != null) {
+                for (IndexShard shard : indexService) {
+                    shards.add(shard);
+                }
+            }
+        }
+        return shards;
+    }
+
+    private void assertFrozenAndNoReaderOpen(int expectedShards) throws Exception {
+        assertBusy(() -> {
+            final List<IndexShard> shards = shards();
+            assertThat(shards, hasSize(expectedShards));
+            for (IndexShard shard : shards) {
+                final Engine engine = IndexShardTestCase.getEngine(shard);
+                assertThat(engine, instanceOf(FrozenEngine.class));
+                assertFalse(shard.shardId() + " has an open reader", ((FrozenEngine) engine).isReaderOpen());
+            }
+        });
+    }
+
+    private long completedThrottledSearches() {
+        long completed = 0;
+        for (NodeStats nodeStats : client().admin().cluster().prepareNodesStats().setThreadPool(true).get().getNodes()) {
+            for (ThreadPoolStats.Stats stats : nodeStats.getThreadPool()) {
+                if (stats.getName().equals(ThreadPool.Names.SEARCH_THROTTLED)) {
+                    completed += stats.getCompleted();
+                }
+            }
+        }
+        return completed;
+    }
+
+    public void testSearchFrozenIndex() throws Exception {
+        internalCluster().startNodes(2);
+        final int numberOfShards = randomIntBetween(1, 3);
+        createIndex(numberOfShards, 1);
+        ensureGreen("test");
+        final int numDocs = randomIntBetween(2, 50);
+        indexDocs(0, numDocs);
+        if (randomBoolean()) {
+            flush("test");
+        }
+        setFrozen(true);
+        ensureGreen("test");
+        assertFrozenAndNoReaderOpen(numberOfShards * 2);
+
+        assertHitCount(client().prepareSearch("test").setSize(0).get(), numDocs);
+        assertHitCount(client().prepareSearch("test").setQuery(termQuery("field", 0)).get(), 1);
+        assertThat(completedThrottledSearches(), greaterThan(0L));
+        assertThat(client().admin().indices().prepareStats("test").setDocs(true).get().getPrimaries().getDocs().getCount(),
+            equalTo((long) numDocs));
+        assertFrozenAndNoReaderOpen(numberOfShards * 2);
+
+        // scrolls keep the reader of their shards open until they are cleared
+        SearchResponse response = client().prepareSearch("test").setSize(1).setScroll(TimeValue.timeValueMinutes(1)).get();
+        int hits = response.getHits().getHits().length;
+        while (response.getHits().getHits().length > 0) {
+            response = client().prepareSearchScroll(response.getScrollId()).setScroll(TimeValue.timeValueMinutes(1)).get();
+            hits += response.getHits().getHits().length;
+        }
+        assertThat(hits, equalTo(numDocs));
+        assertTrue(shards().stream().anyMatch(shard -> ((FrozenEngine) IndexShardTestCase.getEngine(shard)).isReaderOpen()));
+        client().prepareClearScroll().addScrollId(response.getScrollId()).get();
+        assertFrozenAndNoReaderOpen(numberOfShards * 2);
+
+        expectThrows(ClusterBlockException.class, () -> client().prepareIndex("test", "type", "new").setSource("field", -1).get());
+    }
+
+    public void testCanMatchAndForceMergeOfFrozenIndex() throws Exception {
+        internalCluster().startNode();
+        final int numberOfShards = randomIntBetween(2, 3);
+        createIndex(numberOfShards, 0);
+        ensureGreen("test");
+        indexDocs(0, randomIntBetween(1, 50));
+        setFrozen(true);
+        ensureGreen("test");
+        assertFrozenAndNoReaderOpen(numberOfShards);
+
+        // the can_match phase opens a reader too, so it runs on the search_throttled thread pool like the query phase
+        final long completed = completedThrottledSearches();
+        client().prepareSearch("test").setPreFilterShardSize(1).setQuery(termQuery("field", 0)).setSize(0).get();
+        assertBusy(() -> assertThat(completedThrottledSearches(), greaterThanOrEqualTo(completed + 2 * numberOfShards)));
+        assertFrozenAndNoReaderOpen(numberOfShards);
+
+        ClusterBlockException e = expectThrows(ClusterBlockException.class,
+            () -> client().admin().indices().prepareForceMerge("test").setMaxNumSegments(1).get());
+        assertThat(e.status(), equalTo(RestStatus.FORBIDDEN));
+        expectThrows(ClusterBlockException.class, () -> client().admin().indices().prepareUpgrade("test").get());
+    }
+
+    public void testPointInTimeOnFrozenIndex() throws Exception {
+        internalCluster().startNode();
+        final int numberOfShards = randomIntBetween(1, 3);
+        createIndex(numberOfShards, 0);
+        ensureGreen("test");
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        setFrozen(true);
+        ensureGreen("test");
+        assertFrozenAndNoReaderOpen(numberOfShards);
+
+        // opening a point in time acquires a searcher and so opens a reader, which must not happen on the network thread
+        final long completed = completedThrottledSearches();
+        final OpenPointInTimeResponse openResponse = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("test").keepAlive(TimeValue.timeValueMinutes(1))).get();
+        assertBusy(() -> assertThat(completedThrottledSearches(), greaterThanOrEqualTo(completed + numberOfShards)));
+        assertTrue(shards().stream().allMatch(shard -> ((FrozenEngine) IndexShardTestCase.getEngine(shard)).isReaderOpen()));
+
+        final SearchSourceBuilder source = new SearchSourceBuilder().size(0)
+            .pointInTimeBuilder(new PointInTimeBuilder(openResponse.getPointInTimeId()));
+        assertHitCount(client().search(new SearchRequest().source(source)).get(), numDocs);
+
+        final ClearScrollResponse closeResponse = client().execute(ClosePointInTimeAction.INSTANCE,
+            new ClosePointInTimeRequest(openResponse.getPointInTimeId())).get();
+        assertThat(closeResponse.getNumFreed(), equalTo(numberOfShards));
+        assertFrozenAndNoReaderOpen(numberOfShards);
+    }
+
+    public void testReplicaOfFrozenIndexRecoversFromFrozenPrimary() throws Exception {
+        internalCluster().startNode();
+        createIndex(1, 1);
+        ensureYellow("test");
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        setFrozen(true);
+        ensureYellow("test");
+        assertFrozenAndNoReaderOpen(1);
+
+        internalCluster().startNode();
+        ensureGreen("test");
+        assertFrozenAndNoReaderOpen(2);
+        assertHitCount(client().prepareSearch("test").setPreference("_replica").setSize(0).get(), numDocs);
+    }
+
+    public void testUnfreeze() throws Exception {
+        internalCluster().startNode();
+        createIndex(1, 0);
+        ensureGreen("test");
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        setFrozen(true);
+        ensureGreen("test");
+        assertFrozenAndNoReaderOpen(1);
+
+        setFrozen(false);
+        ensureGreen("test");
+        assertThat(IndexShardTestCase.getEngine(shards().get(0)), instanceOf(InternalEngine.class));
+        indexDocs(numDocs, numDocs + 1);
+        refresh("test");
+        assertHitCount(client().prepareSearch("test").setSize(0).get(), numDocs + 1);
+    }
+}
@@ -232,6 +232,7 @@ public class InternalEngineTests extends ESTestCase {
         defaultSettings = IndexSettingsModule.newIndexSettings("test", Settings.builder()
             .put(IndexSettings.INDEX_GC_DELETES_SETTING.getKey(), "1h") // make sure this doesn't kick in on us
             .put(EngineConfig.INDEX_CODEC_SETTING.getKey(), codecName)
+            .put(EngineConfig.INDEX_PAGED_VERSION_MAP_SETTING.getKey(), randomBoolean())
             .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
             .put(IndexSettings.MAX_REFRESH_LISTENERS_PER_SHARD.getKey(),
                 between(10, 10 * IndexSettings.MAX_REFRESH_LISTENERS_PER_SHARD.get(Settings.EMPTY)))
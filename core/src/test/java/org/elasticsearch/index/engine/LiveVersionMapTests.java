@@ -19,12 +19,33 @@
 
 package org.elasticsearch.index.engine;
 
+import org.apache.lucene.index.Term;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.RamUsageTester;
 import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.bootstrap.JavaVersion;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
 public class LiveVersionMapTests extends ESTestCase {
 
     public void testRamBytesUsed() throws Exception {
@@ -57,4 +78,104 @@ public class LiveVersionMapTests extends ESTestCase {
         assertEquals(actualRamBytesUsed, estimatedRamBytesUsed, actualRamBytesUsed / 4);
     }
 
+    public void testPagedRamBytesUsed() throws Exception {
+        LiveVersionMap map = new LiveVersionMap();
+        LiveVersionMap pagedMap = new LiveVersionMap(BigArrays.NON_RECYCLING_INSTANCE);
+        for (int i = 0; i < 100000; ++i) {
+            BytesRefBuilder uid = new BytesRefBuilder();
+            uid.copyChars(TestUtil.randomSimpleString(random(), 10, 20));
+            VersionValue version = new VersionValue(randomLong(), randomLong(), randomLong());
+            map.putUnderLock(uid.toBytesRef(), version);
+            pagedMap.putUnderLock(uid.toBytesRef(), version);
+        }
+        assertThat(pagedMap.ramBytesUsedForRefresh(), lessThan(map.ramBytesUsedForRefresh()));
+        if (JavaVersion.current().compareTo(JavaVersion.parse("9")) < 0) {
+            long actualRamBytesUsed = RamUsageTester.sizeOf(pagedMap);
+            long estimatedRamBytesUsed = pagedMap.ramBytesUsed();
+            // less than 25% off
+            assertEquals(actualRamBytesUsed, estimatedRamBytesUsed, actualRamBytesUsed / 4);
+            assertThat(actualRamBytesUsed, lessThan(RamUsageTester.sizeOf(map) * 3 / 4));
+        }
+        // refreshing moves the values to the old map
+        pagedMap.beforeRefresh();
+        assertThat(pagedMap.ramBytesUsedForRefresh(), lessThan(1024L * 1024L));
+    }
+
+    public void testPagedVersionMap() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(new MockBigArrays(Settings.EMPTY, new NoneCircuitBreakerService()));
+        Map<BytesRef, VersionValue> unrefreshed = new HashMap<>();
+        Map<BytesRef, VersionValue> refreshing = new HashMap<>();
+        Map<BytesRef, DeleteVersionValue> tombstones = new HashMap<>();
+        List<BytesRef> uids = new ArrayList<>();
+        int numUids = randomIntBetween(1, 1000);
+        for (int i = 0; i < numUids; i++) {
+            uids.add(BytesRef.deepCopyOf(new BytesRef(randomAlphaOfLength(randomIntBetween(1, 20)) + i)));
+        }
+        int numOps = randomIntBetween(1, 10000);
+        try {
+            for (int i = 0; i < numOps; i++) {
+                BytesRef uid = randomFrom(uids);
+                VersionValue version;
+                if (randomBoolean()) {
+                    version = new DeleteVersionValue(randomNonNegativeLong(), randomLong(), randomLong(), randomNonNegativeLong());
+                    tombstones.put(uid, (DeleteVersionValue) version);
+                } else {
+                    version = new VersionValue(randomNonNegativeLong(), randomLong(), randomLong());
+                    tombstones.remove(uid);
+                }
+                map.putUnderLock(uid, version);
+                unrefreshed.put(uid, version);
+                if (rarely()) {
+                    map.beforeRefresh();
+                    refreshing = unrefreshed;
+                    unrefreshed = new HashMap<>();
+                    if (randomBoolean()) {
+                        map.afterRefresh(randomBoolean());
+                        refreshing = new HashMap<>();
+                    }
+                }
+                BytesRef lookup = randomFrom(uids);
+                VersionValue expected = unrefreshed.get(lookup);
+                if (expected == null) {
+                    expected = refreshing.get(lookup);
+                }
+                if (expected == null) {
+                    expected = tombstones.get(lookup);
+                }
+                assertVersionValue(expected, map.getUnderLock(new Term(IdFieldMapper.NAME, lookup)));
+            }
+        } finally {
+            // releases all pages
+            map.clear();
+        }
+    }
+
+    public void testPagedVersionMapDoesNotTripBreaker() throws IOException {
+        final HierarchyCircuitBreakerService breakerService = new HierarchyCircuitBreakerService(
+            Settings.builder().put(REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING.getKey(), 1, ByteSizeUnit.BYTES).build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        // entries are added after the operation was written to lucene, so a full breaker must not fail them
+        LiveVersionMap map = new LiveVersionMap(new BigArrays(null, breakerService, true));
+        try {
+            int numOps = randomIntBetween(1, 1000);
+            for (int i = 0; i < numOps; i++) {
+                BytesRef uid = BytesRef.deepCopyOf(new BytesRef(Integer.toString(i)));
+                VersionValue version = new VersionValue(randomNonNegativeLong(), randomLong(), randomLong());
+                map.putUnderLock(uid, version);
+                assertVersionValue(version, map.getUnderLock(new Term(IdFieldMapper.NAME, uid)));
+            }
+            assertThat(breakerService.getBreaker(CircuitBreaker.REQUEST).getUsed(), greaterThan(1L));
+        } finally {
+            map.clear();
+        }
+    }
+
+    private static void assertVersionValue(VersionValue expected, VersionValue actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertNotNull(actual);
+            assertEquals(expected.toString(), actual.toString());
+        }
+    }
 }
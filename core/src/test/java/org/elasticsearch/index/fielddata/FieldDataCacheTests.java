@@ -32,19 +32,27 @@ import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.AbstractAtomicOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.plain.PagedBytesIndexFieldData;
 import org.elasticsearch.index.fielddata.plain.SortedSetDVOrdinalsIndexFieldData;
 import org.elasticsearch.index.mapper.TextFieldMapper;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
+import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCacheListener;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.FieldMaskingReader;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class FieldDataCacheTests extends ESTestCase {
 
@@ -86,6 +94,115 @@ public class FieldDataCacheTests extends ESTestCase {
         dir.close();
     }
 
+    public void testIncrementalGlobalOrdinals() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        for (int i = 0; i < 300; i++) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+            iw.addDocument(doc);
+            if (i % 100 == 99) {
+                iw.flush();
+            }
+        }
+        final ShardId shardId = new ShardId("_index", "_na_", 0);
+        DirectoryReader ir = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), shardId);
+
+        final ShardFieldData shardFieldData = new ShardFieldData();
+        final IndicesFieldDataCache indicesFieldDataCache = new IndicesFieldDataCache(Settings.EMPTY,
+            new IndexFieldDataCache.Listener() {});
+        final IndexFieldDataCache cache = indicesFieldDataCache.buildIndexFieldDataCache(shardFieldData, shardId.getIndex(), "field1");
+        final IndexSettings indexSettings = createIndexSettings(Settings.builder()
+            .put(IndexFieldDataService.INDEX_FIELDDATA_GLOBAL_ORDINALS_INCREMENTAL_SETTING.getKey(), true).build());
+        final SortedSetDVOrdinalsIndexFieldData fieldData = new SortedSetDVOrdinalsIndexFieldData(indexSettings, cache, "field1",
+            new NoneCircuitBreakerService(), AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION);
+        IndexOrdinalsFieldData globalOrdinals = fieldData.loadGlobal(ir);
+        assertThat(globalOrdinals, instanceOf(GlobalOrdinalsIndexFieldData.class));
+        assertFalse(((GlobalOrdinalsIndexFieldData) globalOrdinals).getGlobalOrdinalMap().isIncremental());
+
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField("field1", new BytesRef("new")));
+        iw.addDocument(doc);
+        DirectoryReader newReader = DirectoryReader.openIfChanged(ir);
+        ir.close();
+        ir = newReader;
+        globalOrdinals = fieldData.loadGlobal(ir);
+        assertTrue(((GlobalOrdinalsIndexFieldData) globalOrdinals).getGlobalOrdinalMap().isIncremental());
+        assertThat(globalOrdinals.getOrdinalMap().getValueCount(), equalTo(301L));
+
+        FieldDataStats stats = shardFieldData.stats();
+        assertThat(stats.getGlobalOrdinalsBuildCount(), equalTo(2L));
+        assertThat(stats.getGlobalOrdinalsIncrementalBuildCount(), equalTo(1L));
+
+        ir.close();
+        iw.close();
+        indicesFieldDataCache.close();
+        dir.close();
+    }
+
+    public void testRetainedGlobalOrdinalMapsAreAccounted() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        for (int i = 0; i < 300; i++) {
+            Document doc = new Document();
+            doc.add(new SortedSetDocValuesField("field1", new BytesRef(String.valueOf(i))));
+            iw.addDocument(doc);
+            if (i % 100 == 99) {
+                iw.flush();
+            }
+        }
+        final ShardId shardId = new ShardId("_index", "_na_", 0);
+        DirectoryReader ir = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(iw), shardId);
+
+        final CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.FIELDDATA);
+        final ShardFieldData shardFieldData = new ShardFieldData();
+        final IndicesFieldDataCache indicesFieldDataCache = new IndicesFieldDataCache(Settings.EMPTY,
+            new IndicesFieldDataCacheListener(breakerService));
+        final IndexFieldDataCache cache = indicesFieldDataCache.buildIndexFieldDataCache(shardFieldData, shardId.getIndex(), "field1");
+        final IndexSettings indexSettings = createIndexSettings(Settings.builder()
+            .put(IndexFieldDataService.INDEX_FIELDDATA_GLOBAL_ORDINALS_INCREMENTAL_SETTING.getKey(), true).build());
+        final SortedSetDVOrdinalsIndexFieldData fieldData = new SortedSetDVOrdinalsIndexFieldData(indexSettings, cache, "field1",
+            breakerService, AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION);
+        final long firstSize = ((GlobalOrdinalsIndexFieldData) fieldData.loadGlobal(ir)).ramBytesUsed();
+        assertThat(breaker.getUsed(), equalTo(firstSize));
+
+        // the map outlives its reader and stays accounted for until the next global ordinals replace it
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField("field1", new BytesRef("new")));
+        iw.addDocument(doc);
+        DirectoryReader newReader = DirectoryReader.openIfChanged(ir);
+        ir.close();
+        assertThat(breaker.getUsed(), equalTo(firstSize));
+        assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(firstSize));
+        ir = newReader;
+        final IndexOrdinalsFieldData globalOrdinals = fieldData.loadGlobal(ir);
+        assertTrue(((GlobalOrdinalsIndexFieldData) globalOrdinals).getGlobalOrdinalMap().isIncremental());
+        final long secondSize = ((GlobalOrdinalsIndexFieldData) globalOrdinals).ramBytesUsed();
+        assertThat(breaker.getUsed(), equalTo(secondSize));
+
+        // the lazily built Lucene ordinal map is accounted for until the global ordinals are removed from the cache
+        final long luceneMapSize = globalOrdinals.getOrdinalMap().ramBytesUsed();
+        assertThat(breaker.getUsed(), equalTo(secondSize + luceneMapSize));
+        ir.close();
+        assertThat(breaker.getUsed(), equalTo(secondSize));
+        assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(secondSize));
+
+        // closing the shard releases the retained map
+        cache.clear(shardId);
+        assertThat(breaker.getUsed(), equalTo(0L));
+        assertThat(shardFieldData.stats().getMemorySizeInBytes(), equalTo(0L));
+
+        iw.close();
+        indicesFieldDataCache.close();
+        dir.close();
+    }
+
     private SortedSetDVOrdinalsIndexFieldData createSortedDV(String fieldName, IndexFieldDataCache indexFieldDataCache) {
         return new SortedSetDVOrdinalsIndexFieldData(createIndexSettings(), indexFieldDataCache, fieldName, new NoneCircuitBreakerService(),
                 AbstractAtomicOrdinalsFieldData.DEFAULT_SCRIPT_FUNCTION);
@@ -99,9 +216,13 @@ public class FieldDataCacheTests extends ESTestCase {
     }
 
     private IndexSettings createIndexSettings() {
+        return createIndexSettings(Settings.EMPTY);
+    }
+
+    private IndexSettings createIndexSettings(Settings indexSettings) {
         Settings settings = Settings.EMPTY;
         IndexMetaData indexMetaData = IndexMetaData.builder("_name")
-                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .settings(Settings.builder().put(indexSettings).put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
                 .numberOfShards(1)
                 .numberOfReplicas(0)
                 .creationDate(System.currentTimeMillis())
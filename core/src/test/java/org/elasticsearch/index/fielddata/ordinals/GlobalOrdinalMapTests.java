@@ -0,0 +1,169 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class GlobalOrdinalMapTests extends ESTestCase {
+
+    public void testBuildIncrementally() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numTerms = 2000;
+            int segment = 0;
+            // a few large segments, so that the new segments of every round are small in comparison
+            for (; segment < 5; segment++) {
+                addSegment(writer, segment, 300, numTerms);
+            }
+            DirectoryReader reader = DirectoryReader.open(writer);
+            GlobalOrdinalMap previous = GlobalOrdinalMap.build(segmentKeys(reader), subs(reader));
+            assertFalse(previous.isIncremental());
+            final int rounds = randomIntBetween(3, 10);
+            final List<Integer> smallSegments = new ArrayList<>();
+            for (int round = 0; round < rounds; round++) {
+                final boolean add = smallSegments.isEmpty() || randomBoolean();
+                if (add) {
+                    smallSegments.add(segment);
+                    addSegment(writer, segment++, randomIntBetween(1, 10), numTerms + 100);
+                }
+                if (add == false || randomBoolean()) {
+                    // deleting all documents of a segment drops it from the reader, together with the terms only it had
+                    final int deleted = smallSegments.remove(randomInt(smallSegments.size() - 1));
+                    writer.deleteDocuments(new Term("segment", Integer.toString(deleted)));
+                }
+                final DirectoryReader newReader = DirectoryReader.openIfChanged(reader);
+                assertNotNull(newReader);
+                reader.close();
+                reader = newReader;
+
+                final SortedSetDocValues[] subs = subs(reader);
+                final GlobalOrdinalMap incremental = GlobalOrdinalMap.buildIncrementally(previous, segmentKeys(reader), subs);
+                assertNotNull(incremental);
+                assertTrue(incremental.isIncremental());
+                assertSameMapping(GlobalOrdinalMap.build(segmentKeys(reader), subs), incremental, subs);
+                previous = incremental;
+            }
+            reader.close();
+        }
+    }
+
+    public void testNoReusableSegments() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            addSegment(writer, 0, 10, 100);
+            addSegment(writer, 1, 10, 100);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final GlobalOrdinalMap previous = GlobalOrdinalMap.build(segmentKeys(reader), subs(reader));
+                writer.deleteDocuments(new Term("segment", "0"), new Term("segment", "1"));
+                addSegment(writer, 2, 10, 100);
+                try (DirectoryReader newReader = DirectoryReader.open(writer)) {
+                    assertNull(GlobalOrdinalMap.buildIncrementally(previous, segmentKeys(newReader), subs(newReader)));
+                }
+            }
+        }
+    }
+
+    public void testManyNewTermsBuildFromScratch() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            addSegment(writer, 0, 10, 100);
+            addSegment(writer, 1, 10, 100);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final GlobalOrdinalMap previous = GlobalOrdinalMap.build(segmentKeys(reader), subs(reader));
+                addSegment(writer, 2, 500, 100000);
+                try (DirectoryReader newReader = DirectoryReader.open(writer)) {
+                    assertNull(GlobalOrdinalMap.buildIncrementally(previous, segmentKeys(newReader), subs(newReader)));
+                }
+            }
+        }
+    }
+
+    private void addSegment(IndexWriter writer, int segment, int numDocs, int numTerms) throws IOException {
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StringField("segment", Integer.toString(segment), Field.Store.NO));
+            final int numValues = randomIntBetween(1, 3);
+            for (int j = 0; j < numValues; j++) {
+                doc.add(new SortedSetDocValuesField("field", new BytesRef(String.format(Locale.ROOT, "%06d",
+                    randomIntBetween(0, numTerms)))));
+            }
+            writer.addDocument(doc);
+        }
+        writer.flush();
+    }
+
+    private static IndexReader.CacheKey[] segmentKeys(IndexReader reader) {
+        final IndexReader.CacheKey[] keys = new IndexReader.CacheKey[reader.leaves().size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = reader.leaves().get(i).reader().getCoreCacheHelper().getKey();
+        }
+        return keys;
+    }
+
+    private static SortedSetDocValues[] subs(IndexReader reader) throws IOException {
+        final SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            final LeafReader leaf = reader.leaves().get(i).reader();
+            subs[i] = DocValues.getSortedSet(leaf, "field");
+        }
+        return subs;
+    }
+
+    private static void assertSameMapping(GlobalOrdinalMap expected, GlobalOrdinalMap actual, SortedSetDocValues[] subs)
+            throws IOException {
+        assertThat(actual.getValueCount(), equalTo(expected.getValueCount()));
+        for (int i = 0; i < subs.length; i++) {
+            final LongValues expectedOrds = expected.getGlobalOrds(i);
+            final LongValues actualOrds = actual.getGlobalOrds(i);
+            for (long segmentOrd = 0; segmentOrd < subs[i].getValueCount(); segmentOrd++) {
+                assertThat(actualOrds.get(segmentOrd), equalTo(expectedOrds.get(segmentOrd)));
+            }
+        }
+        for (long globalOrd = 0; globalOrd < expected.getValueCount(); globalOrd++) {
+            final BytesRef expectedTerm = BytesRef.deepCopyOf(
+                subs[expected.getFirstSegmentNumber(globalOrd)].lookupOrd(expected.getFirstSegmentOrd(globalOrd)));
+            final BytesRef actualTerm = subs[actual.getFirstSegmentNumber(globalOrd)].lookupOrd(actual.getFirstSegmentOrd(globalOrd));
+            assertThat(actualTerm, equalTo(expectedTerm));
+        }
+    }
+}
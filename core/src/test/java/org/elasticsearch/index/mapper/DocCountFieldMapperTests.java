@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+
+public class DocCountFieldMapperTests extends ESSingleNodeTestCase {
+
+    private DocumentMapper createMapper() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .endObject().endObject().string();
+        return createIndex("test").mapperService().documentMapperParser().parse("type", new CompressedXContent(mapping));
+    }
+
+    public void testDocCount() throws Exception {
+        DocumentMapper docMapper = createMapper();
+
+        ParsedDocument doc = docMapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+            .startObject()
+            .field("field", "value")
+            .field(DocCountFieldMapper.NAME, 42)
+            .endObject()
+            .bytes(),
+            XContentType.JSON));
+
+        IndexableField[] fields = doc.rootDoc().getFields(DocCountFieldMapper.NAME);
+        assertEquals(1, fields.length);
+        assertEquals(DocValuesType.NUMERIC, fields[0].fieldType().docValuesType());
+        assertEquals(42L, fields[0].numericValue().longValue());
+        assertEquals("value", doc.rootDoc().get("field"));
+        // _doc_count is not added to the mappings as a regular field
+        assertThat(doc.dynamicMappingsUpdate().toString(), not(containsString(DocCountFieldMapper.NAME)));
+    }
+
+    public void testNoDocCount() throws Exception {
+        DocumentMapper docMapper = createMapper();
+
+        ParsedDocument doc = docMapper.parse(SourceToParse.source("test", "type", "1", XContentFactory.jsonBuilder()
+            .startObject()
+            .field("field", "value")
+            .endObject()
+            .bytes(),
+            XContentType.JSON));
+
+        assertEquals(0, doc.rootDoc().getFields(DocCountFieldMapper.NAME).length);
+    }
+
+    public void testInvalidDocCount() throws Exception {
+        DocumentMapper docMapper = createMapper();
+
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> docMapper.parse(SourceToParse.source("test", "type",
+            "1", XContentFactory.jsonBuilder().startObject().field(DocCountFieldMapper.NAME, 0).endObject().bytes(), XContentType.JSON)));
+        assertThat(e.getCause().getMessage(), containsString("[_doc_count] must be a positive integer, got [0]"));
+
+        e = expectThrows(MapperParsingException.class, () -> docMapper.parse(SourceToParse.source("test", "type",
+            "1", XContentFactory.jsonBuilder().startObject().field(DocCountFieldMapper.NAME, "foo").endObject().bytes(),
+            XContentType.JSON)));
+        assertThat(e.getCause().getMessage(), containsString("[_doc_count] must be a number"));
+    }
+}
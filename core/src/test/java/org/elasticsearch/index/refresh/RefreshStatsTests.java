@@ -25,7 +25,8 @@ import org.elasticsearch.test.EqualsHashCodeTestUtils.MutateFunction;
 public class RefreshStatsTests extends AbstractStreamableTestCase<RefreshStats> {
     @Override
     protected RefreshStats createTestInstance() {
-        return new RefreshStats(randomNonNegativeLong(), randomNonNegativeLong(), between(0, Integer.MAX_VALUE));
+        return new RefreshStats(randomNonNegativeLong(), randomNonNegativeLong(), between(0, Integer.MAX_VALUE),
+            randomNonNegativeLong(), between(0, Integer.MAX_VALUE));
     }
 
     @Override
@@ -39,7 +40,9 @@ public class RefreshStatsTests extends AbstractStreamableTestCase<RefreshStats>
             long total = instance.getTotal();
             long totalInMillis = instance.getTotalTimeInMillis();
             int listeners = instance.getListeners();
-            switch (randomInt(2)) {
+            long skipped = instance.getSkipped();
+            int searchIdleShards = instance.getSearchIdleShards();
+            switch (randomInt(4)) {
             case 0:
                 total += between(1, 2000);
                 break;
@@ -47,11 +50,17 @@ public class RefreshStatsTests extends AbstractStreamableTestCase<RefreshStats>
                 totalInMillis += between(1, 2000);
                 break;
             case 2:
-            default:
                 listeners += between(1, 2000);
                 break;
+            case 3:
+                skipped += between(1, 2000);
+                break;
+            case 4:
+            default:
+                searchIdleShards += between(1, 2000);
+                break;
             }
-            return new RefreshStats(total, totalInMillis, listeners);
+            return new RefreshStats(total, totalInMillis, listeners, skipped, searchIdleShards);
         };
     }
 }
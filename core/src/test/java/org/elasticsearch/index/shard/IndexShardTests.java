@@ -63,12 +63,14 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineException;
@@ -1165,6 +1167,73 @@ public class IndexShardTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testScheduledRefresh() throws Exception {
+        Settings settings = Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .build();
+        IndexMetaData metaData = IndexMetaData.builder("test")
+            .putMapping("test", "{ \"properties\": { \"foo\":  { \"type\": \"text\"}}}")
+            .settings(settings)
+            .primaryTerm(0, 1).build();
+        IndexShard primary = newShard(new ShardId(metaData.getIndex(), 0), true, "n1", metaData, null);
+        recoverShardFromStore(primary);
+        indexDoc(primary, "test", "0", "{\"foo\" : \"bar\"}");
+        assertFalse(primary.isSearchIdle());
+        assertTrue(primary.scheduledRefresh());
+        assertFalse(primary.scheduledRefresh());
+
+        // every shard is search idle right away
+        settings = Settings.builder().put(settings).put(IndexSettings.INDEX_SEARCH_IDLE_AFTER.getKey(), TimeValue.ZERO).build();
+        metaData = IndexMetaData.builder(metaData).settings(settings).build();
+        primary.indexSettings().updateIndexMetaData(metaData);
+        assertTrue(primary.isSearchIdle());
+        assertThat(primary.refreshStats().getSearchIdleShards(), equalTo(1));
+        indexDoc(primary, "test", "1", "{\"foo\" : \"bar\"}");
+        assertFalse(primary.scheduledRefresh());
+        assertTrue(primary.hasRefreshPending());
+        assertThat(primary.refreshStats().getSkipped(), equalTo(1L));
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(1, searcher.reader().numDocs());
+        }
+
+        // a search request waits for the skipped refresh, which the next scheduled refresh executes
+        CountDownLatch latch = new CountDownLatch(1);
+        primary.awaitShardSearchActive(refreshed -> {
+            assertTrue(refreshed);
+            latch.countDown();
+        });
+        assertEquals(1, latch.getCount());
+        assertTrue(primary.scheduledRefresh());
+        latch.await();
+        assertFalse(primary.hasRefreshPending());
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(2, searcher.reader().numDocs());
+        }
+
+        // without pending refreshes search requests go ahead right away
+        CountDownLatch noPendingRefreshLatch = new CountDownLatch(1);
+        primary.awaitShardSearchActive(refreshed -> {
+            assertFalse(refreshed);
+            noPendingRefreshLatch.countDown();
+        });
+        noPendingRefreshLatch.await();
+
+        // scheduled refreshes are never skipped if the refresh interval is set explicitly
+        settings = Settings.builder().put(settings).put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), "1s").build();
+        metaData = IndexMetaData.builder(metaData).settings(settings).build();
+        primary.indexSettings().updateIndexMetaData(metaData);
+        assertTrue(primary.isSearchIdle());
+        indexDoc(primary, "test", "2", "{\"foo\" : \"bar\"}");
+        assertTrue(primary.scheduledRefresh());
+        assertFalse(primary.hasRefreshPending());
+        assertThat(primary.refreshStats().getSkipped(), equalTo(1L));
+        try (Engine.Searcher searcher = primary.acquireSearcher("test")) {
+            assertEquals(3, searcher.reader().numDocs());
+        }
+        closeShards(primary);
+    }
+
     private ParsedDocument testParsedDocument(String id, String type, String routing,
                                               ParseContext.Document document, BytesReference source, Mapping mappingUpdate) {
         Field idField = new Field("_id", id, IdFieldMapper.Defaults.FIELD_TYPE);
@@ -20,7 +20,11 @@ package org.elasticsearch.index.store;
 
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FileSwitchDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.store.NIOFSDirectory;
 import org.apache.lucene.store.SimpleFSDirectory;
 import org.apache.lucene.store.SleepingLockWrapper;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
@@ -36,6 +40,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItems;
 
 public class FsDirectoryServiceTests extends ESTestCase {
 
@@ -45,6 +53,42 @@ public class FsDirectoryServiceTests extends ESTestCase {
         doTestPreload("*");
     }
 
+    public void testHybridDirectory() throws IOException {
+        Settings build = Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "hybridfs")
+                .putArray(IndexModule.INDEX_STORE_HYBRID_MMAP_EXTENSIONS_SETTING.getKey(), "dvd", "tim")
+                .putArray(IndexModule.INDEX_STORE_PRE_LOAD_SETTING.getKey(), "dvd")
+                .build();
+        IndexSettings settings = IndexSettingsModule.newIndexSettings("foo", build);
+        IndexStore store = new IndexStore(settings);
+        Path tempDir = createTempDir().resolve(settings.getUUID()).resolve("0");
+        Files.createDirectories(tempDir);
+        ShardPath path = new ShardPath(false, tempDir, tempDir, new ShardId(settings.getIndex(), 0));
+        FsDirectoryService fsDirectoryService = new FsDirectoryService(settings, store, path);
+        try (Directory directory = fsDirectoryService.newDirectory()) {
+            assertTrue(directory.toString(), directory instanceof FsDirectoryService.HybridDirectory);
+            FileSwitchDirectory hybrid = (FileSwitchDirectory) directory;
+            assertTrue(hybrid.getSecondaryDir() instanceof NIOFSDirectory);
+            // the memory-mapped side is further split to pre-load doc values
+            assertTrue(hybrid.getPrimaryDir() instanceof FileSwitchDirectory);
+            FileSwitchDirectory preload = (FileSwitchDirectory) hybrid.getPrimaryDir();
+            assertTrue(((MMapDirectory) preload.getPrimaryDir()).getPreload());
+            assertFalse(((MMapDirectory) preload.getSecondaryDir()).getPreload());
+
+            for (String file : new String[] {"_0.dvd", "_0.tim", "_0.fdt", "segments_1"}) {
+                try (IndexOutput output = directory.createOutput(file, IOContext.DEFAULT)) {
+                    output.writeInt(42);
+                }
+                try (IndexInput input = directory.openInput(file, IOContext.DEFAULT)) {
+                    assertEquals(42, input.readInt());
+                }
+            }
+            List<String> files = Arrays.asList(directory.listAll());
+            assertThat(files, hasItems("_0.dvd", "_0.fdt", "_0.tim", "segments_1"));
+            assertEquals("files must be listed once", new HashSet<>(files).size(), files.size());
+        }
+    }
+
     private void doTestPreload(String...preload) throws IOException {
         Settings build = Settings.builder()
                 .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), "mmapfs")
@@ -69,6 +69,12 @@ public class IndexStoreTests extends ESTestCase {
                 case MMAPFS:
                     assertTrue(type + " " + directory.toString(), directory instanceof MMapDirectory);
                     break;
+                case HYBRIDFS:
+                    assertTrue(type + " " + directory.toString(), directory instanceof FsDirectoryService.HybridDirectory);
+                    FsDirectoryService.HybridDirectory hybrid = (FsDirectoryService.HybridDirectory) directory;
+                    assertTrue(hybrid.getPrimaryDir().toString(), hybrid.getPrimaryDir() instanceof MMapDirectory);
+                    assertTrue(hybrid.getSecondaryDir().toString(), hybrid.getSecondaryDir() instanceof NIOFSDirectory);
+                    break;
                 case SIMPLEFS:
                     assertTrue(type + " " + directory.toString(), directory instanceof SimpleFSDirectory);
                     break;
@@ -0,0 +1,316 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.mockfile.FilterPath;
+import org.apache.lucene.mockfile.HandleTrackingFS;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.LuceneTestCase;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+@LuceneTestCase.SuppressFileSystems("ExtrasFS")
+public class SearchableSnapshotDirectoryTests extends ESTestCase {
+
+    /**
+     * Copies all files of the given directory to the given container the way a snapshot does, splitting them into parts
+     * of the given size.
+     */
+    private static List<FileInfo> snapshot(Directory directory, BlobContainer container, ByteSizeValue partSize) throws IOException {
+        final List<FileInfo> files = new ArrayList<>();
+        for (String name : directory.listAll()) {
+            if (name.equals(IndexWriter.WRITE_LOCK_NAME)) {
+                continue;
+            }
+            final byte[] bytes = new byte[(int) directory.fileLength(name)];
+            try (IndexInput input = directory.openInput(name, IOContext.READONCE)) {
+                input.readBytes(bytes, 0, bytes.length);
+            }
+            final FileInfo file = new FileInfo("__" + files.size(), new StoreFileMetaData(name, bytes.length, "_na_",
+                org.apache.lucene.util.Version.LATEST), partSize);
+            for (int part = 0; part < file.numberOfParts(); part++) {
+                final int start = (int) (part * (partSize == null ? 0 : partSize.getBytes()));
+                final int length = (int) file.partBytes(part);
+                container.writeBlob(file.partName(part), new BytesArray(bytes, start, length).streamInput(), length);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static byte[] readFully(Directory directory, String name) throws IOException {
+        try (IndexInput input = directory.openInput(name, IOContext.DEFAULT)) {
+            final byte[] bytes = new byte[(int) input.length()];
+            input.readBytes(bytes, 0, bytes.length);
+            return bytes;
+        }
+    }
+
+    public void testSearchSnapshotFiles() throws IOException {
+        final int numDocs = randomIntBetween(10, 500);
+        try (Directory source = newFSDirectory(createTempDir());
+             FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, createTempDir())) {
+            try (IndexWriter writer = new IndexWriter(source, new IndexWriterConfig(null))) {
+                for (int i = 0; i < numDocs; i++) {
+                    final Document document = new Document();
+                    document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                    document.add(new IntPoint("value", i));
+                    writer.addDocument(document);
+                    if (rarely()) {
+                        writer.commit();
+                    }
+                }
+            }
+            final BlobContainer container = blobStore.blobContainer(BlobPath.cleanPath());
+            final ByteSizeValue partSize = randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, 16) * 1024);
+            final List<FileInfo> files = snapshot(source, container, partSize);
+
+            final Path cacheLocation = createTempDir();
+            final int blockSize = randomIntBetween(1, 16) * 1024;
+            final SnapshotBlockCache cache = new SnapshotBlockCache(container, cacheLocation, blockSize, Long.MAX_VALUE);
+            try (SearchableSnapshotDirectory directory = new SearchableSnapshotDirectory(FSDirectory.open(createTempDir()), files,
+                cache)) {
+                assertThat(directory.listAll(), arrayContaining(files.stream().map(FileInfo::physicalName).toArray()));
+                for (FileInfo file : files) {
+                    assertArrayEquals(file.physicalName(), readFully(source, file.physicalName()),
+                        readFully(directory, file.physicalName()));
+                }
+                assertThat(cache.missCount(), greaterThan(0L));
+                assertThat(cache.evictionCount(), equalTo(0L));
+
+                if (randomBoolean()) {
+                    directory.copySegmentInfosToLocalDirectory();
+                    assertThat(directory.listAll(), arrayContaining(files.stream().map(FileInfo::physicalName).toArray()));
+                }
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    assertThat(reader.numDocs(), equalTo(numDocs));
+                    final IndexSearcher searcher = new IndexSearcher(reader);
+                    final int id = randomIntBetween(0, numDocs - 1);
+                    assertThat(searcher.count(new TermQuery(new Term("id", Integer.toString(id)))), equalTo(1));
+                    assertThat(searcher.count(IntPoint.newRangeQuery("value", 0, id)), equalTo(id + 1));
+                }
+            }
+            assertFalse(Files.exists(cacheLocation));
+        }
+    }
+
+    public void testSlicesAndClones() throws IOException {
+        try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, createTempDir())) {
+            final byte[] bytes = new byte[randomIntBetween(1, 64 * 1024)];
+            random().nextBytes(bytes);
+            final BlobContainer container = blobStore.blobContainer(BlobPath.cleanPath());
+            final List<FileInfo> files;
+            try (Directory source = newFSDirectory(createTempDir())) {
+                try (IndexOutput output = source.createOutput("file", IOContext.DEFAULT)) {
+                    output.writeBytes(bytes, bytes.length);
+                }
+                files = snapshot(source, container, randomBoolean() ? null : new ByteSizeValue(randomIntBetween(1, 8) * 1024));
+            }
+            final SnapshotBlockCache cache = new SnapshotBlockCache(container, createTempDir(), randomIntBetween(1, 8) * 1024,
+                Long.MAX_VALUE);
+            try (SearchableSnapshotDirectory directory = new SearchableSnapshotDirectory(FSDirectory.open(createTempDir()), files,
+                cache);
+                 IndexInput input = directory.openInput("file", IOContext.DEFAULT)) {
+                final int offset = randomIntBetween(0, bytes.length - 1);
+                final int length = randomIntBetween(0, bytes.length - offset);
+                final IndexInput slice = input.slice("slice", offset, length);
+                final byte[] read = new byte[length];
+                slice.readBytes(read, 0, length);
+                for (int i = 0; i < length; i++) {
+                    assertThat(read[i], equalTo(bytes[offset + i]));
+                }
+
+                final int position = randomIntBetween(0, bytes.length - 1);
+                input.seek(position);
+                final IndexInput clone = input.clone();
+                assertThat(clone.readByte(), equalTo(bytes[position]));
+                // the clone reads independently of the input it was cloned from
+                assertThat(input.getFilePointer(), equalTo((long) position));
+                assertThat(input.readByte(), equalTo(bytes[position]));
+                expectThrows(IllegalArgumentException.class, () -> input.slice("too long", offset, bytes.length - offset + 1));
+            }
+        }
+    }
+
+    public void testEvictsLeastRecentlyUsedBlocks() throws IOException {
+        try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, createTempDir())) {
+            final int blockSize = 1024;
+            final int numBlocks = randomIntBetween(4, 16);
+            final byte[] bytes = new byte[blockSize * numBlocks];
+            random().nextBytes(bytes);
+            final BlobContainer container = blobStore.blobContainer(BlobPath.cleanPath());
+            final List<FileInfo> files;
+            try (Directory source = newFSDirectory(createTempDir())) {
+                try (IndexOutput output = source.createOutput("file", IOContext.DEFAULT)) {
+                    output.writeBytes(bytes, bytes.length);
+                }
+                files = snapshot(source, container, null);
+            }
+            final int maxBlocks = randomIntBetween(1, numBlocks - 1);
+            final Path cacheDir = createTempDir();
+            final SnapshotBlockCache cache = new SnapshotBlockCache(container, cacheDir, blockSize, maxBlocks * blockSize);
+            final FileInfo file = files.get(0);
+            for (int block = 0; block < numBlocks; block++) {
+                cache.prefetch(file, block);
+                assertThat(cache.sizeInBytes(), lessThanOrEqualTo((long) maxBlocks * blockSize));
+            }
+            assertThat(cache.missCount(), equalTo((long) numBlocks));
+            assertThat(cache.evictionCount(), equalTo((long) (numBlocks - maxBlocks)));
+            // the slots of evicted blocks are reused
+            try (Stream<Path> cacheFiles = Files.list(cacheDir)) {
+                assertThat(cacheFiles.count(), equalTo(1L));
+            }
+            assertThat(Files.size(cacheDir.resolve(SnapshotBlockCache.CACHE_FILE_NAME)), lessThanOrEqualTo((long) maxBlocks * blockSize));
+
+            // the most recently read block is still cached, the first one was evicted
+            final long lastBlockStart = (long) (numBlocks - 1) * blockSize;
+            final byte[] read = new byte[blockSize];
+            final int length = cache.read(file, lastBlockStart + 1, read, 0, read.length);
+            assertThat(length, equalTo(blockSize - 1));
+            assertArrayEquals(Arrays.copyOfRange(bytes, (int) lastBlockStart + 1, (int) lastBlockStart + blockSize),
+                Arrays.copyOf(read, length));
+            assertThat(cache.hitCount(), equalTo(1L));
+            assertThat(cache.read(file, 0, read, 0, read.length), equalTo(blockSize));
+            assertArrayEquals(Arrays.copyOf(bytes, blockSize), read);
+            assertThat(cache.missCount(), equalTo((long) numBlocks + 1));
+            cache.close();
+        }
+    }
+
+    public void testOpenChannelsAreBoundedByFiles() throws IOException {
+        try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, createTempDir())) {
+            final int blockSize = 1024;
+            final BlobContainer container = blobStore.blobContainer(BlobPath.cleanPath());
+            final List<FileInfo> files;
+            try (Directory source = newFSDirectory(createTempDir())) {
+                for (int i = 0; i < randomIntBetween(1, 4); i++) {
+                    try (IndexOutput output = source.createOutput("file" + i, IOContext.DEFAULT)) {
+                        final byte[] bytes = new byte[randomIntBetween(8, 32) * blockSize];
+                        random().nextBytes(bytes);
+                        output.writeBytes(bytes, bytes.length);
+                    }
+                }
+                files = snapshot(source, container, null);
+            }
+            final AtomicInteger openChannels = new AtomicInteger();
+            final AtomicInteger maxOpenChannels = new AtomicInteger();
+            final Path cacheDir = createTempDir();
+            final FileSystem fileSystem = new HandleTrackingFS("channelcounting://", cacheDir.getFileSystem()) {
+                @Override
+                protected void onOpen(Path path, Object stream) {
+                    if (stream instanceof FileChannel) {
+                        maxOpenChannels.accumulateAndGet(openChannels.incrementAndGet(), Math::max);
+                    }
+                }
+
+                @Override
+                protected void onClose(Path path, Object stream) {
+                    if (stream instanceof FileChannel) {
+                        openChannels.decrementAndGet();
+                    }
+                }
+            }.getFileSystem(null);
+            final SnapshotBlockCache cache = new SnapshotBlockCache(container, new FilterPath(cacheDir, fileSystem), blockSize,
+                Long.MAX_VALUE);
+            final byte[] read = new byte[blockSize];
+            for (FileInfo file : files) {
+                for (long position = 0; position < file.length(); position += blockSize) {
+                    assertThat(cache.read(file, position, read, 0, read.length), equalTo(blockSize));
+                }
+            }
+            assertThat(cache.evictionCount(), equalTo(0L));
+            assertThat(maxOpenChannels.get(), greaterThan(0));
+            assertThat(maxOpenChannels.get(), lessThanOrEqualTo(files.size()));
+            cache.close();
+            assertThat(openChannels.get(), equalTo(0));
+        }
+    }
+
+    public void testLocalFilesShadowSnapshotFiles() throws IOException {
+        try (FsBlobStore blobStore = new FsBlobStore(Settings.EMPTY, createTempDir())) {
+            final BlobContainer container = blobStore.blobContainer(BlobPath.cleanPath());
+            final List<FileInfo> files;
+            try (Directory source = newFSDirectory(createTempDir())) {
+                for (String name : new String[] {"a", "b"}) {
+                    try (IndexOutput output = source.createOutput(name, IOContext.DEFAULT)) {
+                        output.writeInt(1);
+                    }
+                }
+                files = snapshot(source, container, null);
+            }
+            final SnapshotBlockCache cache = new SnapshotBlockCache(container, createTempDir(), 1024, Long.MAX_VALUE);
+            try (SearchableSnapshotDirectory directory = new SearchableSnapshotDirectory(FSDirectory.open(createTempDir()), files,
+                cache)) {
+                try (IndexOutput output = directory.createOutput("b", IOContext.DEFAULT)) {
+                    output.writeLong(2);
+                }
+                try (IndexOutput output = directory.createOutput("c", IOContext.DEFAULT)) {
+                    output.writeLong(3);
+                }
+                assertThat(directory.listAll(), arrayContaining("a", "b", "c"));
+                assertThat(directory.fileLength("a"), equalTo(4L));
+                assertThat(directory.fileLength("b"), equalTo(8L));
+                directory.sync(Collections.singletonList("a"));
+                expectThrows(IOException.class, () -> directory.rename("a", "d"));
+
+                directory.deleteFile("a");
+                directory.deleteFile("b");
+                assertThat(directory.listAll(), arrayContaining("c"));
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class TranslogSyncSchedulerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        super.tearDown();
+    }
+
+    private TranslogSyncScheduler newScheduler() {
+        return newScheduler(randomIntBetween(1, 8));
+    }
+
+    private TranslogSyncScheduler newScheduler(int maxConcurrentSyncs) {
+        return new TranslogSyncScheduler(Settings.builder()
+            .put(TranslogSyncScheduler.GROUP_COMMIT_ENABLED_SETTING.getKey(), true)
+            .put(TranslogSyncScheduler.GROUP_COMMIT_QUEUE_SIZE_SETTING.getKey(), randomIntBetween(1, 1024))
+            .put(TranslogSyncScheduler.GROUP_COMMIT_MAX_CONCURRENT_SYNCS_SETTING.getKey(), maxConcurrentSyncs)
+            .build(), threadPool);
+    }
+
+    public void testDisabledByDefault() {
+        final TranslogSyncScheduler scheduler = new TranslogSyncScheduler(Settings.EMPTY, threadPool);
+        assertFalse(scheduler.isEnabled());
+        final IllegalStateException e = expectThrows(IllegalStateException.class,
+            () -> scheduler.sync(createTempDir(), l -> {}, new Translog.Location(0, 0, 0), ex -> {}));
+        assertThat(e.getMessage(), equalTo("translog group commit is disabled"));
+    }
+
+    public void testCoalescesRequestsOfTheSameShard() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler();
+        final Path dataPath = createTempDir();
+        final CountDownLatch blockFirstRound = new CountDownLatch(1);
+        final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+        final List<Translog.Location> synced = new CopyOnWriteArrayList<>();
+        final CheckedConsumer<Translog.Location, IOException> translogSync = location -> {
+            if (synced.isEmpty()) {
+                firstRoundStarted.countDown();
+                try {
+                    blockFirstRound.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }
+            synced.add(location);
+        };
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread thread = new Thread(() -> scheduler.sync(dataPath, translogSync, new Translog.Location(1, 0, 1), failure::set));
+        thread.start();
+        firstRoundStarted.await();
+        // these requests queue up while the first round is running and are processed in a single round
+        final int numRequests = randomIntBetween(2, 10);
+        final CountDownLatch completed = new CountDownLatch(numRequests);
+        final List<Exception> failures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < numRequests; i++) {
+            scheduler.sync(dataPath, translogSync, new Translog.Location(2, i, 1), e -> {
+                if (e != null) {
+                    failures.add(e);
+                }
+                completed.countDown();
+            });
+        }
+        blockFirstRound.countDown();
+        thread.join();
+        completed.await();
+        assertNull(failure.get());
+        assertTrue(failures.isEmpty());
+        assertThat(synced.size(), equalTo(2));
+        assertThat(synced.get(1), equalTo(new Translog.Location(2, numRequests - 1, 1)));
+
+        final TranslogSyncStats stats = scheduler.stats();
+        assertThat(stats.getRequests(), equalTo((long) numRequests + 1));
+        assertThat(stats.getRounds(), equalTo(2L));
+        assertThat(stats.getSyncs(), equalTo(2L));
+        assertThat(stats.getRequestLatency().getTotalCount(), equalTo((long) numRequests + 1));
+        assertThat(stats.getRoundDuration().getTotalCount(), equalTo(2L));
+    }
+
+    public void testSyncsOfARoundRunConcurrently() throws Exception {
+        final int numShards = randomIntBetween(2, 8);
+        final TranslogSyncScheduler scheduler = newScheduler(numShards);
+        final Path dataPath = createTempDir();
+        final CountDownLatch blockFirstRound = new CountDownLatch(1);
+        final CountDownLatch firstRoundStarted = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> scheduler.sync(dataPath, location -> {
+            firstRoundStarted.countDown();
+            try {
+                blockFirstRound.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }, new Translog.Location(0, 0, 1), e -> {}));
+        thread.start();
+        firstRoundStarted.await();
+        // the shards of the second round can only complete their sync if all of them are synced at the same time
+        final CyclicBarrier allSyncing = new CyclicBarrier(numShards);
+        final CountDownLatch completed = new CountDownLatch(numShards);
+        final List<Exception> failures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            scheduler.sync(dataPath, location -> {
+                try {
+                    allSyncing.await(10, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new IOException(e);
+                }
+            }, new Translog.Location(0, 0, 1), e -> {
+                if (e != null) {
+                    failures.add(e);
+                }
+                completed.countDown();
+            });
+        }
+        blockFirstRound.countDown();
+        thread.join();
+        completed.await();
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertThat(scheduler.stats().getRounds(), equalTo(2L));
+        assertThat(scheduler.stats().getSyncs(), equalTo((long) numShards + 1));
+    }
+
+    public void testFailuresAreIsolatedPerShard() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler();
+        final Path dataPath = createTempDir();
+        final IOException exception = new IOException("boom");
+        final CheckedConsumer<Translog.Location, IOException> failingSync = location -> {
+            throw exception;
+        };
+        final List<Translog.Location> synced = new CopyOnWriteArrayList<>();
+        final CheckedConsumer<Translog.Location, IOException> translogSync = synced::add;
+
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        scheduler.sync(dataPath, failingSync, new Translog.Location(0, 0, 1), failure::set);
+        assertThat(failure.get(), instanceOf(IOException.class));
+        assertSame(exception, failure.get());
+
+        final AtomicReference<Exception> success = new AtomicReference<>(new Exception("not called"));
+        scheduler.sync(dataPath, translogSync, new Translog.Location(0, 0, 1), success::set);
+        assertNull(success.get());
+        assertThat(synced.size(), equalTo(1));
+    }
+
+    public void testConcurrentRequests() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler();
+        final Path[] dataPaths = new Path[randomIntBetween(1, 3)];
+        for (int i = 0; i < dataPaths.length; i++) {
+            dataPaths[i] = createTempDir();
+        }
+        final int numShards = randomIntBetween(1, 5);
+        final List<CheckedConsumer<Translog.Location, IOException>> shards = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            shards.add(location -> {});
+        }
+        final int numThreads = randomIntBetween(2, 8);
+        final int numRequestsPerThread = randomIntBetween(10, 100);
+        final CountDownLatch completed = new CountDownLatch(numThreads * numRequestsPerThread);
+        final List<Exception> failures = new CopyOnWriteArrayList<>();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < numRequestsPerThread; i++) {
+                    final int shard = randomInt(numShards - 1);
+                    // a shard always lives on the same data path
+                    scheduler.sync(dataPaths[shard % dataPaths.length], shards.get(shard), new Translog.Location(0, i, 1), e -> {
+                        if (e != null) {
+                            failures.add(e);
+                        }
+                        completed.countDown();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        completed.await();
+        assertTrue(failures.isEmpty());
+        final TranslogSyncStats stats = scheduler.stats();
+        final long numRequests = numThreads * numRequestsPerThread;
+        assertThat(stats.getRequests(), equalTo(numRequests));
+        assertThat(stats.getSyncs(), lessThanOrEqualTo(numRequests));
+        assertThat(stats.getSyncs(), greaterThanOrEqualTo(stats.getRounds()));
+        assertThat(stats.getRequestLatency().getTotalCount(), equalTo(numRequests));
+    }
+
+    public void testStatsSerialization() throws IOException {
+        final TranslogSyncScheduler scheduler = newScheduler();
+        final Path dataPath = createTempDir();
+        final CheckedConsumer<Translog.Location, IOException> translogSync = location -> {};
+        final int numRequests = randomIntBetween(0, 20);
+        for (int i = 0; i < numRequests; i++) {
+            scheduler.sync(dataPath, translogSync, new Translog.Location(0, i, 1), e -> {});
+        }
+        final TranslogSyncStats stats = scheduler.stats();
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                final TranslogSyncStats read = new TranslogSyncStats(in);
+                assertThat(read.getRequests(), equalTo(stats.getRequests()));
+                assertThat(read.getRounds(), equalTo(stats.getRounds()));
+                assertThat(read.getSyncs(), equalTo(stats.getSyncs()));
+                assertThat(read.getRequestLatency(), equalTo(stats.getRequestLatency()));
+                assertThat(read.getRoundDuration(), equalTo(stats.getRoundDuration()));
+            }
+        }
+    }
+}
@@ -25,10 +25,12 @@ import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -91,6 +93,57 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
         }
     }
 
+    public void testCacheWithHits() throws Exception {
+        Client client = client();
+        assertAcked(client.admin().indices().prepareCreate("index").addMapping("type", "s", "type=date")
+                .setSettings(Settings.builder().put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+                    .put(IndicesRequestCache.INDEX_CACHE_REQUEST_MAX_HITS_SETTING.getKey(), 5)
+                    .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)).get());
+        indexRandom(true, client.prepareIndex("index", "type", "1").setSource("s", "2016-03-19"),
+                client.prepareIndex("index", "type", "2").setSource("s", "2016-03-20"),
+                client.prepareIndex("index", "type", "3").setSource("s", "2016-03-21"),
+                client.prepareIndex("index", "type", "4").setSource("s", "2016-03-22"),
+                client.prepareIndex("index", "type", "5").setSource("s", "2016-03-23"),
+                client.prepareIndex("index", "type", "6").setSource("s", "2016-03-24"));
+        ensureSearchable("index");
+
+        // requests within the configured number of hits are cached, along with their hits
+        for (int i = 0; i < 3; ++i) {
+            final SearchResponse r = client.prepareSearch("index").setSearchType(SearchType.QUERY_THEN_FETCH).setSize(2)
+                    .setQuery(QueryBuilders.rangeQuery("s").gte("2016-03-20")).addSort("s", SortOrder.DESC).get();
+            assertSearchResponse(r);
+            assertThat(r.getHits().getTotalHits(), equalTo(5L));
+            assertThat(r.getHits().getHits().length, equalTo(2));
+            assertThat(r.getHits().getAt(0).getId(), equalTo("6"));
+            assertThat(r.getHits().getAt(1).getId(), equalTo("5"));
+        }
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getHitCount(),
+                equalTo(2L));
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getMissCount(),
+                equalTo(1L));
+
+        // requests asking for more hits are not cached unless explicitly requested
+        final SearchResponse r2 = client.prepareSearch("index").setSearchType(SearchType.QUERY_THEN_FETCH).setFrom(3).setSize(3)
+                .setQuery(QueryBuilders.rangeQuery("s").gte("2016-03-20")).addSort("s", SortOrder.DESC).get();
+        assertSearchResponse(r2);
+        assertThat(r2.getHits().getHits().length, equalTo(2));
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getHitCount(),
+                equalTo(2L));
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getMissCount(),
+                equalTo(1L));
+
+        // scroll requests are never cached
+        final SearchResponse r3 = client.prepareSearch("index").setSearchType(SearchType.QUERY_THEN_FETCH).setSize(2)
+                .setRequestCache(true).setScroll(TimeValue.timeValueMinutes(1))
+                .setQuery(QueryBuilders.rangeQuery("s").gte("2016-03-20")).addSort("s", SortOrder.DESC).get();
+        assertSearchResponse(r3);
+        client.prepareClearScroll().addScrollId(r3.getScrollId()).get();
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getHitCount(),
+                equalTo(2L));
+        assertThat(client.admin().indices().prepareStats("index").setRequestCache(true).get().getTotal().getRequestCache().getMissCount(),
+                equalTo(1L));
+    }
+
     public void testQueryRewrite() throws Exception {
         Client client = client();
         assertAcked(client.admin().indices().prepareCreate("index").addMapping("type", "s", "type=date")
@@ -422,6 +422,7 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
                 null,
                 null,
                 null,
+                null,
                 primaryReplicaSyncer,
                 s -> {});
     }
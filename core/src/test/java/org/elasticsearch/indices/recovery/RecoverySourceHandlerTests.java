@@ -32,6 +32,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.store.BaseDirectoryWrapper;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -71,20 +72,29 @@ import org.elasticsearch.test.DummyShardLock;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -102,7 +112,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         final StartRecoveryRequest request = getStartRecoveryRequest();
         Store store = newStore(createTempDir());
         RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-            recoverySettings.getChunkSize().bytesAsInt(), Settings.EMPTY);
+            recoverySettings.getChunkSize().bytesAsInt(),
+            between(1, 8), between(1, 4), Settings.EMPTY);
         Directory dir = store.directory();
         RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
         int numDocs = randomIntBetween(10, 100);
@@ -144,6 +155,98 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         IOUtils.close(reader, store, targetStore);
     }
 
+    public void testSendFileChunksConcurrently() throws Throwable {
+        final StartRecoveryRequest request = getStartRecoveryRequest();
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.STARTED);
+        Store store = newStore(createTempDir());
+        Directory dir = store.directory();
+        RandomIndexWriter writer = new RandomIndexWriter(random(), dir, newIndexWriterConfig());
+        int numDocs = randomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+            document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+            writer.addDocument(document);
+        }
+        writer.commit();
+        writer.close();
+        List<StoreFileMetaData> metas = new ArrayList<>();
+        for (StoreFileMetaData md : store.getMetadata(null)) {
+            metas.add(md);
+        }
+
+        final int maxConcurrentFileChunks = between(1, 8);
+        final int maxConcurrentFiles = between(1, 4);
+        final int chunkSize = between(16, 1024);
+        final Map<String, Integer> inFlightChunks = new HashMap<>();
+        final Map<String, byte[]> received = new HashMap<>();
+        final BlockingQueue<Runnable> acks = new LinkedBlockingQueue<>();
+        final AtomicReference<AssertionError> assertionError = new AtomicReference<>();
+        final RecoveryTargetHandler recoveryTarget = mock(RecoveryTargetHandler.class);
+        doAnswer(invocation -> {
+            final StoreFileMetaData md = (StoreFileMetaData) invocation.getArguments()[0];
+            final long position = (long) invocation.getArguments()[1];
+            final BytesReference content = (BytesReference) invocation.getArguments()[2];
+            @SuppressWarnings("unchecked")
+            final ActionListener<Void> listener = (ActionListener<Void>) invocation.getArguments()[5];
+            synchronized (inFlightChunks) {
+                try {
+                    final int chunks = inFlightChunks.merge(md.name(), 1, Integer::sum);
+                    assertThat(chunks, lessThanOrEqualTo(maxConcurrentFileChunks));
+                    assertThat(inFlightChunks.size(), lessThanOrEqualTo(maxConcurrentFiles));
+                } catch (AssertionError e) {
+                    assertionError.compareAndSet(null, e);
+                }
+                final byte[] bytes = received.computeIfAbsent(md.name(), name -> new byte[Math.toIntExact(md.length())]);
+                System.arraycopy(BytesReference.toBytes(content), 0, bytes, Math.toIntExact(position), content.length());
+            }
+            acks.add(() -> {
+                synchronized (inFlightChunks) {
+                    inFlightChunks.computeIfPresent(md.name(), (name, chunks) -> chunks == 1 ? null : chunks - 1);
+                }
+                listener.onResponse(null);
+            });
+            return null;
+        }).when(recoveryTarget).writeFileChunk(any(), anyLong(), any(), anyBoolean(), anyInt(), any());
+
+        // acknowledge the chunks from another thread and in random order
+        final AtomicBoolean done = new AtomicBoolean();
+        final Thread acknowledger = new Thread(() -> {
+            final List<Runnable> pending = new ArrayList<>();
+            while (done.get() == false || acks.isEmpty() == false) {
+                acks.drainTo(pending);
+                Collections.shuffle(pending, random());
+                pending.forEach(Runnable::run);
+                pending.clear();
+                Thread.yield();
+            }
+        });
+        acknowledger.start();
+        final RecoverySourceHandler handler = new RecoverySourceHandler(shard, recoveryTarget, request, chunkSize,
+            maxConcurrentFileChunks, maxConcurrentFiles, Settings.EMPTY);
+        try {
+            handler.sendFiles(store, metas.toArray(new StoreFileMetaData[0]),
+                md -> new BufferedOutputStream(handler.new RecoveryOutputStream(md, () -> 0), chunkSize));
+        } finally {
+            done.set(true);
+            acknowledger.join();
+        }
+        if (assertionError.get() != null) {
+            throw assertionError.get();
+        }
+        assertThat(inFlightChunks.size(), equalTo(0));
+        assertThat(received.size(), equalTo(metas.size()));
+        for (StoreFileMetaData md : metas) {
+            try (IndexInput in = store.directory().openInput(md.name(), IOContext.READONCE)) {
+                final byte[] expected = new byte[Math.toIntExact(md.length())];
+                in.readBytes(expected, 0, expected.length);
+                assertArrayEquals("file [" + md.name() + "] differs", expected, received.get(md.name()));
+            }
+        }
+        IOUtils.close(store);
+    }
+
     public StartRecoveryRequest getStartRecoveryRequest() throws IOException {
         Store.MetadataSnapshot metadataSnapshot = randomBoolean() ? Store.MetadataSnapshot.EMPTY :
             new Store.MetadataSnapshot(Collections.emptyMap(),
@@ -168,7 +271,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         when(shard.state()).thenReturn(IndexShardState.STARTED);
         final RecoveryTargetHandler recoveryTarget = mock(RecoveryTargetHandler.class);
         final RecoverySourceHandler handler =
-            new RecoverySourceHandler(shard, recoveryTarget, request, fileChunkSizeInBytes, Settings.EMPTY);
+            new RecoverySourceHandler(shard, recoveryTarget, request, fileChunkSizeInBytes, between(1, 8), between(1, 4),
+                Settings.EMPTY);
         final List<Translog.Operation> operations = new ArrayList<>();
         final int initialNumberOfDocs = randomIntBetween(16, 64);
         for (int i = 0; i < initialNumberOfDocs; i++) {
@@ -234,7 +338,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         Store store = newStore(tempDir, false);
         AtomicBoolean failedEngine = new AtomicBoolean(false);
         RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-            recoverySettings.getChunkSize().bytesAsInt(), Settings.EMPTY) {
+            recoverySettings.getChunkSize().bytesAsInt(),
+            between(1, 8), between(1, 4), Settings.EMPTY) {
             @Override
             protected void failEngine(IOException cause) {
                 assertFalse(failedEngine.get());
@@ -295,7 +400,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         Store store = newStore(tempDir, false);
         AtomicBoolean failedEngine = new AtomicBoolean(false);
         RecoverySourceHandler handler = new RecoverySourceHandler(null, null, request,
-            recoverySettings.getChunkSize().bytesAsInt(), Settings.EMPTY) {
+            recoverySettings.getChunkSize().bytesAsInt(),
+            between(1, 8), between(1, 4), Settings.EMPTY) {
             @Override
             protected void failEngine(IOException cause) {
                 assertFalse(failedEngine.get());
@@ -364,6 +470,8 @@ public class RecoverySourceHandlerTests extends ESTestCase {
             mock(RecoveryTargetHandler.class),
             request,
             recoverySettings.getChunkSize().bytesAsInt(),
+            between(1, 8),
+            between(1, 4),
             Settings.EMPTY) {
 
 
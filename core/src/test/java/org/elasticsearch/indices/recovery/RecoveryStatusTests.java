@@ -19,21 +19,33 @@
 package org.elasticsearch.indices.recovery;
 
 import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RAMDirectory;
 import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ESSingleNodeTestCase;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Pattern;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class RecoveryStatusTests extends ESSingleNodeTestCase {
     private static final org.apache.lucene.util.Version MIN_SUPPORTED_LUCENE_VERSION = org.elasticsearch.Version.CURRENT
@@ -87,4 +99,108 @@ public class RecoveryStatusTests extends ESSingleNodeTestCase {
         // we must fail the recovery because marking it as done will try to move the shard to POST_RECOVERY, which will fail because it's started
         status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
     }
+
+    public void testWriteFileChunksOutOfOrder() throws IOException {
+        IndexService service = createIndex("foo");
+
+        IndexShard indexShard = service.getShardOrNull(0);
+        DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+        RecoveryTarget status = new RecoveryTarget(indexShard, node, new PeerRecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        }, version -> {});
+        final byte[] bytes;
+        final String checksum;
+        try (RAMDirectory directory = new RAMDirectory()) {
+            try (IndexOutput output = directory.createOutput("foo.bar", IOContext.DEFAULT)) {
+                final byte[] content = new byte[randomIntBetween(1, 4096)];
+                random().nextBytes(content);
+                output.writeBytes(content, content.length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput("foo.bar", IOContext.DEFAULT)) {
+                bytes = new byte[Math.toIntExact(input.length())];
+                input.readBytes(bytes, 0, bytes.length);
+                checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+            }
+        }
+        final StoreFileMetaData md = new StoreFileMetaData("foo.bar", bytes.length, checksum, MIN_SUPPORTED_LUCENE_VERSION);
+        status.state().getIndex().addFileDetail(md.name(), md.length(), false);
+
+        final List<Integer> offsets = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += randomIntBetween(1, 512)) {
+            offsets.add(offset);
+        }
+        final List<Integer> order = new ArrayList<>(offsets);
+        Collections.shuffle(order, random());
+        final Set<Integer> written = new HashSet<>();
+        for (int offset : order) {
+            final int index = offsets.indexOf(offset);
+            final int end = index == offsets.size() - 1 ? bytes.length : offsets.get(index + 1);
+            status.writeFileChunk(md, offset, new BytesArray(bytes, offset, end - offset), end == bytes.length, 0,
+                new ActionListener<Void>() {
+                    @Override
+                    public void onResponse(Void aVoid) {
+                        // chunks are only acknowledged once all chunks before them have been written
+                        for (int previous : offsets.subList(0, offsets.indexOf(offset))) {
+                            assertTrue(written.contains(previous));
+                        }
+                        assertTrue(written.add(offset));
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+        }
+        assertEquals(offsets.size(), written.size());
+        assertEquals(bytes.length, status.state().getIndex().recoveredBytes());
+        assertNull(status.getOpenIndexOutput("foo.bar"));
+        try (IndexInput input = status.store().directory().openInput(status.getTempNameForFile("foo.bar"), IOContext.DEFAULT)) {
+            final byte[] actual = new byte[Math.toIntExact(input.length())];
+            input.readBytes(actual, 0, actual.length);
+            assertArrayEquals(bytes, actual);
+        }
+        status.fail(new RecoveryFailedException(status.state(), "end of test. OK.", null), false);
+    }
+
+    public void testPendingFileChunksFailOnClose() throws IOException {
+        IndexService service = createIndex("foo");
+
+        IndexShard indexShard = service.getShardOrNull(0);
+        DiscoveryNode node = new DiscoveryNode("foo", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT);
+        RecoveryTarget status = new RecoveryTarget(indexShard, node, new PeerRecoveryTargetService.RecoveryListener() {
+            @Override
+            public void onRecoveryDone(RecoveryState state) {
+            }
+
+            @Override
+            public void onRecoveryFailure(RecoveryState state, RecoveryFailedException e, boolean sendShardFailure) {
+            }
+        }, version -> {});
+        final StoreFileMetaData md = new StoreFileMetaData("foo.bar", 8 + CodecUtil.footerLength(), "9z51nw",
+            MIN_SUPPORTED_LUCENE_VERSION);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        // the chunk is held back until the first chunk of the file arrives, which never happens
+        status.writeFileChunk(md, 4, new BytesArray(new byte[4]), false, 0, new ActionListener<Void>() {
+            @Override
+            public void onResponse(Void aVoid) {
+                fail("the chunk must not be written");
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+            }
+        });
+        assertNull(failure.get());
+        status.cancel("test");
+        assertThat(failure.get(), instanceOf(IllegalStateException.class));
+    }
 }
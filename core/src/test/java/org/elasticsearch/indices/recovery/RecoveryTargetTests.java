@@ -333,6 +333,10 @@ public class RecoveryTargetTests extends ESTestCase {
             assertThat((double) index.recoveredBytesPercent(),
                     closeTo(100.0 * index.recoveredBytes() / index.totalRecoverBytes(), 0.1));
         }
+        if (completeRecovery) {
+            final long expectedBytesPerSecond = index.time() == 0 ? 0 : index.recoveredBytes() * 1000 / index.time();
+            assertThat(index.recoveredBytesPerSecond(), equalTo(expectedBytesPerSecond));
+        }
     }
 
     public void testStageSequenceEnforcement() {
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.test.ESIntegTestCase;
+import org.elasticsearch.test.InternalTestCluster;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.containsString;
+
+@ESIntegTestCase.ClusterScope(scope = ESIntegTestCase.Scope.TEST, numDataNodes = 0)
+public class SegmentReplicationIT extends ESIntegTestCase {
+
+    private void createSegmentReplicatedIndex() {
+        assertAcked(prepareCreate("test").setSettings(Settings.builder()
+            .put("index.number_of_shards", 1)
+            .put("index.number_of_replicas", 1)
+            .put(IndexSettings.INDEX_REPLICATION_TYPE_SETTING.getKey(), "segment")
+            .put(IndexSettings.INDEX_REFRESH_INTERVAL_SETTING.getKey(), -1)));
+        ensureGreen("test");
+    }
+
+    private void indexDocs(int from, int to) {
+        for (int i = from; i < to; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i).get();
+        }
+    }
+
+    public void testReplicaServesCopiedSegments() throws Exception {
+        internalCluster().startNodes(2);
+        createSegmentReplicatedIndex();
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        refresh("test");
+        assertHitCount(client().prepareSearch("test").setPreference("_primary").setSize(0).get(), numDocs);
+        // the replica only sees documents once the primary has written a commit and the replica has copied it
+        assertHitCount(client().prepareSearch("test").setPreference("_replica").setSize(0).get(), 0);
+
+        flush("test");
+        assertBusy(() -> assertHitCount(client().prepareSearch("test").setPreference("_replica").setSize(0).get(), numDocs));
+
+        final int moreDocs = randomIntBetween(1, 50);
+        indexDocs(numDocs, numDocs + moreDocs);
+        client().prepareDelete("test", "type", "0").get();
+        flush("test");
+        assertBusy(() -> assertHitCount(client().prepareSearch("test").setPreference("_replica").setSize(0).get(),
+            numDocs + moreDocs - 1));
+    }
+
+    public void testPromotedReplicaReplaysItsTranslog() throws Exception {
+        internalCluster().startNodes(2);
+        createSegmentReplicatedIndex();
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        if (randomBoolean()) {
+            flush("test");
+            assertBusy(() -> assertHitCount(client().prepareSearch("test").setPreference("_replica").setSize(0).get(), numDocs));
+        }
+        // these are only in the replica's translog until the next commit is copied
+        final int moreDocs = randomIntBetween(1, 50);
+        indexDocs(numDocs, numDocs + moreDocs);
+
+        final ClusterState state = client().admin().cluster().prepareState().get().getState();
+        final ShardRouting primary = state.routingTable().shardRoutingTable("test", 0).primaryShard();
+        final String primaryNodeName = state.nodes().get(primary.currentNodeId()).getName();
+        internalCluster().stopRandomNode(InternalTestCluster.nameFilter(primaryNodeName));
+        ensureYellow("test");
+
+        // the promoted replica replays its translog while operations are blocked, so this write waits for the replay
+        indexDocs(numDocs + moreDocs, numDocs + moreDocs + 1);
+        refresh("test");
+        assertHitCount(client().prepareSearch("test").setSize(0).get(), numDocs + moreDocs + 1);
+    }
+
+    public void testRealtimeGetReadsFromPrimary() throws Exception {
+        internalCluster().startNodes(2);
+        createSegmentReplicatedIndex();
+        final int numDocs = randomIntBetween(1, 50);
+        indexDocs(0, numDocs);
+        // the replica hasn't copied a commit with these documents yet
+        for (int i = 0; i < numDocs; i++) {
+            assertTrue(client().prepareGet("test", "type", Integer.toString(i)).setPreference("_replica").get().isExists());
+        }
+        final MultiGetResponse response = client().prepareMultiGet().add("test", "type", "0").setPreference("_replica").get();
+        assertTrue(response.getResponses()[0].getResponse().isExists());
+    }
+
+    public void testWaitForRefreshIsRejected() throws Exception {
+        internalCluster().startNodes(2);
+        createSegmentReplicatedIndex();
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> client().prepareIndex("test", "type", "0")
+            .setSource("field", 0).setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL).get());
+        assertThat(e.getMessage(), containsString("refresh policy [wait_for] is not supported on [test]"));
+    }
+}
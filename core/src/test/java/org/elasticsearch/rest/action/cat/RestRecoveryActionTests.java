@@ -28,6 +28,7 @@ import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.common.Randomness;
 import org.elasticsearch.common.Table;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
@@ -93,6 +94,7 @@ public class RestRecoveryActionTests extends ESTestCase {
             when(index.recoveredBytes()).thenReturn((long)recoveredBytes);
             when(index.recoveredBytesPercent()).thenReturn((100f * recoveredBytes) / totalRecoveredBytes);
             when(index.totalRecoverBytes()).thenReturn((long)randomIntBetween(totalRecoveredBytes, 2 * totalRecoveredBytes));
+            when(index.recoveredBytesPerSecond()).thenReturn((long) randomIntBetween(0, 1 << 30));
             when(state.getIndex()).thenReturn(index);
 
             final RecoveryState.Translog translog = mock(RecoveryState.Translog.class);
@@ -146,6 +148,7 @@ public class RestRecoveryActionTests extends ESTestCase {
         assertThat(headers.get(19).value, equalTo("translog_ops"));
         assertThat(headers.get(20).value, equalTo("translog_ops_recovered"));
         assertThat(headers.get(21).value, equalTo("translog_ops_percent"));
+        assertThat(headers.get(22).value, equalTo("bytes_per_sec"));
 
         assertThat(table.getRows().size(), equalTo(successfulShards));
         for (int i = 0; i < successfulShards; i++) {
@@ -181,6 +184,7 @@ public class RestRecoveryActionTests extends ESTestCase {
             assertThat(cells.get(19).value, equalTo(state.getTranslog().totalOperations()));
             assertThat(cells.get(20).value, equalTo(state.getTranslog().recoveredOperations()));
             assertThat(cells.get(21).value, equalTo(percent(state.getTranslog().recoveredPercent())));
+            assertThat(cells.get(22).value, equalTo(new ByteSizeValue(state.getIndex().recoveredBytesPerSecond())));
         }
     }
 
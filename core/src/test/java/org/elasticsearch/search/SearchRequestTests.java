@@ -28,6 +28,7 @@ import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.ArrayUtils;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 
 import java.io.IOException;
@@ -110,6 +111,25 @@ public class SearchRequestTests extends AbstractSearchTestCase {
             assertEquals(1, validationErrors.validationErrors().size());
             assertEquals("using [from] is not allowed in a scroll context", validationErrors.validationErrors().get(0));
         }
+        {
+            // a point in time takes its indices from the point in time id and can't be combined with scroll, routing or preference
+            SearchRequest searchRequest = new SearchRequest("index").source(new SearchSourceBuilder()
+                .pointInTimeBuilder(new PointInTimeBuilder("id")));
+            searchRequest.scroll(new TimeValue(1000));
+            searchRequest.routing("routing");
+            searchRequest.preference("_local");
+            ActionRequestValidationException validationErrors = searchRequest.validate();
+            assertNotNull(validationErrors);
+            assertEquals(4, validationErrors.validationErrors().size());
+            assertEquals("using [pit] is not allowed in a scroll context", validationErrors.validationErrors().get(0));
+            assertEquals("[indices] cannot be used with a point in time, the indices are taken from the point in time",
+                validationErrors.validationErrors().get(1));
+            assertEquals("[routing] cannot be used with a point in time", validationErrors.validationErrors().get(2));
+            assertEquals("[preference] cannot be used with a point in time", validationErrors.validationErrors().get(3));
+
+            searchRequest = new SearchRequest().source(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder("id")));
+            assertNull(searchRequest.validate());
+        }
     }
 
     public void testEqualsAndHashcode() throws IOException {
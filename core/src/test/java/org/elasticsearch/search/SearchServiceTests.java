@@ -24,12 +24,20 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeResponse;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.WriteRequest;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
@@ -54,6 +62,7 @@ import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
 import org.elasticsearch.search.internal.AliasFilter;
@@ -77,7 +86,10 @@ import static java.util.Collections.singletonList;
 import static org.elasticsearch.action.support.WriteRequest.RefreshPolicy.IMMEDIATE;
 import static org.elasticsearch.indices.cluster.IndicesClusterStateService.AllocatedIndices.IndexRemovalReason.DELETED;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 
@@ -146,6 +158,97 @@ public class SearchServiceTests extends ESSingleNodeTestCase {
         assertEquals(0, service.getActiveContexts());
     }
 
+    public void testPointInTime() throws ExecutionException, InterruptedException {
+        createIndex("index", Settings.builder().put("index.number_of_shards", 2).build());
+        final int numDocs = randomIntBetween(1, 20);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("index", "type", Integer.toString(i)).setSource("field", i).get();
+        }
+        client().admin().indices().prepareRefresh("index").get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+
+        OpenPointInTimeResponse openResponse = client().execute(OpenPointInTimeAction.INSTANCE,
+            new OpenPointInTimeRequest("index").keepAlive(TimeValue.timeValueMinutes(1))).get();
+        assertEquals(2, service.getActiveReaderContexts());
+        assertEquals(0, service.getActiveContexts());
+        assertThat(service.getPointInTimeMemoryInBytes(), greaterThan(0L));
+
+        // documents that are indexed after the point in time was opened are not visible through it
+        client().prepareIndex("index", "type", "new").setSource("field", numDocs).setRefreshPolicy(IMMEDIATE).get();
+        assertEquals(numDocs + 1, client().prepareSearch("index").setSize(0).get().getHits().getTotalHits());
+
+        // independent search_after pages share the same pinned readers
+        SearchSourceBuilder source = new SearchSourceBuilder().size(1).sort("field")
+            .pointInTimeBuilder(new PointInTimeBuilder(openResponse.getPointInTimeId()).setKeepAlive(TimeValue.timeValueMinutes(2)));
+        int seen = 0;
+        Object[] after = null;
+        while (true) {
+            if (after != null) {
+                source.searchAfter(after);
+            }
+            SearchResponse response = client().search(new SearchRequest().source(source)).get();
+            assertEquals(numDocs, response.getHits().getTotalHits());
+            if (response.getHits().getHits().length == 0) {
+                break;
+            }
+            after = response.getHits().getHits()[0].getSortValues();
+            seen++;
+        }
+        assertEquals(numDocs, seen);
+        assertEquals(2, service.getActiveReaderContexts());
+        assertEquals(0, service.getActiveContexts());
+
+        ClearScrollResponse closeResponse = client().execute(ClosePointInTimeAction.INSTANCE,
+            new ClosePointInTimeRequest(openResponse.getPointInTimeId())).get();
+        assertEquals(2, closeResponse.getNumFreed());
+        assertEquals(0, service.getActiveReaderContexts());
+        assertEquals(0L, service.getPointInTimeMemoryInBytes());
+
+        SearchPhaseExecutionException e = expectThrows(SearchPhaseExecutionException.class,
+            () -> client().search(new SearchRequest().source(source)).actionGet());
+        assertThat(e.shardFailures()[0].getCause(), instanceOf(SearchContextMissingException.class));
+    }
+
+    public void testPointInTimeFreedOnIndexDelete() throws ExecutionException, InterruptedException {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        client().execute(OpenPointInTimeAction.INSTANCE, new OpenPointInTimeRequest("index").keepAlive(TimeValue.timeValueMinutes(1)))
+            .get();
+        assertEquals(1, service.getActiveReaderContexts());
+        assertAcked(client().admin().indices().prepareDelete("index"));
+        assertEquals(0, service.getActiveReaderContexts());
+        assertEquals(0L, service.getPointInTimeMemoryInBytes());
+    }
+
+    public void testPointInTimeLimits() {
+        createIndex("index");
+        client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
+        SearchService service = getInstanceFromNode(SearchService.class);
+        IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> service.openReaderContext(indexShard.shardId(), TimeValue.timeValueHours(25)));
+        assertThat(e.getMessage(), containsString("is too large. It must be less than"));
+
+        client().admin().cluster().prepareUpdateSettings()
+            .setTransientSettings(Settings.builder().put(SearchService.MAX_POINT_IN_TIME_MEMORY_SETTING.getKey(), "1b")).get();
+        try {
+            CircuitBreakingException cbe = expectThrows(CircuitBreakingException.class,
+                () -> service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1)));
+            assertThat(cbe.getMessage(), containsString("which is larger than the limit of [1] bytes"));
+            assertEquals(0, service.getActiveReaderContexts());
+            assertEquals(0L, service.getPointInTimeMemoryInBytes());
+        } finally {
+            client().admin().cluster().prepareUpdateSettings()
+                .setTransientSettings(Settings.builder().putNull(SearchService.MAX_POINT_IN_TIME_MEMORY_SETTING.getKey())).get();
+        }
+
+        long readerId = service.openReaderContext(indexShard.shardId(), TimeValue.timeValueMinutes(1));
+        assertTrue(service.freeReaderContext(readerId));
+        assertFalse(service.freeReaderContext(readerId));
+    }
+
     public void testCloseSearchContextOnRewriteException() {
         createIndex("index");
         client().prepareIndex("index", "type", "1").setSource("field", "value").setRefreshPolicy(IMMEDIATE).get();
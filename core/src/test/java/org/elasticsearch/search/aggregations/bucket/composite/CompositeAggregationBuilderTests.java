@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.script.Script;
+import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.sort.SortOrder;
+import org.joda.time.DateTimeZone;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CompositeAggregationBuilderTests extends BaseAggregationTestCase<CompositeAggregationBuilder> {
+
+    private DateHistogramValuesSourceBuilder randomDateHistogramSourceBuilder() {
+        DateHistogramValuesSourceBuilder histo = new DateHistogramValuesSourceBuilder(randomAlphaOfLengthBetween(5, 10));
+        if (randomBoolean()) {
+            histo.field(randomAlphaOfLengthBetween(1, 20));
+        } else {
+            histo.script(new Script(randomAlphaOfLengthBetween(10, 20)));
+        }
+        if (randomBoolean()) {
+            histo.dateHistogramInterval(randomFrom(DateHistogramInterval.days(10),
+                DateHistogramInterval.minutes(1), DateHistogramInterval.weeks(1)));
+        } else {
+            histo.interval(randomIntBetween(1, Integer.MAX_VALUE));
+        }
+        if (randomBoolean()) {
+            histo.timeZone(randomDateTimeZone());
+        }
+        return histo;
+    }
+
+    private TermsValuesSourceBuilder randomTermsSourceBuilder() {
+        TermsValuesSourceBuilder terms = new TermsValuesSourceBuilder(randomAlphaOfLengthBetween(5, 10));
+        if (randomBoolean()) {
+            terms.field(randomAlphaOfLengthBetween(1, 20));
+        } else {
+            terms.script(new Script(randomAlphaOfLengthBetween(10, 20)));
+        }
+        terms.order(randomFrom(SortOrder.values()));
+        if (randomBoolean()) {
+            terms.format(randomAlphaOfLengthBetween(1, 10));
+        }
+        return terms;
+    }
+
+    private HistogramValuesSourceBuilder randomHistogramSourceBuilder() {
+        HistogramValuesSourceBuilder histo = new HistogramValuesSourceBuilder(randomAlphaOfLengthBetween(5, 10));
+        if (randomBoolean()) {
+            histo.field(randomAlphaOfLengthBetween(1, 20));
+        } else {
+            histo.script(new Script(randomAlphaOfLengthBetween(10, 20)));
+        }
+        histo.interval(randomDoubleBetween(Math.nextUp(0), Double.MAX_VALUE, false));
+        return histo;
+    }
+
+    @Override
+    protected CompositeAggregationBuilder createTestAggregatorBuilder() {
+        int numSources = randomIntBetween(1, 10);
+        List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+        Map<String, Object> after = new HashMap<>();
+        for (int i = 0; i < numSources; i++) {
+            CompositeValuesSourceBuilder<?> source;
+            switch (randomIntBetween(0, 2)) {
+                case 0:
+                    source = randomTermsSourceBuilder();
+                    break;
+                case 1:
+                    source = randomDateHistogramSourceBuilder();
+                    break;
+                default:
+                    source = randomHistogramSourceBuilder();
+                    break;
+            }
+            if (sources.stream().anyMatch(existing -> existing.name().equals(source.name()))) {
+                continue;
+            }
+            sources.add(source);
+            after.put(source.name(), randomAlphaOfLengthBetween(1, 10));
+        }
+        CompositeAggregationBuilder builder = new CompositeAggregationBuilder(randomAlphaOfLength(10), sources);
+        if (randomBoolean()) {
+            builder.size(randomIntBetween(1, 100));
+        }
+        if (randomBoolean()) {
+            builder.aggregateAfter(after);
+        }
+        return builder;
+    }
+
+    public void testInvalidArguments() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new CompositeAggregationBuilder("name", Collections.emptyList()));
+        assertEquals("Composite [sources] cannot be null or empty", e.getMessage());
+
+        List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+        sources.add(new TermsValuesSourceBuilder("duplicate").field("field1"));
+        sources.add(new TermsValuesSourceBuilder("duplicate").field("field2"));
+        e = expectThrows(IllegalArgumentException.class, () -> new CompositeAggregationBuilder("name", sources));
+        assertEquals("Composite source names must be unique, found duplicates: [duplicate]", e.getMessage());
+
+        CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name",
+            Collections.singletonList(new TermsValuesSourceBuilder("terms").field("field")));
+        e = expectThrows(IllegalArgumentException.class, () -> builder.size(0));
+        assertEquals("[size] must be greater than 0. Found [0] in [name]", e.getMessage());
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.metrics.max.InternalMax;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+public class CompositeAggregatorTests extends AggregatorTestCase {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private static MappedFieldType keywordFieldType() {
+        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+        fieldType.setName("keyword");
+        fieldType.setHasDocValues(true);
+        return fieldType;
+    }
+
+    private static MappedFieldType dateFieldType() {
+        DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.Builder("date").fieldType();
+        fieldType.setName("date");
+        fieldType.setHasDocValues(true);
+        return fieldType;
+    }
+
+    private static MappedFieldType longFieldType(String name) {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName(name);
+        fieldType.setHasDocValues(true);
+        return fieldType;
+    }
+
+    public void testPaginateTermsAndDateHistogram() throws IOException {
+        final SortOrder keywordOrder = randomFrom(SortOrder.values());
+        final SortOrder dateOrder = randomFrom(SortOrder.values());
+        final int keywordMul = keywordOrder == SortOrder.ASC ? 1 : -1;
+        final int dateMul = dateOrder == SortOrder.ASC ? 1 : -1;
+        final IndexWriterConfig config = newIndexWriterConfig();
+        if (randomBoolean()) {
+            // sorting the index by the first source allows to terminate the collection of segments early
+            boolean reverse = keywordOrder == SortOrder.DESC;
+            config.setIndexSort(new Sort(new SortedSetSortField("keyword", reverse,
+                reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN)));
+        }
+        final TreeMap<CompositeKey, Long> expected = new TreeMap<>((a, b) -> {
+            int cmp = ((BytesRef) a.get(0)).compareTo((BytesRef) b.get(0)) * keywordMul;
+            return cmp != 0 ? cmp : Long.compare((Long) a.get(1), (Long) b.get(1)) * dateMul;
+        });
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory, config)) {
+            int numDocs = randomIntBetween(1, 200);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                TreeSet<BytesRef> keywords = new TreeSet<>();
+                int numKeywords = randomIntBetween(0, 3);
+                for (int j = 0; j < numKeywords; j++) {
+                    BytesRef keyword = new BytesRef(randomAlphaOfLength(1));
+                    keywords.add(keyword);
+                    document.add(new SortedSetDocValuesField("keyword", keyword));
+                }
+                TreeSet<Long> days = new TreeSet<>();
+                int numDates = randomIntBetween(0, 3);
+                for (int j = 0; j < numDates; j++) {
+                    long date = randomIntBetween(0, 10) * DAY + randomIntBetween(0, (int) DAY - 1);
+                    days.add(date - date % DAY);
+                    document.add(new SortedNumericDocValuesField("date", date));
+                }
+                // some documents are pre-aggregated and stand for several documents
+                final long docCount = randomBoolean() ? 1 : randomIntBetween(1, 10);
+                if (docCount > 1 || randomBoolean()) {
+                    document.add(new NumericDocValuesField(DocCountFieldMapper.NAME, docCount));
+                }
+                for (BytesRef keyword : keywords) {
+                    for (Long day : days) {
+                        expected.merge(new CompositeKey(keyword, day), docCount, Long::sum);
+                    }
+                }
+                indexWriter.addDocument(document);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                int size = randomIntBetween(1, 20);
+                Map<String, Object> after = null;
+                List<InternalComposite.InternalBucket> buckets = new ArrayList<>();
+                while (true) {
+                    CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                        new TermsValuesSourceBuilder("keyword").field("keyword").order(keywordOrder),
+                        new DateHistogramValuesSourceBuilder("date").field("date").dateHistogramInterval(DateHistogramInterval.DAY)
+                            .order(dateOrder)))
+                        .size(size)
+                        .aggregateAfter(after);
+                    InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder,
+                        keywordFieldType(), dateFieldType());
+                    assertTrue(result.getBuckets().size() <= size);
+                    if (result.getBuckets().isEmpty()) {
+                        assertNull(result.afterKey());
+                        break;
+                    }
+                    buckets.addAll(result.getBuckets());
+                    after = result.afterKey();
+                }
+                assertEquals(expected.size(), buckets.size());
+                int i = 0;
+                for (Map.Entry<CompositeKey, Long> entry : expected.entrySet()) {
+                    InternalComposite.InternalBucket bucket = buckets.get(i++);
+                    assertEquals(entry.getKey(), bucket.getRawKey());
+                    assertEquals(entry.getValue().longValue(), bucket.getDocCount());
+                }
+            }
+        }
+    }
+
+    public void testEarlyTerminationWithDateSort() throws IOException {
+        final boolean reverse = randomBoolean();
+        final IndexWriterConfig config = newIndexWriterConfig();
+        config.setIndexSort(new Sort(new SortedNumericSortField("date", SortField.Type.LONG, reverse,
+            reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN)));
+        final TreeMap<Long, Long> expected = new TreeMap<>((a, b) -> reverse ? Long.compare(b, a) : Long.compare(a, b));
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory, config)) {
+            int numDocs = randomIntBetween(1, 500);
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                long date = randomIntBetween(0, 100) * DAY;
+                document.add(new SortedNumericDocValuesField("date", date));
+                expected.merge(date, 1L, Long::sum);
+                indexWriter.addDocument(document);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                int size = randomIntBetween(1, 10);
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                    new DateHistogramValuesSourceBuilder("date").field("date").dateHistogramInterval(DateHistogramInterval.DAY)
+                        .order(reverse ? SortOrder.DESC : SortOrder.ASC)))
+                    .size(size);
+                InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder, dateFieldType());
+                List<Map.Entry<Long, Long>> expectedEntries = new ArrayList<>(expected.entrySet());
+                assertEquals(Math.min(size, expectedEntries.size()), result.getBuckets().size());
+                for (int i = 0; i < result.getBuckets().size(); i++) {
+                    InternalComposite.InternalBucket bucket = result.getBuckets().get(i);
+                    assertEquals(expectedEntries.get(i).getKey(), bucket.getRawKey().get(0));
+                    assertEquals(expectedEntries.get(i).getValue().longValue(), bucket.getDocCount());
+                }
+            }
+        }
+    }
+
+    public void testWithSubAggregation() throws IOException {
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            Map<String, Long> expectedMax = new HashMap<>();
+            String[] keywords = new String[] {"a", "b", "c", "d", "e"};
+            for (int i = 0; i < 100; i++) {
+                Document document = new Document();
+                String keyword = randomFrom(keywords);
+                long value = randomIntBetween(0, 1000);
+                document.add(new SortedSetDocValuesField("keyword", new BytesRef(keyword)));
+                document.add(new SortedNumericDocValuesField("value", value));
+                expectedMax.merge(keyword, value, Math::max);
+                indexWriter.addDocument(document);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                    new TermsValuesSourceBuilder("keyword").field("keyword")))
+                    .size(2)
+                    .aggregateAfter(randomBoolean() ? null : Collections.singletonMap("keyword", "a"))
+                    .subAggregation(new MaxAggregationBuilder("max").field("value"));
+                InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder,
+                    keywordFieldType(), longFieldType("value"));
+                assertEquals(2, result.getBuckets().size());
+                for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                    String keyword = (String) bucket.getKey().get("keyword");
+                    InternalMax max = bucket.getAggregations().get("max");
+                    assertEquals((double) expectedMax.get(keyword), max.getValue(), 0d);
+                }
+            }
+        }
+    }
+
+    public void testHistogram() throws IOException {
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            for (long value : new long[] {7, 3, -10, -6, 5, 50}) {
+                Document document = new Document();
+                document.add(new SortedNumericDocValuesField("value", value));
+                indexWriter.addDocument(document);
+            }
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                    new HistogramValuesSourceBuilder("histo").field("value").interval(5)))
+                    .aggregateAfter(Collections.singletonMap("histo", -10d));
+                InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder, longFieldType("value"));
+                assertEquals(3, result.getBuckets().size());
+                assertEquals(0d, result.getBuckets().get(0).getKey().get("histo"));
+                assertEquals(1, result.getBuckets().get(0).getDocCount());
+                assertEquals(5d, result.getBuckets().get(1).getKey().get("histo"));
+                assertEquals(2, result.getBuckets().get(1).getDocCount());
+                assertEquals(50d, result.getBuckets().get(2).getKey().get("histo"));
+                assertEquals(1, result.getBuckets().get(2).getDocCount());
+                assertEquals(Collections.singletonMap("histo", 50d), result.afterKey());
+            }
+        }
+    }
+
+    public void testUnmappedField() throws IOException {
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            Document document = new Document();
+            document.add(new SortedSetDocValuesField("keyword", new BytesRef("a")));
+            indexWriter.addDocument(document);
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                    new TermsValuesSourceBuilder("keyword").field("keyword"),
+                    new TermsValuesSourceBuilder("unknown").field("unknown")));
+                InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder, keywordFieldType());
+                assertEquals(0, result.getBuckets().size());
+                assertNull(result.afterKey());
+            }
+        }
+    }
+
+    public void testMissingAfterValue() throws IOException {
+        try (Directory directory = newDirectory();
+             RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+            indexWriter.addDocument(new Document());
+            try (IndexReader indexReader = DirectoryReader.open(indexWriter.w)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, false, false);
+                CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                    new TermsValuesSourceBuilder("keyword").field("keyword")))
+                    .aggregateAfter(Collections.singletonMap("other", "a"));
+                IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                    () -> search(indexSearcher, new MatchAllDocsQuery(), builder, keywordFieldType()));
+                assertEquals("Missing value for [after.keyword]", e.getMessage());
+            }
+        }
+    }
+}
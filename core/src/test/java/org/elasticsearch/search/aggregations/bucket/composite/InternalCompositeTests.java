@@ -0,0 +1,199 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregationTestCase;
+import org.elasticsearch.search.aggregations.ParsedMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class InternalCompositeTests extends InternalMultiBucketAggregationTestCase<InternalComposite> {
+    private List<String> sourceNames;
+    private List<DocValueFormat> formats;
+    private int[] reverseMuls;
+    private boolean[] isBytes;
+    private int size;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        int numFields = randomIntBetween(1, 10);
+        size = randomNumberOfBuckets();
+        sourceNames = new ArrayList<>();
+        formats = new ArrayList<>();
+        reverseMuls = new int[numFields];
+        isBytes = new boolean[numFields];
+        for (int i = 0; i < numFields; i++) {
+            sourceNames.add("field_" + i);
+            formats.add(DocValueFormat.RAW);
+            reverseMuls[i] = randomBoolean() ? 1 : -1;
+            isBytes[i] = randomBoolean();
+        }
+    }
+
+    @Override
+    protected Writeable.Reader<InternalComposite> instanceReader() {
+        return InternalComposite::new;
+    }
+
+    @Override
+    protected Class<? extends ParsedMultiBucketAggregation> implementationClass() {
+        return ParsedComposite.class;
+    }
+
+    @Override
+    protected Predicate<String> excludePathsFromXContentInsertion() {
+        // the keys are parsed as maps, random fields would end up in them
+        return path -> path.endsWith(Aggregation.CommonFields.KEY.getPreferredName()) || path.endsWith("after_key");
+    }
+
+    @Override
+    protected void assertBucket(MultiBucketsAggregation.Bucket expected, MultiBucketsAggregation.Bucket actual, boolean checkOrder) {
+        // the values of the keys may be shuffled in the response, so their string representation is not compared
+        assertEquals(expected.getKey(), actual.getKey());
+        assertEquals(expected.getDocCount(), actual.getDocCount());
+        assertEquals(expected.getAggregations().asMap().keySet(), actual.getAggregations().asMap().keySet());
+    }
+
+    private CompositeKey createCompositeKey() {
+        Comparable<?>[] keys = new Comparable<?>[sourceNames.size()];
+        for (int j = 0; j < keys.length; j++) {
+            if (isBytes[j]) {
+                keys[j] = new BytesRef(randomAlphaOfLengthBetween(1, 20));
+            } else {
+                // doubles rather than longs, since small longs are parsed back as integers
+                keys[j] = randomDoubleBetween(-1000, 1000, true);
+            }
+        }
+        return new CompositeKey(keys);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private int compareKey(CompositeKey first, CompositeKey second) {
+        for (int i = 0; i < first.size(); i++) {
+            int cmp = ((Comparable) first.get(i)).compareTo(second.get(i)) * reverseMuls[i];
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected InternalComposite createTestInstance(String name, List<PipelineAggregator> pipelineAggregators,
+                                                   Map<String, Object> metaData, InternalAggregations aggregations) {
+        int numBuckets = randomIntBetween(0, size);
+        TreeMap<CompositeKey, Long> keys = new TreeMap<>(this::compareKey);
+        for (int i = 0; i < numBuckets; i++) {
+            keys.put(createCompositeKey(), (long) randomIntBetween(1, 100));
+        }
+        List<InternalComposite.InternalBucket> buckets = new ArrayList<>();
+        for (Map.Entry<CompositeKey, Long> entry : keys.entrySet()) {
+            buckets.add(new InternalComposite.InternalBucket(sourceNames, formats, entry.getKey(), reverseMuls, entry.getValue(),
+                aggregations));
+        }
+        return new InternalComposite(name, size, sourceNames, formats, buckets, reverseMuls, Collections.emptyList(), metaData);
+    }
+
+    @Override
+    protected InternalComposite mutateInstance(InternalComposite instance) {
+        List<InternalComposite.InternalBucket> buckets = instance.getBuckets();
+        Map<String, Object> metaData = instance.getMetaData();
+        int code = randomIntBetween(0, 2);
+        int[] reverseMuls = instance.getReverseMuls();
+        switch (code) {
+            case 0:
+                reverseMuls = reverseMuls.clone();
+                reverseMuls[0] = -reverseMuls[0];
+                break;
+            case 1:
+                buckets = new ArrayList<>(buckets);
+                buckets.add(new InternalComposite.InternalBucket(sourceNames, formats, createCompositeKey(), reverseMuls,
+                    randomIntBetween(1, 100), InternalAggregations.EMPTY));
+                break;
+            case 2:
+                if (metaData == null) {
+                    metaData = new HashMap<>(1);
+                } else {
+                    metaData = new HashMap<>(instance.getMetaData());
+                }
+                metaData.put(randomAlphaOfLength(15), randomInt());
+                break;
+            default:
+                throw new AssertionError("illegal branch");
+        }
+        return new InternalComposite(instance.getName(), instance.getSize(), sourceNames, formats, buckets, reverseMuls,
+            instance.pipelineAggregators(), metaData);
+    }
+
+    @Override
+    protected void assertReduced(InternalComposite reduced, List<InternalComposite> inputs) {
+        TreeMap<CompositeKey, Long> expected = new TreeMap<>(this::compareKey);
+        for (InternalComposite input : inputs) {
+            for (InternalComposite.InternalBucket bucket : input.getBuckets()) {
+                expected.merge(bucket.getRawKey(), bucket.getDocCount(), Long::sum);
+            }
+        }
+        List<CompositeKey> expectedKeys = expected.keySet().stream().limit(size).collect(Collectors.toList());
+        assertEquals(expectedKeys.size(), reduced.getBuckets().size());
+        for (int i = 0; i < expectedKeys.size(); i++) {
+            InternalComposite.InternalBucket bucket = reduced.getBuckets().get(i);
+            assertEquals(expectedKeys.get(i), bucket.getRawKey());
+            assertEquals(expected.get(expectedKeys.get(i)).longValue(), bucket.getDocCount());
+        }
+    }
+
+    public void testReduceSame() {
+        InternalComposite result = createTestInstance(randomAlphaOfLength(10), Collections.emptyList(), Collections.emptyMap(),
+            InternalAggregations.EMPTY);
+        List<InternalAggregation> toReduce = new ArrayList<>();
+        int numSame = randomIntBetween(1, 10);
+        for (int i = 0; i < numSame; i++) {
+            toReduce.add(result);
+        }
+        InternalComposite finalReduce = (InternalComposite) result.reduce(toReduce,
+            new InternalAggregation.ReduceContext(null, null, true));
+        assertThat(finalReduce.getBuckets().size(), equalTo(result.getBuckets().size()));
+        for (int i = 0; i < finalReduce.getBuckets().size(); i++) {
+            InternalComposite.InternalBucket bucket = finalReduce.getBuckets().get(i);
+            assertThat(bucket.getRawKey(), equalTo(result.getBuckets().get(i).getRawKey()));
+            assertThat(bucket.getDocCount(), equalTo(result.getBuckets().get(i).getDocCount() * numSame));
+        }
+        if (result.getBuckets().isEmpty() == false) {
+            assertEquals(result.getBuckets().get(result.getBuckets().size() - 1).getKey(), finalReduce.afterKey());
+        }
+    }
+}
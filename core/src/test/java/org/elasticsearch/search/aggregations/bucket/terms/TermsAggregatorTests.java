@@ -38,6 +38,7 @@ import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.common.network.InetAddresses;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.index.mapper.IpFieldMapper;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -152,6 +153,54 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testDocCountField() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                Document document = new Document();
+                document.add(new SortedSetDocValuesField("string", new BytesRef("a")));
+                document.add(new SortedSetDocValuesField("string", new BytesRef("b")));
+                document.add(new NumericDocValuesField(DocCountFieldMapper.NAME, 5));
+                indexWriter.addDocument(document);
+                document = new Document();
+                document.add(new SortedSetDocValuesField("string", new BytesRef("c")));
+                document.add(new SortedSetDocValuesField("string", new BytesRef("a")));
+                indexWriter.addDocument(document);
+                document = new Document();
+                document.add(new SortedSetDocValuesField("string", new BytesRef("b")));
+                document.add(new SortedSetDocValuesField("string", new BytesRef("d")));
+                document.add(new NumericDocValuesField(DocCountFieldMapper.NAME, 3));
+                indexWriter.addDocument(document);
+                try (IndexReader indexReader = maybeWrapReaderEs(indexWriter.getReader())) {
+                    IndexSearcher indexSearcher = newIndexSearcher(indexReader);
+                    for (TermsAggregatorFactory.ExecutionMode executionMode : TermsAggregatorFactory.ExecutionMode.values()) {
+                        TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                            .executionHint(executionMode.toString())
+                            .field("string")
+                            .order(BucketOrder.count(false));
+                        MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                        fieldType.setName("string");
+                        fieldType.setHasDocValues(true);
+
+                        TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                        aggregator.preCollection();
+                        indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                        aggregator.postCollection();
+                        Terms result = (Terms) aggregator.buildAggregation(0L);
+                        assertEquals(4, result.getBuckets().size());
+                        assertEquals("b", result.getBuckets().get(0).getKeyAsString());
+                        assertEquals(8L, result.getBuckets().get(0).getDocCount());
+                        assertEquals("a", result.getBuckets().get(1).getKeyAsString());
+                        assertEquals(6L, result.getBuckets().get(1).getDocCount());
+                        assertEquals("d", result.getBuckets().get(2).getKeyAsString());
+                        assertEquals(3L, result.getBuckets().get(2).getDocCount());
+                        assertEquals("c", result.getBuckets().get(3).getKeyAsString());
+                        assertEquals(1L, result.getBuckets().get(3).getDocCount());
+                    }
+                }
+            }
+        }
+    }
+
     public void testStringIncludeExclude() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
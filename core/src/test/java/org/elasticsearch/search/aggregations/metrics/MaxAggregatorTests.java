@@ -19,12 +19,18 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.IntPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
@@ -99,6 +105,51 @@ public class MaxAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testFindLeafMaxValue() throws IOException {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(1, 500);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+            int numValues = randomIntBetween(0, 3);
+            for (int j = 0; j < numValues; j++) {
+                int value = randomIntBetween(-1000, 1000);
+                document.add(new IntPoint("number", value));
+                document.add(new SortedNumericDocValuesField("number", value));
+            }
+            indexWriter.addDocument(document);
+            if (rarely()) {
+                indexWriter.commit();
+            }
+        }
+        if (randomBoolean()) {
+            indexWriter.deleteDocuments(new Term("id", Integer.toString(randomInt(numDocs - 1))));
+        }
+        indexWriter.close();
+
+        try (IndexReader indexReader = DirectoryReader.open(directory)) {
+            for (LeafReaderContext ctx : indexReader.leaves()) {
+                Number leafMax = MaxAggregator.findLeafMaxValue(ctx.reader(), "number", v -> IntPoint.decodeDimension(v, 0));
+                SortedNumericDocValues values = ctx.reader().getSortedNumericDocValues("number");
+                if (ctx.reader().getLiveDocs() != null || values == null) {
+                    // segments with deletions are collected from doc values
+                    assertNull(leafMax);
+                    continue;
+                }
+                Integer expectedLeafMax = null;
+                for (int doc = values.nextDoc(); doc != SortedNumericDocValues.NO_MORE_DOCS; doc = values.nextDoc()) {
+                    for (int i = 0; i < values.docValueCount(); i++) {
+                        int value = (int) values.nextValue();
+                        expectedLeafMax = expectedLeafMax == null ? value : Math.max(expectedLeafMax, value);
+                    }
+                }
+                assertEquals(expectedLeafMax, leafMax);
+            }
+        }
+        directory.close();
+    }
+
     private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex, Consumer<InternalMax> verify)
             throws IOException {
         Directory directory = newDirectory();
@@ -19,23 +19,61 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
 import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.metrics.min.InternalMin;
 import org.elasticsearch.search.aggregations.metrics.min.MinAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.min.MinAggregator;
+import org.elasticsearch.search.aggregations.support.FieldContext;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+import org.elasticsearch.search.internal.SearchContext;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class MinAggregatorTests extends AggregatorTestCase {
 
+    /**
+     * The query of the search contexts that aggregators are created with, <code>null</code> to leave it unset.
+     */
+    private Query contextQuery;
+
+    @Override
+    protected SearchContext createSearchContext(IndexSearcher indexSearcher, IndexSettings indexSettings) {
+        SearchContext searchContext = super.createSearchContext(indexSearcher, indexSettings);
+        if (contextQuery != null) {
+            when(searchContext.query()).thenReturn(contextQuery);
+            when(searchContext.minimumScore()).thenReturn(null);
+        }
+        return searchContext;
+    }
+
     public void testMinAggregator_numericDv() throws Exception {
         Directory directory = newDirectory();
         RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
@@ -167,4 +205,122 @@ public class MinAggregatorTests extends AggregatorTestCase {
         directory.close();
     }
 
+    public void testMinShortcutWithPoints() throws Exception {
+        Directory directory = newDirectory();
+        RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory);
+        int numDocs = randomIntBetween(1, 500);
+        for (int i = 0; i < numDocs; i++) {
+            Document document = new Document();
+            document.add(new StringField("id", Integer.toString(i), Field.Store.NO));
+            int numValues = randomIntBetween(0, 3);
+            for (int j = 0; j < numValues; j++) {
+                long value = randomIntBetween(-1000, 1000);
+                document.add(new LongPoint("number", value));
+                document.add(new SortedNumericDocValuesField("number", value));
+            }
+            indexWriter.addDocument(document);
+            if (rarely()) {
+                indexWriter.commit();
+            }
+        }
+        int numDeletes = randomIntBetween(0, numDocs / 2);
+        for (int i = 0; i < numDeletes; i++) {
+            indexWriter.deleteDocuments(new Term("id", Integer.toString(randomInt(numDocs - 1))));
+        }
+        indexWriter.close();
+
+        IndexReader indexReader = DirectoryReader.open(directory);
+        double expectedMin = Double.POSITIVE_INFINITY;
+        for (LeafReaderContext ctx : indexReader.leaves()) {
+            Bits liveDocs = ctx.reader().getLiveDocs();
+            SortedNumericDocValues values = ctx.reader().getSortedNumericDocValues("number");
+            Long expectedLeafMin = null;
+            if (values != null) {
+                for (int doc = values.nextDoc(); doc != SortedNumericDocValues.NO_MORE_DOCS; doc = values.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        long value = values.nextValue();
+                        expectedLeafMin = expectedLeafMin == null ? value : Math.min(expectedLeafMin, value);
+                    }
+                }
+            }
+            Number leafMin = MinAggregator.findLeafMinValue(ctx.reader(), "number", v -> LongPoint.decodeDimension(v, 0));
+            assertEquals(expectedLeafMin, leafMin);
+            if (expectedLeafMin != null) {
+                expectedMin = Math.min(expectedMin, expectedLeafMin);
+            }
+        }
+
+        IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+        MinAggregationBuilder aggregationBuilder = new MinAggregationBuilder("_name").field("number");
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName("number");
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        contextQuery = new MatchAllDocsQuery();
+        try {
+            MinAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+            aggregator.preCollection();
+            indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+            aggregator.postCollection();
+            InternalMin result = (InternalMin) aggregator.buildAggregation(0L);
+            assertEquals(expectedMin, result.getValue(), 0);
+        } finally {
+            contextQuery = null;
+        }
+
+        indexReader.close();
+        directory.close();
+    }
+
+    public void testGetPointReaderOrNull() {
+        MappedFieldType numberType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.INTEGER);
+        numberType.setName("number");
+        numberType.setIndexOptions(IndexOptions.DOCS);
+        MappedFieldType dateType = new DateFieldMapper.Builder("date").fieldType();
+        dateType.setName("date");
+        dateType.setIndexOptions(IndexOptions.DOCS);
+        MappedFieldType notIndexedType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        notIndexedType.setName("not_indexed");
+        notIndexedType.setIndexOptions(IndexOptions.NONE);
+        MappedFieldType keywordType = new KeywordFieldMapper.KeywordFieldType();
+        keywordType.setName("keyword");
+        keywordType.setIndexOptions(IndexOptions.DOCS);
+
+        SearchContext matchAll = mockSearchContext(new MatchAllDocsQuery());
+        assertNotNull(MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(numberType)));
+        assertEquals(42, MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(numberType)).apply(encodeInt(42)));
+        assertNotNull(MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(dateType)));
+        assertNull(MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(notIndexedType)));
+        assertNull(MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(keywordType)));
+        assertNull(MinAggregator.getPointReaderOrNull(matchAll, null, numericConfig(numberType).missing(0)));
+        assertNull(MinAggregator.getPointReaderOrNull(matchAll, mock(Aggregator.class), numericConfig(numberType)));
+        assertNull(MinAggregator.getPointReaderOrNull(mockSearchContext(null), null, numericConfig(numberType)));
+        assertNull(MinAggregator.getPointReaderOrNull(mockSearchContext(new DocValuesFieldExistsQuery("number")), null,
+            numericConfig(numberType)));
+
+        SearchContext minScore = mockSearchContext(new MatchAllDocsQuery());
+        when(minScore.minimumScore()).thenReturn(2f);
+        assertNull(MinAggregator.getPointReaderOrNull(minScore, null, numericConfig(numberType)));
+        SearchContext terminateAfter = mockSearchContext(new MatchAllDocsQuery());
+        when(terminateAfter.terminateAfter()).thenReturn(10);
+        assertNull(MinAggregator.getPointReaderOrNull(terminateAfter, null, numericConfig(numberType)));
+    }
+
+    private static SearchContext mockSearchContext(Query query) {
+        SearchContext context = mock(SearchContext.class);
+        when(context.query()).thenReturn(query);
+        when(context.minimumScore()).thenReturn(null);
+        return context;
+    }
+
+    private static ValuesSourceConfig<ValuesSource.Numeric> numericConfig(MappedFieldType fieldType) {
+        ValuesSourceConfig<ValuesSource.Numeric> config = new ValuesSourceConfig<>(ValuesSourceType.NUMERIC);
+        config.fieldContext(new FieldContext(fieldType.name(), null, fieldType));
+        return config;
+    }
+
+    private static byte[] encodeInt(int value) {
+        byte[] bytes = new byte[Integer.BYTES];
+        IntPoint.encodeDimension(value, bytes, 0);
+        return bytes;
+    }
 }
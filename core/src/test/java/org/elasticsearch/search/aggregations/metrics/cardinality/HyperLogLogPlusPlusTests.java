@@ -21,9 +21,13 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
@@ -101,6 +105,82 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         }
     }
 
+    public void testMergeSerialized() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final HyperLogLogPlusPlus mergedSerialized = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final int numSketches = randomIntBetween(1, 20);
+        for (int i = 0; i < numSketches; ++i) {
+            final HyperLogLogPlusPlus sketch = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+            // small sketches use linear counting, large ones hyperloglog
+            final int numValues = randomBoolean() ? randomIntBetween(0, 100) : randomIntBetween(1, 100000);
+            for (int j = 0; j < numValues; ++j) {
+                sketch.collect(0, BitMixer.mix64(randomInt(1000000)));
+            }
+            merged.merge(0, sketch, 0);
+            try (BytesStreamOutput out = new BytesStreamOutput()) {
+                sketch.writeTo(0, out);
+                try (StreamInput in = out.bytes().streamInput()) {
+                    mergedSerialized.merge(0, in);
+                    assertEquals(0, in.available());
+                }
+            }
+            assertEquals(merged.cardinality(0), mergedSerialized.cardinality(0));
+            assertTrue(merged.equals(0, mergedSerialized));
+        }
+    }
+
+    public void testMergeSerializedWithOtherPrecision() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION - 1);
+        final HyperLogLogPlusPlus sketch = new HyperLogLogPlusPlus(p + 1, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        sketch.collect(0, BitMixer.mix64(randomInt()));
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            sketch.writeTo(0, out);
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> counts.merge(0, out.bytes().streamInput()));
+            assertEquals("Cannot merge a sketch with precision [" + (p + 1) + "] into a sketch with precision [" + p + "]",
+                    e.getMessage());
+        }
+    }
+
+    public void testDownsampleEncoded() {
+        for (int i = 0; i < 10000; ++i) {
+            final int p1 = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+            final int p2 = randomIntBetween(MIN_PRECISION, p1);
+            // clear the bits after the index at some precision, so that the run length is stored at least at the higher one
+            final int zeros = 25 - randomIntBetween(p2, p1);
+            final long hash = randomBoolean() ? randomLong() : randomLong() & ~(HyperLogLogPlusPlus.mask(zeros) << 39);
+            final int encoded = HyperLogLogPlusPlus.downsampleEncoded(HyperLogLogPlusPlus.encodeHash(hash, p1), p2);
+            assertEquals(HyperLogLogPlusPlus.encodeHash(hash, p2), encoded);
+        }
+    }
+
+    public void testMergeDownsamplesHigherPrecision() {
+        final int p1 = randomIntBetween(MIN_PRECISION + 1, MAX_PRECISION);
+        final int p2 = randomIntBetween(MIN_PRECISION, p1 - 1);
+        final HyperLogLogPlusPlus high = new HyperLogLogPlusPlus(p1, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final HyperLogLogPlusPlus low = new HyperLogLogPlusPlus(p2, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final HyperLogLogPlusPlus expected = new HyperLogLogPlusPlus(p2, BigArrays.NON_RECYCLING_INSTANCE, 1);
+        final int numValues = randomIntBetween(1, randomBoolean() ? 100 : 100000);
+        for (int i = 0; i < numValues; ++i) {
+            final long hash = BitMixer.mix64(randomInt());
+            if (randomBoolean()) {
+                high.collect(0, hash);
+            } else {
+                low.collect(0, hash);
+            }
+            expected.collect(0, hash);
+        }
+        // a sketch downsampled while it is merged is the same as if the values had been collected at the lower precision
+        low.merge(0, high, 0);
+        assertEquals(expected.cardinality(0), low.cardinality(0));
+        assertTrue(low.equals(0, expected));
+
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> high.merge(0, low, 0));
+        assertEquals("Cannot merge a sketch with precision [" + p2 + "] into a sketch with precision [" + p1
+            + "], sketches can only be merged into a sketch of the same or a lower precision", e.getMessage());
+    }
+
     public void testFakeHashes() {
         // hashes with lots of leading zeros trigger different paths in the code that we try to go through here
         final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
@@ -24,14 +24,17 @@ import com.carrotsearch.hppc.BitMixer;
 import org.elasticsearch.common.io.stream.Writeable.Reader;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.ParsedAggregation;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.test.InternalAggregationTestCase;
 import org.junit.After;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -86,6 +89,31 @@ public class InternalCardinalityTests extends InternalAggregationTestCase<Intern
         }
     }
 
+    public void testReduceMixedPrecisions() {
+        final BigArrays bigArrays = new MockBigArrays(Settings.EMPTY, new NoneCircuitBreakerService());
+        final int lowest = randomIntBetween(HyperLogLogPlusPlus.MIN_PRECISION, HyperLogLogPlusPlus.MAX_PRECISION - 1);
+        final HyperLogLogPlusPlus expected = new HyperLogLogPlusPlus(lowest, bigArrays, 1);
+        algos.add(expected);
+        final List<InternalAggregation> inputs = new ArrayList<>();
+        final int numInputs = randomIntBetween(2, 5);
+        for (int i = 0; i < numInputs; i++) {
+            final int precision = i == 0 ? lowest : randomIntBetween(lowest, HyperLogLogPlusPlus.MAX_PRECISION);
+            final HyperLogLogPlusPlus hllpp = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+            algos.add(hllpp);
+            for (int j = 0; j < 1000; j++) {
+                final long hash = BitMixer.mix64(randomIntBetween(1, 5000));
+                hllpp.collect(0, hash);
+                expected.collect(0, hash);
+            }
+            inputs.add(new InternalCardinality("name", hllpp, Collections.emptyList(), null));
+        }
+        // shards that count at a higher precision are downsampled to the lowest one
+        Collections.shuffle(inputs, random());
+        final InternalCardinality reduced = (InternalCardinality) inputs.get(0).doReduce(inputs, null);
+        assertEquals(lowest, reduced.getState().precision());
+        assertEquals(expected.cardinality(0), reduced.getValue());
+    }
+
     @Override
     protected void assertFromXContent(InternalCardinality aggregation, ParsedAggregation parsedAggregation) {
         assertTrue(parsedAggregation instanceof ParsedCardinality);
@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.metrics.percentiles;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+public class HistogramValueTests extends ESTestCase {
+
+    public void testRoundTrip() {
+        final int size = randomIntBetween(0, 100);
+        double[] values = new double[size];
+        long[] counts = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = randomDouble();
+            counts[i] = randomNonNegativeLong();
+        }
+        // read the histogram from the middle of a larger array, like binary doc values do
+        byte[] encoded = HistogramValue.encode(values, counts);
+        byte[] padded = new byte[encoded.length + 6];
+        System.arraycopy(encoded, 0, padded, 3, encoded.length);
+
+        HistogramValue histogram = new HistogramValue();
+        for (int round = 0; round < 2; round++) {
+            histogram.reset(new BytesRef(padded, 3, encoded.length));
+            for (int i = 0; i < size; i++) {
+                assertTrue(histogram.next());
+                assertEquals(values[i], histogram.value(), 0.0);
+                assertEquals(counts[i], histogram.count());
+            }
+            assertFalse(histogram.next());
+        }
+    }
+
+    public void testIllegalHistograms() {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> HistogramValue.encode(new double[] {1, 2}, new long[] {1}));
+        assertEquals("histogram has [2] values but [1] counts", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class, () -> HistogramValue.encode(new double[] {1}, new long[] {-1}));
+        assertEquals("histogram counts must not be negative, got [-1]", e.getMessage());
+    }
+}
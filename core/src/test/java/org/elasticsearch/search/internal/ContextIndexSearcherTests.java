@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ContextIndexSearcherTests extends ESTestCase {
+
+    public void testSlices() throws IOException {
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            final int numSegments = randomIntBetween(1, 20);
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    w.addDocument(new Document());
+                }
+                w.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final int maxSlices = randomIntBetween(1, 10);
+                final List<List<LeafReaderContext>> slices = ContextIndexSearcher.slices(reader.leaves(), maxSlices);
+                assertThat(slices.size(), lessThanOrEqualTo(maxSlices));
+                // slices hold consecutive leaves so that they are ordered by doc id
+                final List<LeafReaderContext> leaves = new ArrayList<>();
+                for (List<LeafReaderContext> slice : slices) {
+                    assertFalse(slice.isEmpty());
+                    leaves.addAll(slice);
+                }
+                assertThat(leaves, equalTo(reader.leaves()));
+            }
+        }
+    }
+
+    public void testConcurrentSearch() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (Directory dir = newDirectory();
+             IndexWriter w = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+            int totalDocs = 0;
+            final int numSegments = randomIntBetween(2, 10);
+            for (int i = 0; i < numSegments; i++) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int j = 0; j < numDocs; j++) {
+                    w.addDocument(new Document());
+                }
+                totalDocs += numDocs;
+                w.commit();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                final ContextIndexSearcher searcher = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+                    null, IndexSearcher.getDefaultQueryCachingPolicy(), threadPool.executor(ThreadPool.Names.INDEX_SEARCHER),
+                    randomIntBetween(2, numSegments));
+                final int numSlices = searcher.getLeafSlices().size();
+                final List<TotalHitCountCollector> collectors = new ArrayList<>();
+                for (int i = 0; i < numSlices; i++) {
+                    collectors.add(new TotalHitCountCollector());
+                }
+                searcher.search(new MatchAllDocsQuery(), collectors);
+                int totalHits = 0;
+                for (int i = 0; i < numSlices; i++) {
+                    int sliceDocs = 0;
+                    for (LeafReaderContext leaf : searcher.getLeafSlices().get(i)) {
+                        sliceDocs += leaf.reader().numDocs();
+                    }
+                    assertEquals(sliceDocs, collectors.get(i).getTotalHits());
+                    totalHits += collectors.get(i).getTotalHits();
+                }
+                assertEquals(totalDocs, totalHits);
+
+                // the failure of a slice searched on another thread is rethrown as is
+                final int failingSlice = randomIntBetween(0, numSlices - 1);
+                final List<SimpleCollector> failingCollectors = new ArrayList<>();
+                for (int i = 0; i < numSlices; i++) {
+                    final boolean fail = i == failingSlice;
+                    failingCollectors.add(new SimpleCollector() {
+                        @Override
+                        public void collect(int doc) throws IOException {
+                            if (fail) {
+                                throw new IllegalStateException("boom");
+                            }
+                        }
+
+                        @Override
+                        public boolean needsScores() {
+                            return false;
+                        }
+                    });
+                }
+                IllegalStateException e = expectThrows(IllegalStateException.class,
+                    () -> searcher.search(new MatchAllDocsQuery(), failingCollectors));
+                assertEquals("boom", e.getMessage());
+                expectThrows(IllegalArgumentException.class, () -> searcher.search(new MatchAllDocsQuery(), collectors.subList(0, 1)));
+            }
+        } finally {
+            terminate(threadPool);
+        }
+    }
+}
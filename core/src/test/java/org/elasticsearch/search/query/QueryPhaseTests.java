@@ -48,18 +48,22 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
 import org.elasticsearch.action.search.SearchTask;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.query.ParsedQuery;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.ScrollContext;
 import org.elasticsearch.search.sort.SortAndFormats;
 import org.elasticsearch.test.TestSearchContext;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.List;
@@ -67,6 +71,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 
@@ -233,6 +238,66 @@ public class QueryPhaseTests extends IndexShardTestCase {
         dir.close();
     }
 
+    public void testConcurrentSegmentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir, iwc);
+        final int numDocs = scaledRandomIntBetween(100, 200);
+        for (int i = 0; i < numDocs; ++i) {
+            Document doc = new Document();
+            doc.add(new StringField("foo", randomFrom("bar", "baz", "qux"), Store.NO));
+            doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 10)));
+            w.addDocument(doc);
+            if (i % 20 == 0) {
+                w.commit();
+            }
+        }
+        final IndexReader reader = w.getReader();
+        w.close();
+        final ContextIndexSearcher sequential = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            null, IndexSearcher.getDefaultQueryCachingPolicy());
+        final ContextIndexSearcher concurrent = new ContextIndexSearcher(new Engine.Searcher("test", new IndexSearcher(reader)),
+            null, IndexSearcher.getDefaultQueryCachingPolicy(), indexShard.getThreadPool().executor(ThreadPool.Names.INDEX_SEARCHER),
+            randomIntBetween(2, 8));
+        assertNull(sequential.getLeafSlices());
+        assertThat(concurrent.getLeafSlices().size(), greaterThan(1));
+
+        final Query query = new BooleanQuery.Builder()
+            .add(new TermQuery(new Term("foo", "bar")), Occur.SHOULD)
+            .add(new TermQuery(new Term("foo", "baz")), Occur.SHOULD)
+            .build();
+        final SortAndFormats rankSort = new SortAndFormats(new Sort(new SortField("rank", SortField.Type.INT)),
+            new DocValueFormat[] { DocValueFormat.RAW });
+        for (SortAndFormats sort : new SortAndFormats[] { null, rankSort }) {
+            for (int size : new int[] { 0, 1, 10, numDocs }) {
+                final TopDocs expected = executeQueryPhase(sequential, query, sort, size);
+                final TopDocs actual = executeQueryPhase(concurrent, query, sort, size);
+                assertEquals(expected.totalHits, actual.totalHits);
+                assertEquals(expected.getMaxScore(), actual.getMaxScore(), 0f);
+                assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+                for (int i = 0; i < expected.scoreDocs.length; i++) {
+                    assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                    assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+                    assertEquals(-1, actual.scoreDocs[i].shardIndex);
+                }
+            }
+        }
+        reader.close();
+        dir.close();
+    }
+
+    private TopDocs executeQueryPhase(IndexSearcher searcher, Query query, SortAndFormats sort, int size) {
+        TestSearchContext context = new TestSearchContext(null, indexShard);
+        context.parsedQuery(new ParsedQuery(query));
+        context.setTask(new SearchTask(123L, "", "", "", null));
+        context.setSize(size);
+        if (sort != null) {
+            context.sort(sort);
+        }
+        QueryPhase.execute(context, searcher, checkCancelled -> {}, null);
+        return context.queryResult().topDocs();
+    }
+
     public void testInOrderScrollOptimization() throws Exception {
         Directory dir = newDirectory();
         final Sort sort = new Sort(new SortField("rank", SortField.Type.INT));
@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.snapshots;
+
+import org.elasticsearch.action.admin.cluster.snapshots.create.CreateSnapshotResponse;
+import org.elasticsearch.action.admin.cluster.snapshots.restore.RestoreSnapshotResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.store.SearchableSnapshotIndexStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SearchableSnapshotIT extends AbstractSnapshotIntegTestCase {
+
+    public void testSearchMountedSnapshot() throws Exception {
+        internalCluster().ensureAtLeastNumDataNodes(2);
+        assertAcked(client().admin().cluster().preparePutRepository("test-repo")
+            .setType("fs").setSettings(Settings.builder()
+                .put("location", randomRepoPath())
+                .put("chunk_size", randomIntBetween(1, 100), ByteSizeUnit.KB)));
+
+        assertAcked(prepareCreate("test").setSettings(Settings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, randomIntBetween(1, 3))
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)));
+        final int numDocs = randomIntBetween(10, 200);
+        final List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "doc", Integer.toString(i)).setSource("field", i, "text", "value" + i));
+        }
+        indexRandom(true, builders);
+
+        final CreateSnapshotResponse createSnapshotResponse = client().admin().cluster().prepareCreateSnapshot("test-repo", "test-snap")
+            .setWaitForCompletion(true).setIndices("test").get();
+        assertThat(createSnapshotResponse.getSnapshotInfo().successfulShards(),
+            equalTo(createSnapshotResponse.getSnapshotInfo().totalShards()));
+        assertAcked(client().admin().indices().prepareDelete("test"));
+
+        logger.info("--> mount the snapshot");
+        final RestoreSnapshotResponse restoreSnapshotResponse = client().admin().cluster().prepareRestoreSnapshot("test-repo", "test-snap")
+            .setRenamePattern("test").setRenameReplacement("mounted")
+            .setIndexSettings(Settings.builder()
+                .put(IndexModule.INDEX_STORE_TYPE_SETTING.getKey(), SearchableSnapshotIndexStore.TYPE)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, randomIntBetween(0, 1))
+                .put(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_CACHE_BLOCK_SIZE_SETTING.getKey(), randomIntBetween(4, 64),
+                    ByteSizeUnit.KB))
+            .setWaitForCompletion(true).get();
+        assertThat(restoreSnapshotResponse.getRestoreInfo().failedShards(), equalTo(0));
+        ensureGreen("mounted");
+
+        final Settings settings = client().admin().indices().prepareGetSettings("mounted").get().getIndexToSettings().get("mounted");
+        assertThat(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_REPOSITORY_SETTING.get(settings), equalTo("test-repo"));
+        assertThat(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_SNAPSHOT_NAME_SETTING.get(settings), equalTo("test-snap"));
+        assertThat(SearchableSnapshotIndexStore.INDEX_STORE_SNAPSHOT_INDEX_NAME_SETTING.get(settings), equalTo("test"));
+
+        assertHitCount(client().prepareSearch("mounted").setSize(0).get(), numDocs);
+        final int value = randomIntBetween(0, numDocs - 1);
+        assertHitCount(client().prepareSearch("mounted").setQuery(QueryBuilders.rangeQuery("field").lte(value)).setSize(0).get(),
+            value + 1);
+        assertHitCount(client().prepareSearch("mounted").setQuery(QueryBuilders.termQuery("text", "value" + value)).get(), 1);
+        expectThrows(ClusterBlockException.class, () -> client().prepareIndex("mounted", "doc").setSource("field", -1).get());
+
+        logger.info("--> reopen the mounted index");
+        assertAcked(client().admin().indices().prepareClose("mounted"));
+        assertAcked(client().admin().indices().prepareOpen("mounted"));
+        ensureGreen("mounted");
+        assertHitCount(client().prepareSearch("mounted").setSize(0).get(), numDocs);
+
+        logger.info("--> the snapshot can only be deleted once no index is mounted from it");
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+        assertThat(e.getMessage(), containsString("since index [mounted] is mounted from it"));
+        assertHitCount(client().prepareSearch("mounted").setSize(0).get(), numDocs);
+        assertAcked(client().admin().indices().prepareDelete("mounted"));
+        assertAcked(client().admin().cluster().prepareDeleteSnapshot("test-repo", "test-snap").get());
+    }
+}
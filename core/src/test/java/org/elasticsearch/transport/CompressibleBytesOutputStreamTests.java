@@ -20,6 +20,7 @@
 package org.elasticsearch.transport;
 
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.BytesStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -97,6 +98,41 @@ public class CompressibleBytesOutputStreamTests extends ESTestCase {
         stream.close();
     }
 
+    public void testStreamWithCompressor() throws IOException {
+        BytesStream bStream = new ZeroOutOnCloseStream();
+        Compressor compressor = randomFrom(CompressorFactory.COMPRESSOR, CompressorFactory.LZ4);
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true, compressor);
+
+        byte[] expectedBytes = randomBytes(randomInt(30));
+        stream.write(expectedBytes);
+
+        BytesReference bytesRef = stream.materializeBytes();
+
+        assertSame(compressor, CompressorFactory.compressor(bytesRef));
+
+        StreamInput streamInput = compressor.streamInput(bytesRef.streamInput());
+        byte[] actualBytes = new byte[expectedBytes.length];
+        streamInput.readBytes(actualBytes, 0, expectedBytes.length);
+
+        assertEquals(-1, streamInput.read());
+        assertArrayEquals(expectedBytes, actualBytes);
+        stream.close();
+    }
+
+    public void testLZ4CompressionWithCallingMaterializeFails() throws IOException {
+        BytesStream bStream = new ZeroOutOnCloseStream();
+        CompressibleBytesOutputStream stream = new CompressibleBytesOutputStream(bStream, true, CompressorFactory.LZ4);
+
+        byte[] expectedBytes = randomBytes(between(1, 30));
+        stream.write(expectedBytes);
+
+        StreamInput streamInput = CompressorFactory.LZ4.streamInput(bStream.bytes().streamInput());
+        byte[] actualBytes = new byte[expectedBytes.length];
+        expectThrows(EOFException.class, () -> streamInput.readBytes(actualBytes, 0, expectedBytes.length));
+
+        stream.close();
+    }
+
     private static byte[] randomBytes(int length) {
         byte[] bytes = new byte[length];
         for (int i = 0; i < bytes.length; ++i) {
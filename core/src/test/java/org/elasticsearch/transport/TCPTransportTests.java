@@ -23,6 +23,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
 import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -173,13 +174,17 @@ public class TCPTransportTests extends ESTestCase {
 
     public void testCompressRequest() throws IOException {
         final boolean compressed = randomBoolean();
+        final String compressionScheme = randomFrom("deflate", "lz4");
         final AtomicBoolean called = new AtomicBoolean(false);
         Req request = new Req(randomRealisticUnicodeOfLengthBetween(10, 100));
         ThreadPool threadPool = new TestThreadPool(TCPTransportTests.class.getName());
         AtomicReference<IOException> exceptionReference = new AtomicReference<>();
         try {
-            TcpTransport transport = new TcpTransport("test", Settings.builder().put("transport.tcp.compress", compressed).build(),
-                threadPool, new BigArrays(Settings.EMPTY, null), null, null, null) {
+            Settings settings = Settings.builder()
+                .put("transport.tcp.compress", compressed)
+                .put("transport.tcp.compression_scheme", compressionScheme)
+                .build();
+            TcpTransport transport = new TcpTransport("test", settings, threadPool, new BigArrays(Settings.EMPTY, null), null, null, null) {
                 @Override
                 protected InetSocketAddress getLocalAddress(Object o) {
                     return null;
@@ -210,8 +215,10 @@ public class TCPTransportTests extends ESTestCase {
                         called.compareAndSet(false, true);
                         if (compressed) {
                             final int bytesConsumed = TcpHeader.HEADER_SIZE;
-                            streamIn = CompressorFactory.compressor(reference.slice(bytesConsumed, reference.length() - bytesConsumed))
-                                .streamInput(streamIn);
+                            Compressor compressor =
+                                CompressorFactory.compressor(reference.slice(bytesConsumed, reference.length() - bytesConsumed));
+                            assertSame(CompressorFactory.compressor(compressionScheme), compressor);
+                            streamIn = compressor.streamInput(streamIn);
                         }
                         threadPool.getThreadContext().readHeaders(streamIn);
                         assertEquals("foobar", streamIn.readString());
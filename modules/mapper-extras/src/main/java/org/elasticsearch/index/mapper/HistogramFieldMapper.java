@@ -0,0 +1,201 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.plain.BytesBinaryDVIndexFieldData;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.search.aggregations.metrics.percentiles.HistogramValue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
+
+/**
+ * A field mapper for pre-aggregated histograms, for instance the latency distribution of an APM transaction over a
+ * minute. Values are objects with a {@code values} array and a {@code counts} array of the same length, where
+ * {@code counts[i]} is the number of times {@code values[i]} occurred. This is what the centroids of a t-digest or the
+ * buckets of an HDR histogram boil down to, so that both methods of the {@code percentiles} and
+ * {@code percentile_ranks} aggregations can merge them. Histograms are stored as binary doc values.
+ */
+public class HistogramFieldMapper extends FieldMapper {
+
+    public static final String CONTENT_TYPE = "histogram";
+
+    public static final String VALUES_FIELD = "values";
+    public static final String COUNTS_FIELD = "counts";
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new HistogramFieldType();
+
+        static {
+            FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, HistogramFieldMapper> {
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public Builder indexOptions(IndexOptions indexOptions) {
+            throw new MapperParsingException(
+                    "index_options not allowed in field [" + name + "] of type [" + builder.fieldType().typeName() + "]");
+        }
+
+        @Override
+        protected boolean defaultDocValues(Version indexCreated) {
+            return true;
+        }
+
+        @Override
+        public HistogramFieldMapper build(BuilderContext context) {
+            if (fieldType.hasDocValues() == false) {
+                throw new IllegalArgumentException("Field [" + name + "] of type [" + CONTENT_TYPE + "] requires doc values");
+            }
+            setupFieldType(context);
+            return new HistogramFieldMapper(name, fieldType, defaultFieldType,
+                    context.indexSettings(), multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            Builder builder = new Builder(name);
+            TypeParsers.parseField(builder, name, node, parserContext);
+            return builder;
+        }
+    }
+
+    public static final class HistogramFieldType extends MappedFieldType
+            implements org.elasticsearch.search.aggregations.metrics.percentiles.HistogramFieldType {
+
+        public HistogramFieldType() {
+            setIndexOptions(IndexOptions.NONE);
+            setHasDocValues(true);
+        }
+
+        HistogramFieldType(HistogramFieldType other) {
+            super(other);
+        }
+
+        @Override
+        public MappedFieldType clone() {
+            return new HistogramFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName) {
+            failIfNoDocValues();
+            return new BytesBinaryDVIndexFieldData.Builder();
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "Field [" + name() + "] of type [" + typeName() + "] does not support searching");
+        }
+    }
+
+    protected HistogramFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                   Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        XContentParser parser = context.parser();
+        if (parser.currentToken() == XContentParser.Token.VALUE_NULL) {
+            return;
+        }
+        ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.currentToken(), parser::getTokenLocation);
+        DoubleArrayList values = null;
+        LongArrayList counts = null;
+        for (XContentParser.Token token = parser.nextToken(); token != XContentParser.Token.END_OBJECT; token = parser.nextToken()) {
+            ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser::getTokenLocation);
+            String fieldName = parser.currentName();
+            ensureExpectedToken(XContentParser.Token.START_ARRAY, parser.nextToken(), parser::getTokenLocation);
+            if (VALUES_FIELD.equals(fieldName)) {
+                values = new DoubleArrayList();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    double value = parser.doubleValue();
+                    if (Double.isFinite(value) == false) {
+                        throw new MapperParsingException("[" + VALUES_FIELD + "] of histogram field [" + fieldType().name()
+                                + "] must be finite, got [" + value + "]");
+                    }
+                    values.add(value);
+                }
+            } else if (COUNTS_FIELD.equals(fieldName)) {
+                counts = new LongArrayList();
+                while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+                    long count = parser.longValue();
+                    if (count < 0) {
+                        throw new MapperParsingException("[" + COUNTS_FIELD + "] of histogram field [" + fieldType().name()
+                                + "] must not be negative, got [" + count + "]");
+                    }
+                    counts.add(count);
+                }
+            } else {
+                throw new MapperParsingException("unknown parameter [" + fieldName + "] in histogram field [" + fieldType().name() + "]");
+            }
+        }
+        if (values == null || counts == null) {
+            throw new MapperParsingException("histogram field [" + fieldType().name() + "] requires both [" + VALUES_FIELD + "] and ["
+                    + COUNTS_FIELD + "]");
+        }
+        if (values.size() != counts.size()) {
+            throw new MapperParsingException("histogram field [" + fieldType().name() + "] has [" + values.size() + "] values but ["
+                    + counts.size() + "] counts");
+        }
+        byte[] value = HistogramValue.encode(values.toArray(), counts.toArray());
+        CustomBinaryDocValuesField field = (CustomBinaryDocValuesField) context.doc().getByKey(fieldType().name());
+        if (field == null) {
+            field = new CustomBinaryDocValuesField(fieldType().name(), value);
+            context.doc().addWithKey(fieldType().name(), field);
+        } else {
+            field.add(value);
+        }
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+}
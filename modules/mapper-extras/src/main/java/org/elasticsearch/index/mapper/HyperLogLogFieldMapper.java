@@ -0,0 +1,247 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.fielddata.plain.BytesBinaryDVIndexFieldData;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.index.query.QueryShardException;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlusFieldType;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A field mapper for pre-aggregated {@link HyperLogLogPlusPlus} sketches, for instance the distinct visitors of a minute
+ * in a rollup index. Values are base64 encoded sketches as serialized by
+ * {@link HyperLogLogPlusPlus#writeTo(long, org.elasticsearch.common.io.stream.StreamOutput)} and are stored as binary
+ * doc values. The {@code cardinality} aggregation merges them instead of hashing the raw values again.
+ */
+public class HyperLogLogFieldMapper extends FieldMapper {
+
+    public static final String CONTENT_TYPE = "hyperloglog";
+
+    public static class Defaults {
+        public static final MappedFieldType FIELD_TYPE = new HyperLogLogFieldType();
+
+        static {
+            FIELD_TYPE.freeze();
+        }
+    }
+
+    public static class Builder extends FieldMapper.Builder<Builder, HyperLogLogFieldMapper> {
+
+        public Builder(String name) {
+            super(name, Defaults.FIELD_TYPE, Defaults.FIELD_TYPE);
+            builder = this;
+        }
+
+        @Override
+        public Builder indexOptions(IndexOptions indexOptions) {
+            throw new MapperParsingException(
+                    "index_options not allowed in field [" + name + "] of type [" + builder.fieldType().typeName() + "]");
+        }
+
+        public Builder precision(int precision) {
+            if (precision < HyperLogLogPlusPlus.MIN_PRECISION || precision > HyperLogLogPlusPlus.MAX_PRECISION) {
+                throw new IllegalArgumentException("[precision] must be between [" + HyperLogLogPlusPlus.MIN_PRECISION + "] and ["
+                        + HyperLogLogPlusPlus.MAX_PRECISION + "], got [" + precision + "]");
+            }
+            ((HyperLogLogFieldType) fieldType).setPrecision(precision);
+            return this;
+        }
+
+        @Override
+        protected boolean defaultDocValues(Version indexCreated) {
+            return true;
+        }
+
+        @Override
+        public HyperLogLogFieldMapper build(BuilderContext context) {
+            if (fieldType.hasDocValues() == false) {
+                throw new IllegalArgumentException("Field [" + name + "] of type [" + CONTENT_TYPE + "] requires doc values");
+            }
+            setupFieldType(context);
+            return new HyperLogLogFieldMapper(name, fieldType, defaultFieldType,
+                    context.indexSettings(), multiFieldsBuilder.build(this, context), copyTo);
+        }
+    }
+
+    public static class TypeParser implements Mapper.TypeParser {
+        @Override
+        public Mapper.Builder<?, ?> parse(String name, Map<String, Object> node, ParserContext parserContext)
+                throws MapperParsingException {
+            Builder builder = new Builder(name);
+            TypeParsers.parseField(builder, name, node, parserContext);
+            for (Iterator<Map.Entry<String, Object>> iterator = node.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<String, Object> entry = iterator.next();
+                String propName = entry.getKey();
+                Object propNode = entry.getValue();
+                if (propName.equals("precision")) {
+                    builder.precision(XContentMapValues.nodeIntegerValue(propNode));
+                    iterator.remove();
+                }
+            }
+            return builder;
+        }
+    }
+
+    public static final class HyperLogLogFieldType extends MappedFieldType implements HyperLogLogPlusPlusFieldType {
+
+        private int precision = HyperLogLogPlusPlus.DEFAULT_PRECISION;
+
+        public HyperLogLogFieldType() {
+            setIndexOptions(IndexOptions.NONE);
+            setHasDocValues(true);
+        }
+
+        HyperLogLogFieldType(HyperLogLogFieldType other) {
+            super(other);
+            this.precision = other.precision;
+        }
+
+        @Override
+        public int precision() {
+            return precision;
+        }
+
+        public void setPrecision(int precision) {
+            checkIfFrozen();
+            this.precision = precision;
+        }
+
+        @Override
+        public MappedFieldType clone() {
+            return new HyperLogLogFieldType(this);
+        }
+
+        @Override
+        public String typeName() {
+            return CONTENT_TYPE;
+        }
+
+        @Override
+        public void checkCompatibility(MappedFieldType other, List<String> conflicts, boolean strict) {
+            super.checkCompatibility(other, conflicts, strict);
+            if (precision != ((HyperLogLogFieldType) other).precision()) {
+                conflicts.add("mapper [" + name() + "] has different [precision] values");
+            }
+        }
+
+        @Override
+        public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName) {
+            failIfNoDocValues();
+            return new BytesBinaryDVIndexFieldData.Builder();
+        }
+
+        @Override
+        public Query termQuery(Object value, QueryShardContext context) {
+            throw new QueryShardException(context, "Field [" + name() + "] of type [" + typeName() + "] does not support searching");
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (super.equals(o) == false) {
+                return false;
+            }
+            return precision == ((HyperLogLogFieldType) o).precision;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * super.hashCode() + precision;
+        }
+    }
+
+    protected HyperLogLogFieldMapper(String simpleName, MappedFieldType fieldType, MappedFieldType defaultFieldType,
+                                             Settings indexSettings, MultiFields multiFields, CopyTo copyTo) {
+        super(simpleName, fieldType, defaultFieldType, indexSettings, multiFields, copyTo);
+    }
+
+    @Override
+    public HyperLogLogFieldType fieldType() {
+        return (HyperLogLogFieldType) super.fieldType();
+    }
+
+    @Override
+    protected void parseCreateField(ParseContext context, List<IndexableField> fields) throws IOException {
+        byte[] value = context.parseExternalValue(byte[].class);
+        if (value == null) {
+            if (context.parser().currentToken() == XContentParser.Token.VALUE_NULL) {
+                return;
+            }
+            value = context.parser().binaryValue();
+        }
+        validateSketch(value);
+        CustomBinaryDocValuesField field = (CustomBinaryDocValuesField) context.doc().getByKey(fieldType().name());
+        if (field == null) {
+            field = new CustomBinaryDocValuesField(fieldType().name(), value);
+            context.doc().addWithKey(fieldType().name(), field);
+        } else {
+            field.add(value);
+        }
+    }
+
+    /**
+     * Checks that the value is a complete sketch of the precision of this field, so that the cardinality aggregation can
+     * merge it with the other sketches of the field.
+     */
+    private void validateSketch(byte[] value) {
+        try (StreamInput in = StreamInput.wrap(value);
+             HyperLogLogPlusPlus sketch = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE)) {
+            if (sketch.precision() != fieldType().precision()) {
+                throw new MapperParsingException("sketch of field [" + fieldType().name() + "] has precision [" + sketch.precision()
+                        + "] but the field expects precision [" + fieldType().precision() + "]");
+            }
+            if (in.available() > 0) {
+                throw new MapperParsingException("sketch of field [" + fieldType().name() + "] has [" + in.available()
+                        + "] trailing bytes");
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new MapperParsingException("failed to parse sketch of field [" + fieldType().name() + "]", e);
+        }
+    }
+
+    @Override
+    protected String contentType() {
+        return CONTENT_TYPE;
+    }
+
+    @Override
+    protected void doXContentBody(XContentBuilder builder, boolean includeDefaults, Params params) throws IOException {
+        super.doXContentBody(builder, includeDefaults, params);
+        if (includeDefaults || fieldType().precision() != HyperLogLogPlusPlus.DEFAULT_PRECISION) {
+            builder.field("precision", fieldType().precision());
+        }
+    }
+}
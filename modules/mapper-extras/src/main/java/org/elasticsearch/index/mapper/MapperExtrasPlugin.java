@@ -33,6 +33,8 @@ public class MapperExtrasPlugin extends Plugin implements MapperPlugin {
         Map<String, Mapper.TypeParser> mappers = new LinkedHashMap<>();
         mappers.put(ScaledFloatFieldMapper.CONTENT_TYPE, new ScaledFloatFieldMapper.TypeParser());
         mappers.put(TokenCountFieldMapper.CONTENT_TYPE, new TokenCountFieldMapper.TypeParser());
+        mappers.put(HyperLogLogFieldMapper.CONTENT_TYPE, new HyperLogLogFieldMapper.TypeParser());
+        mappers.put(HistogramFieldMapper.CONTENT_TYPE, new HistogramFieldMapper.TypeParser());
         for (RangeFieldMapper.RangeType type : RangeFieldMapper.RangeType.values()) {
             mappers.put(type.typeName(), new RangeFieldMapper.TypeParser(type));
         }
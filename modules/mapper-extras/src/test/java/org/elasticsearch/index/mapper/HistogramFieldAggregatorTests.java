@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import org.HdrHistogram.DoubleHistogram;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.metrics.percentiles.HistogramValue;
+import org.elasticsearch.search.aggregations.metrics.percentiles.Percentile;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentileRanksAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesMethod;
+import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.InternalHDRPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.InternalHDRPercentiles;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.InternalTDigestPercentileRanks;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.InternalTDigestPercentiles;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestState;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Tests that the percentiles and percentile ranks aggregations add the values of a {@code histogram} field with their
+ * counts, by comparing them to a digest or histogram that was built from the same values and counts.
+ */
+public class HistogramFieldAggregatorTests extends AggregatorTestCase {
+
+    private static final double[] PERCENTS = new double[] {1, 25, 50, 75, 99};
+    private static final double[] VALUES = new double[] {0, 1, 5, 10, 50};
+
+    public void testTDigestPercentiles() throws IOException {
+        testCase(new PercentilesAggregationBuilder("test").field("field").percentiles(PERCENTS).method(PercentilesMethod.TDIGEST),
+                histograms -> new InternalTDigestPercentiles("test", PERCENTS, tdigest(histograms), false, DocValueFormat.RAW,
+                        Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    public void testHDRPercentiles() throws IOException {
+        testCase(new PercentilesAggregationBuilder("test").field("field").percentiles(PERCENTS).method(PercentilesMethod.HDR),
+                histograms -> new InternalHDRPercentiles("test", PERCENTS, hdr(histograms), false, DocValueFormat.RAW,
+                        Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    public void testTDigestPercentileRanks() throws IOException {
+        testCase(new PercentileRanksAggregationBuilder("test", VALUES).field("field").method(PercentilesMethod.TDIGEST),
+                histograms -> new InternalTDigestPercentileRanks("test", VALUES, tdigest(histograms), false, DocValueFormat.RAW,
+                        Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    public void testHDRPercentileRanks() throws IOException {
+        testCase(new PercentileRanksAggregationBuilder("test", VALUES).field("field").method(PercentilesMethod.HDR),
+                histograms -> new InternalHDRPercentileRanks("test", VALUES, hdr(histograms), false, DocValueFormat.RAW,
+                        Collections.emptyList(), Collections.emptyMap()));
+    }
+
+    private static TDigestState tdigest(List<Histogram> histograms) {
+        TDigestState state = new TDigestState(100.0);
+        for (Histogram histogram : histograms) {
+            for (int i = 0; i < histogram.values.length; i++) {
+                if (histogram.counts[i] > 0) {
+                    state.add(histogram.values[i], (int) histogram.counts[i]);
+                }
+            }
+        }
+        return state;
+    }
+
+    private static DoubleHistogram hdr(List<Histogram> histograms) {
+        DoubleHistogram state = new DoubleHistogram(3);
+        state.setAutoResize(true);
+        for (Histogram histogram : histograms) {
+            for (int i = 0; i < histogram.values.length; i++) {
+                state.recordValueWithCount(histogram.values[i], histogram.counts[i]);
+            }
+        }
+        return state;
+    }
+
+    private static class Histogram {
+        final double[] values;
+        final long[] counts;
+
+        Histogram(double[] values, long[] counts) {
+            this.values = values;
+            this.counts = counts;
+        }
+    }
+
+    private <T extends Iterable<Percentile>> void testCase(AggregationBuilder builder,
+                                                         Function<List<Histogram>, T> expectedBuilder) throws IOException {
+        List<Histogram> histograms = new ArrayList<>();
+        try (Directory directory = newDirectory()) {
+            // a plain writer keeps the documents in a single segment in insertion order, so that the
+            // aggregation adds the histograms in the same order as the expected digest
+            try (IndexWriter indexWriter = new IndexWriter(directory, new IndexWriterConfig())) {
+                final int numDocs = randomIntBetween(1, 20);
+                for (int i = 0; i < numDocs; i++) {
+                    double[] values = new double[randomIntBetween(1, 10)];
+                    long[] counts = new long[values.length];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = randomDoubleBetween(0, 100, true);
+                        counts[j] = randomIntBetween(0, 1000);
+                    }
+                    histograms.add(new Histogram(values, counts));
+                    Document document = new Document();
+                    document.add(new CustomBinaryDocValuesField("field", HistogramValue.encode(values, counts)));
+                    indexWriter.addDocument(document);
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                HistogramFieldMapper.HistogramFieldType fieldType = new HistogramFieldMapper.HistogramFieldType();
+                fieldType.setName("field");
+
+                Aggregator aggregator = createAggregator(builder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                @SuppressWarnings("unchecked")
+                T actual = (T) aggregator.buildAggregation(0L);
+                T expected = expectedBuilder.apply(histograms);
+
+                Iterator<Percentile> actualIterator = actual.iterator();
+                for (Percentile percentile : expected) {
+                    assertTrue(actualIterator.hasNext());
+                    Percentile actualPercentile = actualIterator.next();
+                    assertEquals(percentile.getPercent(), actualPercentile.getPercent(), 0.0);
+                    assertEquals(percentile.getValue(), actualPercentile.getValue(), 0.0);
+                }
+                assertFalse(actualIterator.hasNext());
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.CheckedConsumer;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.aggregations.metrics.percentiles.HistogramValue;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.test.InternalSettingsPlugin;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class HistogramFieldMapperTests extends ESSingleNodeTestCase {
+
+    IndexService indexService;
+    DocumentMapperParser parser;
+
+    @Before
+    public void setup() {
+        indexService = createIndex("test");
+        parser = indexService.mapperService().documentMapperParser();
+    }
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return pluginList(InternalSettingsPlugin.class, MapperExtrasPlugin.class);
+    }
+
+    private DocumentMapper defaultMapper() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "histogram").endObject().endObject()
+                .endObject().endObject().string();
+
+        DocumentMapper mapper = parser.parse("type", new CompressedXContent(mapping));
+        assertEquals(mapping, mapper.mappingSource().toString());
+        return mapper;
+    }
+
+    private static ParsedDocument parse(DocumentMapper mapper, CheckedConsumer<XContentBuilder, IOException> field) throws IOException {
+        XContentBuilder source = XContentFactory.jsonBuilder().startObject();
+        field.accept(source);
+        return mapper.parse(SourceToParse.source("test", "type", "1", source.endObject().bytes(), XContentType.JSON));
+    }
+
+    public void testDefaults() throws Exception {
+        DocumentMapper mapper = defaultMapper();
+
+        ParsedDocument doc = parse(mapper, b -> b.startObject("field")
+                .array("values", 0.1, 0.2, 0.3)
+                .array("counts", 3, 7, 23)
+                .endObject());
+
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        assertEquals(1, fields.length);
+        assertEquals(DocValuesType.BINARY, fields[0].fieldType().docValuesType());
+        assertFalse(fields[0].fieldType().stored());
+
+        // the binary doc values field prefixes the encoded histograms with their number and lengths
+        BytesRef expected = new BytesRef(HistogramValue.encode(new double[] {0.1, 0.2, 0.3}, new long[] {3, 7, 23}));
+        BytesRef binaryValue = fields[0].binaryValue();
+        assertTrue(binaryValue.length > expected.length);
+        BytesRef actual = new BytesRef(binaryValue.bytes, binaryValue.offset + binaryValue.length - expected.length, expected.length);
+        assertEquals(expected, actual);
+    }
+
+    public void testMultipleHistograms() throws Exception {
+        DocumentMapper mapper = defaultMapper();
+
+        ParsedDocument doc = parse(mapper, b -> b.startArray("field")
+                .startObject().array("values", 1.0, 2.0).array("counts", 1, 2).endObject()
+                .startObject().array("values", 3.0).array("counts", 4).endObject()
+                .endArray());
+        assertEquals(1, doc.rootDoc().getFields("field").length);
+    }
+
+    public void testNullValue() throws Exception {
+        DocumentMapper mapper = defaultMapper();
+
+        ParsedDocument doc = parse(mapper, b -> b.nullField("field"));
+        assertEquals(0, doc.rootDoc().getFields("field").length);
+    }
+
+    public void testMalformedHistograms() throws Exception {
+        DocumentMapper mapper = defaultMapper();
+
+        assertParseFailure(mapper, b -> b.startObject("field").array("values", 1.0, 2.0).endObject(),
+                "histogram field [field] requires both [values] and [counts]");
+        assertParseFailure(mapper, b -> b.startObject("field").array("values", 1.0, 2.0).array("counts", 1).endObject(),
+                "histogram field [field] has [2] values but [1] counts");
+        assertParseFailure(mapper, b -> b.startObject("field").array("values", 1.0).array("counts", -1).endObject(),
+                "[counts] of histogram field [field] must not be negative, got [-1]");
+        assertParseFailure(mapper, b -> b.startObject("field").array("values", 1.0).array("counts", 1).array("sums", 1.0).endObject(),
+                "unknown parameter [sums] in histogram field [field]");
+    }
+
+    private static void assertParseFailure(DocumentMapper mapper, CheckedConsumer<XContentBuilder, IOException> field,
+                                           String message) {
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> parse(mapper, field));
+        assertThat(e.getCause().getMessage(), containsString(message));
+    }
+
+    public void testDocValuesRequired() throws IOException {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type")
+                .startObject("properties").startObject("field").field("type", "histogram")
+                .field("doc_values", false).endObject().endObject()
+                .endObject().endObject().string();
+
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> parser.parse("type", new CompressedXContent(mapping)));
+        assertEquals("Field [field] of type [histogram] requires doc values", e.getMessage());
+    }
+}
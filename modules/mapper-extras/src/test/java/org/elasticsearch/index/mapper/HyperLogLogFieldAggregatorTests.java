@@ -0,0 +1,85 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.mapper;
+
+import com.carrotsearch.hppc.BitMixer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.mapper.BinaryFieldMapper.CustomBinaryDocValuesField;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.metrics.cardinality.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.cardinality.CardinalityAggregator;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.elasticsearch.search.aggregations.metrics.cardinality.InternalCardinality;
+
+import java.io.IOException;
+
+import static java.util.Collections.singleton;
+
+/**
+ * Tests that the cardinality aggregation merges the sketches of a {@code hyperloglog} field.
+ */
+public class HyperLogLogFieldAggregatorTests extends AggregatorTestCase {
+
+    public void testMergeSketches() throws IOException {
+        final int precision = randomIntBetween(HyperLogLogPlusPlus.MIN_PRECISION, HyperLogLogPlusPlus.MAX_PRECISION);
+        try (HyperLogLogPlusPlus expected = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, 1);
+             Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                final int numDocs = randomIntBetween(1, 50);
+                for (int i = 0; i < numDocs; i++) {
+                    int[] values = new int[randomIntBetween(0, 1000)];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = randomInt(10000);
+                        expected.collect(0, BitMixer.mix64(values[j]));
+                    }
+                    CustomBinaryDocValuesField field = new CustomBinaryDocValuesField("field",
+                            HyperLogLogFieldMapperTests.sketch(precision, values));
+                    if (randomBoolean()) {
+                        // a second sketch in the same document
+                        field.add(HyperLogLogFieldMapperTests.sketch(precision, 42));
+                        expected.collect(0, BitMixer.mix64(42));
+                    }
+                    indexWriter.addDocument(singleton(field));
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                // the precision of the field wins over the precision threshold of the aggregation
+                CardinalityAggregationBuilder aggregationBuilder = new CardinalityAggregationBuilder("_name", null)
+                        .field("field").precisionThreshold(randomIntBetween(0, 40000));
+                HyperLogLogFieldMapper.HyperLogLogFieldType fieldType = new HyperLogLogFieldMapper.HyperLogLogFieldType();
+                fieldType.setName("field");
+                fieldType.setPrecision(precision);
+                CardinalityAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                InternalCardinality cardinality = (InternalCardinality) aggregator.buildAggregation(0L);
+                assertEquals(expected.cardinality(0), cardinality.getValue());
+            }
+        }
+    }
+}
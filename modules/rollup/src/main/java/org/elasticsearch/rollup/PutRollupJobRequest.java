@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * Creates the rollup index of a rollup job, with a mapping that holds the configuration of the job.
+ */
+public class PutRollupJobRequest extends ActionRequest {
+
+    private String rollupIndex;
+    private RollupJobConfig config;
+
+    public PutRollupJobRequest() {
+    }
+
+    public PutRollupJobRequest(String rollupIndex, RollupJobConfig config) {
+        this.rollupIndex = rollupIndex;
+        this.config = config;
+    }
+
+    /**
+     * The index that the rollup job writes to.
+     */
+    public String getRollupIndex() {
+        return rollupIndex;
+    }
+
+    public PutRollupJobRequest setRollupIndex(String rollupIndex) {
+        this.rollupIndex = rollupIndex;
+        return this;
+    }
+
+    public RollupJobConfig getConfig() {
+        return config;
+    }
+
+    public PutRollupJobRequest setConfig(RollupJobConfig config) {
+        this.config = config;
+        return this;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException e = null;
+        if (rollupIndex == null) {
+            e = addValidationError("rollup index is missing", e);
+        }
+        if (config == null) {
+            e = addValidationError("rollup job configuration is missing", e);
+        }
+        return e;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        rollupIndex = in.readString();
+        config = new RollupJobConfig(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(rollupIndex);
+        config.writeTo(out);
+    }
+
+    @Override
+    public String getDescription() {
+        return "put rollup job [" + rollupIndex + "]";
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.ByteUtils;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.DateHistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.tasks.TaskCancelledException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Rolls up the source documents of a rollup job. Every run rolls up the intervals that completed since the previous
+ * run: it starts at the latest interval found in the rollup index, ends before the interval that contains the
+ * current time and pages through the composite buckets of the intervals and terms in between. Each bucket becomes a
+ * rollup document whose id is derived from its key, so that runs that fail halfway can safely be repeated.
+ */
+class RollupIndexer {
+    private static final String COMPOSITE_NAME = "rollup";
+    private static final String CHECKPOINT_NAME = "checkpoint";
+
+    private final Logger logger;
+    private final Client client;
+    private final RollupTask task;
+    private final String rollupIndex;
+    private final RollupJobConfig config;
+    private final LongSupplier nowInMillis;
+    private final ActionListener<RollupResponse> listener;
+    private final long startTime;
+
+    private long upper;
+    private long lower;
+    private int pages;
+    private long rollups;
+
+    RollupIndexer(Logger logger, Client client, RollupTask task, String rollupIndex, RollupJobConfig config,
+                  LongSupplier nowInMillis, ActionListener<RollupResponse> listener) {
+        this.logger = logger;
+        this.client = client;
+        this.task = task;
+        this.rollupIndex = rollupIndex;
+        this.config = config;
+        this.nowInMillis = nowInMillis;
+        this.listener = listener;
+        this.startTime = System.nanoTime();
+    }
+
+    void start() {
+        Rounding rounding = config.createRounding();
+        upper = rounding.round(nowInMillis.getAsLong());
+        SearchRequest checkpointRequest = new SearchRequest(rollupIndex);
+        checkpointRequest.source(new SearchSourceBuilder().size(0)
+                .aggregation(AggregationBuilders.max(CHECKPOINT_NAME).field(config.getTimestampField())));
+        client.search(checkpointRequest, ActionListener.wrap(response -> {
+            double checkpoint = response.getAggregations().<Max>get(CHECKPOINT_NAME).getValue();
+            // a run that failed halfway may have rolled up only some of the terms of the latest interval in the rollup index,
+            // so it is rolled up again and its buckets overwrite the rollup documents they already produced
+            lower = Double.isInfinite(checkpoint) ? Long.MIN_VALUE : rounding.round((long) checkpoint);
+            if (lower >= upper) {
+                finish();
+            } else {
+                logger.debug("rolling up [{}] into [{}] from [{}] to [{}]", config.getIndex(), rollupIndex, lower, upper);
+                nextPage(null);
+            }
+        }, listener::onFailure));
+    }
+
+    private void nextPage(Map<String, Object> afterKey) {
+        if (task.isCancelled()) {
+            listener.onFailure(new TaskCancelledException("rollup of [" + rollupIndex + "] cancelled: " + task.getReasonCancelled()));
+            return;
+        }
+        client.search(buildSearchRequest(afterKey), ActionListener.wrap(this::onPage, listener::onFailure));
+    }
+
+    SearchRequest buildSearchRequest(Map<String, Object> afterKey) {
+        List<CompositeValuesSourceBuilder<?>> sources = new ArrayList<>();
+        sources.add(new DateHistogramValuesSourceBuilder(config.getTimestampField())
+                .field(config.getTimestampField())
+                .dateHistogramInterval(config.getInterval()));
+        for (String term : config.getTerms()) {
+            sources.add(new TermsValuesSourceBuilder(term).field(term));
+        }
+        CompositeAggregationBuilder composite = new CompositeAggregationBuilder(COMPOSITE_NAME, sources).size(config.getPageSize());
+        if (afterKey != null) {
+            composite.aggregateAfter(afterKey);
+        }
+        for (String metric : config.getMetrics()) {
+            composite.subAggregation(AggregationBuilders.min(RollupJobConfig.metricField(metric, RollupJobConfig.MIN)).field(metric));
+            composite.subAggregation(AggregationBuilders.max(RollupJobConfig.metricField(metric, RollupJobConfig.MAX)).field(metric));
+            composite.subAggregation(AggregationBuilders.sum(RollupJobConfig.metricField(metric, RollupJobConfig.SUM)).field(metric));
+            composite.subAggregation(AggregationBuilders.count(RollupJobConfig.metricField(metric, RollupJobConfig.VALUE_COUNT))
+                    .field(metric));
+        }
+        RangeQueryBuilder range = QueryBuilders.rangeQuery(config.getTimestampField()).to(upper, false).format("epoch_millis");
+        if (lower != Long.MIN_VALUE) {
+            range.from(lower, true);
+        }
+        SearchRequest searchRequest = new SearchRequest(Strings.splitStringByCommaToArray(config.getIndex()));
+        searchRequest.source(new SearchSourceBuilder().size(0).query(range).aggregation(composite));
+        return searchRequest;
+    }
+
+    private void onPage(SearchResponse response) {
+        CompositeAggregation composite = response.getAggregations().get(COMPOSITE_NAME);
+        if (composite == null || composite.getBuckets().isEmpty()) {
+            refresh();
+            return;
+        }
+        BulkRequest bulkRequest = new BulkRequest();
+        for (CompositeAggregation.Bucket bucket : composite.getBuckets()) {
+            bulkRequest.add(new IndexRequest(rollupIndex, RollupJobConfig.TYPE, rollupId(bucket.getKey())).source(toRollup(bucket)));
+        }
+        Map<String, Object> afterKey = composite.getBuckets().get(composite.getBuckets().size() - 1).getKey();
+        boolean lastPage = composite.getBuckets().size() < config.getPageSize();
+        client.bulk(bulkRequest, ActionListener.wrap((BulkResponse bulkResponse) -> {
+            if (bulkResponse.hasFailures()) {
+                listener.onFailure(new ElasticsearchException("failed to index rollups into [{}]: {}", rollupIndex,
+                        bulkResponse.buildFailureMessage()));
+                return;
+            }
+            pages++;
+            rollups += bulkRequest.numberOfActions();
+            task.onPage(bulkRequest.numberOfActions());
+            if (lastPage) {
+                refresh();
+            } else {
+                nextPage(afterKey);
+            }
+        }, listener::onFailure));
+    }
+
+    Map<String, Object> toRollup(CompositeAggregation.Bucket bucket) {
+        Map<String, Object> rollup = new HashMap<>(bucket.getKey());
+        Aggregations aggregations = bucket.getAggregations();
+        for (String metric : config.getMetrics()) {
+            String countField = RollupJobConfig.metricField(metric, RollupJobConfig.VALUE_COUNT);
+            long count = (long) aggregations.<NumericMetricsAggregation.SingleValue>get(countField).value();
+            rollup.put(countField, count);
+            if (count > 0) {
+                for (String summary : new String[] {RollupJobConfig.MIN, RollupJobConfig.MAX, RollupJobConfig.SUM}) {
+                    String field = RollupJobConfig.metricField(metric, summary);
+                    rollup.put(field, aggregations.<NumericMetricsAggregation.SingleValue>get(field).value());
+                }
+            }
+        }
+        rollup.put(DocCountFieldMapper.NAME, bucket.getDocCount());
+        return rollup;
+    }
+
+    /**
+     * Derives the id of a rollup document from the key of its bucket.
+     */
+    String rollupId(Map<String, Object> key) {
+        StringBuilder builder = new StringBuilder();
+        builder.append(key.get(config.getTimestampField()));
+        for (String term : config.getTerms()) {
+            builder.append('\0').append(key.get(term));
+        }
+        byte[] bytes = builder.toString().getBytes(StandardCharsets.UTF_8);
+        MurmurHash3.Hash128 hash = MurmurHash3.hash128(bytes, 0, bytes.length, 0, new MurmurHash3.Hash128());
+        byte[] id = new byte[16];
+        ByteUtils.writeLongLE(hash.h1, id, 0);
+        ByteUtils.writeLongLE(hash.h2, id, 8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id);
+    }
+
+    private void refresh() {
+        client.admin().indices().prepareRefresh(rollupIndex).execute(ActionListener.wrap(response -> finish(), listener::onFailure));
+    }
+
+    private void finish() {
+        listener.onResponse(new RollupResponse(TimeValue.timeValueNanos(System.nanoTime() - startTime), pages, rollups));
+    }
+}
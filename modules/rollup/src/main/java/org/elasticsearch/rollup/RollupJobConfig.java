@@ -0,0 +1,348 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * The configuration of a rollup job: which documents of a source index pattern are summarized, per interval of their
+ * timestamp and per unique combination of terms, into the documents of a rollup index. Each summary holds the min, max,
+ * sum and value count of the metric fields and the number of source documents it stands for. The configuration is
+ * stored in the {@code _meta} of the mapping of the rollup index.
+ */
+public class RollupJobConfig implements Writeable, ToXContentObject {
+
+    /**
+     * The mapping type of rollup indices.
+     */
+    public static final String TYPE = "doc";
+
+    public static final String MIN = "min";
+    public static final String MAX = "max";
+    public static final String SUM = "sum";
+    public static final String VALUE_COUNT = "value_count";
+
+    static final ParseField INDEX_FIELD = new ParseField("index");
+    static final ParseField TIMESTAMP_FIELD = new ParseField("timestamp_field");
+    static final ParseField INTERVAL_FIELD = new ParseField("interval");
+    static final ParseField TERMS_FIELD = new ParseField("terms");
+    static final ParseField METRICS_FIELD = new ParseField("metrics");
+    static final ParseField PAGE_SIZE_FIELD = new ParseField("page_size");
+
+    static final String META_FIELD = "rollup";
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @SuppressWarnings("unchecked")
+    private static final ConstructingObjectParser<RollupJobConfig, Void> PARSER = new ConstructingObjectParser<>("rollup_job",
+            a -> new RollupJobConfig((String) a[0], (String) a[1], new DateHistogramInterval((String) a[2]),
+                    a[3] == null ? Collections.emptyList() : (List<String>) a[3],
+                    a[4] == null ? Collections.emptyList() : (List<String>) a[4],
+                    a[5] == null ? DEFAULT_PAGE_SIZE : (Integer) a[5]));
+
+    static {
+        PARSER.declareString(constructorArg(), INDEX_FIELD);
+        PARSER.declareString(constructorArg(), TIMESTAMP_FIELD);
+        PARSER.declareString(constructorArg(), INTERVAL_FIELD);
+        PARSER.declareStringArray(optionalConstructorArg(), TERMS_FIELD);
+        PARSER.declareStringArray(optionalConstructorArg(), METRICS_FIELD);
+        PARSER.declareInt(optionalConstructorArg(), PAGE_SIZE_FIELD);
+    }
+
+    private final String index;
+    private final String timestampField;
+    private final DateHistogramInterval interval;
+    private final List<String> terms;
+    private final List<String> metrics;
+    private final int pageSize;
+
+    public RollupJobConfig(String index, String timestampField, DateHistogramInterval interval, List<String> terms,
+                           List<String> metrics, int pageSize) {
+        if (index == null || index.isEmpty()) {
+            throw new IllegalArgumentException("[" + INDEX_FIELD.getPreferredName() + "] is required");
+        }
+        if (timestampField == null || timestampField.isEmpty()) {
+            throw new IllegalArgumentException("[" + TIMESTAMP_FIELD.getPreferredName() + "] is required");
+        }
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("[" + PAGE_SIZE_FIELD.getPreferredName() + "] must be greater than 0, got ["
+                    + pageSize + "]");
+        }
+        intervalMillis(interval);
+        Set<String> fields = new HashSet<>();
+        fields.add(timestampField);
+        for (String field : terms) {
+            if (fields.add(field) == false) {
+                throw new IllegalArgumentException("field [" + field + "] is used more than once in the rollup job");
+            }
+        }
+        for (String field : metrics) {
+            if (fields.add(field) == false) {
+                throw new IllegalArgumentException("field [" + field + "] is used more than once in the rollup job");
+            }
+        }
+        this.index = index;
+        this.timestampField = timestampField;
+        this.interval = interval;
+        this.terms = Collections.unmodifiableList(new ArrayList<>(terms));
+        this.metrics = Collections.unmodifiableList(new ArrayList<>(metrics));
+        this.pageSize = pageSize;
+    }
+
+    public RollupJobConfig(StreamInput in) throws IOException {
+        this(in.readString(), in.readString(), new DateHistogramInterval(in), in.readList(StreamInput::readString),
+                in.readList(StreamInput::readString), in.readVInt());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(index);
+        out.writeString(timestampField);
+        interval.writeTo(out);
+        out.writeStringList(terms);
+        out.writeStringList(metrics);
+        out.writeVInt(pageSize);
+    }
+
+    public static RollupJobConfig fromXContent(XContentParser parser) throws IOException {
+        return PARSER.parse(parser, null);
+    }
+
+    /**
+     * Reads the configuration of a rollup job from the {@code _meta} of the mapping of its rollup index, or returns
+     * {@code null} if the mapping has no rollup job.
+     */
+    @SuppressWarnings("unchecked")
+    public static RollupJobConfig fromMapping(Map<String, Object> mapping) throws IOException {
+        Object meta = mapping.get("_meta");
+        if (meta instanceof Map == false) {
+            return null;
+        }
+        Object config = ((Map<String, Object>) meta).get(META_FIELD);
+        if (config instanceof Map == false) {
+            return null;
+        }
+        XContentBuilder builder = XContentFactory.jsonBuilder().map((Map<String, Object>) config);
+        try (XContentParser parser = JsonXContent.jsonXContent.createParser(NamedXContentRegistry.EMPTY, builder.bytes())) {
+            return fromXContent(parser);
+        }
+    }
+
+    /**
+     * Reads the configuration of the rollup job of a rollup index, or returns {@code null} if the index is not a
+     * rollup index.
+     */
+    public static RollupJobConfig fromIndexMetaData(IndexMetaData indexMetaData) throws IOException {
+        if (RollupPlugin.INDEX_ROLLUP_SETTING.get(indexMetaData.getSettings()) == false) {
+            return null;
+        }
+        MappingMetaData mapping = indexMetaData.mapping(TYPE);
+        return mapping == null ? null : fromMapping(mapping.sourceAsMap());
+    }
+
+    /**
+     * The source index pattern.
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * The date field that source documents are rolled up by. Rollup documents hold the start of their interval in a
+     * field of the same name.
+     */
+    public String getTimestampField() {
+        return timestampField;
+    }
+
+    /**
+     * The interval of the rollup, either a calendar unit or a fixed time value.
+     */
+    public DateHistogramInterval getInterval() {
+        return interval;
+    }
+
+    /**
+     * The fields whose unique combinations of values are rolled up separately. Rollup documents hold the values in
+     * fields of the same names.
+     */
+    public List<String> getTerms() {
+        return terms;
+    }
+
+    /**
+     * The numeric fields that are summarized. Rollup documents hold the summaries in the {@code min}, {@code max},
+     * {@code sum} and {@code value_count} sub-fields of fields of the same names.
+     */
+    public List<String> getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * The number of rollup documents that are computed and indexed at once.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * The name of the field of rollup documents that holds the given summary of a metric field.
+     */
+    public static String metricField(String field, String summary) {
+        return field + "." + summary;
+    }
+
+    /**
+     * Creates the rounding of timestamps to the start of their interval.
+     */
+    public Rounding createRounding() {
+        DateTimeUnit unit = DateHistogramAggregationBuilder.DATE_FIELD_UNITS.get(interval.toString());
+        if (unit != null) {
+            return Rounding.builder(unit).build();
+        }
+        return Rounding.builder(TimeValue.timeValueMillis(intervalMillis(interval))).build();
+    }
+
+    /**
+     * Returns the length of an interval in milliseconds if it is the same for all intervals in UTC, or {@code -1} for
+     * weeks, months, quarters and years.
+     */
+    static long intervalMillis(DateHistogramInterval interval) {
+        if (interval == null) {
+            throw new IllegalArgumentException("[" + INTERVAL_FIELD.getPreferredName() + "] is required");
+        }
+        DateTimeUnit unit = DateHistogramAggregationBuilder.DATE_FIELD_UNITS.get(interval.toString());
+        if (unit != null) {
+            switch (unit) {
+                case SECOND_OF_MINUTE:
+                    return TimeValue.timeValueSeconds(1).millis();
+                case MINUTES_OF_HOUR:
+                    return TimeValue.timeValueMinutes(1).millis();
+                case HOUR_OF_DAY:
+                    return TimeValue.timeValueHours(1).millis();
+                case DAY_OF_MONTH:
+                    return TimeValue.timeValueHours(24).millis();
+                default:
+                    return -1;
+            }
+        }
+        long millis = TimeValue.parseTimeValue(interval.toString(), INTERVAL_FIELD.getPreferredName()).millis();
+        if (millis <= 0) {
+            throw new IllegalArgumentException("[" + INTERVAL_FIELD.getPreferredName() + "] must be greater than 0, got ["
+                    + interval + "]");
+        }
+        return millis;
+    }
+
+    /**
+     * Builds the mapping of the rollup index of this job.
+     */
+    public XContentBuilder toMapping() throws IOException {
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        builder.startObject();
+        {
+            builder.startObject(TYPE);
+            builder.startObject("_meta").field(META_FIELD, this).endObject();
+            // the values of the terms are mapped dynamically, with strings as keywords
+            builder.startArray("dynamic_templates");
+            {
+                builder.startObject().startObject("strings");
+                builder.field("match_mapping_type", "string");
+                builder.startObject("mapping").field("type", KeywordFieldMapper.CONTENT_TYPE).endObject();
+                builder.endObject().endObject();
+            }
+            builder.endArray();
+            builder.startObject("properties");
+            builder.startObject(timestampField).field("type", DateFieldMapper.CONTENT_TYPE).endObject();
+            for (String metric : metrics) {
+                for (String summary : new String[] {MIN, MAX, SUM}) {
+                    builder.startObject(metricField(metric, summary)).field("type", NumberFieldMapper.NumberType.DOUBLE.typeName())
+                            .endObject();
+                }
+                builder.startObject(metricField(metric, VALUE_COUNT)).field("type", NumberFieldMapper.NumberType.LONG.typeName())
+                        .endObject();
+            }
+            builder.endObject();
+            builder.endObject();
+        }
+        return builder.endObject();
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(INDEX_FIELD.getPreferredName(), index);
+        builder.field(TIMESTAMP_FIELD.getPreferredName(), timestampField);
+        builder.field(INTERVAL_FIELD.getPreferredName(), interval.toString());
+        builder.field(TERMS_FIELD.getPreferredName(), terms);
+        builder.field(METRICS_FIELD.getPreferredName(), metrics);
+        builder.field(PAGE_SIZE_FIELD.getPreferredName(), pageSize);
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        RollupJobConfig other = (RollupJobConfig) obj;
+        return Objects.equals(index, other.index)
+                && Objects.equals(timestampField, other.timestampField)
+                && Objects.equals(interval, other.interval)
+                && Objects.equals(terms, other.terms)
+                && Objects.equals(metrics, other.metrics)
+                && pageSize == other.pageSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, timestampField, interval, terms, metrics, pageSize);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.util.Supplier;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Set;
+
+/**
+ * Periodically runs the jobs of all rollup indices while the local node is the elected master. Each job runs
+ * incrementally, so a job that fails or whose master goes away is simply picked up again at the next poll.
+ */
+public class RollupJobScheduler extends AbstractLifecycleComponent {
+
+    public static final Setting<TimeValue> POLL_INTERVAL_SETTING = Setting.timeSetting("rollup.poll_interval",
+            TimeValue.timeValueMinutes(1), TimeValue.timeValueSeconds(1), Setting.Property.NodeScope);
+
+    private final Client client;
+    private final ClusterService clusterService;
+    private final ThreadPool threadPool;
+    private final TimeValue pollInterval;
+    private final Set<String> running = ConcurrentCollections.newConcurrentSet();
+    private volatile ThreadPool.Cancellable scheduled;
+
+    public RollupJobScheduler(Settings settings, Client client, ClusterService clusterService, ThreadPool threadPool) {
+        super(settings);
+        this.client = client;
+        this.clusterService = clusterService;
+        this.threadPool = threadPool;
+        this.pollInterval = POLL_INTERVAL_SETTING.get(settings);
+    }
+
+    @Override
+    protected void doStart() {
+        scheduled = threadPool.scheduleWithFixedDelay(this::poll, pollInterval, ThreadPool.Names.GENERIC);
+    }
+
+    @Override
+    protected void doStop() {
+        ThreadPool.Cancellable scheduled = this.scheduled;
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    void poll() {
+        ClusterState state = clusterService.state();
+        if (state.nodes().isLocalNodeElectedMaster() == false) {
+            return;
+        }
+        for (IndexMetaData indexMetaData : state.metaData()) {
+            if (indexMetaData.getState() == IndexMetaData.State.OPEN
+                    && RollupPlugin.INDEX_ROLLUP_SETTING.get(indexMetaData.getSettings())) {
+                run(indexMetaData.getIndex().getName());
+            }
+        }
+    }
+
+    private void run(String rollupIndex) {
+        if (running.add(rollupIndex) == false) {
+            return;
+        }
+        client.execute(RollupAction.INSTANCE, new RollupRequest(rollupIndex), new ActionListener<RollupResponse>() {
+            @Override
+            public void onResponse(RollupResponse response) {
+                running.remove(rollupIndex);
+                logger.debug("rolled up [{}] rollups into [{}] in [{}]", response.getRollups(), rollupIndex, response.getTook());
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                running.remove(rollupIndex);
+                logger.warn((Supplier<?>) () -> new ParameterizedMessage("failed to roll up into [{}]", rollupIndex), e);
+            }
+        });
+    }
+}
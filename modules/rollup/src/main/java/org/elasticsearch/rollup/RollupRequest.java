@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * Runs the rollup job of a rollup index once, rolling up all source documents of intervals that have completed since
+ * the last run.
+ */
+public class RollupRequest extends ActionRequest {
+
+    private String rollupIndex;
+    /**
+     * Should this task store its result?
+     */
+    private boolean shouldStoreResult;
+
+    public RollupRequest() {
+    }
+
+    public RollupRequest(String rollupIndex) {
+        this.rollupIndex = rollupIndex;
+    }
+
+    /**
+     * The rollup index whose job is run.
+     */
+    public String getRollupIndex() {
+        return rollupIndex;
+    }
+
+    public RollupRequest setRollupIndex(String rollupIndex) {
+        this.rollupIndex = rollupIndex;
+        return this;
+    }
+
+    /**
+     * Should this task store its result after it has finished?
+     */
+    public RollupRequest setShouldStoreResult(boolean shouldStoreResult) {
+        this.shouldStoreResult = shouldStoreResult;
+        return this;
+    }
+
+    @Override
+    public boolean getShouldStoreResult() {
+        return shouldStoreResult;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException e = null;
+        if (rollupIndex == null) {
+            e = addValidationError("rollup index is missing", e);
+        }
+        return e;
+    }
+
+    @Override
+    public Task createTask(long id, String type, String action, TaskId parentTaskId) {
+        return new RollupTask(id, type, action, getDescription(), parentTaskId);
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        rollupIndex = in.readString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeString(rollupIndex);
+    }
+
+    @Override
+    public String getDescription() {
+        return "rollup [" + rollupIndex + "]";
+    }
+}
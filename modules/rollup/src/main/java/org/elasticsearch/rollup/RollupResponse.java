@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * The result of a run of a rollup job.
+ */
+public class RollupResponse extends ActionResponse implements ToXContentObject {
+
+    private TimeValue took;
+    private long pages;
+    private long rollups;
+
+    public RollupResponse() {
+    }
+
+    public RollupResponse(TimeValue took, long pages, long rollups) {
+        this.took = took;
+        this.pages = pages;
+        this.rollups = rollups;
+    }
+
+    /**
+     * How long the run took.
+     */
+    public TimeValue getTook() {
+        return took;
+    }
+
+    /**
+     * The number of pages of composite buckets that were rolled up.
+     */
+    public long getPages() {
+        return pages;
+    }
+
+    /**
+     * The number of rollup documents that were indexed.
+     */
+    public long getRollups() {
+        return rollups;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        took = new TimeValue(in);
+        pages = in.readVLong();
+        rollups = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        took.writeTo(out);
+        out.writeVLong(pages);
+        out.writeVLong(rollups);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field("took", took.millis());
+        builder.field("pages", pages);
+        builder.field("rollups", rollups);
+        return builder.endObject();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.InternalSingleBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.filter.InternalFilter;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.avg.InternalAvg;
+import org.elasticsearch.search.aggregations.metrics.sum.InternalSum;
+import org.elasticsearch.search.aggregations.metrics.valuecount.InternalValueCount;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates the response of a search request that was rewritten by {@link RollupSearchRewriter} back into the
+ * response that the original search request would have had against the source documents.
+ */
+public final class RollupResponseTranslator {
+
+    private RollupResponseTranslator() {
+    }
+
+    public static SearchResponse translate(SearchResponse response) {
+        InternalAggregations aggregations = (InternalAggregations) response.getAggregations();
+        if (aggregations == null) {
+            // no shard answered
+            return response;
+        }
+        InternalFilter total = aggregations.get(RollupSearchRewriter.TOTAL_NAME);
+        if (total == null) {
+            throw new IllegalStateException("missing [" + RollupSearchRewriter.TOTAL_NAME + "] aggregation");
+        }
+        SearchHits hits = new SearchHits(new SearchHit[0], total.getDocCount(), Float.NaN);
+        InternalAggregations translated = translate(aggregations);
+        InternalSearchResponse internal = new InternalSearchResponse(hits, translated.asList().isEmpty() ? null : translated, null,
+                null, response.isTimedOut(), response.isTerminatedEarly(), response.getNumReducePhases());
+        return new SearchResponse(internal, null, response.getTotalShards(), response.getSuccessfulShards(),
+                response.getSkippedShards(), response.getTook().millis(), response.getShardFailures());
+    }
+
+    static InternalAggregations translate(InternalAggregations aggregations) {
+        List<InternalAggregation> translated = new ArrayList<>();
+        for (Aggregation aggregation : aggregations) {
+            if (aggregation.getName().startsWith(RollupSearchRewriter.ROLLUP_PREFIX) == false) {
+                translated.add(translate((InternalAggregation) aggregation, aggregations));
+            }
+        }
+        return new InternalAggregations(translated);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static InternalAggregation translate(InternalAggregation aggregation, InternalAggregations siblings) {
+        if (aggregation instanceof InternalMultiBucketAggregation) {
+            InternalMultiBucketAggregation multiBucket = (InternalMultiBucketAggregation) aggregation;
+            List<InternalMultiBucketAggregation.InternalBucket> buckets = new ArrayList<>();
+            for (Object bucket : multiBucket.getBuckets()) {
+                InternalMultiBucketAggregation.InternalBucket prototype = (InternalMultiBucketAggregation.InternalBucket) bucket;
+                buckets.add(multiBucket.createBucket(translate((InternalAggregations) prototype.getAggregations()), prototype));
+            }
+            return multiBucket.create(buckets);
+        }
+        if (aggregation instanceof InternalSingleBucketAggregation) {
+            InternalSingleBucketAggregation singleBucket = (InternalSingleBucketAggregation) aggregation;
+            return singleBucket.create(translate(singleBucket.getAggregations()));
+        }
+        Map<String, Object> metaData = aggregation.getMetaData();
+        if (aggregation instanceof InternalSum && metaData != null && metaData.containsKey(RollupSearchRewriter.ROLLUP_PREFIX)) {
+            InternalSum sum = (InternalSum) aggregation;
+            Map<String, Object> marker = (Map<String, Object>) metaData.get(RollupSearchRewriter.ROLLUP_PREFIX);
+            Map<String, Object> userMetaData = new HashMap<>(metaData);
+            userMetaData.remove(RollupSearchRewriter.ROLLUP_PREFIX);
+            if (userMetaData.isEmpty()) {
+                userMetaData = null;
+            }
+            String type = (String) marker.get(RollupSearchRewriter.MARKER_TYPE);
+            if (ValueCountAggregationBuilder.NAME.equals(type)) {
+                return new InternalValueCount(sum.getName(), (long) sum.getValue(), sum.pipelineAggregators(), userMetaData);
+            } else if (AvgAggregationBuilder.NAME.equals(type)) {
+                InternalSum count = siblings.get((String) marker.get(RollupSearchRewriter.MARKER_COUNT));
+                String format = (String) marker.get(RollupSearchRewriter.MARKER_FORMAT);
+                return new InternalAvg(sum.getName(), sum.getValue(), (long) count.getValue(),
+                        format == null ? DocValueFormat.RAW : new DocValueFormat.Decimal(format), sum.pipelineAggregators(), userMetaData);
+            }
+            throw new IllegalStateException("unknown rollup aggregation type [" + type + "]");
+        }
+        return aggregation;
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.ConstantScoreQueryBuilder;
+import org.elasticsearch.index.query.ExistsQueryBuilder;
+import org.elasticsearch.index.query.MatchAllQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.min.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.SearchContext;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rewrites a search request against source documents into an equivalent search request against the rollup
+ * documents of a rollup job, or rejects it with an {@link IllegalArgumentException} if the rollup documents cannot
+ * answer it exactly.
+ * <p>
+ * Queries and bucket aggregations may only use the fields that source documents are rolled up by, and histograms on
+ * the timestamp must use intervals that are made of whole rollup intervals. Bucket aggregations count rollup
+ * documents by their {@code _doc_count}, so they need no rewriting. Metric aggregations are rewritten to read the
+ * summaries of their field: {@code value_count} becomes a sum of counts and {@code avg} becomes a sum of sums next to
+ * a hidden sum of counts. Such aggregations are marked in their metadata so that {@link RollupResponseTranslator} can
+ * turn their results back into the requested aggregations.
+ */
+public final class RollupSearchRewriter {
+
+    /**
+     * The prefix of the names of hidden aggregations and the key of the markers in the metadata of rewritten
+     * aggregations.
+     */
+    static final String ROLLUP_PREFIX = "_rollup";
+    /**
+     * The name of the hidden aggregation that counts all matching source documents.
+     */
+    static final String TOTAL_NAME = ROLLUP_PREFIX + ".total";
+    static final String MARKER_TYPE = "type";
+    static final String MARKER_COUNT = "count";
+    static final String MARKER_FORMAT = "format";
+
+    private static final long DAY_MILLIS = TimeValue.timeValueHours(24).millis();
+    private static final List<DateTimeUnit> CALENDAR_UNITS = Arrays.asList(DateTimeUnit.MONTH_OF_YEAR, DateTimeUnit.QUARTER,
+            DateTimeUnit.YEAR_OF_CENTURY);
+
+    private final RollupJobConfig config;
+
+    public RollupSearchRewriter(RollupJobConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Rewrites the source of a search request into the source of a search request against the rollup index.
+     */
+    public SearchSourceBuilder rewrite(SearchSourceBuilder source) {
+        SearchSourceBuilder rewritten = new SearchSourceBuilder().size(0);
+        rewritten.aggregation(AggregationBuilders.filter(TOTAL_NAME, QueryBuilders.matchAllQuery()));
+        if (source == null) {
+            return rewritten;
+        }
+        if (source.size() > 0 || source.from() > 0) {
+            throw unsupported("search hits");
+        }
+        if (source.sorts() != null && source.sorts().isEmpty() == false) {
+            throw unsupported("[sort]");
+        }
+        if (source.postFilter() != null) {
+            throw unsupported("[post_filter]");
+        }
+        if (source.searchAfter() != null) {
+            throw unsupported("[search_after]");
+        }
+        if (source.highlighter() != null) {
+            throw unsupported("[highlight]");
+        }
+        if (source.suggest() != null) {
+            throw unsupported("[suggest]");
+        }
+        if (source.rescores() != null && source.rescores().isEmpty() == false) {
+            throw unsupported("[rescore]");
+        }
+        if (source.profile()) {
+            throw unsupported("[profile]");
+        }
+        if (source.query() != null) {
+            validateQuery(source.query());
+            rewritten.query(source.query());
+        }
+        if (source.timeout() != null) {
+            rewritten.timeout(source.timeout());
+        }
+        if (source.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            rewritten.terminateAfter(source.terminateAfter());
+        }
+        if (source.aggregations() != null) {
+            for (AggregationBuilder aggregation : rewriteAggregations(source.aggregations()).getAggregatorFactories()) {
+                rewritten.aggregation(aggregation);
+            }
+        }
+        return rewritten;
+    }
+
+    private void validateQuery(QueryBuilder query) {
+        if (query instanceof MatchAllQueryBuilder) {
+            return;
+        }
+        if (query instanceof TermQueryBuilder) {
+            validateQueryField(query, ((TermQueryBuilder) query).fieldName());
+        } else if (query instanceof TermsQueryBuilder) {
+            validateQueryField(query, ((TermsQueryBuilder) query).fieldName());
+        } else if (query instanceof RangeQueryBuilder) {
+            validateQueryField(query, ((RangeQueryBuilder) query).fieldName());
+        } else if (query instanceof ExistsQueryBuilder) {
+            validateQueryField(query, ((ExistsQueryBuilder) query).fieldName());
+        } else if (query instanceof ConstantScoreQueryBuilder) {
+            validateQuery(((ConstantScoreQueryBuilder) query).innerQuery());
+        } else if (query instanceof BoolQueryBuilder) {
+            BoolQueryBuilder bool = (BoolQueryBuilder) query;
+            for (List<QueryBuilder> clauses : Arrays.asList(bool.must(), bool.filter(), bool.should(), bool.mustNot())) {
+                for (QueryBuilder clause : clauses) {
+                    validateQuery(clause);
+                }
+            }
+        } else {
+            throw unsupported("query [" + query.getName() + "]");
+        }
+    }
+
+    private void validateQueryField(QueryBuilder query, String field) {
+        if (field.equals(config.getTimestampField()) == false && config.getTerms().contains(field) == false) {
+            throw new IllegalArgumentException("query [" + query.getName() + "] on field [" + field + "] is not supported on rollup "
+                    + "indices, only the timestamp and terms of the rollup job can be queried");
+        }
+    }
+
+    private AggregatorFactories.Builder rewriteAggregations(AggregatorFactories.Builder aggregations) {
+        if (aggregations.getPipelineAggregatorFactories().isEmpty() == false) {
+            throw unsupported("pipeline aggregation [" + aggregations.getPipelineAggregatorFactories().get(0).getName() + "]");
+        }
+        AggregatorFactories.Builder rewritten = AggregatorFactories.builder();
+        for (AggregationBuilder aggregation : aggregations.getAggregatorFactories()) {
+            if (aggregation.getName().startsWith(ROLLUP_PREFIX)) {
+                throw new IllegalArgumentException("aggregation names starting with [" + ROLLUP_PREFIX + "] are reserved on rollup "
+                        + "indices, got [" + aggregation.getName() + "]");
+            }
+            if (aggregation instanceof MinAggregationBuilder) {
+                rewritten.addAggregator(rewriteMetric((MinAggregationBuilder) aggregation, RollupJobConfig.MIN,
+                        new MinAggregationBuilder(aggregation.getName()), null));
+            } else if (aggregation instanceof MaxAggregationBuilder) {
+                rewritten.addAggregator(rewriteMetric((MaxAggregationBuilder) aggregation, RollupJobConfig.MAX,
+                        new MaxAggregationBuilder(aggregation.getName()), null));
+            } else if (aggregation instanceof SumAggregationBuilder) {
+                rewritten.addAggregator(rewriteMetric((SumAggregationBuilder) aggregation, RollupJobConfig.SUM,
+                        new SumAggregationBuilder(aggregation.getName()), null));
+            } else if (aggregation instanceof ValueCountAggregationBuilder) {
+                Map<String, Object> marker = new HashMap<>();
+                marker.put(MARKER_TYPE, ValueCountAggregationBuilder.NAME);
+                rewritten.addAggregator(rewriteMetric((ValueCountAggregationBuilder) aggregation, RollupJobConfig.VALUE_COUNT,
+                        new SumAggregationBuilder(aggregation.getName()), marker));
+            } else if (aggregation instanceof AvgAggregationBuilder) {
+                AvgAggregationBuilder avg = (AvgAggregationBuilder) aggregation;
+                String countName = ROLLUP_PREFIX + "." + avg.getName() + "." + MARKER_COUNT;
+                Map<String, Object> marker = new HashMap<>();
+                marker.put(MARKER_TYPE, AvgAggregationBuilder.NAME);
+                marker.put(MARKER_COUNT, countName);
+                marker.put(MARKER_FORMAT, avg.format());
+                rewritten.addAggregator(rewriteMetric(avg, RollupJobConfig.SUM, new SumAggregationBuilder(avg.getName()), marker));
+                rewritten.addAggregator(AggregationBuilders.sum(countName)
+                        .field(RollupJobConfig.metricField(avg.field(), RollupJobConfig.VALUE_COUNT)));
+            } else {
+                validateBucket(aggregation);
+                if (aggregation.getSubAggregations().isEmpty() == false || aggregation.getPipelineAggregations().isEmpty() == false) {
+                    AggregatorFactories.Builder subAggregations = AggregatorFactories.builder();
+                    aggregation.getSubAggregations().forEach(subAggregations::addAggregator);
+                    aggregation.getPipelineAggregations().forEach(subAggregations::addPipelineAggregator);
+                    aggregation.subAggregations(rewriteAggregations(subAggregations));
+                }
+                rewritten.addAggregator(aggregation);
+            }
+        }
+        return rewritten;
+    }
+
+    private AggregationBuilder rewriteMetric(ValuesSourceAggregationBuilder<?, ?> metric, String summary,
+                                             ValuesSourceAggregationBuilder<?, ?> rewritten, Map<String, Object> marker) {
+        validateValuesSource(metric, config.getMetrics());
+        rewritten.field(RollupJobConfig.metricField(metric.field(), summary));
+        if (metric.format() != null) {
+            rewritten.format(metric.format());
+        }
+        Map<String, Object> metaData = new HashMap<>();
+        if (metric.getMetaData() != null) {
+            metaData.putAll(metric.getMetaData());
+        }
+        if (marker != null) {
+            metaData.put(ROLLUP_PREFIX, marker);
+        }
+        if (metaData.isEmpty() == false) {
+            rewritten.setMetaData(metaData);
+        }
+        return rewritten;
+    }
+
+    private void validateBucket(AggregationBuilder aggregation) {
+        if (aggregation instanceof DateHistogramAggregationBuilder) {
+            DateHistogramAggregationBuilder histogram = (DateHistogramAggregationBuilder) aggregation;
+            validateValuesSource(histogram, Collections.singleton(config.getTimestampField()));
+            if (histogram.timeZone() != null && histogram.timeZone().equals(DateTimeZone.UTC) == false) {
+                throw unsupported("[time_zone] of date_histogram [" + histogram.getName() + "]");
+            }
+            if (histogram.offset() != 0) {
+                throw unsupported("[offset] of date_histogram [" + histogram.getName() + "]");
+            }
+            DateHistogramInterval interval = histogram.dateHistogramInterval();
+            if (interval == null) {
+                interval = new DateHistogramInterval(histogram.interval() + "ms");
+            }
+            if (isCompatible(interval) == false) {
+                throw new IllegalArgumentException("interval [" + interval + "] of date_histogram [" + histogram.getName()
+                        + "] is not a multiple of the rollup interval [" + config.getInterval() + "]");
+            }
+            validateOrder(histogram, histogram.order());
+        } else if (aggregation instanceof TermsAggregationBuilder) {
+            validateValuesSource((TermsAggregationBuilder) aggregation, config.getTerms());
+            validateOrder(aggregation, ((TermsAggregationBuilder) aggregation).order());
+        } else if (aggregation instanceof HistogramAggregationBuilder) {
+            validateValuesSource((HistogramAggregationBuilder) aggregation, config.getTerms());
+            validateOrder(aggregation, ((HistogramAggregationBuilder) aggregation).order());
+        } else if (aggregation instanceof RangeAggregationBuilder) {
+            validateValuesSource((RangeAggregationBuilder) aggregation, config.getTerms());
+        } else if (aggregation instanceof FilterAggregationBuilder) {
+            validateQuery(((FilterAggregationBuilder) aggregation).getFilter());
+        } else if (aggregation instanceof FiltersAggregationBuilder) {
+            for (FiltersAggregator.KeyedFilter filter : ((FiltersAggregationBuilder) aggregation).filters()) {
+                validateQuery(filter.filter());
+            }
+        } else {
+            throw unsupported("aggregation [" + aggregation.getType() + "]");
+        }
+    }
+
+    private void validateValuesSource(ValuesSourceAggregationBuilder<?, ?> aggregation, Collection<String> fields) {
+        if (aggregation.script() != null) {
+            throw unsupported("[script] of aggregation [" + aggregation.getName() + "]");
+        }
+        if (aggregation.missing() != null) {
+            throw unsupported("[missing] of aggregation [" + aggregation.getName() + "]");
+        }
+        if (aggregation.field() == null || fields.contains(aggregation.field()) == false) {
+            throw new IllegalArgumentException("aggregation [" + aggregation.getName() + "] of type [" + aggregation.getType()
+                    + "] on field [" + aggregation.field() + "] is not supported on rollup indices, supported fields are " + fields);
+        }
+    }
+
+    /**
+     * Buckets may be ordered by sub-aggregations, but not by averages because they are sums until the response is
+     * translated.
+     */
+    private void validateOrder(AggregationBuilder aggregation, BucketOrder order) {
+        Set<String> averages = new HashSet<>();
+        for (AggregationBuilder subAggregation : aggregation.getSubAggregations()) {
+            if (subAggregation instanceof AvgAggregationBuilder) {
+                averages.add(subAggregation.getName());
+            }
+        }
+        if (averages.isEmpty() || order == null) {
+            return;
+        }
+        for (String path : orderPaths(order)) {
+            String first = path.split("[>.\\[]", 2)[0];
+            if (averages.contains(first)) {
+                throw unsupported("ordering [" + aggregation.getName() + "] by the avg aggregation [" + first + "]");
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> orderPaths(BucketOrder order) {
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder().startObject().field("order");
+            order.toXContent(builder, ToXContent.EMPTY_PARAMS);
+            Object orders = XContentHelper.convertToMap(builder.endObject().bytes(), false, XContentType.JSON).v2().get("order");
+            List<String> paths = new ArrayList<>();
+            for (Object element : orders instanceof List ? (List<Object>) orders : Collections.singletonList(orders)) {
+                paths.addAll(((Map<String, Object>) element).keySet());
+            }
+            return paths;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Whether buckets of the given interval are made of whole rollup intervals.
+     */
+    boolean isCompatible(DateHistogramInterval interval) {
+        long rollupMillis = RollupJobConfig.intervalMillis(config.getInterval());
+        long millis = RollupJobConfig.intervalMillis(interval);
+        if (rollupMillis > 0) {
+            if (millis > 0) {
+                return millis % rollupMillis == 0;
+            }
+            // weeks, months, quarters and years start at midnight
+            return DAY_MILLIS % rollupMillis == 0;
+        }
+        DateTimeUnit rollupUnit = DateHistogramAggregationBuilder.DATE_FIELD_UNITS.get(config.getInterval().toString());
+        DateTimeUnit unit = DateHistogramAggregationBuilder.DATE_FIELD_UNITS.get(interval.toString());
+        if (unit == rollupUnit) {
+            return true;
+        }
+        return CALENDAR_UNITS.contains(rollupUnit) && CALENDAR_UNITS.indexOf(unit) > CALENDAR_UNITS.indexOf(rollupUnit);
+    }
+
+    private static IllegalArgumentException unsupported(String what) {
+        return new IllegalArgumentException(what + " is not supported on rollup indices");
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Task for a run of a rollup job. It can be cancelled between pages.
+ */
+public class RollupTask extends CancellableTask {
+
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong rollups = new AtomicLong();
+
+    public RollupTask(long id, String type, String action, String description, TaskId parentTaskId) {
+        super(id, type, action, description, parentTaskId);
+    }
+
+    @Override
+    public boolean shouldCancelChildrenOnCancellation() {
+        return true;
+    }
+
+    @Override
+    public Status getStatus() {
+        return new Status(pages.get(), rollups.get());
+    }
+
+    void onPage(int pageRollups) {
+        pages.incrementAndGet();
+        rollups.addAndGet(pageRollups);
+    }
+
+    public static class Status implements Task.Status {
+        public static final String NAME = "rollup";
+
+        private final long pages;
+        private final long rollups;
+
+        public Status(long pages, long rollups) {
+            this.pages = pages;
+            this.rollups = rollups;
+        }
+
+        public Status(StreamInput in) throws IOException {
+            pages = in.readVLong();
+            rollups = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(pages);
+            out.writeVLong(rollups);
+        }
+
+        @Override
+        public String getWriteableName() {
+            return NAME;
+        }
+
+        /**
+         * The number of pages of composite buckets that have been rolled up so far.
+         */
+        public long getPages() {
+            return pages;
+        }
+
+        /**
+         * The number of rollup documents that have been indexed so far.
+         */
+        public long getRollups() {
+            return rollups;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("pages", pages);
+            builder.field("rollups", rollups);
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            Status other = (Status) obj;
+            return pages == other.pages && rollups == other.rollups;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(pages, rollups);
+        }
+
+        @Override
+        public String toString() {
+            return "Status[pages=" + pages + ", rollups=" + rollups + "]";
+        }
+    }
+}
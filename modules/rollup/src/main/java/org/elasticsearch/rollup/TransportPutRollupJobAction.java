@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+
+public class TransportPutRollupJobAction extends HandledTransportAction<PutRollupJobRequest, PutRollupJobResponse> {
+    private final Client client;
+
+    @Inject
+    public TransportPutRollupJobAction(Settings settings, ThreadPool threadPool, ActionFilters actionFilters,
+                                       IndexNameExpressionResolver resolver, TransportService transportService, Client client) {
+        super(settings, PutRollupJobAction.NAME, threadPool, transportService, actionFilters, resolver, PutRollupJobRequest::new);
+        this.client = client;
+    }
+
+    @Override
+    protected void doExecute(PutRollupJobRequest request, ActionListener<PutRollupJobResponse> listener) {
+        RollupJobConfig config = request.getConfig();
+        if (Regex.simpleMatch(Strings.splitStringByCommaToArray(config.getIndex()), request.getRollupIndex())) {
+            listener.onFailure(new IllegalArgumentException("rollup index [" + request.getRollupIndex()
+                    + "] must not match the source index pattern [" + config.getIndex() + "]"));
+            return;
+        }
+        CreateIndexRequest createIndexRequest = new CreateIndexRequest(request.getRollupIndex());
+        createIndexRequest.settings(Settings.builder().put(RollupPlugin.INDEX_ROLLUP_SETTING.getKey(), true));
+        try {
+            createIndexRequest.mapping(RollupJobConfig.TYPE, config.toMapping());
+        } catch (IOException e) {
+            listener.onFailure(e);
+            return;
+        }
+        client.admin().indices().create(createIndexRequest, ActionListener.wrap(
+                response -> listener.onResponse(new PutRollupJobResponse(response.isAcknowledged())), listener::onFailure));
+    }
+}
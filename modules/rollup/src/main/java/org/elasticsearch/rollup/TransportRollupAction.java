@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.ParentTaskAssigningClient;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.Set;
+
+public class TransportRollupAction extends HandledTransportAction<RollupRequest, RollupResponse> {
+    private final ClusterService clusterService;
+    private final Client client;
+    /**
+     * The rollup indices whose jobs are running on this node. A job never runs twice at the same time on a node.
+     */
+    private final Set<String> running = ConcurrentCollections.newConcurrentSet();
+
+    @Inject
+    public TransportRollupAction(Settings settings, ThreadPool threadPool, ActionFilters actionFilters,
+                                 IndexNameExpressionResolver resolver, TransportService transportService,
+                                 ClusterService clusterService, Client client) {
+        super(settings, RollupAction.NAME, threadPool, transportService, actionFilters, resolver, RollupRequest::new);
+        this.clusterService = clusterService;
+        this.client = client;
+    }
+
+    @Override
+    protected void doExecute(Task task, RollupRequest request, ActionListener<RollupResponse> listener) {
+        String rollupIndex = request.getRollupIndex();
+        IndexMetaData indexMetaData = clusterService.state().metaData().index(rollupIndex);
+        if (indexMetaData == null) {
+            listener.onFailure(new IndexNotFoundException(rollupIndex));
+            return;
+        }
+        RollupJobConfig config;
+        try {
+            config = RollupJobConfig.fromIndexMetaData(indexMetaData);
+        } catch (IOException e) {
+            listener.onFailure(e);
+            return;
+        }
+        if (config == null) {
+            listener.onFailure(new IllegalArgumentException("[" + rollupIndex + "] is not a rollup index"));
+            return;
+        }
+        if (running.add(rollupIndex) == false) {
+            listener.onFailure(new IllegalStateException("rollup of [" + rollupIndex + "] is already running"));
+            return;
+        }
+        ActionListener<RollupResponse> releasingListener = ActionListener.wrap(response -> {
+            running.remove(rollupIndex);
+            listener.onResponse(response);
+        }, e -> {
+            running.remove(rollupIndex);
+            listener.onFailure(e);
+        });
+        ParentTaskAssigningClient taskClient = new ParentTaskAssigningClient(client, clusterService.localNode(), task);
+        try {
+            new RollupIndexer(logger, taskClient, (RollupTask) task, rollupIndex, config, threadPool::absoluteTimeInMillis,
+                    releasingListener).start();
+        } catch (Exception e) {
+            releasingListener.onFailure(e);
+        }
+    }
+
+    @Override
+    protected void doExecute(RollupRequest request, ActionListener<RollupResponse> listener) {
+        throw new UnsupportedOperationException("task required");
+    }
+}
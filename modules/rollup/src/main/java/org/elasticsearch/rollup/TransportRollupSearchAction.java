@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Searches rollup indices as if they were their source indices, see {@link RollupSearchRewriter}.
+ */
+public class TransportRollupSearchAction extends HandledTransportAction<SearchRequest, SearchResponse> {
+    private final ClusterService clusterService;
+    private final Client client;
+
+    @Inject
+    public TransportRollupSearchAction(Settings settings, ThreadPool threadPool, ActionFilters actionFilters,
+                                       IndexNameExpressionResolver resolver, TransportService transportService,
+                                       ClusterService clusterService, Client client) {
+        super(settings, RollupSearchAction.NAME, threadPool, transportService, actionFilters, resolver, SearchRequest::new);
+        this.clusterService = clusterService;
+        this.client = client;
+    }
+
+    @Override
+    protected void doExecute(SearchRequest request, ActionListener<SearchResponse> listener) {
+        try {
+            RollupJobConfig config = resolveConfig(clusterService.state(), request);
+            request.source(new RollupSearchRewriter(config).rewrite(request.source()));
+        } catch (Exception e) {
+            listener.onFailure(e);
+            return;
+        }
+        client.search(request, ActionListener.wrap(response -> listener.onResponse(RollupResponseTranslator.translate(response)),
+                listener::onFailure));
+    }
+
+    /**
+     * Returns the configuration of the rollup job that the searched indices share.
+     */
+    private RollupJobConfig resolveConfig(ClusterState state, SearchRequest request) throws IOException {
+        String[] indices = indexNameExpressionResolver.concreteIndexNames(state, request);
+        if (indices.length == 0) {
+            throw new IllegalArgumentException("rollup search requires at least one rollup index");
+        }
+        RollupJobConfig config = null;
+        for (String index : indices) {
+            RollupJobConfig indexConfig = RollupJobConfig.fromIndexMetaData(state.metaData().index(index));
+            if (indexConfig == null) {
+                throw new IllegalArgumentException("[" + index + "] is not a rollup index");
+            }
+            if (config != null && config.equals(indexConfig) == false) {
+                throw new IllegalArgumentException("rollup indices " + Arrays.toString(indices)
+                        + " must all have the same rollup job configuration");
+            }
+            config = indexConfig;
+        }
+        return config;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.test.AbstractSerializingTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class RollupJobConfigTests extends AbstractSerializingTestCase<RollupJobConfig> {
+
+    public static RollupJobConfig randomConfig() {
+        List<String> terms = new ArrayList<>();
+        int numTerms = randomIntBetween(0, 3);
+        for (int i = 0; i < numTerms; i++) {
+            terms.add("term" + i);
+        }
+        List<String> metrics = new ArrayList<>();
+        int numMetrics = randomIntBetween(0, 3);
+        for (int i = 0; i < numMetrics; i++) {
+            metrics.add("metric" + i);
+        }
+        DateHistogramInterval interval = new DateHistogramInterval(randomFrom("1m", "1h", "1d", "1w", "1M", "15m", "30s"));
+        return new RollupJobConfig(randomAlphaOfLengthBetween(1, 10), randomAlphaOfLengthBetween(1, 10) + "_timestamp", interval,
+                terms, metrics, randomIntBetween(1, 10000));
+    }
+
+    @Override
+    protected RollupJobConfig createTestInstance() {
+        return randomConfig();
+    }
+
+    @Override
+    protected Writeable.Reader<RollupJobConfig> instanceReader() {
+        return RollupJobConfig::new;
+    }
+
+    @Override
+    protected RollupJobConfig doParseInstance(XContentParser parser) throws IOException {
+        return RollupJobConfig.fromXContent(parser);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testMappingRoundTrip() throws IOException {
+        RollupJobConfig config = randomConfig();
+        Map<String, Object> mapping = XContentHelper.convertToMap(config.toMapping().bytes(), false, XContentType.JSON).v2();
+        assertEquals(config, RollupJobConfig.fromMapping((Map<String, Object>) mapping.get(RollupJobConfig.TYPE)));
+        assertNull(RollupJobConfig.fromMapping(Collections.emptyMap()));
+    }
+
+    public void testInvalidConfig() {
+        DateHistogramInterval hour = new DateHistogramInterval("1h");
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+                () -> new RollupJobConfig("source", "timestamp", hour, Arrays.asList("host", "host"), Collections.emptyList(), 10));
+        assertEquals("field [host] is used more than once in the rollup job", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new RollupJobConfig("source", "timestamp", hour, Collections.emptyList(), Collections.singletonList("timestamp"), 10));
+        assertEquals("field [timestamp] is used more than once in the rollup job", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new RollupJobConfig("source", "timestamp", hour, Collections.emptyList(), Collections.emptyList(), 0));
+        assertEquals("[page_size] must be greater than 0, got [0]", e.getMessage());
+        e = expectThrows(IllegalArgumentException.class,
+                () -> new RollupJobConfig("source", "timestamp", null, Collections.emptyList(), Collections.emptyList(), 10));
+        assertEquals("[interval] is required", e.getMessage());
+        expectThrows(ElasticsearchParseException.class, () -> new RollupJobConfig("source", "timestamp", new DateHistogramInterval("1x"),
+                Collections.emptyList(), Collections.emptyList(), 10));
+    }
+
+    public void testIntervalMillis() {
+        assertEquals(60_000L, RollupJobConfig.intervalMillis(new DateHistogramInterval("1m")));
+        assertEquals(60_000L, RollupJobConfig.intervalMillis(new DateHistogramInterval("minute")));
+        assertEquals(86_400_000L, RollupJobConfig.intervalMillis(new DateHistogramInterval("1d")));
+        assertEquals(5_400_000L, RollupJobConfig.intervalMillis(new DateHistogramInterval("90m")));
+        assertEquals(-1L, RollupJobConfig.intervalMillis(new DateHistogramInterval("1w")));
+        assertEquals(-1L, RollupJobConfig.intervalMillis(new DateHistogramInterval("month")));
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.Action;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionRequestBuilder;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.client.FilterClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.avg.Avg;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.aggregations.metrics.min.Min;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCount;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class RollupJobTests extends ESSingleNodeTestCase {
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return Collections.singletonList(RollupPlugin.class);
+    }
+
+    private static final RollupJobConfig CONFIG = new RollupJobConfig("metrics", "@timestamp", new DateHistogramInterval("1h"),
+            Collections.singletonList("host"), Collections.singletonList("cpu"), 7);
+
+    private void indexSourceDocuments(long now, int numDocs) throws Exception {
+        BulkRequestBuilder bulk = client().prepareBulk().setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        for (int i = 0; i < numDocs; i++) {
+            // only complete hours are rolled up
+            long timestamp = now - TimeValue.timeValueHours(2).millis() - randomIntBetween(0, (int) TimeValue.timeValueHours(72).millis());
+            if (randomBoolean()) {
+                bulk.add(client().prepareIndex("metrics", "doc").setSource("@timestamp", timestamp,
+                        "host", randomFrom("a", "b", "c"), "cpu", randomIntBetween(0, 100)));
+            } else {
+                bulk.add(client().prepareIndex("metrics", "doc").setSource("@timestamp", timestamp,
+                        "host", randomFrom("a", "b", "c")));
+            }
+        }
+        assertFalse(bulk.get().hasFailures());
+    }
+
+    private void createSourceIndex() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("metrics").addMapping("doc", jsonBuilder().startObject()
+                .startObject("doc").startObject("properties")
+                    .startObject("@timestamp").field("type", "date").endObject()
+                    .startObject("host").field("type", "keyword").endObject()
+                    .startObject("cpu").field("type", "double").endObject()
+                .endObject().endObject().endObject()));
+    }
+
+    public void testRollupAndSearch() throws Exception {
+        createSourceIndex();
+        long now = System.currentTimeMillis();
+        int numDocs = randomIntBetween(50, 200);
+        indexSourceDocuments(now, numDocs);
+
+        assertAcked(client().execute(PutRollupJobAction.INSTANCE, new PutRollupJobRequest("metrics_rollup", CONFIG)).get());
+        RollupResponse response = client().execute(RollupAction.INSTANCE, new RollupRequest("metrics_rollup")).get();
+        assertThat(response.getRollups(), greaterThan(0L));
+        assertThat(response.getPages(), greaterThan(0L));
+        // the next run only rolls up the latest interval again, which overwrites its rollup documents
+        long rollupDocs = client().prepareSearch("metrics_rollup").setSize(0).get().getHits().getTotalHits();
+        client().execute(RollupAction.INSTANCE, new RollupRequest("metrics_rollup")).get();
+        assertEquals(rollupDocs, client().prepareSearch("metrics_rollup").setSize(0).get().getHits().getTotalHits());
+
+        SearchSourceBuilder source = new SearchSourceBuilder().size(0)
+                .aggregation(AggregationBuilders.dateHistogram("per_day").field("@timestamp")
+                        .dateHistogramInterval(DateHistogramInterval.DAY)
+                        .subAggregation(AggregationBuilders.terms("hosts").field("host")
+                                .subAggregation(AggregationBuilders.min("min").field("cpu"))
+                                .subAggregation(AggregationBuilders.max("max").field("cpu"))
+                                .subAggregation(AggregationBuilders.sum("sum").field("cpu"))
+                                .subAggregation(AggregationBuilders.avg("avg").field("cpu"))
+                                .subAggregation(AggregationBuilders.count("count").field("cpu"))));
+        SearchResponse raw = client().prepareSearch("metrics").setSource(source).get();
+        SearchResponse rollup = client().execute(RollupSearchAction.INSTANCE,
+                client().prepareSearch("metrics_rollup").setSource(source).request()).get();
+        assertEquals(numDocs, rollup.getHits().getTotalHits());
+        assertEquals(raw.getHits().getTotalHits(), rollup.getHits().getTotalHits());
+        assertEquals(0, rollup.getHits().getHits().length);
+
+        Histogram rawDays = raw.getAggregations().get("per_day");
+        Histogram rollupDays = rollup.getAggregations().get("per_day");
+        assertEquals(rawDays.getBuckets().size(), rollupDays.getBuckets().size());
+        for (int i = 0; i < rawDays.getBuckets().size(); i++) {
+            Histogram.Bucket rawDay = rawDays.getBuckets().get(i);
+            Histogram.Bucket rollupDay = rollupDays.getBuckets().get(i);
+            assertEquals(rawDay.getKey(), rollupDay.getKey());
+            assertEquals(rawDay.getDocCount(), rollupDay.getDocCount());
+            Terms rawHosts = rawDay.getAggregations().get("hosts");
+            Terms rollupHosts = rollupDay.getAggregations().get("hosts");
+            assertEquals(rawHosts.getBuckets().size(), rollupHosts.getBuckets().size());
+            for (Terms.Bucket rawHost : rawHosts.getBuckets()) {
+                Terms.Bucket rollupHost = rollupHosts.getBucketByKey(rawHost.getKeyAsString());
+                assertNotNull(rollupHost);
+                assertEquals(rawHost.getDocCount(), rollupHost.getDocCount());
+                assertEquals(((Min) rawHost.getAggregations().get("min")).getValue(),
+                        ((Min) rollupHost.getAggregations().get("min")).getValue(), 0d);
+                assertEquals(((Max) rawHost.getAggregations().get("max")).getValue(),
+                        ((Max) rollupHost.getAggregations().get("max")).getValue(), 0d);
+                assertEquals(((Sum) rawHost.getAggregations().get("sum")).getValue(),
+                        ((Sum) rollupHost.getAggregations().get("sum")).getValue(), 0d);
+                assertEquals(((Avg) rawHost.getAggregations().get("avg")).getValue(),
+                        ((Avg) rollupHost.getAggregations().get("avg")).getValue(), 1e-9);
+                assertEquals(((ValueCount) rawHost.getAggregations().get("count")).getValue(),
+                        ((ValueCount) rollupHost.getAggregations().get("count")).getValue());
+                List<String> names = Arrays.asList("min", "max", "sum", "avg", "count");
+                rollupHost.getAggregations().forEach(aggregation -> assertTrue(names.contains(aggregation.getName())));
+            }
+        }
+
+        // new source documents are rolled up by the next run
+        int moreDocs = randomIntBetween(1, 20);
+        BulkRequestBuilder bulk = client().prepareBulk().setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        for (int i = 0; i < moreDocs; i++) {
+            bulk.add(client().prepareIndex("metrics", "doc").setSource("@timestamp", now, "host", "d", "cpu", 1));
+        }
+        assertFalse(bulk.get().hasFailures());
+        client().execute(RollupAction.INSTANCE, new RollupRequest("metrics_rollup")).get();
+        rollup = client().execute(RollupSearchAction.INSTANCE, client().prepareSearch("metrics_rollup").request()).get();
+        // documents of the current interval are not rolled up yet
+        assertEquals(numDocs, rollup.getHits().getTotalHits());
+    }
+
+    public void testRunFailingHalfwayThroughAnIntervalIsCompleted() throws Exception {
+        createSourceIndex();
+        long now = System.currentTimeMillis();
+        long interval = now - TimeValue.timeValueHours(2).millis();
+        // more hosts than fit in a page, all in the same interval
+        int numHosts = randomIntBetween(CONFIG.getPageSize() + 1, 3 * CONFIG.getPageSize());
+        BulkRequestBuilder bulk = client().prepareBulk().setRefreshPolicy(WriteRequest.RefreshPolicy.IMMEDIATE);
+        for (int i = 0; i < numHosts; i++) {
+            bulk.add(client().prepareIndex("metrics", "doc").setSource("@timestamp", interval, "host", "host-" + i, "cpu", i));
+        }
+        assertFalse(bulk.get().hasFailures());
+        assertAcked(client().execute(PutRollupJobAction.INSTANCE, new PutRollupJobRequest("metrics_rollup", CONFIG)).get());
+
+        // fail the bulk request of the second page
+        AtomicInteger bulks = new AtomicInteger();
+        Client failingClient = new FilterClient(client()) {
+            @Override
+            protected <Request extends ActionRequest, Response extends ActionResponse,
+                RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder>> void doExecute(
+                Action<Request, Response, RequestBuilder> action, Request request, ActionListener<Response> listener) {
+                if (action == BulkAction.INSTANCE && bulks.incrementAndGet() == 2) {
+                    listener.onFailure(new ElasticsearchException("simulated failure"));
+                } else {
+                    super.doExecute(action, request, listener);
+                }
+            }
+        };
+        PlainActionFuture<RollupResponse> failedRun = new PlainActionFuture<>();
+        new RollupIndexer(logger, failingClient, new RollupTask(1, "transport", RollupAction.NAME, "", TaskId.EMPTY_TASK_ID),
+                "metrics_rollup", CONFIG, () -> now, failedRun).start();
+        ExecutionException e = expectThrows(ExecutionException.class, failedRun::get);
+        assertThat(e.getCause().getMessage(), containsString("simulated failure"));
+        client().admin().indices().prepareRefresh("metrics_rollup").get();
+        assertEquals(CONFIG.getPageSize(), client().prepareSearch("metrics_rollup").setSize(0).get().getHits().getTotalHits());
+
+        client().execute(RollupAction.INSTANCE, new RollupRequest("metrics_rollup")).get();
+        assertEquals(numHosts, client().prepareSearch("metrics_rollup").setSize(0).get().getHits().getTotalHits());
+        SearchResponse rollup = client().execute(RollupSearchAction.INSTANCE, client().prepareSearch("metrics_rollup").request()).get();
+        assertEquals(numHosts, rollup.getHits().getTotalHits());
+    }
+
+    public void testInvalidJobs() throws Exception {
+        createSourceIndex();
+        Exception e = expectThrows(Exception.class, () -> client().execute(PutRollupJobAction.INSTANCE,
+                new PutRollupJobRequest("metrics", CONFIG)).get());
+        assertThat(e.getMessage(), containsString("must not match the source index pattern [metrics]"));
+
+        e = expectThrows(Exception.class, () -> client().execute(RollupAction.INSTANCE, new RollupRequest("metrics")).get());
+        assertThat(e.getMessage(), containsString("[metrics] is not a rollup index"));
+
+        e = expectThrows(Exception.class, () -> client().execute(RollupSearchAction.INSTANCE,
+                client().prepareSearch("metrics").request()).get());
+        assertThat(e.getMessage(), containsString("[metrics] is not a rollup index"));
+
+        assertAcked(client().execute(PutRollupJobAction.INSTANCE, new PutRollupJobRequest("metrics_rollup", CONFIG)).get());
+        e = expectThrows(Exception.class, () -> client().execute(RollupSearchAction.INSTANCE,
+                client().prepareSearch("metrics_rollup").setSize(10).request()).get());
+        assertThat(e.getMessage(), containsString("search hits is not supported on rollup indices"));
+    }
+}
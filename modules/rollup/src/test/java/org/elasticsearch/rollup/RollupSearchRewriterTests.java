@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.rollup;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.max.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.joda.time.DateTimeZone;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class RollupSearchRewriterTests extends ESTestCase {
+
+    private static RollupJobConfig config(String interval) {
+        return new RollupJobConfig("metrics-*", "@timestamp", new DateHistogramInterval(interval), Collections.singletonList("host"),
+                Collections.singletonList("cpu"), 100);
+    }
+
+    public void testCompatibleIntervals() {
+        RollupSearchRewriter hourly = new RollupSearchRewriter(config("1h"));
+        for (String interval : new String[] {"1h", "2h", "120m", "1d", "day", "1w", "1M", "1q", "1y"}) {
+            assertTrue(interval, hourly.isCompatible(new DateHistogramInterval(interval)));
+        }
+        for (String interval : new String[] {"1m", "30m", "90m", "1s"}) {
+            assertFalse(interval, hourly.isCompatible(new DateHistogramInterval(interval)));
+        }
+        RollupSearchRewriter monthly = new RollupSearchRewriter(config("1M"));
+        for (String interval : new String[] {"1M", "1q", "1y"}) {
+            assertTrue(interval, monthly.isCompatible(new DateHistogramInterval(interval)));
+        }
+        for (String interval : new String[] {"1d", "1w", "30d"}) {
+            assertFalse(interval, monthly.isCompatible(new DateHistogramInterval(interval)));
+        }
+        RollupSearchRewriter weekly = new RollupSearchRewriter(config("1w"));
+        assertTrue(weekly.isCompatible(new DateHistogramInterval("1w")));
+        assertFalse(weekly.isCompatible(new DateHistogramInterval("1M")));
+        RollupSearchRewriter ninetyMinutes = new RollupSearchRewriter(config("90m"));
+        assertTrue(ninetyMinutes.isCompatible(new DateHistogramInterval("3h")));
+        assertTrue(ninetyMinutes.isCompatible(new DateHistogramInterval("1d")));
+        assertFalse(ninetyMinutes.isCompatible(new DateHistogramInterval("2h")));
+        assertTrue(ninetyMinutes.isCompatible(new DateHistogramInterval("1M")));
+    }
+
+    public void testRewriteEmptySource() {
+        SearchSourceBuilder rewritten = new RollupSearchRewriter(config("1h")).rewrite(null);
+        assertEquals(0, rewritten.size());
+        assertEquals(1, rewritten.aggregations().count());
+        assertEquals(RollupSearchRewriter.TOTAL_NAME, rewritten.aggregations().getAggregatorFactories().get(0).getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    public void testRewriteMetrics() {
+        SearchSourceBuilder source = new SearchSourceBuilder().size(0)
+                .query(QueryBuilders.boolQuery().filter(QueryBuilders.termQuery("host", "a"))
+                        .filter(QueryBuilders.rangeQuery("@timestamp").gte("now-1d")))
+                .aggregation(AggregationBuilders.dateHistogram("per_day").field("@timestamp")
+                        .dateHistogramInterval(DateHistogramInterval.DAY)
+                        .subAggregation(AggregationBuilders.max("max").field("cpu"))
+                        .subAggregation(AggregationBuilders.count("count").field("cpu"))
+                        .subAggregation(AggregationBuilders.avg("avg").field("cpu").format("0.0")));
+        SearchSourceBuilder rewritten = new RollupSearchRewriter(config("1h")).rewrite(source);
+        assertEquals(source.query(), rewritten.query());
+        List<AggregationBuilder> aggregations = rewritten.aggregations().getAggregatorFactories();
+        assertEquals(2, aggregations.size());
+        List<AggregationBuilder> subAggregations = aggregations.get(1).getSubAggregations();
+        assertEquals(4, subAggregations.size());
+
+        assertThat(subAggregations.get(0), instanceOf(MaxAggregationBuilder.class));
+        assertEquals("cpu.max", ((MaxAggregationBuilder) subAggregations.get(0)).field());
+
+        SumAggregationBuilder count = (SumAggregationBuilder) subAggregations.get(1);
+        assertEquals("count", count.getName());
+        assertEquals("cpu.value_count", count.field());
+        Map<String, Object> marker = (Map<String, Object>) count.getMetaData().get(RollupSearchRewriter.ROLLUP_PREFIX);
+        assertEquals("value_count", marker.get(RollupSearchRewriter.MARKER_TYPE));
+
+        SumAggregationBuilder avg = (SumAggregationBuilder) subAggregations.get(2);
+        assertEquals("avg", avg.getName());
+        assertEquals("cpu.sum", avg.field());
+        marker = (Map<String, Object>) avg.getMetaData().get(RollupSearchRewriter.ROLLUP_PREFIX);
+        assertEquals("avg", marker.get(RollupSearchRewriter.MARKER_TYPE));
+        assertEquals("0.0", marker.get(RollupSearchRewriter.MARKER_FORMAT));
+        SumAggregationBuilder avgCount = (SumAggregationBuilder) subAggregations.get(3);
+        assertEquals(marker.get(RollupSearchRewriter.MARKER_COUNT), avgCount.getName());
+        assertEquals("cpu.value_count", avgCount.field());
+    }
+
+    public void testUnsupportedRequests() {
+        RollupSearchRewriter rewriter = new RollupSearchRewriter(config("1h"));
+        assertUnsupported(rewriter, new SearchSourceBuilder().size(10), "search hits is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().sort("host"), "[sort] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().query(QueryBuilders.matchQuery("host", "a")),
+                "query [match] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().query(QueryBuilders.rangeQuery("cpu").gte(10)),
+                "query [range] on field [cpu] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.terms("cpu").field("cpu")),
+                "on field [cpu] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.cardinality("hosts").field("host")),
+                "aggregation [cardinality] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.max("max").field("host")),
+                "on field [host] is not supported");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.dateHistogram("histo").field("@timestamp")
+                .dateHistogramInterval(new DateHistogramInterval("30m"))), "is not a multiple of the rollup interval [1h]");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.dateHistogram("histo").field("@timestamp")
+                .dateHistogramInterval(DateHistogramInterval.DAY).timeZone(DateTimeZone.forOffsetHours(2))), "[time_zone]");
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(AggregationBuilders.max("_rollup.max").field("cpu")),
+                "are reserved on rollup indices");
+        TermsAggregationBuilder orderedByAvg = AggregationBuilders.terms("hosts").field("host")
+                .order(Arrays.asList(BucketOrder.count(false), BucketOrder.aggregation("avg", true)))
+                .subAggregation(AggregationBuilders.avg("avg").field("cpu"));
+        assertUnsupported(rewriter, new SearchSourceBuilder().aggregation(orderedByAvg), "by the avg aggregation [avg]");
+        TermsAggregationBuilder orderedByMax = AggregationBuilders.terms("hosts").field("host")
+                .order(BucketOrder.aggregation("max", true))
+                .subAggregation(AggregationBuilders.avg("avg").field("cpu"))
+                .subAggregation(AggregationBuilders.max("max").field("cpu"));
+        rewriter.rewrite(new SearchSourceBuilder().aggregation(orderedByMax));
+    }
+
+    private static void assertUnsupported(RollupSearchRewriter rewriter, SearchSourceBuilder source, String message) {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> rewriter.rewrite(source));
+        assertThat(e.getMessage(), containsString(message));
+    }
+}
@@ -59,6 +59,7 @@ final class Netty4HttpChannel extends AbstractRestChannel {
     private final Channel channel;
     private final FullHttpRequest nettyRequest;
     private final HttpPipelinedRequest pipelinedRequest;
+    private final Netty4HttpIncrementalContent incrementalContent;
     private final ThreadContext threadContext;
 
     /**
@@ -80,6 +81,7 @@ final class Netty4HttpChannel extends AbstractRestChannel {
         this.channel = request.getChannel();
         this.nettyRequest = request.request();
         this.pipelinedRequest = pipelinedRequest;
+        this.incrementalContent = (Netty4HttpIncrementalContent) request.incrementalContent();
         this.threadContext = threadContext;
     }
 
@@ -90,6 +92,22 @@ final class Netty4HttpChannel extends AbstractRestChannel {
 
     @Override
     public void sendResponse(RestResponse response) {
+        if (incrementalContent != null) {
+            // the request gets its place in the pipeline once all of its content was received, the response can only be written
+            // from then on
+            final ThreadContext.StoredContext context = threadContext.newStoredContext(true);
+            incrementalContent.whenReceived(pipelinedRequest -> {
+                try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                    context.restore();
+                    sendResponse(response, pipelinedRequest);
+                }
+            });
+        } else {
+            sendResponse(response, pipelinedRequest);
+        }
+    }
+
+    private void sendResponse(RestResponse response, HttpPipelinedRequest pipelinedRequest) {
         // if the response object was created upstream, then use it;
         // otherwise, create a new one
         ByteBuf buffer = Netty4Utils.toByteBuf(response.content());
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.LastHttpContent;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
+import org.elasticsearch.rest.IncrementalContent;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.function.Consumer;
+
+/**
+ * The content of a request that is passed to its handler while it is being received. Backpressure is applied by turning off
+ * auto read on the channel, which is turned on again once all content was received or a response was sent. All state is
+ * only modified on the event loop of the channel.
+ */
+final class Netty4HttpIncrementalContent implements IncrementalContent {
+
+    private final Channel channel;
+    private final ThreadContext threadContext;
+
+    private volatile Listener listener;
+    private volatile ThreadContext.StoredContext listenerContext;
+    private boolean received;
+    private HttpPipelinedRequest pipelinedRequest;
+    private Consumer<HttpPipelinedRequest> onReceived;
+
+    Netty4HttpIncrementalContent(Channel channel, ThreadContext threadContext) {
+        this.channel = channel;
+        this.threadContext = threadContext;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        // chunks are passed to the listener in the context of the request rather than in the context of the network thread
+        this.listenerContext = threadContext.newStoredContext(false);
+        this.listener = listener;
+    }
+
+    @Override
+    public void pause() {
+        channel.eventLoop().execute(() -> {
+            if (received == false && onReceived == null) {
+                channel.config().setAutoRead(false);
+            }
+        });
+    }
+
+    @Override
+    public void resume() {
+        channel.eventLoop().execute(() -> channel.config().setAutoRead(true));
+    }
+
+    /**
+     * Passes a chunk of content to the listener, if any.
+     *
+     * @param pipelinedRequest the pipelined request that wraps the last chunk if HTTP pipelining is enabled
+     */
+    void onContent(HttpContent content, @Nullable HttpPipelinedRequest pipelinedRequest) {
+        assert channel.eventLoop().inEventLoop();
+        final boolean isLast = content instanceof LastHttpContent;
+        final Listener listener = this.listener;
+        if (listener != null) {
+            // the chunk is released once it was read, the listener owns a copy
+            final BytesArray chunk = new BytesArray(ByteBufUtil.getBytes(content.content()));
+            try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                listenerContext.restore();
+                listener.onChunk(chunk, isLast);
+            }
+        }
+        if (isLast) {
+            received = true;
+            this.listener = null;
+            this.pipelinedRequest = pipelinedRequest;
+            channel.config().setAutoRead(true);
+            if (onReceived != null) {
+                onReceived.accept(pipelinedRequest);
+            }
+        }
+    }
+
+    /**
+     * Calls the given consumer with the pipelined request, if any, once all content of the request was received. The content
+     * that is received after this method was called is discarded.
+     */
+    void whenReceived(Consumer<HttpPipelinedRequest> consumer) {
+        if (channel.eventLoop().inEventLoop()) {
+            // responses sent from the listener must be written before the next request on the connection is read
+            doWhenReceived(consumer);
+        } else {
+            channel.eventLoop().execute(() -> doWhenReceived(consumer));
+        }
+    }
+
+    private void doWhenReceived(Consumer<HttpPipelinedRequest> consumer) {
+        assert onReceived == null : "a response was already sent";
+        if (received) {
+            consumer.accept(pipelinedRequest);
+        } else {
+            onReceived = consumer;
+            listener = null;
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    /**
+     * Notifies the listener that the content will not be received completely because the channel was closed.
+     */
+    void onClose() {
+        final Listener listener = this.listener;
+        this.listener = null;
+        if (received == false && listener != null) {
+            try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                listenerContext.restore();
+                listener.onFailure(new ClosedChannelException());
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.http.netty4;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.function.Predicate;
+
+/**
+ * Aggregates the content of requests into full requests, except for the requests whose content is passed to their handler
+ * while it is being received. The head and the content of these requests are passed on as they are.
+ */
+class Netty4HttpObjectAggregator extends HttpObjectAggregator {
+
+    private final Predicate<HttpRequest> incremental;
+    private boolean passThrough;
+
+    Netty4HttpObjectAggregator(int maxContentLength, Predicate<HttpRequest> incremental) {
+        super(maxContentLength);
+        this.incremental = incremental;
+    }
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) throws Exception {
+        if (msg instanceof HttpRequest && msg instanceof FullHttpRequest == false) {
+            passThrough = incremental.test((HttpRequest) msg);
+        }
+        if (passThrough) {
+            if (msg instanceof LastHttpContent) {
+                passThrough = false;
+            }
+            return false;
+        }
+        return super.acceptInboundMessage(msg);
+    }
+}
@@ -24,7 +24,16 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.AttributeKey;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.http.netty4.pipelining.HttpPipelinedRequest;
 import org.elasticsearch.transport.netty4.Netty4Utils;
@@ -32,6 +41,10 @@ import org.elasticsearch.transport.netty4.Netty4Utils;
 @ChannelHandler.Sharable
 class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
 
+    // the content of the request that is currently received incrementally on a channel
+    private static final AttributeKey<Netty4HttpIncrementalContent> INCREMENTAL_CONTENT =
+        AttributeKey.newInstance("es-http-incremental-content");
+
     private final Netty4HttpServerTransport serverTransport;
     private final boolean httpPipeliningEnabled;
     private final boolean detailedErrorsEnabled;
@@ -46,6 +59,18 @@ class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpPipelinedRequest && ((HttpPipelinedRequest) msg).last() instanceof FullHttpRequest == false) {
+            // the last chunk of a request whose content is received incrementally
+            onIncrementalContent(ctx, ((HttpPipelinedRequest) msg).last(), (HttpPipelinedRequest) msg);
+            return;
+        } else if (msg instanceof HttpRequest && msg instanceof FullHttpRequest == false) {
+            onIncrementalRequest(ctx, (HttpRequest) msg);
+            return;
+        } else if (msg instanceof HttpContent && msg instanceof FullHttpRequest == false) {
+            onIncrementalContent(ctx, (HttpContent) msg, null);
+            return;
+        }
+
         final FullHttpRequest request;
         final HttpPipelinedRequest pipelinedRequest;
         if (this.httpPipeliningEnabled && msg instanceof HttpPipelinedRequest) {
@@ -76,6 +101,48 @@ class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
+    /**
+     * Dispatches a request whose content is received incrementally, see {@link Netty4HttpServerTransport#isIncremental(HttpRequest)},
+     * as soon as its head was received.
+     */
+    private void onIncrementalRequest(ChannelHandlerContext ctx, HttpRequest head) {
+        final Netty4HttpIncrementalContent content = new Netty4HttpIncrementalContent(ctx.channel(), threadContext);
+        ctx.channel().attr(INCREMENTAL_CONTENT).set(content);
+        if (HttpUtil.is100ContinueExpected(head)) {
+            // the aggregator only answers the expectations of the requests that it aggregates
+            ctx.writeAndFlush(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE, Unpooled.EMPTY_BUFFER));
+        }
+        final FullHttpRequest request = new DefaultFullHttpRequest(head.protocolVersion(), head.method(), head.uri(),
+            Unpooled.EMPTY_BUFFER, head.headers(), EmptyHttpHeaders.INSTANCE);
+        final Netty4HttpRequest httpRequest = new Netty4HttpRequest(serverTransport.xContentRegistry, request, ctx.channel(), content);
+        final Netty4HttpChannel channel = new Netty4HttpChannel(serverTransport, httpRequest, null, detailedErrorsEnabled, threadContext);
+        serverTransport.dispatchRequest(httpRequest, channel);
+    }
+
+    private void onIncrementalContent(ChannelHandlerContext ctx, HttpContent content, HttpPipelinedRequest pipelinedRequest) {
+        final Netty4HttpIncrementalContent incrementalContent;
+        if (content instanceof LastHttpContent) {
+            incrementalContent = ctx.channel().attr(INCREMENTAL_CONTENT).getAndSet(null);
+        } else {
+            incrementalContent = ctx.channel().attr(INCREMENTAL_CONTENT).get();
+        }
+        if (incrementalContent != null) {
+            incrementalContent.onContent(content, pipelinedRequest);
+        } else if (pipelinedRequest != null) {
+            // the pipelining handler retains the last chunk for the response, which will never be sent
+            pipelinedRequest.release();
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        final Netty4HttpIncrementalContent incrementalContent = ctx.channel().attr(INCREMENTAL_CONTENT).getAndSet(null);
+        if (incrementalContent != null) {
+            incrementalContent.onClose();
+        }
+        super.channelInactive(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
         Netty4Utils.maybeDie(cause);
@@ -22,6 +22,7 @@ package org.elasticsearch.http.netty4;
 import com.carrotsearch.hppc.IntHashSet;
 import com.carrotsearch.hppc.IntSet;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.AdaptiveRecvByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -34,12 +35,17 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpContentCompressor;
 import io.netty.handler.codec.http.HttpContentDecompressor;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpRequestDecoder;
 import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.timeout.ReadTimeoutException;
 import org.apache.logging.log4j.message.ParameterizedMessage;
 import org.apache.logging.log4j.util.Supplier;
@@ -100,6 +106,7 @@ import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_BIND_HOS
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_COMPRESSION;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_COMPRESSION_LEVEL;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_DETAILED_ERRORS_ENABLED;
+import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_INCREMENTAL_CONTENT;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CHUNK_SIZE;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH;
 import static org.elasticsearch.http.HttpTransportSettings.SETTING_HTTP_MAX_HEADER_SIZE;
@@ -150,6 +157,8 @@ public class Netty4HttpServerTransport extends AbstractLifecycleComponent implem
 
     protected final boolean pipelining;
 
+    protected final boolean incrementalContent;
+
     protected final int pipeliningMaxEvents;
 
     protected final boolean compression;
@@ -244,6 +253,8 @@ public class Netty4HttpServerTransport extends AbstractLifecycleComponent implem
         this.pipelining = SETTING_PIPELINING.get(settings);
         this.pipeliningMaxEvents = SETTING_PIPELINING_MAX_EVENTS.get(settings);
         this.corsConfig = buildCorsConfig(settings);
+        // the CORS handler rejects requests based on their head, which would leave the content of incremental requests behind
+        this.incrementalContent = SETTING_HTTP_INCREMENTAL_CONTENT.get(settings) && SETTING_CORS_ENABLED.get(settings) == false;
 
         // validate max content length
         if (maxContentLength.getBytes() > Integer.MAX_VALUE) {
@@ -479,6 +490,28 @@ public class Netty4HttpServerTransport extends AbstractLifecycleComponent implem
         return corsConfig;
     }
 
+    /**
+     * Whether the content of the given request is passed to its handler while it is being received rather than aggregated into a
+     * full request first. Such requests are not subject to the maximum content length.
+     */
+    boolean isIncremental(final HttpRequest request) {
+        if (incrementalContent == false || request.decoderResult().isSuccess() == false) {
+            return false;
+        }
+        if (HttpUtil.isTransferEncodingChunked(request) == false && HttpUtil.getContentLength(request, 0L) == 0) {
+            return false;
+        }
+        final FullHttpRequest withoutContent = new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(),
+            Unpooled.EMPTY_BUFFER, request.headers(), EmptyHttpHeaders.INSTANCE);
+        try {
+            return dispatcher.supportsIncrementalContent(new Netty4HttpRequest(xContentRegistry, withoutContent, null));
+        } catch (Exception e) {
+            // the request is aggregated and dispatched as usual, which reports the problem
+            logger.trace("failed to resolve whether the content of the request is received incrementally", e);
+            return false;
+        }
+    }
+
     void dispatchRequest(final RestRequest request, final RestChannel channel) {
         final ThreadContext threadContext = threadPool.getThreadContext();
         try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
@@ -548,7 +581,8 @@ public class Netty4HttpServerTransport extends AbstractLifecycleComponent implem
             ch.pipeline().addLast("decoder", decoder);
             ch.pipeline().addLast("decoder_compress", new HttpContentDecompressor());
             ch.pipeline().addLast("encoder", new HttpResponseEncoder());
-            final HttpObjectAggregator aggregator = new HttpObjectAggregator(Math.toIntExact(transport.maxContentLength.getBytes()));
+            final HttpObjectAggregator aggregator =
+                new Netty4HttpObjectAggregator(Math.toIntExact(transport.maxContentLength.getBytes()), transport::isIncremental);
             if (transport.maxCompositeBufferComponents != -1) {
                 aggregator.setMaxCumulationBufferComponents(transport.maxCompositeBufferComponents);
             }
@@ -21,7 +21,9 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.buffer.ByteBuf;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 
 import java.io.EOFException;
@@ -53,6 +55,19 @@ class ByteBufStreamInput extends StreamInput {
         return ref;
     }
 
+    @Override
+    public ReleasableBytesReference readReleasableBytesReference(int length) throws IOException {
+        if (length == 0) {
+            return ReleasableBytesReference.wrap(BytesArray.EMPTY);
+        }
+        ensureCanReadBytes(length);
+        // the retained slice keeps the network buffer alive until it is released, the frame decoder never discards the bytes
+        // of a buffer that is still referenced and accumulates the following messages into a fresh buffer instead
+        final ByteBuf slice = buffer.retainedSlice(buffer.readerIndex(), length);
+        buffer.skipBytes(length);
+        return new ReleasableBytesReference(Netty4Utils.toBytesReference(slice), slice::release);
+    }
+
     @Override
     public BytesRef readBytesRef(int length) throws IOException {
         if (!buffer.hasArray()) {
@@ -34,11 +34,15 @@ import io.netty.handler.codec.http.HttpVersion;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.http.BindHttpException;
@@ -48,6 +52,7 @@ import org.elasticsearch.http.NullDispatcher;
 import org.elasticsearch.http.netty4.cors.Netty4CorsConfig;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.rest.BytesRestResponse;
+import org.elasticsearch.rest.IncrementalContent;
 import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.test.ESTestCase;
@@ -60,8 +65,10 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
@@ -313,4 +320,135 @@ public class Netty4HttpServerTransportTests extends ESTestCase {
             assertNull(threadPool.getThreadContext().getTransient("bar_bad"));
         }
     }
+
+    public void testIncrementalContent() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(HttpTransportSettings.SETTING_HTTP_INCREMENTAL_CONTENT.getKey(), true)
+            .put(HttpTransportSettings.SETTING_HTTP_MAX_CONTENT_LENGTH.getKey(), "1kb")
+            .put(HttpTransportSettings.SETTING_PIPELINING.getKey(), randomBoolean())
+            .build();
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+            @Override
+            public void dispatchRequest(RestRequest request, RestChannel channel, ThreadContext threadContext) {
+                final IncrementalContent content = request.incrementalContent();
+                if (request.path().equals("/incremental") == false) {
+                    assertNull(content);
+                    channel.sendResponse(new BytesRestResponse(OK, BytesRestResponse.TEXT_CONTENT_TYPE, request.content()));
+                    return;
+                }
+                assertNotNull(content);
+                assertFalse(request.hasContent());
+                final BytesStreamOutput received = new BytesStreamOutput();
+                content.setListener(new IncrementalContent.Listener() {
+                    @Override
+                    public void onChunk(BytesReference chunk, boolean isLast) {
+                        try {
+                            chunk.writeTo(received);
+                        } catch (IOException e) {
+                            throw new AssertionError(e);
+                        }
+                        if (isLast) {
+                            channel.sendResponse(new BytesRestResponse(OK, BytesRestResponse.TEXT_CONTENT_TYPE, received.bytes()));
+                        } else if (randomBoolean()) {
+                            // apply backpressure for a little while
+                            content.pause();
+                            threadPool.schedule(TimeValue.timeValueMillis(randomIntBetween(0, 5)), ThreadPool.Names.GENERIC,
+                                content::resume);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+            }
+
+            @Override
+            public boolean supportsIncrementalContent(RestRequest request) {
+                return request.path().equals("/incremental");
+            }
+
+            @Override
+            public void dispatchBadRequest(RestRequest request, RestChannel channel, ThreadContext threadContext, Throwable cause) {
+                throw new AssertionError(cause);
+            }
+        };
+        try (Netty4HttpServerTransport transport = new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool,
+                xContentRegistry(), dispatcher)) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+            // well above the maximum content length, which only applies to aggregated requests
+            final String body = randomAlphaOfLength(randomIntBetween(1024 * 16, 1024 * 256));
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                @SuppressWarnings("unchecked")
+                final Collection<FullHttpResponse> responses = client.post(remoteAddress.address(),
+                    Tuple.tuple("/incremental", body), Tuple.tuple("/aggregated", "small"));
+                try {
+                    assertThat(responses.size(), equalTo(2));
+                    final Iterator<FullHttpResponse> iterator = responses.iterator();
+                    final FullHttpResponse incremental = iterator.next();
+                    assertThat(incremental.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(incremental.content().toString(StandardCharsets.UTF_8), equalTo(body));
+                    final FullHttpResponse aggregated = iterator.next();
+                    assertThat(aggregated.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(aggregated.content().toString(StandardCharsets.UTF_8), equalTo("small"));
+                } finally {
+                    responses.forEach(FullHttpResponse::release);
+                }
+            }
+        }
+    }
+
+    public void testEarlyResponseToIncrementalContent() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(HttpTransportSettings.SETTING_HTTP_INCREMENTAL_CONTENT.getKey(), true)
+            .put(HttpTransportSettings.SETTING_PIPELINING.getKey(), randomBoolean())
+            .build();
+        final HttpServerTransport.Dispatcher dispatcher = new HttpServerTransport.Dispatcher() {
+            @Override
+            public void dispatchRequest(RestRequest request, RestChannel channel, ThreadContext threadContext) {
+                if (request.incrementalContent() != null) {
+                    if (randomBoolean()) {
+                        // the remaining content is discarded even if reading was paused
+                        request.incrementalContent().pause();
+                    }
+                    channel.sendResponse(new BytesRestResponse(BAD_REQUEST, BytesRestResponse.TEXT_CONTENT_TYPE, "rejected"));
+                } else {
+                    channel.sendResponse(new BytesRestResponse(OK, BytesRestResponse.TEXT_CONTENT_TYPE, "done"));
+                }
+            }
+
+            @Override
+            public boolean supportsIncrementalContent(RestRequest request) {
+                return request.path().equals("/incremental");
+            }
+
+            @Override
+            public void dispatchBadRequest(RestRequest request, RestChannel channel, ThreadContext threadContext, Throwable cause) {
+                throw new AssertionError(cause);
+            }
+        };
+        try (Netty4HttpServerTransport transport = new Netty4HttpServerTransport(settings, networkService, bigArrays, threadPool,
+                xContentRegistry(), dispatcher)) {
+            transport.start();
+            final TransportAddress remoteAddress = randomFrom(transport.boundAddress().boundAddresses());
+            final String body = randomAlphaOfLength(randomIntBetween(1024 * 16, 1024 * 256));
+            try (Netty4HttpClient client = new Netty4HttpClient()) {
+                @SuppressWarnings("unchecked")
+                final Collection<FullHttpResponse> responses = client.post(remoteAddress.address(),
+                    Tuple.tuple("/incremental", body), Tuple.tuple("/aggregated", "small"));
+                try {
+                    assertThat(responses.size(), equalTo(2));
+                    final Iterator<FullHttpResponse> iterator = responses.iterator();
+                    assertThat(iterator.next().status(), equalTo(HttpResponseStatus.BAD_REQUEST));
+                    final FullHttpResponse aggregated = iterator.next();
+                    assertThat(aggregated.status(), equalTo(HttpResponseStatus.OK));
+                    assertThat(aggregated.content().toString(StandardCharsets.UTF_8), equalTo("done"));
+                } finally {
+                    responses.forEach(FullHttpResponse::release);
+                }
+            }
+        }
+    }
 }
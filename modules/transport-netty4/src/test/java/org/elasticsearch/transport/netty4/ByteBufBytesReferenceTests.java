@@ -20,12 +20,22 @@ package org.elasticsearch.transport.netty4;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.common.bytes.AbstractBytesReferenceTestCase;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.transport.TcpHeader;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ByteBufBytesReferenceTests extends AbstractBytesReferenceTestCase {
 
@@ -82,4 +92,76 @@ public class ByteBufBytesReferenceTests extends AbstractBytesReferenceTestCase {
         assertEquals(utf8ToString, byteBufBytesReference.utf8ToString());
     }
 
+
+    public void testReadReleasableBytesReference() throws IOException {
+        final byte[] bytes = randomBytes(randomIntBetween(1, 100));
+        final BytesStreamOutput out = new BytesStreamOutput();
+        out.writeBytesReference(new BytesArray(bytes));
+        out.writeBytesReference(BytesArray.EMPTY);
+        final BytesRef bytesRef = out.bytes().toBytesRef();
+        final ByteBuf buffer = Unpooled.wrappedBuffer(bytesRef.bytes, bytesRef.offset, bytesRef.length);
+        final StreamInput in = Netty4Utils.toBytesReference(buffer).streamInput();
+        final ReleasableBytesReference reference = in.readReleasableBytesReference();
+        assertEquals(new BytesArray(bytes), reference);
+        assertEquals(2, buffer.refCnt());
+        assertEquals(0, in.readReleasableBytesReference().length());
+        assertEquals(-1, in.read());
+        reference.close();
+        assertEquals(1, buffer.refCnt());
+        // closing is idempotent
+        reference.close();
+        assertEquals(1, buffer.refCnt());
+    }
+
+    /**
+     * Bytes that are retained from a message must not be overwritten when the frame decoder accumulates the following messages.
+     */
+    public void testRetainedBytesSurviveFrameDecoding() throws IOException {
+        final List<ReleasableBytesReference> retained = new ArrayList<>();
+        final EmbeddedChannel channel = new EmbeddedChannel(new Netty4SizeHeaderFrameDecoder(), new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+                final ByteBuf buffer = (ByteBuf) msg;
+                final int messageSize = buffer.getInt(buffer.readerIndex() - TcpHeader.MESSAGE_LENGTH_SIZE);
+                final int expectedReaderIndex = buffer.readerIndex() + messageSize;
+                try (StreamInput in = Netty4Utils.toBytesReference(buffer, messageSize).streamInput()) {
+                    retained.add(in.readReleasableBytesReference());
+                } finally {
+                    buffer.readerIndex(expectedReaderIndex);
+                }
+            }
+        });
+        final int numMessages = randomIntBetween(2, 10);
+        final List<BytesReference> expected = new ArrayList<>();
+        final BytesStreamOutput out = new BytesStreamOutput();
+        for (int i = 0; i < numMessages; i++) {
+            final BytesArray payload = new BytesArray(randomBytes(randomIntBetween(1, 1000)));
+            expected.add(payload);
+            final BytesStreamOutput message = new BytesStreamOutput();
+            message.writeBytesReference(payload);
+            out.writeByte((byte) 'E');
+            out.writeByte((byte) 'S');
+            out.writeInt(message.bytes().length());
+            message.bytes().writeTo(out);
+        }
+        // feed the messages in random chunks so that the decoder needs to accumulate partial messages
+        final byte[] bytes = BytesReference.toBytes(out.bytes());
+        int offset = 0;
+        while (offset < bytes.length) {
+            final int length = Math.min(bytes.length - offset, randomIntBetween(1, 500));
+            channel.writeInbound(Unpooled.copiedBuffer(bytes, offset, length));
+            offset += length;
+        }
+        assertEquals(expected, retained);
+        for (ReleasableBytesReference reference : retained) {
+            reference.close();
+        }
+        assertFalse(channel.finish());
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random().nextBytes(bytes);
+        return bytes;
+    }
 }
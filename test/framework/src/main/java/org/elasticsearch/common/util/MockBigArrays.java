@@ -93,6 +93,11 @@ public class MockBigArrays extends BigArrays {
         return new MockBigArrays(this.recycler, this.breakerService, true);
     }
 
+    @Override
+    public BigArrays withoutCircuitBreaking() {
+        return checkBreaker ? new MockBigArrays(this.recycler, this.breakerService, false) : this;
+    }
+
     @Override
     public ByteArray newByteArray(long size, boolean clearOnResize) {
         final ByteArrayWrapper array = new ByteArrayWrapper(super.newByteArray(size, clearOnResize), clearOnResize);
@@ -62,6 +62,7 @@ import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.DirectoryService;
 import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
 import org.elasticsearch.indices.recovery.RecoveryFailedException;
 import org.elasticsearch.indices.recovery.RecoverySourceHandler;
@@ -108,12 +109,15 @@ public abstract class IndexShardTestCase extends ESTestCase {
     };
 
     protected ThreadPool threadPool;
+    protected TranslogSyncScheduler translogSyncScheduler;
     private long primaryTerm;
 
     @Override
     public void setUp() throws Exception {
         super.setUp();
         threadPool = new TestThreadPool(getClass().getName(), threadPoolSettings());
+        translogSyncScheduler = new TranslogSyncScheduler(Settings.builder()
+            .put(TranslogSyncScheduler.GROUP_COMMIT_ENABLED_SETTING.getKey(), randomBoolean()).build(), threadPool);
         primaryTerm = randomIntBetween(1, 100); // use random but fixed term for creating shards
     }
 
@@ -285,7 +289,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
             };
             indexShard = new IndexShard(routing, indexSettings, shardPath, store, () -> null, indexCache, mapperService, similarityService,
                 engineFactory, indexEventListener, indexSearcherWrapper, threadPool,
-                BigArrays.NON_RECYCLING_INSTANCE, warmer, Collections.emptyList(), Arrays.asList(listeners), globalCheckpointSyncer);
+                BigArrays.NON_RECYCLING_INSTANCE, warmer, Collections.emptyList(), Arrays.asList(listeners), globalCheckpointSyncer,
+                translogSyncScheduler);
             success = true;
         } finally {
             if (success == false) {
@@ -461,6 +466,8 @@ public abstract class IndexShardTestCase extends ESTestCase {
             recoveryTarget,
             request,
             (int) ByteSizeUnit.MB.toBytes(1),
+            between(1, 8),
+            between(1, 4),
             Settings.builder().put(Node.NODE_NAME_SETTING.getKey(), pNode.getName()).build());
         final ShardRouting initializingReplicaRouting = replica.routingEntry();
         primary.updateShardState(primary.routingEntry(), primary.getPrimaryTerm(), null, currentClusterStateVersion.incrementAndGet(),
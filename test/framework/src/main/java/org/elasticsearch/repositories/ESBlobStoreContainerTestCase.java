@@ -25,6 +25,7 @@ import org.elasticsearch.common.blobstore.BlobMetaData;
 import org.elasticsearch.common.blobstore.BlobPath;
 import org.elasticsearch.common.blobstore.BlobStore;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
@@ -64,6 +65,21 @@ public abstract class ESBlobStoreContainerTestCase extends ESTestCase {
         }
     }
 
+    public void testReadRange() throws IOException {
+        try(BlobStore store = newBlobStore()) {
+            final BlobContainer container = store.blobContainer(new BlobPath());
+            byte[] data = randomBytes(randomIntBetween(10, scaledRandomIntBetween(1024, 1 << 16)));
+            writeBlob(container, "foobar", new BytesArray(data));
+            int position = randomIntBetween(0, data.length - 1);
+            int length = randomIntBetween(1, data.length - position);
+            try (InputStream stream = container.readBlob("foobar", position, length)) {
+                byte[] target = new byte[length];
+                assertEquals(length, Streams.readFully(stream, target));
+                assertArrayEquals(Arrays.copyOfRange(data, position, position + length), target);
+            }
+        }
+    }
+
     public void testMoveAndList() throws IOException {
         try(BlobStore store = newBlobStore()) {
             final BlobContainer container = store.blobContainer(new BlobPath());